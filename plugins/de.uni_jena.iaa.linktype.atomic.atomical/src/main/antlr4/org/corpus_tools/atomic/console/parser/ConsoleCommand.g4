@@ -13,15 +13,21 @@ start
 
 
 command
-	: {"a".equals(getCurrentToken().getText())}? cmd=STR (elements+=STR)+  anno=qname ':' (value=STR)? # AnnotateCommand
-	| {"n".equals(getCurrentToken().getText())}? cmd=STR (elements+=STR)* anno_args # NewStructureNodeCommand
-	| {"s".equals(getCurrentToken().getText())}? cmd=STR (elements+=STR)+ anno_args # NewSpanNodeCommand
-	| {"d".equals(getCurrentToken().getText())}? cmd=STR (elements+=STR)+ # DeleteElementCommand
-	| {"e".equals(getCurrentToken().getText())}? cmd=STR type=TYPE_STR source=STR target=STR anno=qname ':' (value=STR)? # AddOrDeleteEdgeCommand
+	: {"a".equals(getCurrentToken().getText())}? cmd=STR (elements+=element)+  anno=qname ':' (value=STR)? # AnnotateCommand
+	| {"n".equals(getCurrentToken().getText())}? cmd=STR (elements+=element)* anno_args # NewStructureNodeCommand
+	| {"s".equals(getCurrentToken().getText())}? cmd=STR (elements+=element)+ anno_args # NewSpanNodeCommand
+	| {"d".equals(getCurrentToken().getText())}? cmd=STR (elements+=element)+ # DeleteElementCommand
+	| {"e".equals(getCurrentToken().getText())}? cmd=STR type=TYPE_STR (source=STR target=STR | query=QUERY) anno=qname ':' (value=STR)? # AddOrDeleteEdgeCommand
 	| {"help".equals(getCurrentToken().getText())}? cmd=STR # HelpCommand
 	| {"clear".equals(getCurrentToken().getText())}? cmd=STR # ClearCommand
 	;
 
+// an element ID, or an AQL query in curly brackets selecting the matched nodes
+element
+    : id=STR
+    | query=QUERY
+    ;
+
 anno_args
     : anno=qname ':' value=STR
     ;
@@ -32,5 +38,9 @@ qname
 
 TYPE_STR : ('-d' | '-p' | '-r' | '-o') ;
 NEWLINE : [\r\n]+;
+// braces may be nested, and may be used in quoted strings and regular expressions, e.g., {pos=/N{1,2}/}
+QUERY : '{' QUERY_PART* '}' ;
+fragment QUERY_PART : ~('{' | '}' | '"' | '/' | '\n' | '\r') | '{' QUERY_PART* '}' | QUERY_LITERAL ;
+fragment QUERY_LITERAL : '"' ('\\' ~('\n' | '\r') | ~('"' | '\\' | '\n' | '\r'))* '"' | '/' ('\\' ~('\n' | '\r') | ~('/' | '\\' | '\n' | '\r'))* '/' ;
 STR : ~(' ' | '\n' | '\r' | ':'  )+ ;
 WS : [ \t\r\n]+ -> skip;
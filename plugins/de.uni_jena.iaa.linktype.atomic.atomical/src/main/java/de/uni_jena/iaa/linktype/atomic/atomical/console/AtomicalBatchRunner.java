@@ -0,0 +1,239 @@
+/**
+ *
+ */
+package de.uni_jena.iaa.linktype.atomic.atomical.console;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
+import org.corpus_tools.atomic.api.editors.DocumentGraphSaveJob;
+import org.corpus_tools.atomic.console.parser.ConsoleCommandParser;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.corpus_tools.search.service.SearchService;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A {@link Job} running AtomicAL commands on many documents of a project
+ * without opening editors.
+ * <p>
+ * Documents are loaded, edited and saved by a fixed number of worker
+ * threads, so that at most one document per worker is held in memory.
+ * Documents are acquired from the {@link DocumentGraphRegistry} while they
+ * are processed. Documents which are open in an editor are skipped, as
+ * their graphs are shared with the editor and may contain unsaved changes. The job's result
+ * summarizes the run, and contains an error for each document which could
+ * not be processed.
+ * </p>
+ *
+ */
+final class AtomicalBatchRunner extends Job {
+
+	private static final Logger log = LogManager.getLogger(AtomicalBatchRunner.class);
+
+	private static final String PLUGIN_ID = "de.uni_jena.iaa.linktype.atomic.atomical";
+
+	private final List<ConsoleCommandParser.StartContext> trees;
+	private final List<URI> documents;
+	private final String corpusName;
+	private final URI saltProjectLocation;
+	private final SearchService search;
+	private final Set<String> queryTokens = new LinkedHashSet<>();
+
+	private volatile boolean cancelled = false;
+
+	/**
+	 * @param trees the parsed commands, which are run on each document in order
+	 * @param documents the file URIs of the documents' SaltXML files
+	 * @param corpusName the name of the project containing the documents
+	 * @param saltProjectLocation the file URI of the project's Salt project
+	 * file, or <code>null</code>
+	 * @param search the search service to resolve queries with, or
+	 * <code>null</code> if the commands don't contain queries
+	 */
+	AtomicalBatchRunner(List<ConsoleCommandParser.StartContext> trees, List<URI> documents, String corpusName, URI saltProjectLocation, SearchService search) {
+		super("Running AtomicAL commands on " + documents.size() + " documents of " + corpusName);
+		this.trees = trees;
+		this.documents = documents;
+		this.corpusName = corpusName;
+		this.saltProjectLocation = saltProjectLocation;
+		this.search = search;
+		for (ConsoleCommandParser.StartContext tree : trees) {
+			QuerySelector.collectQueries(tree, queryTokens);
+		}
+		setUser(true);
+		setPriority(Job.LONG);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		SubMonitor progress = SubMonitor.convert(monitor, getName(), documents.size());
+		// Don't overwrite changes which are being saved by editors
+		DocumentGraphSaveJob.joinAll(progress.newChild(0));
+		int threads = Math.max(1, Math.min(documents.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		CompletionService<IStatus> completion = new ExecutorCompletionService<>(workers);
+		for (final URI document : documents) {
+			completion.submit(() -> process(document));
+		}
+		List<IStatus> problems = new ArrayList<>();
+		int changed = 0;
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				IStatus status = completion.take().get();
+				if (status.isOK() && status.getCode() > 0) {
+					changed++;
+				}
+				else if (!status.isOK() && status.getSeverity() != IStatus.CANCEL) {
+					problems.add(status);
+				}
+				progress.worked(1);
+				if (progress.isCanceled()) {
+					cancelled = true;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelled = true;
+		}
+		catch (ExecutionException e) {
+			log.error("AtomicAL batch run failed.", e);
+			problems.add(new Status(IStatus.ERROR, PLUGIN_ID, "AtomicAL batch run failed.", e.getCause()));
+		}
+		finally {
+			workers.shutdownNow();
+			try {
+				workers.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		String summary = String.format("Changed %d of %d documents of %s in %d s%s.", changed, documents.size(), corpusName,
+				(System.currentTimeMillis() - start) / 1000, cancelled ? " before the run was cancelled" : "");
+		log.info(summary);
+		if (problems.isEmpty()) {
+			return new Status(IStatus.OK, PLUGIN_ID, summary);
+		}
+		return new MultiStatus(PLUGIN_ID, IStatus.OK, problems.toArray(new IStatus[problems.size()]), summary, null);
+	}
+
+	/*
+	 * Runs the commands on a single document, and returns an OK status with
+	 * code 1 if the document has been changed and saved. The graph is
+	 * acquired from the registry for the whole run, so that an editor
+	 * opening the document in the meantime shares it, and waits for the
+	 * graph's lock until the changes have been saved.
+	 */
+	private IStatus process(URI document) {
+		if (cancelled) {
+			return Status.CANCEL_STATUS;
+		}
+		DocumentGraphRegistry registry = DocumentGraphRegistry.getInstance();
+		SDocumentGraph graph;
+		try {
+			graph = registry.acquire(document, saltProjectLocation);
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to load {}.", document, e);
+			return new Status(IStatus.ERROR, PLUGIN_ID, "Failed to load " + document.lastSegment() + ".", e);
+		}
+		try {
+			if (registry.getReferenceCount(document) > 1) {
+				return new Status(IStatus.WARNING, PLUGIN_ID, document.lastSegment() + " is open in an editor and has been skipped.");
+			}
+			if (registry.hasUnsavedChanges(graph)) {
+				return new Status(IStatus.WARNING, PLUGIN_ID, document.lastSegment() + " has unsaved changes from a previous session and has been skipped.");
+			}
+			DocumentGraphSaveJob saveJob;
+			long journalPosition;
+			Lock lock = registry.getLock(graph).writeLock();
+			lock.lock();
+			try {
+				QuerySelector queries = QuerySelector.NONE;
+				if (!queryTokens.isEmpty()) {
+					queries = new QuerySelector();
+					queries.resolve(queryTokens, search, graph);
+				}
+				CommandExecutor executor = new CommandExecutor(graph, queries);
+				ParseTreeWalker walker = new ParseTreeWalker();
+				for (ConsoleCommandParser.StartContext tree : trees) {
+					walker.walk(executor, tree);
+				}
+				if (executor.flush() == 0) {
+					return Status.OK_STATUS;
+				}
+				journalPosition = registry.getJournalPosition(graph);
+				try {
+					saveJob = new DocumentGraphSaveJob(document, graph);
+				}
+				catch (UnsupportedOperationException e) {
+					SaltUtil.saveDocumentGraph(graph, document);
+					File savedFile = new File(document.toFileString());
+					registry.compactJournal(graph, journalPosition, savedFile.length(), savedFile.lastModified());
+					return new Status(IStatus.OK, PLUGIN_ID, 1, document.lastSegment(), null);
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			// The save job works on a snapshot, so the graph needn't be locked
+			saveJob.schedule();
+			saveJob.join();
+			IStatus result = saveJob.getResult();
+			if (result == null) {
+				return Status.CANCEL_STATUS;
+			}
+			if (!result.isOK()) {
+				return result;
+			}
+			registry.compactJournal(graph, journalPosition, saveJob.getSavedLength(), saveJob.getSavedTimestamp());
+			return new Status(IStatus.OK, PLUGIN_ID, 1, document.lastSegment(), null);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to run AtomicAL commands on {}.", document, e);
+			return new Status(IStatus.ERROR, PLUGIN_ID, "Failed to run commands on " + document.lastSegment() + ".", e);
+		}
+		finally {
+			registry.release(document);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#canceling()
+	 */
+	@Override
+	protected void canceling() {
+		cancelled = true;
+	}
+
+}
@@ -4,8 +4,18 @@
 package de.uni_jena.iaa.linktype.atomic.atomical.console;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Lock;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.BaseErrorListener;
@@ -15,10 +25,25 @@ import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.editors.CorpusStructureCache;
 import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.editors.DocumentGraphMutationExecutor;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandLexer;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser;
 import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.search.service.SearchService;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
@@ -37,9 +62,26 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 
 	private static final Logger log = LogManager.getLogger(AtomicalConsole.class);
 	
+	private static final String BATCH_BEGIN = "begin";
+	private static final String BATCH_END = "end";
+	private static final String RUN = "run";
+	private static final String RUN_ALL = "runall";
+	private static final String COMMENT = "#";
+	
 	private IOConsoleOutputStream out;
 	private IOConsoleOutputStream err;
 	
+	/**
+	 * The commands entered since {@link #BATCH_BEGIN}, or <code>null</code>
+	 * if no batch is being entered.
+	 */
+	private List<String> batch = null;
+	
+	/**
+	 * The node index for the graph of the last active editor.
+	 */
+	private NodeIndex nodeIndex = null;
+	
 	public AtomicalConsole(String name, ImageDescriptor imageDescriptor) {
 		super(name, imageDescriptor);
 
@@ -77,6 +119,12 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 				break;
 			}
 		}
+		Display.getDefault().syncExec(() -> {
+			if (nodeIndex != null) {
+				nodeIndex.dispose();
+				nodeIndex = null;
+			}
+		});
 		log.trace("AtomicAL console was closed");
 		
 
@@ -88,41 +136,359 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 			// don't try to parse an empty command
 			return;
 		}
+		String trimmed = input.trim();
+		if (batch != null) {
+			if (BATCH_END.equals(trimmed)) {
+				List<String> lines = batch;
+				batch = null;
+				runBatch(lines);
+			}
+			else {
+				batch.add(input);
+			}
+			return;
+		}
+		if (BATCH_BEGIN.equals(trimmed)) {
+			batch = new ArrayList<>();
+			writeOut("Enter commands, one per line, and \"" + BATCH_END + "\" to run them as a batch.\n");
+			return;
+		}
+		if (trimmed.startsWith(RUN + " ")) {
+			runScript(new File(trimmed.substring(RUN.length()).trim()));
+			return;
+		}
+		if (trimmed.startsWith(RUN_ALL + " ")) {
+			String[] args = trimmed.substring(RUN_ALL.length()).trim().split("\\s+", 2);
+			if (args.length < 2) {
+				writeErr("Usage: " + RUN_ALL + " [project] [path]\n");
+			}
+			else {
+				runScriptOnProject(args[0], new File(args[1]));
+			}
+			return;
+		}
 		
-		ConsoleCommandLexer lexer = new ConsoleCommandLexer(new ANTLRInputStream(input));
-		ConsoleCommandParser parser = new ConsoleCommandParser(new CommonTokenStream(lexer));
+		final List<String> errors = new ArrayList<>();
+		final ConsoleCommandParser.StartContext parsedTree = parse(input, errors);
+		if(!errors.isEmpty()) {
+			for (String error : errors) {
+				writeErr(error + "\n");
+			}
+			writeErr("Could not parse command. Enter \"help\" to get a list of all valid commands.\n");
+			return;
+		}
+		final QuerySelector queries = resolveQueries(Collections.singletonList(parsedTree));
+		if (queries == null) {
+			return;
+		}
 
-		parser.addErrorListener(new BaseErrorListener() {
+		execute(Collections.singletonList(parsedTree), queries, false);
+
+	}
+
+	/**
+	 * Runs the AtomicAL commands in a script file as one batch, cf.
+	 * {@link #runBatch(List)}. Empty lines and lines starting with
+	 * <code>#</code> are ignored.
+	 * 
+	 * @param script the script file
+	 */
+	public void runScript(File script) {
+		List<String> commands = readScript(script);
+		if (commands != null) {
+			runBatch(commands);
+		}
+	}
+
+	/**
+	 * Runs the AtomicAL commands in a script file on all documents of a
+	 * project in the background, without opening editors, cf.
+	 * {@link AtomicalBatchRunner}. The commands are parsed before the run
+	 * is started, and if any of them cannot be parsed, none is executed.
+	 * 
+	 * @param projectName the name of the project
+	 * @param script the script file
+	 */
+	public void runScriptOnProject(String projectName, File script) {
+		List<String> commands = readScript(script);
+		final List<ConsoleCommandParser.StartContext> trees = commands == null ? null : parseBatch(commands);
+		if (trees == null) {
+			return;
+		}
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+		if (!project.isOpen()) {
+			writeErr("There is no open project " + projectName + ".\n");
+			return;
+		}
+		final List<URI> documents = new ArrayList<>();
+		try {
+			project.accept(resource -> {
+				if (resource.getType() == IResource.FILE && "salt".equals(resource.getFileExtension())
+						&& !DocumentGraphEditor.SALT_PROJECT_FILE_NAME.equals(resource.getName()) && resource.getLocation() != null) {
+					documents.add(URI.createFileURI(resource.getLocation().toOSString()));
+				}
+				return true;
+			});
+		}
+		catch (CoreException e) {
+			log.error("Could not find the documents of project {}.", projectName, e);
+			writeErr("Could not find the documents of project " + projectName + ".\n");
+			return;
+		}
+		if (documents.isEmpty()) {
+			writeErr("Project " + projectName + " does not contain any documents.\n");
+			return;
+		}
+		IFile saltProjectFile = CorpusStructureCache.findSaltProjectFile(project);
+		URI saltProjectLocation = saltProjectFile == null || saltProjectFile.getLocation() == null ? null
+				: URI.createFileURI(saltProjectFile.getLocation().toOSString());
+		final Set<String> queryTokens = new LinkedHashSet<>();
+		for (ConsoleCommandParser.StartContext tree : trees) {
+			QuerySelector.collectQueries(tree, queryTokens);
+		}
+		final QueryTarget target = new QueryTarget();
+		if (!queryTokens.isEmpty()) {
+			Display.getDefault().syncExec(() -> {
+				IEclipseContext context = PlatformUI.getWorkbench().getService(IEclipseContext.class);
+				target.search = ContextInjectionFactory.make(SearchService.class, context);
+			});
+		}
+		AtomicalBatchRunner runner = new AtomicalBatchRunner(trees, documents, projectName, saltProjectLocation, target.search);
+		runner.addJobChangeListener(new JobChangeAdapter() {
 			@Override
-			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-					int charPositionInLine, String msg, RecognitionException e) {
-				Display.getDefault().syncExec(() -> {
-					try {
-						err.write(msg + "\n");
-					} catch (IOException ex) {
-						log.error("Can't write to console output stream", ex);
-					}
-				});
+			public void done(IJobChangeEvent event) {
+				IStatus result = event.getResult();
+				writeOut(result.getMessage() + "\n");
+				for (IStatus problem : result.getChildren()) {
+					writeErr(problem.getMessage() + "\n");
+				}
 			}
 		});
-		
-		ConsoleCommandParser.StartContext parsedTree = parser.start();
+		writeOut("Running " + trees.size() + " commands on " + documents.size() + " documents of " + projectName + " in the background.\n");
+		runner.schedule();
+	}
 
-		// execute the rest of the command execution inside the main thread
+	/*
+	 * Reads the commands from a script file, replacing comments with empty
+	 * lines so that line numbers are kept, or returns null if the file
+	 * cannot be read.
+	 */
+	private List<String> readScript(File script) {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(script.toPath(), StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			log.error("Could not read AtomicAL script {}.", script, e);
+			writeErr("Could not read script " + script.getAbsolutePath() + ".\n");
+			return null;
+		}
+		List<String> commands = new ArrayList<>(lines.size());
+		for (String line : lines) {
+			commands.add(line.trim().startsWith(COMMENT) ? "" : line);
+		}
+		return commands;
+	}
+
+	/**
+	 * Runs a batch of AtomicAL commands. All commands are parsed before any
+	 * of them is executed, and if any of them cannot be parsed, none is
+	 * executed. The commands are then executed on the active editor's graph
+	 * in one go, and their changes are published as one
+	 * update, which is also undone in one step. If a command fails, the
+	 * changes of the commands executed before are rolled back.
+	 * 
+	 * @param lines the commands, one per line, where empty lines are ignored
+	 */
+	public void runBatch(List<String> lines) {
+		final List<ConsoleCommandParser.StartContext> trees = parseBatch(lines);
+		if (trees == null) {
+			return;
+		}
+		final QuerySelector queries = resolveQueries(trees);
+		if (queries == null) {
+			return;
+		}
+		execute(trees, queries, true);
+	}
+
+	/*
+	 * Runs parsed commands on the active editor's graph. Only the editor
+	 * and its node index are determined in the UI thread, the commands are
+	 * run by the DocumentGraphMutationExecutor, which holds the graph's
+	 * write lock while editors apply the changes in the UI thread. Waits
+	 * until the commands have been run, so that the output stays in order.
+	 * Without an active editor, commands are run in the console's thread,
+	 * where only commands which don't need a graph, e.g., "help", work.
+	 */
+	private void execute(final List<ConsoleCommandParser.StartContext> trees, final QuerySelector queries, final boolean batch) {
+		final List<CommandExecutor> executor = new ArrayList<>(1);
 		Display.getDefault().syncExec(() -> {
-			if(parser.getNumberOfSyntaxErrors() > 0) {
-				try {
-					err.write("Could not parse command. Enter \"help\" to get a list of all valid commands.\n");
-				} catch (IOException ex) {
-					log.error("Can't write to console output stream", ex);
+			DocumentGraphEditor editor = getEditor();
+			SDocumentGraph graph = editor == null ? null : editor.getGraph();
+			executor.add(new CommandExecutor(this, editor, graph == null ? null : getNodeIndex(graph), batch, queries));
+		});
+		final CommandExecutor commandExecutor = executor.get(0);
+		Callable<Integer> commands = () -> {
+			long start = System.currentTimeMillis();
+			ParseTreeWalker walker = new ParseTreeWalker();
+			int executed = 0;
+			try {
+				for (ConsoleCommandParser.StartContext tree : trees) {
+					walker.walk(commandExecutor, tree);
+					executed++;
+				}
+			}
+			catch (RuntimeException e) {
+				// All commands are applied, or none is
+				log.error("Failed to execute AtomicAL command {}, rolling back.", executed + 1, e);
+				commandExecutor.rollback();
+				writeErr((batch ? "Batch aborted at command " + (executed + 1) : "Command failed") + ": " + e.getMessage() + "\n");
+				if (batch) {
+					writeErr("No changes have been made, the " + executed + " commands executed before have been rolled back.\n");
 				}
-			} else {
-				ParseTreeWalker walker = new ParseTreeWalker();
-				walker.walk(new CommandExecutor(this), parsedTree);
+				return 0;
+			}
+			int changes = commandExecutor.flush();
+			log.trace("Executed {} AtomicAL commands with {} changes in {} ms.", executed, changes, System.currentTimeMillis() - start);
+			if (batch) {
+				writeOut("Executed " + executed + " of " + trees.size() + " commands.\n");
 			}
+			return executed;
+		};
+		SDocumentGraph graph = commandExecutor.getGraph();
+		try {
+			if (graph == null) {
+				commands.call();
+			}
+			else {
+				DocumentGraphMutationExecutor.getInstance().submit(graph, commandExecutor, commands).get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (Exception e) {
+			log.error("Failed to execute AtomicAL commands.", e);
+		}
+	}
 
+	/*
+	 * Parses a batch of commands, or returns null and reports the syntax
+	 * errors if any of them cannot be parsed.
+	 */
+	private List<ConsoleCommandParser.StartContext> parseBatch(List<String> lines) {
+		final List<ConsoleCommandParser.StartContext> trees = new ArrayList<>(lines.size());
+		final List<String> errors = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			List<String> lineErrors = new ArrayList<>();
+			ConsoleCommandParser.StartContext tree = parse(line.endsWith("\n") ? line : line + "\n", lineErrors);
+			for (String error : lineErrors) {
+				errors.add("Line " + (i + 1) + ": " + error);
+			}
+			trees.add(tree);
+		}
+		if (!errors.isEmpty()) {
+			for (String error : errors) {
+				writeErr(error + "\n");
+			}
+			writeErr("Could not parse batch, no command has been executed.\n");
+			return null;
+		}
+		return trees;
+	}
+
+	/**
+	 * Runs the AQL queries used as element selectors in the given commands
+	 * on the active editor's document. Must not be called in the UI thread.
+	 * 
+	 * @param trees the parsed commands
+	 * @return the query matches, or <code>null</code> if the queries could
+	 * not be run
+	 */
+	private QuerySelector resolveQueries(List<ConsoleCommandParser.StartContext> trees) {
+		final Set<String> queryTokens = new LinkedHashSet<>();
+		for (ConsoleCommandParser.StartContext tree : trees) {
+			QuerySelector.collectQueries(tree, queryTokens);
+		}
+		if (queryTokens.isEmpty()) {
+			return QuerySelector.NONE;
+		}
+		// Find the document and the search service in the UI thread
+		final QueryTarget target = new QueryTarget();
+		Display.getDefault().syncExec(() -> {
+			DocumentGraphEditor editor = getEditor();
+			IFile file = editor == null ? null : editor.getEditorInput().getAdapter(IFile.class);
+			if (file != null && editor.getGraph() != null) {
+				IEclipseContext context = PlatformUI.getWorkbench().getService(IEclipseContext.class);
+				target.search = ContextInjectionFactory.make(SearchService.class, context);
+				target.graph = editor.getGraph();
+			}
 		});
+		if (target.search == null) {
+			writeErr("Queries can only be used with an active document editor.\n");
+			return null;
+		}
+		QuerySelector queries = new QuerySelector();
+		// Keep the graph from being changed while it is indexed and searched
+		Lock lock = DocumentGraphRegistry.getInstance().getLock(target.graph).readLock();
+		lock.lock();
+		try {
+			queries.resolve(queryTokens, target.search, target.graph);
+		}
+		catch (RuntimeException e) {
+			log.error("Could not run queries {}.", queryTokens, e);
+			writeErr("Could not run queries " + String.join(" ", queryTokens) + ": " + e.getMessage() + "\n");
+			return null;
+		}
+		finally {
+			lock.unlock();
+		}
+		for (String queryToken : queryTokens) {
+			writeOut("Query " + queryToken + " has " + queries.getMatchCount(queryToken) + " matches.\n");
+		}
+		return queries;
+	}
+
+	/**
+	 * Parses a single AtomicAL command.
+	 * 
+	 * @param input the command, terminated by a line break
+	 * @param errors the list to which syntax error messages are added
+	 * @return the parse tree
+	 */
+	private ConsoleCommandParser.StartContext parse(String input, final List<String> errors) {
+		ConsoleCommandLexer lexer = new ConsoleCommandLexer(new ANTLRInputStream(input));
+		ConsoleCommandParser parser = new ConsoleCommandParser(new CommonTokenStream(lexer));
+		parser.removeErrorListeners();
+		parser.addErrorListener(new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+					int charPositionInLine, String msg, RecognitionException e) {
+				errors.add(msg);
+			}
+		});
+		return parser.start();
+	}
+
+	private void writeOut(String message) {
+		try {
+			out.write(message);
+		} catch (IOException ex) {
+			log.error("Can't write to console output stream", ex);
+		}
+	}
 
+	private void writeErr(String message) {
+		try {
+			err.write(message);
+		} catch (IOException ex) {
+			log.error("Can't write to console output stream", ex);
+		}
 	}
 	
 	void displayHelp() {
@@ -136,6 +502,13 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 					"                      [element] [key]:[val] / [key]:          a n1 pos:ADJA\n"
 					+ "d (Delete element)                [element] [element]                     d t1 n2\n"
 					+ "help (Displays this command overview)\n" + "clear (Clears the console)\n"
+				+ BATCH_BEGIN + " ... " + BATCH_END + " (Runs the commands in between as one batch)\n"
+				+ RUN + " (Runs a script file as one batch)     [path]                                  "
+				+ RUN + " /tmp/annotate.atomical\n"
+				+ RUN_ALL + " (Runs a script on all documents)   [project] [path]                        "
+				+ RUN_ALL + " corpus /tmp/annotate.atomical\n"
+				+ "Instead of element IDs, commands take AQL queries in curly brackets to select all matched nodes, "
+				+ "e.g., a {pos=\"NN\"} lemma:X. n and s create a node per match, e connects the first two nodes of each match.\n"
 			/*
 			 * +
 			 * "c (New common child)*             [element] [element] [key]:[val] c t1 t2 pos:ADJA\n"
@@ -162,6 +535,23 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 		return editor == null ? null : editor.getGraph();
 	}
 
+	/**
+	 * Returns the node index for a graph, replacing the index for the graph
+	 * of the previously active editor. Must be called in the UI thread.
+	 * 
+	 * @param graph the graph
+	 * @return the index for the graph
+	 */
+	NodeIndex getNodeIndex(SDocumentGraph graph) {
+		if (nodeIndex == null || nodeIndex.getGraph() != graph) {
+			if (nodeIndex != null) {
+				nodeIndex.dispose();
+			}
+			nodeIndex = new NodeIndex(graph, true);
+		}
+		return nodeIndex;
+	}
+
 	/**
 	 * @return the editor
 	 */
@@ -184,4 +574,12 @@ public class AtomicalConsole extends IOConsole implements Runnable {
 		return out;
 	}
 
+	/**
+	 * The document which queries are run on.
+	 */
+	private static final class QueryTarget {
+		private SearchService search = null;
+		private SDocumentGraph graph = null;
+	}
+
 }
@@ -1,20 +1,26 @@
 package de.uni_jena.iaa.linktype.atomic.atomical.console;
 
 import java.io.IOException; 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
-import org.antlr.v4.runtime.Token;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
-import org.corpus_tools.atomic.api.salt.SaltGraphUpdatable;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandBaseListener;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.AddOrDeleteEdgeCommandContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.Anno_argsContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.AnnotateCommandContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.DeleteElementCommandContext;
+import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.ElementContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.HelpCommandContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.NewSpanNodeCommandContext;
 import org.corpus_tools.atomic.console.parser.ConsoleCommandParser.NewStructureNodeCommandContext;
@@ -28,7 +34,6 @@ import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.util.SaltUtil;
-import org.eclipse.emf.common.util.URI;
 
 class CommandExecutor extends ConsoleCommandBaseListener {
 
@@ -40,16 +45,71 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	private final AtomicalConsole atomicalConsole;
 
 	/**
+	 * Whether changes are collected over several command chains and
+	 * published at once via {@link #flush()}.
+	 */
+	private final boolean batch;
+	
+	private final QuerySelector queries;
+
+	private final DocumentGraphEditor editor;
+	private final SDocumentGraph graph;
+	private final NodeIndex index;
+	private final List<DocumentGraphChangeEvent> changes = new ArrayList<>();
+
+	/**
+	 * The number of updates published by {@link #flush()}, which are
+	 * undone by {@link #rollback()}.
+	 */
+	private int publishedUpdates = 0;
+
+	/**
+	 * Creates an executor running commands on the graph of an editor.
+	 * The editor and the index must be determined in the UI thread, while
+	 * the commands may be run on another thread, e.g., by the
+	 * {@link org.corpus_tools.atomic.api.editors.DocumentGraphMutationExecutor}.
+	 * 
 	 * @param atomicalConsole
+	 * @param editor the active editor, or <code>null</code>
+	 * @param index the node index for the editor's graph, or <code>null</code>
+	 * @param batch whether the executor is used for several commands,
+	 * whose changes are published together via {@link #flush()}
+	 * @param queries the matches of the queries used as element selectors
 	 */
-	CommandExecutor(AtomicalConsole atomicalConsole) {
+	CommandExecutor(AtomicalConsole atomicalConsole, DocumentGraphEditor editor, NodeIndex index, boolean batch, QuerySelector queries) {
 		this.atomicalConsole = atomicalConsole;
+		this.editor = editor;
+		this.graph = index == null ? null : index.getGraph();
+		this.index = index;
+		this.batch = batch;
+		this.queries = queries;
+	}
+
+	/**
+	 * Creates an executor running commands on a graph which is not open
+	 * in an editor, e.g., in an {@link AtomicalBatchRunner}. Changes are
+	 * not published, and output is logged.
+	 * 
+	 * @param graph the graph to run commands on
+	 * @param queries the matches of the queries used as element selectors
+	 */
+	CommandExecutor(SDocumentGraph graph, QuerySelector queries) {
+		this(null, null, new NodeIndex(graph, false), true, queries);
 	}
 
-	private DocumentGraphEditor editor;
-	private SDocumentGraph graph;
+	/**
+	 * @return the graph commands are run on, or <code>null</code> if there
+	 * is no active editor
+	 */
+	SDocumentGraph getGraph() {
+		return graph;
+	}
 	
 	private void out(String msg) {
+		if (atomicalConsole == null) {
+			log.debug(msg.trim());
+			return;
+		}
 		try {
 			this.atomicalConsole.getOut().write(msg);
 		} catch (IOException ex) {
@@ -58,7 +118,7 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	}
 
 	private boolean checkValidEditor() {
-		if (editor != null && graph != null) {					
+		if (graph != null && (editor != null || atomicalConsole == null)) {					
 			return true;
 		} else {
 			out("No active editor. Command will be ignored.\n");
@@ -67,12 +127,60 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 		return false;
 	}
 	
+	/**
+	 * Publishes the changes recorded for the current command to all
+	 * editors sharing the graph, including the active one. In batch
+	 * mode, changes are only published by {@link #flush()}.
+	 */
 	private void updateEditor() {
-		if(graph != null && editor instanceof SaltGraphUpdatable) {
-			((SaltGraphUpdatable) editor).updateSDocumentGraph(graph);
+		if(!batch) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Publishes all changes recorded so far as one update. Headless
+	 * executors only discard them, as their graph is not shared.
+	 * 
+	 * @return the number of recorded changes
+	 */
+	int flush() {
+		int published = changes.size();
+		if(atomicalConsole != null && graph != null && !changes.isEmpty()) {
+			DocumentGraphRegistry.getInstance().fireChanges(graph, this, new ArrayList<>(changes));
+			publishedUpdates++;
+		}
+		changes.clear();
+		return published;
+	}
+
+	/**
+	 * Reverts all changes made by this executor after a command has failed.
+	 * Changes which have not been published yet are published, and all
+	 * updates published by this executor are then undone via the journal,
+	 * so that the graph, the editors and the journal stay consistent. This
+	 * must be called holding the graph's write lock, so that no other
+	 * updates are undone. Headless executors only discard the changes, as
+	 * their graph is not saved after a failure.
+	 * 
+	 * @return the number of undone updates
+	 */
+	int rollback() {
+		flush();
+		int undone = 0;
+		for (; publishedUpdates > 0; publishedUpdates--) {
+			if (DocumentGraphRegistry.getInstance().undo(graph)) {
+				undone++;
+			}
 		}
+		return undone;
 	}
 	
+	private void removeNode(SNode node) {
+		List<DocumentGraphChangeEvent> removal = DocumentGraphChangeEvent.nodeRemovedWithRelations(node);
+		graph.removeNode(node);
+		changes.addAll(removal);
+	}
 	
 	private SAnnotation createAnno(Anno_argsContext args, SNode node) {
 		if(node != null && args != null) {
@@ -80,61 +188,97 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 			String name = args.anno.name.getText();
 			String value = args.value.getText();
 			
-			return node.createAnnotation(ns, name, value);
+			SAnnotation anno = node.createAnnotation(ns, name, value);
+			changes.add(DocumentGraphChangeEvent.annotationAdded(node, anno));
+			return anno;
 		}
 		return null;
 	}
 	
 	private SNode getNodeByID(String id) {
-		URI nodeURI = graph.getPath().appendFragment(id);
-		return graph.getNode(nodeURI.toString());
+		return index.getNode(id);
 	}
 	
-	@Override
-	public void enterCommandChain(ConsoleCommandParser.CommandChainContext ctx) {
-		editor = atomicalConsole.getEditor();
-		graph = atomicalConsole.getGraph();
-
+	/**
+	 * Resolves element selectors to groups of nodes. Without queries, all
+	 * nodes form a single group. Otherwise, each query match forms a group,
+	 * which also contains all nodes selected by ID.
+	 */
+	private List<List<SNode>> getNodeGroups(List<ElementContext> elements) {
+		List<SNode> selected = new ArrayList<>();
+		List<List<SNode>> matched = new ArrayList<>();
+		boolean hasQuery = false;
+		for(ElementContext element : elements) {
+			if(element.query != null) {
+				hasQuery = true;
+				for(List<String> match : queries.getMatches(element.query)) {
+					List<SNode> group = new ArrayList<>(match.size());
+					for(String id : match) {
+						SNode n = getNodeByID(id);
+						if(n != null) {
+							group.add(n);
+						}
+					}
+					if(!group.isEmpty()) {
+						matched.add(group);
+					}
+				}
+			} else {
+				SNode n = getNodeByID(element.id.getText());
+				if(n != null) {
+					selected.add(n);
+				}
+			}
+		}
+		if(!hasQuery) {
+			return Collections.singletonList(selected);
+		}
+		for(List<SNode> group : matched) {
+			group.addAll(0, selected);
+		}
+		return matched;
 	}
-
+	
+	/**
+	 * @return all nodes selected by ID or query, without duplicates
+	 */
+	private Collection<SNode> getNodes(List<ElementContext> elements) {
+		Set<SNode> nodes = new LinkedHashSet<>();
+		for(List<SNode> group : getNodeGroups(elements)) {
+			nodes.addAll(group);
+		}
+		return nodes;
+	}
+	
 	@Override
 	public void enterHelpCommand(HelpCommandContext ctx) {
-		atomicalConsole.displayHelp();
+		if(atomicalConsole != null) {
+			atomicalConsole.displayHelp();
+		}
 	}
 
 	@Override
 	public void enterClearCommand(ConsoleCommandParser.ClearCommandContext ctx) {
-		atomicalConsole.clearConsole();
+		if(atomicalConsole != null) {
+			atomicalConsole.clearConsole();
+		}
 	}
 	
 
 	@Override
 	public void enterAnnotateCommand(AnnotateCommandContext ctx) {
 		if(checkValidEditor()) {
-			List<SNode> elementsToAnnotate = new LinkedList<>();
-			
-			for(Token element : ctx.elements) {
-				SNode newNode = getNodeByID(element.getText());
-				if(newNode != null) {
-					elementsToAnnotate.add(newNode);
-				}
-			}
+			Collection<SNode> elementsToAnnotate = getNodes(ctx.elements);
 			
 			// get the annotation information
 			String ns = ctx.anno.ns == null ? null : ctx.anno.ns.getText();
 			String name = ctx.anno.name.getText();
 
 			if(ns == null && name != null) {
-				// find first matching namespace of existing annotation
-				ns = "atomic";
-				eachElement:
-				for(SNode n : elementsToAnnotate) {
-					for(SAnnotation anno : n.getAnnotations()) {
-						if(name.equals(anno.getName())) {
-							ns = anno.getNamespace();
-							break eachElement;
-						}
-					}
+				// find first matching namespace of existing annotation, unpublished changes are not indexed yet
+				ns = index.getNamespace(elementsToAnnotate, name, changes.isEmpty());
+				if(ns == null) {
+					ns = "atomic";
 				}
 			}
 			String value = ctx.value == null ? null : ctx.value.getText();
@@ -144,14 +288,17 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 			for(SNode n : elementsToAnnotate) {
 				SAnnotation existing = n.getAnnotation(ns, name);
 				if(existing == null && value != null) {
-					n.createAnnotation(ns, name, value);
-				} else {
+					changes.add(DocumentGraphChangeEvent.annotationAdded(n, n.createAnnotation(ns, name, value)));
+				} else if(existing != null) {
 					if(value == null) {
 						// delete the annotation
 						n.removeLabel(ns, name);
+						changes.add(DocumentGraphChangeEvent.annotationRemoved(n, existing.getQName(), existing.getValue()));
 					} else {
 						// change annotation value
+						Object oldValue = existing.getValue();
 						existing.setValue(value);
+						changes.add(DocumentGraphChangeEvent.annotationChanged(n, existing.getQName(), oldValue, value));
 					}
 				}
 			}
@@ -162,17 +309,19 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	@Override
 	public void enterNewStructureNodeCommand(NewStructureNodeCommandContext ctx) {
 		if(checkValidEditor()) {
-			List<SStructuredNode> children = new LinkedList<>();
-			
-			for(Token e : ctx.elements) {
-				SNode c = getNodeByID(e.getText());
-				if(c != null && c instanceof SStructuredNode) {
-					children.add((SStructuredNode) c);
+			for(List<SNode> group : getNodeGroups(ctx.elements)) {
+				List<SStructuredNode> children = new LinkedList<>();
+				
+				for(SNode c : group) {
+					if(c instanceof SStructuredNode) {
+						children.add((SStructuredNode) c);
+					}
 				}
+				
+				SStructure newNode = graph.createStructure(children);
+				changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(newNode));
+				createAnno(ctx.anno_args(), newNode);
 			}
-			
-			SStructure newNode = graph.createStructure(children);
-			createAnno(ctx.anno_args(), newNode);
 			updateEditor();
 		}
 	}
@@ -180,17 +329,19 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	@Override
 	public void enterNewSpanNodeCommand(NewSpanNodeCommandContext ctx) {
 		if(checkValidEditor()) {
-			List<SToken> children = new LinkedList<>();
-			
-			for(Token e : ctx.elements) {
-				SNode c = getNodeByID(e.getText());
-				if(c != null && c instanceof SToken) {
-					children.add((SToken) c);
+			for(List<SNode> group : getNodeGroups(ctx.elements)) {
+				List<SToken> children = new LinkedList<>();
+				
+				for(SNode c : group) {
+					if(c instanceof SToken) {
+						children.add((SToken) c);
+					}
 				}
+				
+				SSpan newNode = graph.createSpan(children);
+				changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(newNode));
+				createAnno(ctx.anno_args(), newNode);
 			}
-			
-			SSpan newNode = graph.createSpan(children);
-			createAnno(ctx.anno_args(), newNode);
 			updateEditor();
 		}
 	}
@@ -198,10 +349,9 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	@Override
 	public void enterDeleteElementCommand(DeleteElementCommandContext ctx) {
 		if(checkValidEditor()) {
-			for(Token e : ctx.elements) {
-				SNode n = getNodeByID(e.getText());
-				if(n != null && n instanceof SStructuredNode) {
-					graph.removeNode(n);
+			for(SNode n : getNodes(ctx.elements)) {
+				if(n instanceof SStructuredNode) {
+					removeNode(n);
 				}
 			}
 			updateEditor();
@@ -212,52 +362,63 @@ class CommandExecutor extends ConsoleCommandBaseListener {
 	public void enterAddOrDeleteEdgeCommand(AddOrDeleteEdgeCommandContext ctx) {
 		if(checkValidEditor()) {
 			
-			SNode sourceNode = getNodeByID(ctx.source.getText());
-			SNode targetNode = getNodeByID(ctx.target.getText());
-			if(sourceNode != null && targetNode != null) {
-				
-				String ns = ctx.anno.ns == null ? null : ctx.anno.ns.getText();
-				String name = ctx.anno.name.getText();
-				String value = ctx.value == null ? null : ctx.value.getText();
-				
-				SALT_TYPE relType = SALT_TYPE.SPOINTING_RELATION;
-				switch(ctx.type.getText()) {
-				case "-d":
-					relType = SALT_TYPE.SDOMINANCE_RELATION;
-					break;
-				case "-p":
-					relType = SALT_TYPE.SPOINTING_RELATION;
-					break;
-				case "-r":
-					relType = SALT_TYPE.SSPANNING_RELATION;
-					break;
-				case "-o":
-					relType = SALT_TYPE.SORDER_RELATION;
-					break;
+			String ns = ctx.anno.ns == null ? null : ctx.anno.ns.getText();
+			String name = ctx.anno.name.getText();
+			String value = ctx.value == null ? null : ctx.value.getText();
+			
+			SALT_TYPE relType = SALT_TYPE.SPOINTING_RELATION;
+			switch(ctx.type.getText()) {
+			case "-d":
+				relType = SALT_TYPE.SDOMINANCE_RELATION;
+				break;
+			case "-p":
+				relType = SALT_TYPE.SPOINTING_RELATION;
+				break;
+			case "-r":
+				relType = SALT_TYPE.SSPANNING_RELATION;
+				break;
+			case "-o":
+				relType = SALT_TYPE.SORDER_RELATION;
+				break;
+			}
+			
+			if(ctx.query != null) {
+				// connect the first and second node of each match
+				for(List<String> match : queries.getMatches(ctx.query)) {
+					if(match.size() >= 2) {
+						addOrDeleteEdge(getNodeByID(match.get(0)), getNodeByID(match.get(1)), relType, ns, name, value);
+					}
 				}
+			} else {
+				addOrDeleteEdge(getNodeByID(ctx.source.getText()), getNodeByID(ctx.target.getText()), relType, ns, name, value);
+			}
+			updateEditor();
+		}
+	}
+	
+	private void addOrDeleteEdge(SNode sourceNode, SNode targetNode, SALT_TYPE relType, String ns, String name, String value) {
+		if(sourceNode != null && targetNode != null) {
+			if(value == null) {
+				// delete all edges of the specified type and with a matching annotation between both nodes
+				List<SRelation> outRels = new LinkedList<>(sourceNode.getOutRelations());
 				
-				if(value == null) {
-					// delete all edges of the specified type and with a matching annotation between both nodes
-					List<SRelation> outRels = new LinkedList<>(sourceNode.getOutRelations());
-					
-					for(SRelation rel : outRels) {
-						if(rel.getTarget() == targetNode && relType.getJavaType().isInstance(rel)) {
-							boolean hasAnno = false;
-							for(SAnnotation a : rel.getAnnotations()) {
-								if(name.equals(a.getName()) && (ns == null || ns.equals(a.getNamespace()))) {
-									hasAnno = true;
-								}
-							}
-							if(hasAnno) {
-								graph.removeRelation(rel);
+				for(SRelation rel : outRels) {
+					if(rel.getTarget() == targetNode && relType.getJavaType().isInstance(rel)) {
+						boolean hasAnno = false;
+						for(SAnnotation a : rel.getAnnotations()) {
+							if(name.equals(a.getName()) && (ns == null || ns.equals(a.getNamespace()))) {
+								hasAnno = true;
 							}
 						}
+						if(hasAnno) {
+							changes.add(DocumentGraphChangeEvent.relationRemoved(rel));
+							graph.removeRelation(rel);
+						}
 					}
-				} else {
-					graph.createRelation(sourceNode, targetNode, relType, SaltUtil.createQName(ns, name) + "=" + value);
 				}
-				updateEditor();
+			} else {
+				changes.add(DocumentGraphChangeEvent.relationAdded(graph.createRelation(sourceNode, targetNode, relType, SaltUtil.createQName(ns, name) + "=" + value)));
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+/**
+ *
+ */
+package de.uni_jena.iaa.linktype.atomic.atomical.console;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeListener;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.util.SaltUtil;
+
+/**
+ * An index of the nodes of a document graph by the fragment of their ID,
+ * i.e., the ID used in AtomicAL commands, and of the namespaces used with
+ * annotation names on the nodes of the graph.
+ * <p>
+ * The index is kept up to date via the change events published for the
+ * graph. Changes which have not been published yet are not reflected in
+ * the index, so {@link #getNode(String)} validates the nodes it finds and
+ * falls back to a lookup in the graph for nodes it does not know.
+ * </p>
+ *
+ */
+final class NodeIndex implements DocumentGraphChangeListener {
+
+	private final SDocumentGraph graph;
+	private final boolean tracking;
+	private final Map<String, SNode> nodes = new HashMap<>();
+	/**
+	 * The number of node annotations per name and namespace.
+	 */
+	private final Map<String, Map<String, Integer>> namespaces = new HashMap<>();
+
+	/**
+	 * Creates an index for all nodes in the graph.
+	 *
+	 * @param graph the graph to index
+	 * @param tracking whether the index is updated from the change events
+	 * published for the graph until {@link #dispose()} is called, which is
+	 * not necessary for graphs that are not shared
+	 */
+	NodeIndex(SDocumentGraph graph, boolean tracking) {
+		this.graph = graph;
+		this.tracking = tracking;
+		for (SNode node : graph.getNodes()) {
+			addNode(node);
+		}
+		if (tracking) {
+			DocumentGraphRegistry.getInstance().addChangeListener(graph, this);
+		}
+	}
+
+	/**
+	 * Stops updating the index.
+	 */
+	void dispose() {
+		if (tracking) {
+			DocumentGraphRegistry.getInstance().removeChangeListener(graph, this);
+		}
+	}
+
+	/**
+	 * @return the indexed graph
+	 */
+	SDocumentGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @param id the fragment of the node's ID, e.g., "sTok1"
+	 * @return the node with the ID, or <code>null</code> if the graph
+	 * contains no such node
+	 */
+	synchronized SNode getNode(String id) {
+		SNode node = nodes.get(id);
+		if (node != null && node.getGraph() == graph) {
+			return node;
+		}
+		node = graph.getNode(graph.getPath().appendFragment(id).toString());
+		if (node != null) {
+			nodes.put(id, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Finds the namespace of an existing annotation with the given name on
+	 * one of the given nodes. The nodes are only looked at if the name is
+	 * used in the graph at all, unless the index may be out of date, e.g.,
+	 * because it is not tracking changes.
+	 *
+	 * @param targets the nodes to look at, in order
+	 * @param name an annotation name
+	 * @param isUpToDate whether all changes to the graph have been
+	 * published, so that the index is up to date
+	 * @return the namespace of the first annotation with the name on the
+	 * nodes, or <code>null</code> if there is no such annotation with a
+	 * namespace
+	 */
+	String getNamespace(Collection<SNode> targets, String name, boolean isUpToDate) {
+		if (tracking && isUpToDate && !isAnnotationName(name)) {
+			return null;
+		}
+		for (SNode node : targets) {
+			for (SAnnotation annotation : node.getAnnotations()) {
+				if (name.equals(annotation.getName()) && annotation.getNamespace() != null) {
+					return annotation.getNamespace();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param name an annotation name
+	 * @return whether a node in the graph has an annotation with the name
+	 */
+	synchronized boolean isAnnotationName(String name) {
+		return namespaces.containsKey(name);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.corpus_tools.atomic.api.events.DocumentGraphChangeListener#documentGraphChanged(java.lang.Object, java.util.List)
+	 */
+	@Override
+	public synchronized void documentGraphChanged(Object source, List<DocumentGraphChangeEvent> changes) {
+		for (DocumentGraphChangeEvent change : changes) {
+			switch (change.getType()) {
+			case NODE_ADDED:
+				addNode((SNode) change.getElement());
+				break;
+			case NODE_REMOVED:
+				removeNode((SNode) change.getElement());
+				break;
+			case ANNOTATION_ADDED:
+				if (change.getElement() instanceof SNode && change.getQName() != null) {
+					Pair<String, String> qName = SaltUtil.splitQName(change.getQName());
+					countNamespace(qName.getRight(), qName.getLeft(), 1);
+				}
+				break;
+			case ANNOTATION_REMOVED:
+				if (change.getElement() instanceof SNode && change.getQName() != null) {
+					Pair<String, String> qName = SaltUtil.splitQName(change.getQName());
+					countNamespace(qName.getRight(), qName.getLeft(), -1);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	private void addNode(SNode node) {
+		String id = getFragment(node);
+		if (id != null) {
+			nodes.put(id, node);
+		}
+		for (SAnnotation annotation : node.getAnnotations()) {
+			countNamespace(annotation.getName(), annotation.getNamespace(), 1);
+		}
+	}
+
+	/*
+	 * Removed nodes keep their annotations, which are not removed from the
+	 * index by separate events.
+	 */
+	private void removeNode(SNode node) {
+		String id = getFragment(node);
+		if (id != null && nodes.get(id) == node) {
+			nodes.remove(id);
+		}
+		for (SAnnotation annotation : node.getAnnotations()) {
+			countNamespace(annotation.getName(), annotation.getNamespace(), -1);
+		}
+	}
+
+	private void countNamespace(String name, String namespace, int delta) {
+		Map<String, Integer> counts = namespaces.get(name);
+		if (counts == null) {
+			if (delta < 0) {
+				return;
+			}
+			counts = new HashMap<>(2);
+			namespaces.put(name, counts);
+		}
+		Integer count = counts.get(namespace);
+		int newCount = (count == null ? 0 : count) + delta;
+		if (newCount > 0) {
+			counts.put(namespace, newCount);
+		}
+		else {
+			counts.remove(namespace);
+			if (counts.isEmpty()) {
+				namespaces.remove(name);
+			}
+		}
+	}
+
+	private static String getFragment(SNode node) {
+		String id = node.getId();
+		if (id == null) {
+			return null;
+		}
+		int hash = id.lastIndexOf('#');
+		return hash < 0 ? id : id.substring(hash + 1);
+	}
+
+}
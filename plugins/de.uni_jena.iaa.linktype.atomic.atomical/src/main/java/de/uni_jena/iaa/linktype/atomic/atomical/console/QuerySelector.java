@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package de.uni_jena.iaa.linktype.atomic.atomical.console;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.corpus_tools.atomic.console.parser.ConsoleCommandParser;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.search.service.SearchService;
+
+import annis.service.objects.Match;
+
+/**
+ * The matches of the AQL queries used as element selectors in AtomicAL
+ * commands, e.g., <code>a {pos="NN"} lemma:X</code>.
+ * <p>
+ * Queries are resolved on the current state of the document graph the
+ * commands are executed on, including unsaved changes, before the commands
+ * are executed, as searching may take a while and must not block the UI
+ * thread.
+ * </p>
+ *
+ */
+final class QuerySelector {
+
+	/**
+	 * A selector without queries.
+	 */
+	static final QuerySelector NONE = new QuerySelector();
+
+	private final Map<String, List<List<String>>> matches = new HashMap<>();
+
+	/**
+	 * Adds the texts of all query tokens in a parse tree to a set.
+	 *
+	 * @param tree the parse tree
+	 * @param queries the set to add the query token texts to
+	 */
+	static void collectQueries(ParseTree tree, Set<String> queries) {
+		if (tree instanceof TerminalNode) {
+			Token token = ((TerminalNode) tree).getSymbol();
+			if (token.getType() == ConsoleCommandParser.QUERY) {
+				queries.add(token.getText());
+			}
+			return;
+		}
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			collectQueries(tree.getChild(i), queries);
+		}
+	}
+
+	/**
+	 * Runs queries on a single document graph and stores their matches. The
+	 * graph is indexed once for all queries, and must not be changed while
+	 * they run.
+	 *
+	 * @param queryTokens the texts of the query tokens, including the curly brackets
+	 * @param search the search service
+	 * @param graph the document graph
+	 */
+	void resolve(Collection<String> queryTokens, SearchService search, SDocumentGraph graph) {
+		List<String> queries = new ArrayList<>(queryTokens.size());
+		for (String queryToken : queryTokens) {
+			queries.add(queryToken.substring(1, queryToken.length() - 1).trim());
+		}
+		Iterator<List<Match>> results = search.findInDocumentGraph(queries, graph).iterator();
+		for (String queryToken : queryTokens) {
+			List<List<String>> ids = new ArrayList<>();
+			for (Match match : results.next()) {
+				List<String> matchIds = new ArrayList<>(match.getSaltIDs().size());
+				for (java.net.URI id : match.getSaltIDs()) {
+					matchIds.add(id.getFragment());
+				}
+				ids.add(matchIds);
+			}
+			matches.put(queryToken, ids);
+		}
+	}
+
+	/**
+	 * @param queryToken the text of the query token
+	 * @return the number of matches of the query
+	 */
+	int getMatchCount(String queryToken) {
+		List<List<String>> ids = matches.get(queryToken);
+		return ids == null ? 0 : ids.size();
+	}
+
+	/**
+	 * @param query the query token
+	 * @return the IDs of the nodes of each match of the query, in the order
+	 * of the query's nodes
+	 */
+	List<List<String>> getMatches(Token query) {
+		List<List<String>> ids = matches.get(query.getText());
+		return ids == null ? Collections.<List<String>>emptyList() : ids;
+	}
+
+}
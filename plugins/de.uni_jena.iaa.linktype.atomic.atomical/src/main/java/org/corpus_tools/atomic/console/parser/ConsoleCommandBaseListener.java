@@ -107,6 +107,18 @@ public class ConsoleCommandBaseListener implements ConsoleCommandListener {
 	 * <p>The default implementation does nothing.</p>
 	 */
 	@Override public void exitClearCommand(ConsoleCommandParser.ClearCommandContext ctx) { }
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The default implementation does nothing.</p>
+	 */
+	@Override public void enterElement(ConsoleCommandParser.ElementContext ctx) { }
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The default implementation does nothing.</p>
+	 */
+	@Override public void exitElement(ConsoleCommandParser.ElementContext ctx) { }
 	/**
 	 * {@inheritDoc}
 	 *
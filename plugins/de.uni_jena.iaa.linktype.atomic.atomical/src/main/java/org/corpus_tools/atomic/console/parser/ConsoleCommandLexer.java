@@ -17,20 +17,21 @@ public class ConsoleCommandLexer extends Lexer {
 	protected static final PredictionContextCache _sharedContextCache =
 		new PredictionContextCache();
 	public static final int
-		T__0=1, T__1=2, TYPE_STR=3, NEWLINE=4, STR=5, WS=6;
+		T__0=1, T__1=2, TYPE_STR=3, NEWLINE=4, QUERY=5, STR=6, WS=7;
 	public static String[] modeNames = {
 		"DEFAULT_MODE"
 	};
 
 	public static final String[] ruleNames = {
-		"T__0", "T__1", "TYPE_STR", "NEWLINE", "STR", "WS"
+		"T__0", "T__1", "TYPE_STR", "NEWLINE", "QUERY", "QUERY_PART", "QUERY_LITERAL", 
+		"STR", "WS"
 	};
 
 	private static final String[] _LITERAL_NAMES = {
 		null, "':'", "'::'"
 	};
 	private static final String[] _SYMBOLIC_NAMES = {
-		null, null, null, "TYPE_STR", "NEWLINE", "STR", "WS"
+		null, null, null, "TYPE_STR", "NEWLINE", "QUERY", "STR", "WS"
 	};
 	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
 
@@ -87,20 +88,33 @@ public class ConsoleCommandLexer extends Lexer {
 	public ATN getATN() { return _ATN; }
 
 	public static final String _serializedATN =
-		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\2\b/\b\1\4\2\t\2\4"+
-		"\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\3\2\3\2\3\3\3\3\3\3\3\4\3\4\3\4"+
-		"\3\4\3\4\3\4\3\4\3\4\5\4\35\n\4\3\5\6\5 \n\5\r\5\16\5!\3\6\6\6%\n\6\r"+
-		"\6\16\6&\3\7\6\7*\n\7\r\7\16\7+\3\7\3\7\2\2\b\3\3\5\4\7\5\t\6\13\7\r\b"+
-		"\3\2\5\4\2\f\f\17\17\6\2\f\f\17\17\"\"<<\5\2\13\f\17\17\"\"\64\2\3\3\2"+
-		"\2\2\2\5\3\2\2\2\2\7\3\2\2\2\2\t\3\2\2\2\2\13\3\2\2\2\2\r\3\2\2\2\3\17"+
-		"\3\2\2\2\5\21\3\2\2\2\7\34\3\2\2\2\t\37\3\2\2\2\13$\3\2\2\2\r)\3\2\2\2"+
-		"\17\20\7<\2\2\20\4\3\2\2\2\21\22\7<\2\2\22\23\7<\2\2\23\6\3\2\2\2\24\25"+
-		"\7/\2\2\25\35\7f\2\2\26\27\7/\2\2\27\35\7r\2\2\30\31\7/\2\2\31\35\7t\2"+
-		"\2\32\33\7/\2\2\33\35\7q\2\2\34\24\3\2\2\2\34\26\3\2\2\2\34\30\3\2\2\2"+
-		"\34\32\3\2\2\2\35\b\3\2\2\2\36 \t\2\2\2\37\36\3\2\2\2 !\3\2\2\2!\37\3"+
-		"\2\2\2!\"\3\2\2\2\"\n\3\2\2\2#%\n\3\2\2$#\3\2\2\2%&\3\2\2\2&$\3\2\2\2"+
-		"&\'\3\2\2\2\'\f\3\2\2\2(*\t\4\2\2)(\3\2\2\2*+\3\2\2\2+)\3\2\2\2+,\3\2"+
-		"\2\2,-\3\2\2\2-.\b\7\2\2.\16\3\2\2\2\7\2\34!&+\3\b\2\2";
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\2\t`\b\1\4\2\t\2\4"+
+		"\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\3\2\3\2"+
+		"\3\3\3\3\3\3\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\5\4#\n\4\3\5\6\5&\n\5\r\5"+
+		"\16\5\'\3\6\3\6\7\6,\n\6\f\6\16\6/\13\6\3\6\3\6\3\7\3\7\3\7\7\7\66\n\7"+
+		"\f\7\16\79\13\7\3\7\3\7\5\7=\n\7\3\b\3\b\3\b\3\b\7\bC\n\b\f\b\16\bF\13"+
+		"\b\3\b\3\b\3\b\3\b\3\b\7\bM\n\b\f\b\16\bP\13\b\3\b\5\bS\n\b\3\t\6\tV\n"+
+		"\t\r\t\16\tW\3\n\6\n[\n\n\r\n\16\n\\\3\n\3\n\2\2\13\3\3\5\4\7\5\t\6\13"+
+		"\7\r\2\17\2\21\b\23\t\3\2\b\4\2\f\f\17\17\b\2\f\f\17\17$$\61\61}}\177"+
+		"\177\6\2\f\f\17\17$$^^\6\2\f\f\17\17\61\61^^\6\2\f\f\17\17\"\"<<\5\2\13"+
+		"\f\17\17\"\"l\2\3\3\2\2\2\2\5\3\2\2\2\2\7\3\2\2\2\2\t\3\2\2\2\2\13\3\2"+
+		"\2\2\2\21\3\2\2\2\2\23\3\2\2\2\3\25\3\2\2\2\5\27\3\2\2\2\7\"\3\2\2\2\t"+
+		"%\3\2\2\2\13)\3\2\2\2\r<\3\2\2\2\17R\3\2\2\2\21U\3\2\2\2\23Z\3\2\2\2\25"+
+		"\26\7<\2\2\26\4\3\2\2\2\27\30\7<\2\2\30\31\7<\2\2\31\6\3\2\2\2\32\33\7"+
+		"/\2\2\33#\7f\2\2\34\35\7/\2\2\35#\7r\2\2\36\37\7/\2\2\37#\7t\2\2 !\7/"+
+		"\2\2!#\7q\2\2\"\32\3\2\2\2\"\34\3\2\2\2\"\36\3\2\2\2\" \3\2\2\2#\b\3\2"+
+		"\2\2$&\t\2\2\2%$\3\2\2\2&\'\3\2\2\2\'%\3\2\2\2\'(\3\2\2\2(\n\3\2\2\2)"+
+		"-\7}\2\2*,\5\r\7\2+*\3\2\2\2,/\3\2\2\2-+\3\2\2\2-.\3\2\2\2.\60\3\2\2\2"+
+		"/-\3\2\2\2\60\61\7\177\2\2\61\f\3\2\2\2\62=\n\3\2\2\63\67\7}\2\2\64\66"+
+		"\5\r\7\2\65\64\3\2\2\2\669\3\2\2\2\67\65\3\2\2\2\678\3\2\2\28:\3\2\2\2"+
+		"9\67\3\2\2\2:=\7\177\2\2;=\5\17\b\2<\62\3\2\2\2<\63\3\2\2\2<;\3\2\2\2"+
+		"=\16\3\2\2\2>D\7$\2\2?@\7^\2\2@C\n\2\2\2AC\n\4\2\2B?\3\2\2\2BA\3\2\2\2"+
+		"CF\3\2\2\2DB\3\2\2\2DE\3\2\2\2EG\3\2\2\2FD\3\2\2\2GS\7$\2\2HN\7\61\2\2"+
+		"IJ\7^\2\2JM\n\2\2\2KM\n\5\2\2LI\3\2\2\2LK\3\2\2\2MP\3\2\2\2NL\3\2\2\2"+
+		"NO\3\2\2\2OQ\3\2\2\2PN\3\2\2\2QS\7\61\2\2R>\3\2\2\2RH\3\2\2\2S\20\3\2"+
+		"\2\2TV\n\6\2\2UT\3\2\2\2VW\3\2\2\2WU\3\2\2\2WX\3\2\2\2X\22\3\2\2\2Y[\t"+
+		"\7\2\2ZY\3\2\2\2[\\\3\2\2\2\\Z\3\2\2\2\\]\3\2\2\2]^\3\2\2\2^_\b\n\2\2"+
+		"_\24\3\2\2\2\17\2\"\'-\67<BDLNRW\\\3\b\2\2";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
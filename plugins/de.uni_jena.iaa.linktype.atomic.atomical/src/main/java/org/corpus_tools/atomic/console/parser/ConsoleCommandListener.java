@@ -103,6 +103,16 @@ public interface ConsoleCommandListener extends ParseTreeListener {
 	 * @param ctx the parse tree
 	 */
 	void exitClearCommand(ConsoleCommandParser.ClearCommandContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link ConsoleCommandParser#element}.
+	 * @param ctx the parse tree
+	 */
+	void enterElement(ConsoleCommandParser.ElementContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link ConsoleCommandParser#element}.
+	 * @param ctx the parse tree
+	 */
+	void exitElement(ConsoleCommandParser.ElementContext ctx);
 	/**
 	 * Enter a parse tree produced by {@link ConsoleCommandParser#anno_args}.
 	 * @param ctx the parse tree
@@ -17,18 +17,19 @@ public class ConsoleCommandParser extends Parser {
 	protected static final PredictionContextCache _sharedContextCache =
 		new PredictionContextCache();
 	public static final int
-		T__0=1, T__1=2, TYPE_STR=3, NEWLINE=4, STR=5, WS=6;
+		T__0=1, T__1=2, TYPE_STR=3, NEWLINE=4, QUERY=5, STR=6, WS=7;
 	public static final int
-		RULE_start = 0, RULE_command = 1, RULE_anno_args = 2, RULE_qname = 3;
+		RULE_start = 0, RULE_command = 1, RULE_element = 2, RULE_anno_args = 3, 
+		RULE_qname = 4;
 	public static final String[] ruleNames = {
-		"start", "command", "anno_args", "qname"
+		"start", "command", "element", "anno_args", "qname"
 	};
 
 	private static final String[] _LITERAL_NAMES = {
 		null, "':'", "'::'"
 	};
 	private static final String[] _SYMBOLIC_NAMES = {
-		null, null, null, "TYPE_STR", "NEWLINE", "STR", "WS"
+		null, null, null, "TYPE_STR", "NEWLINE", "QUERY", "STR", "WS"
 	};
 	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
 
@@ -120,26 +121,26 @@ public class ConsoleCommandParser extends Parser {
 			enterOuterAlt(_localctx, 1);
 			{
 			{
-			setState(8);
+			setState(10);
 			command();
-			setState(12);
+			setState(14);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==WS) {
 				{
 				{
-				setState(9);
+				setState(11);
 				match(WS);
 				}
 				}
-				setState(14);
+				setState(16);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(15);
+			setState(17);
 			match(NEWLINE);
 			}
-			setState(17);
+			setState(19);
 			match(EOF);
 			}
 		}
@@ -167,14 +168,17 @@ public class ConsoleCommandParser extends Parser {
 	}
 	public static class NewStructureNodeCommandContext extends CommandContext {
 		public Token cmd;
-		public Token STR;
-		public List<Token> elements = new ArrayList<Token>();
+		public ElementContext element;
+		public List<ElementContext> elements = new ArrayList<ElementContext>();
 		public Anno_argsContext anno_args() {
 			return getRuleContext(Anno_argsContext.class,0);
 		}
-		public List<TerminalNode> STR() { return getTokens(ConsoleCommandParser.STR); }
-		public TerminalNode STR(int i) {
-			return getToken(ConsoleCommandParser.STR, i);
+		public TerminalNode STR() { return getToken(ConsoleCommandParser.STR, 0); }
+		public List<ElementContext> element() {
+			return getRuleContexts(ElementContext.class);
+		}
+		public ElementContext element(int i) {
+			return getRuleContext(ElementContext.class,i);
 		}
 		public NewStructureNodeCommandContext(CommandContext ctx) { copyFrom(ctx); }
 		@Override
@@ -188,11 +192,14 @@ public class ConsoleCommandParser extends Parser {
 	}
 	public static class DeleteElementCommandContext extends CommandContext {
 		public Token cmd;
-		public Token STR;
-		public List<Token> elements = new ArrayList<Token>();
-		public List<TerminalNode> STR() { return getTokens(ConsoleCommandParser.STR); }
-		public TerminalNode STR(int i) {
-			return getToken(ConsoleCommandParser.STR, i);
+		public ElementContext element;
+		public List<ElementContext> elements = new ArrayList<ElementContext>();
+		public TerminalNode STR() { return getToken(ConsoleCommandParser.STR, 0); }
+		public List<ElementContext> element() {
+			return getRuleContexts(ElementContext.class);
+		}
+		public ElementContext element(int i) {
+			return getRuleContext(ElementContext.class,i);
 		}
 		public DeleteElementCommandContext(CommandContext ctx) { copyFrom(ctx); }
 		@Override
@@ -209,6 +216,7 @@ public class ConsoleCommandParser extends Parser {
 		public Token type;
 		public Token source;
 		public Token target;
+		public Token query;
 		public QnameContext anno;
 		public Token value;
 		public List<TerminalNode> STR() { return getTokens(ConsoleCommandParser.STR); }
@@ -219,6 +227,7 @@ public class ConsoleCommandParser extends Parser {
 		public QnameContext qname() {
 			return getRuleContext(QnameContext.class,0);
 		}
+		public TerminalNode QUERY() { return getToken(ConsoleCommandParser.QUERY, 0); }
 		public AddOrDeleteEdgeCommandContext(CommandContext ctx) { copyFrom(ctx); }
 		@Override
 		public void enterRule(ParseTreeListener listener) {
@@ -257,8 +266,8 @@ public class ConsoleCommandParser extends Parser {
 	}
 	public static class AnnotateCommandContext extends CommandContext {
 		public Token cmd;
-		public Token STR;
-		public List<Token> elements = new ArrayList<Token>();
+		public ElementContext element;
+		public List<ElementContext> elements = new ArrayList<ElementContext>();
 		public QnameContext anno;
 		public Token value;
 		public List<TerminalNode> STR() { return getTokens(ConsoleCommandParser.STR); }
@@ -268,6 +277,12 @@ public class ConsoleCommandParser extends Parser {
 		public QnameContext qname() {
 			return getRuleContext(QnameContext.class,0);
 		}
+		public List<ElementContext> element() {
+			return getRuleContexts(ElementContext.class);
+		}
+		public ElementContext element(int i) {
+			return getRuleContext(ElementContext.class,i);
+		}
 		public AnnotateCommandContext(CommandContext ctx) { copyFrom(ctx); }
 		@Override
 		public void enterRule(ParseTreeListener listener) {
@@ -280,14 +295,17 @@ public class ConsoleCommandParser extends Parser {
 	}
 	public static class NewSpanNodeCommandContext extends CommandContext {
 		public Token cmd;
-		public Token STR;
-		public List<Token> elements = new ArrayList<Token>();
+		public ElementContext element;
+		public List<ElementContext> elements = new ArrayList<ElementContext>();
 		public Anno_argsContext anno_args() {
 			return getRuleContext(Anno_argsContext.class,0);
 		}
-		public List<TerminalNode> STR() { return getTokens(ConsoleCommandParser.STR); }
-		public TerminalNode STR(int i) {
-			return getToken(ConsoleCommandParser.STR, i);
+		public TerminalNode STR() { return getToken(ConsoleCommandParser.STR, 0); }
+		public List<ElementContext> element() {
+			return getRuleContexts(ElementContext.class);
+		}
+		public ElementContext element(int i) {
+			return getRuleContext(ElementContext.class,i);
 		}
 		public NewSpanNodeCommandContext(CommandContext ctx) { copyFrom(ctx); }
 		@Override
@@ -306,18 +324,18 @@ public class ConsoleCommandParser extends Parser {
 		int _la;
 		try {
 			int _alt;
-			setState(69);
+			setState(75);
 			_errHandler.sync(this);
-			switch ( getInterpreter().adaptivePredict(_input,7,_ctx) ) {
+			switch ( getInterpreter().adaptivePredict(_input,8,_ctx) ) {
 			case 1:
 				_localctx = new AnnotateCommandContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(19);
+				setState(21);
 				if (!("a".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"a\".equals(getCurrentToken().getText())");
-				setState(20);
+				setState(22);
 				((AnnotateCommandContext)_localctx).cmd = match(STR);
-				setState(22); 
+				setState(24); 
 				_errHandler.sync(this);
 				_alt = 1;
 				do {
@@ -325,29 +343,29 @@ public class ConsoleCommandParser extends Parser {
 					case 1:
 						{
 						{
-						setState(21);
-						((AnnotateCommandContext)_localctx).STR = match(STR);
-						((AnnotateCommandContext)_localctx).elements.add(((AnnotateCommandContext)_localctx).STR);
+						setState(23);
+						((AnnotateCommandContext)_localctx).element = element();
+						((AnnotateCommandContext)_localctx).elements.add(((AnnotateCommandContext)_localctx).element);
 						}
 						}
 						break;
 					default:
 						throw new NoViableAltException(this);
 					}
-					setState(24); 
+					setState(26); 
 					_errHandler.sync(this);
 					_alt = getInterpreter().adaptivePredict(_input,1,_ctx);
 				} while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER );
-				setState(26);
+				setState(28);
 				((AnnotateCommandContext)_localctx).anno = qname();
-				setState(27);
-				match(T__0);
 				setState(29);
+				match(T__0);
+				setState(31);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				if (_la==STR) {
 					{
-					setState(28);
+					setState(30);
 					((AnnotateCommandContext)_localctx).value = match(STR);
 					}
 				}
@@ -358,28 +376,28 @@ public class ConsoleCommandParser extends Parser {
 				_localctx = new NewStructureNodeCommandContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(31);
+				setState(33);
 				if (!("n".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"n\".equals(getCurrentToken().getText())");
-				setState(32);
+				setState(34);
 				((NewStructureNodeCommandContext)_localctx).cmd = match(STR);
-				setState(36);
+				setState(38);
 				_errHandler.sync(this);
 				_alt = getInterpreter().adaptivePredict(_input,3,_ctx);
 				while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
 					if ( _alt==1 ) {
 						{
 						{
-						setState(33);
-						((NewStructureNodeCommandContext)_localctx).STR = match(STR);
-						((NewStructureNodeCommandContext)_localctx).elements.add(((NewStructureNodeCommandContext)_localctx).STR);
+						setState(35);
+						((NewStructureNodeCommandContext)_localctx).element = element();
+						((NewStructureNodeCommandContext)_localctx).elements.add(((NewStructureNodeCommandContext)_localctx).element);
 						}
 						} 
 					}
-					setState(38);
+					setState(40);
 					_errHandler.sync(this);
 					_alt = getInterpreter().adaptivePredict(_input,3,_ctx);
 				}
-				setState(39);
+				setState(41);
 				anno_args();
 				}
 				break;
@@ -387,11 +405,11 @@ public class ConsoleCommandParser extends Parser {
 				_localctx = new NewSpanNodeCommandContext(_localctx);
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(40);
+				setState(42);
 				if (!("s".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"s\".equals(getCurrentToken().getText())");
-				setState(41);
+				setState(43);
 				((NewSpanNodeCommandContext)_localctx).cmd = match(STR);
-				setState(43); 
+				setState(45); 
 				_errHandler.sync(this);
 				_alt = 1;
 				do {
@@ -399,20 +417,20 @@ public class ConsoleCommandParser extends Parser {
 					case 1:
 						{
 						{
-						setState(42);
-						((NewSpanNodeCommandContext)_localctx).STR = match(STR);
-						((NewSpanNodeCommandContext)_localctx).elements.add(((NewSpanNodeCommandContext)_localctx).STR);
+						setState(44);
+						((NewSpanNodeCommandContext)_localctx).element = element();
+						((NewSpanNodeCommandContext)_localctx).elements.add(((NewSpanNodeCommandContext)_localctx).element);
 						}
 						}
 						break;
 					default:
 						throw new NoViableAltException(this);
 					}
-					setState(45); 
+					setState(47); 
 					_errHandler.sync(this);
 					_alt = getInterpreter().adaptivePredict(_input,4,_ctx);
 				} while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER );
-				setState(47);
+				setState(49);
 				anno_args();
 				}
 				break;
@@ -420,51 +438,67 @@ public class ConsoleCommandParser extends Parser {
 				_localctx = new DeleteElementCommandContext(_localctx);
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(48);
+				setState(51);
 				if (!("d".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"d\".equals(getCurrentToken().getText())");
-				setState(49);
+				setState(52);
 				((DeleteElementCommandContext)_localctx).cmd = match(STR);
-				setState(51); 
+				setState(54); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(50);
-					((DeleteElementCommandContext)_localctx).STR = match(STR);
-					((DeleteElementCommandContext)_localctx).elements.add(((DeleteElementCommandContext)_localctx).STR);
+					setState(53);
+					((DeleteElementCommandContext)_localctx).element = element();
+					((DeleteElementCommandContext)_localctx).elements.add(((DeleteElementCommandContext)_localctx).element);
 					}
 					}
-					setState(53); 
+					setState(56); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
-				} while ( _la==STR );
+				} while ( _la==QUERY || _la==STR );
 				}
 				break;
 			case 5:
 				_localctx = new AddOrDeleteEdgeCommandContext(_localctx);
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(55);
-				if (!("e".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"e\".equals(getCurrentToken().getText())");
-				setState(56);
-				((AddOrDeleteEdgeCommandContext)_localctx).cmd = match(STR);
-				setState(57);
-				((AddOrDeleteEdgeCommandContext)_localctx).type = match(TYPE_STR);
 				setState(58);
-				((AddOrDeleteEdgeCommandContext)_localctx).source = match(STR);
+				if (!("e".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"e\".equals(getCurrentToken().getText())");
 				setState(59);
-				((AddOrDeleteEdgeCommandContext)_localctx).target = match(STR);
+				((AddOrDeleteEdgeCommandContext)_localctx).cmd = match(STR);
 				setState(60);
+				((AddOrDeleteEdgeCommandContext)_localctx).type = match(TYPE_STR);
+				setState(64);
+				_errHandler.sync(this);
+				switch (_input.LA(1)) {
+				case STR:
+					{
+					setState(61);
+					((AddOrDeleteEdgeCommandContext)_localctx).source = match(STR);
+					setState(62);
+					((AddOrDeleteEdgeCommandContext)_localctx).target = match(STR);
+					}
+					break;
+				case QUERY:
+					{
+					setState(63);
+					((AddOrDeleteEdgeCommandContext)_localctx).query = match(QUERY);
+					}
+					break;
+				default:
+					throw new NoViableAltException(this);
+				}
+				setState(66);
 				((AddOrDeleteEdgeCommandContext)_localctx).anno = qname();
-				setState(61);
+				setState(67);
 				match(T__0);
-				setState(63);
+				setState(69);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				if (_la==STR) {
 					{
-					setState(62);
+					setState(68);
 					((AddOrDeleteEdgeCommandContext)_localctx).value = match(STR);
 					}
 				}
@@ -475,9 +509,9 @@ public class ConsoleCommandParser extends Parser {
 				_localctx = new HelpCommandContext(_localctx);
 				enterOuterAlt(_localctx, 6);
 				{
-				setState(65);
+				setState(71);
 				if (!("help".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"help\".equals(getCurrentToken().getText())");
-				setState(66);
+				setState(72);
 				((HelpCommandContext)_localctx).cmd = match(STR);
 				}
 				break;
@@ -485,9 +519,9 @@ public class ConsoleCommandParser extends Parser {
 				_localctx = new ClearCommandContext(_localctx);
 				enterOuterAlt(_localctx, 7);
 				{
-				setState(67);
+				setState(73);
 				if (!("clear".equals(getCurrentToken().getText()))) throw new FailedPredicateException(this, "\"clear\".equals(getCurrentToken().getText())");
-				setState(68);
+				setState(74);
 				((ClearCommandContext)_localctx).cmd = match(STR);
 				}
 				break;
@@ -504,6 +538,61 @@ public class ConsoleCommandParser extends Parser {
 		return _localctx;
 	}
 
+	public static class ElementContext extends ParserRuleContext {
+		public Token id;
+		public Token query;
+		public TerminalNode STR() { return getToken(ConsoleCommandParser.STR, 0); }
+		public TerminalNode QUERY() { return getToken(ConsoleCommandParser.QUERY, 0); }
+		public ElementContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_element; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof ConsoleCommandListener ) ((ConsoleCommandListener)listener).enterElement(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof ConsoleCommandListener ) ((ConsoleCommandListener)listener).exitElement(this);
+		}
+	}
+
+	public final ElementContext element() throws RecognitionException {
+		ElementContext _localctx = new ElementContext(_ctx, getState());
+		enterRule(_localctx, 4, RULE_element);
+		try {
+			setState(79);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case STR:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(77);
+				((ElementContext)_localctx).id = match(STR);
+				}
+				break;
+			case QUERY:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(78);
+				((ElementContext)_localctx).query = match(QUERY);
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
 	public static class Anno_argsContext extends ParserRuleContext {
 		public QnameContext anno;
 		public Token value;
@@ -527,15 +616,15 @@ public class ConsoleCommandParser extends Parser {
 
 	public final Anno_argsContext anno_args() throws RecognitionException {
 		Anno_argsContext _localctx = new Anno_argsContext(_ctx, getState());
-		enterRule(_localctx, 4, RULE_anno_args);
+		enterRule(_localctx, 6, RULE_anno_args);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(71);
+			setState(81);
 			((Anno_argsContext)_localctx).anno = qname();
-			setState(72);
+			setState(82);
 			match(T__0);
-			setState(73);
+			setState(83);
 			((Anno_argsContext)_localctx).value = match(STR);
 			}
 		}
@@ -573,23 +662,23 @@ public class ConsoleCommandParser extends Parser {
 
 	public final QnameContext qname() throws RecognitionException {
 		QnameContext _localctx = new QnameContext(_ctx, getState());
-		enterRule(_localctx, 6, RULE_qname);
+		enterRule(_localctx, 8, RULE_qname);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(77);
+			setState(87);
 			_errHandler.sync(this);
-			switch ( getInterpreter().adaptivePredict(_input,8,_ctx) ) {
+			switch ( getInterpreter().adaptivePredict(_input,10,_ctx) ) {
 			case 1:
 				{
-				setState(75);
+				setState(85);
 				((QnameContext)_localctx).ns = match(STR);
-				setState(76);
+				setState(86);
 				match(T__1);
 				}
 				break;
 			}
-			setState(79);
+			setState(89);
 			((QnameContext)_localctx).name = match(STR);
 			}
 		}
@@ -632,28 +721,30 @@ public class ConsoleCommandParser extends Parser {
 	}
 
 	public static final String _serializedATN =
-		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\3\bT\4\2\t\2\4\3\t"+
-		"\3\4\4\t\4\4\5\t\5\3\2\3\2\7\2\r\n\2\f\2\16\2\20\13\2\3\2\3\2\3\2\3\2"+
-		"\3\3\3\3\3\3\6\3\31\n\3\r\3\16\3\32\3\3\3\3\3\3\5\3 \n\3\3\3\3\3\3\3\7"+
-		"\3%\n\3\f\3\16\3(\13\3\3\3\3\3\3\3\3\3\6\3.\n\3\r\3\16\3/\3\3\3\3\3\3"+
-		"\3\3\6\3\66\n\3\r\3\16\3\67\3\3\3\3\3\3\3\3\3\3\3\3\3\3\3\3\5\3B\n\3\3"+
-		"\3\3\3\3\3\3\3\5\3H\n\3\3\4\3\4\3\4\3\4\3\5\3\5\5\5P\n\5\3\5\3\5\3\5\2"+
-		"\2\6\2\4\6\b\2\2]\2\n\3\2\2\2\4G\3\2\2\2\6I\3\2\2\2\bO\3\2\2\2\n\16\5"+
-		"\4\3\2\13\r\7\b\2\2\f\13\3\2\2\2\r\20\3\2\2\2\16\f\3\2\2\2\16\17\3\2\2"+
-		"\2\17\21\3\2\2\2\20\16\3\2\2\2\21\22\7\6\2\2\22\23\3\2\2\2\23\24\7\2\2"+
-		"\3\24\3\3\2\2\2\25\26\6\3\2\2\26\30\7\7\2\2\27\31\7\7\2\2\30\27\3\2\2"+
-		"\2\31\32\3\2\2\2\32\30\3\2\2\2\32\33\3\2\2\2\33\34\3\2\2\2\34\35\5\b\5"+
-		"\2\35\37\7\3\2\2\36 \7\7\2\2\37\36\3\2\2\2\37 \3\2\2\2 H\3\2\2\2!\"\6"+
-		"\3\3\2\"&\7\7\2\2#%\7\7\2\2$#\3\2\2\2%(\3\2\2\2&$\3\2\2\2&\'\3\2\2\2\'"+
-		")\3\2\2\2(&\3\2\2\2)H\5\6\4\2*+\6\3\4\2+-\7\7\2\2,.\7\7\2\2-,\3\2\2\2"+
-		"./\3\2\2\2/-\3\2\2\2/\60\3\2\2\2\60\61\3\2\2\2\61H\5\6\4\2\62\63\6\3\5"+
-		"\2\63\65\7\7\2\2\64\66\7\7\2\2\65\64\3\2\2\2\66\67\3\2\2\2\67\65\3\2\2"+
-		"\2\678\3\2\2\28H\3\2\2\29:\6\3\6\2:;\7\7\2\2;<\7\5\2\2<=\7\7\2\2=>\7\7"+
-		"\2\2>?\5\b\5\2?A\7\3\2\2@B\7\7\2\2A@\3\2\2\2AB\3\2\2\2BH\3\2\2\2CD\6\3"+
-		"\7\2DH\7\7\2\2EF\6\3\b\2FH\7\7\2\2G\25\3\2\2\2G!\3\2\2\2G*\3\2\2\2G\62"+
-		"\3\2\2\2G9\3\2\2\2GC\3\2\2\2GE\3\2\2\2H\5\3\2\2\2IJ\5\b\5\2JK\7\3\2\2"+
-		"KL\7\7\2\2L\7\3\2\2\2MN\7\7\2\2NP\7\4\2\2OM\3\2\2\2OP\3\2\2\2PQ\3\2\2"+
-		"\2QR\7\7\2\2R\t\3\2\2\2\13\16\32\37&/\67AGO";
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\3\t^\4\2\t\2\4\3\t"+
+		"\3\4\4\t\4\4\5\t\5\4\6\t\6\3\2\3\2\7\2\17\n\2\f\2\16\2\22\13\2\3\2\3\2"+
+		"\3\2\3\2\3\3\3\3\3\3\6\3\33\n\3\r\3\16\3\34\3\3\3\3\3\3\5\3\"\n\3\3\3"+
+		"\3\3\3\3\7\3\'\n\3\f\3\16\3*\13\3\3\3\3\3\3\3\3\3\6\3\60\n\3\r\3\16\3"+
+		"\61\3\3\3\3\3\3\3\3\3\3\6\39\n\3\r\3\16\3:\3\3\3\3\3\3\3\3\3\3\3\3\5\3"+
+		"C\n\3\3\3\3\3\3\3\5\3H\n\3\3\3\3\3\3\3\3\3\5\3N\n\3\3\4\3\4\5\4R\n\4\3"+
+		"\5\3\5\3\5\3\5\3\6\3\6\5\6Z\n\6\3\6\3\6\3\6\2\2\7\2\4\6\b\n\2\2h\2\f\3"+
+		"\2\2\2\4M\3\2\2\2\6Q\3\2\2\2\bS\3\2\2\2\nY\3\2\2\2\f\20\5\4\3\2\r\17\7"+
+		"\t\2\2\16\r\3\2\2\2\17\22\3\2\2\2\20\16\3\2\2\2\20\21\3\2\2\2\21\23\3"+
+		"\2\2\2\22\20\3\2\2\2\23\24\7\6\2\2\24\25\3\2\2\2\25\26\7\2\2\3\26\3\3"+
+		"\2\2\2\27\30\6\3\2\2\30\32\7\b\2\2\31\33\5\6\4\2\32\31\3\2\2\2\33\34\3"+
+		"\2\2\2\34\32\3\2\2\2\34\35\3\2\2\2\35\36\3\2\2\2\36\37\5\n\6\2\37!\7\3"+
+		"\2\2 \"\7\b\2\2! \3\2\2\2!\"\3\2\2\2\"N\3\2\2\2#$\6\3\3\2$(\7\b\2\2%\'"+
+		"\5\6\4\2&%\3\2\2\2\'*\3\2\2\2(&\3\2\2\2()\3\2\2\2)+\3\2\2\2*(\3\2\2\2"+
+		"+N\5\b\5\2,-\6\3\4\2-/\7\b\2\2.\60\5\6\4\2/.\3\2\2\2\60\61\3\2\2\2\61"+
+		"/\3\2\2\2\61\62\3\2\2\2\62\63\3\2\2\2\63\64\5\b\5\2\64N\3\2\2\2\65\66"+
+		"\6\3\5\2\668\7\b\2\2\679\5\6\4\28\67\3\2\2\29:\3\2\2\2:8\3\2\2\2:;\3\2"+
+		"\2\2;N\3\2\2\2<=\6\3\6\2=>\7\b\2\2>B\7\5\2\2?@\7\b\2\2@C\7\b\2\2AC\7\7"+
+		"\2\2B?\3\2\2\2BA\3\2\2\2CD\3\2\2\2DE\5\n\6\2EG\7\3\2\2FH\7\b\2\2GF\3\2"+
+		"\2\2GH\3\2\2\2HN\3\2\2\2IJ\6\3\7\2JN\7\b\2\2KL\6\3\b\2LN\7\b\2\2M\27\3"+
+		"\2\2\2M#\3\2\2\2M,\3\2\2\2M\65\3\2\2\2M<\3\2\2\2MI\3\2\2\2MK\3\2\2\2N"+
+		"\5\3\2\2\2OR\7\b\2\2PR\7\7\2\2QO\3\2\2\2QP\3\2\2\2R\7\3\2\2\2ST\5\n\6"+
+		"\2TU\7\3\2\2UV\7\b\2\2V\t\3\2\2\2WX\7\b\2\2XZ\7\4\2\2YW\3\2\2\2YZ\3\2"+
+		"\2\2Z[\3\2\2\2[\\\7\b\2\2\\\13\3\2\2\2\r\20\34!(\61:BGMQY";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
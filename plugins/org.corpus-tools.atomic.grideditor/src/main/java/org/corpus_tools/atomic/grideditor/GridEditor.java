@@ -1,14 +1,22 @@
 package org.corpus_tools.atomic.grideditor;
 
-import java.lang.reflect.InvocationTargetException; 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
 import org.corpus_tools.atomic.api.editors.TagsetAwareEditor;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.configuration.CustomGridLabelAccumulator;
 import org.corpus_tools.atomic.grideditor.configuration.GridEditorConfiguration;
 import org.corpus_tools.atomic.grideditor.configuration.GridEditorSelectionConfiguration;
@@ -24,21 +32,23 @@ import org.corpus_tools.atomic.grideditor.layers.CustomGridLayer;
 import org.corpus_tools.atomic.grideditor.menu.GridPopupMenuConfiguration;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.graph.IdentifiableElement;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorSite;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
-import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.layout.GridDataFactory;
-import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.ISelectionProvider;
@@ -66,6 +76,7 @@ import org.eclipse.nebula.widgets.nattable.viewport.ViewportLayer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
+import org.eclipse.ui.progress.UIJob;
 
 /**
  * // TODO Add description
@@ -76,11 +87,19 @@ import org.eclipse.swt.events.PaintListener;
 public class GridEditor extends DocumentGraphEditor implements ISelectionProvider, TagsetAwareEditor {
 
 	private static final Logger log = LogManager.getLogger(GridEditor.class);
+	
+	/**
+	 * The time for which a chunk of the annotation grid is compiled in
+	 * the UI thread before other events are processed.
+	 */
+	private static final long COMPILATION_CHUNK_MILLIS = 50;
+	
 	private AnnotationGridDataProvider dataProvider = null;
 	private AnnotationGrid annotationGrid;
 	
 	private ListenerList<ISelectionChangedListener> selectionListeners = new ListenerList<>();
 	private NatTable natTable;
+	private AnnotationGridCompilationJob compilationJob = null;
 	public Tagset tagset = null;
 	public boolean hasTagset = false;
 	
@@ -93,9 +112,6 @@ public class GridEditor extends DocumentGraphEditor implements ISelectionProvide
 	@Override
 	public void init(IEditorSite site, IEditorInput input) throws PartInitException {
 		super.init(site, input);
-		if (isInputValid()) {
-			annotationGrid = compileAnnotationGrid(graph);
-		}
 		this.tagset = loadTagset(input);
 		if (tagset != null) {
 			log.info("Set tagset for editor to {}.", tagset.getName());
@@ -106,8 +122,22 @@ public class GridEditor extends DocumentGraphEditor implements ISelectionProvide
 		}
 	}
 	
+	/**
+	 * The graph is loaded in the background, and the annotation grid is
+	 * compiled in stages once it has been loaded.
+	 * 
+	 * @see org.corpus_tools.atomic.api.editors.DocumentGraphEditor#isLoadedInBackground()
+	 */
+	@Override
+	protected boolean isLoadedInBackground() {
+		return true;
+	}
+	
 	@Override
 	public void dispose() {
+		if (compilationJob != null) {
+			compilationJob.cancel();
+		}
 		super.dispose();
 		getSite().setSelectionProvider(null);
 	}
@@ -115,6 +145,8 @@ public class GridEditor extends DocumentGraphEditor implements ISelectionProvide
 	@Override
 	public void createEditorPartControl(Composite parent) {
 		parent.setLayout(new GridLayout());
+		annotationGrid = new AnnotationGrid(graph);
+		List<SToken> orderedTokens = compileTokenRows(annotationGrid);
 		
 		/* ############################################
 		 * Grid
@@ -203,37 +235,213 @@ public class GridEditor extends DocumentGraphEditor implements ISelectionProvide
 		});
 
 		getSite().setSelectionProvider(this);
+		compileAnnotations(orderedTokens);
 	}
 	
 	private AnnotationGridDataProvider createDataProvider() {
-		return new AnnotationGridDataProvider(annotationGrid);
+		return new AnnotationGridDataProvider(annotationGrid, this);
+	}
+	
+	/**
+	 * Applies changes made to the graph by other clients to the
+	 * annotation grid.
+	 * 
+	 * Annotations added to or removed from tokens and spans, as
+	 * well as added and removed spans, are applied to the cells
+	 * of the affected rows. Changed annotation values need no
+	 * update, as the cells contain the {@link SAnnotation}s
+	 * themselves. Changes to tokens, texts, or the tokens spans
+	 * cover, lead to a recompilation of the grid.
+	 */
+	@Override
+	protected void handleGraphChanges(List<DocumentGraphChangeEvent> changes) {
+		if (annotationGrid == null || natTable == null || natTable.isDisposed()) {
+			return;
+		}
+		// Spanning relations of spans added or removed as a whole need no recompilation
+		Set<IdentifiableElement> addedOrRemovedSpans = new HashSet<>();
+		for (DocumentGraphChangeEvent change : changes) {
+			if (change.getElement() instanceof SSpan && (change.getType() == DocumentGraphChangeEvent.Type.NODE_ADDED || change.getType() == DocumentGraphChangeEvent.Type.NODE_REMOVED)) {
+				addedOrRemovedSpans.add(change.getElement());
+			}
+		}
+		boolean recompile = false;
+		Map<SToken, Integer> rowIndices = null;
+		for (DocumentGraphChangeEvent change : changes) {
+			final IdentifiableElement element = change.getElement();
+			switch (change.getType()) {
+			case ANNOTATION_ADDED:
+			case ANNOTATION_REMOVED:
+				if (element instanceof SToken || element instanceof SSpan) {
+					if (rowIndices == null) {
+						rowIndices = getRowIndices();
+					}
+					updateAnnotationCells((SNode) element, change, rowIndices);
+				}
+				break;
+			case NODE_ADDED:
+				if (element instanceof SSpan) {
+					if (rowIndices == null) {
+						rowIndices = getRowIndices();
+					}
+					for (SAnnotation annotation : ((SSpan) element).getAnnotations()) {
+						updateAnnotationCells((SSpan) element, DocumentGraphChangeEvent.annotationAdded((SSpan) element, annotation), rowIndices);
+					}
+				}
+				else {
+					recompile |= element instanceof SToken;
+				}
+				break;
+			case NODE_REMOVED:
+				if (element instanceof SSpan) {
+					clearAnnotationCells(a -> a.getContainer() == element);
+				}
+				else {
+					recompile |= element instanceof SToken;
+				}
+				break;
+			case RELATION_ADDED:
+			case RELATION_REMOVED:
+				if (element instanceof SSpanningRelation) {
+					recompile |= !addedOrRemovedSpans.contains(((SSpanningRelation) element).getSource());
+				}
+				else {
+					recompile |= element instanceof STextualRelation;
+				}
+				break;
+			case TEXT_CHANGED:
+				recompile = true;
+				break;
+			default:
+				break;
+			}
+		}
+		if (recompile) {
+			annotationGrid.clear();
+			compileAnnotations(compileTokenRows(annotationGrid));
+		}
+		else {
+			annotationGrid.layout();
+		}
+		natTable.refresh();
+	}
+	
+	private Map<SToken, Integer> getRowIndices() {
+		Map<SToken, Integer> rowIndices = new HashMap<>();
+		for (Map.Entry<Integer, AnnotationGrid.Row> row : annotationGrid.getRowMap().entrySet()) {
+			Object token = row.getValue().get(0) == null ? null : row.getValue().getValue(0);
+			if (token instanceof SToken) {
+				rowIndices.put((SToken) token, row.getKey());
+			}
+		}
+		return rowIndices;
+	}
+	
+	private void updateAnnotationCells(SNode node, DocumentGraphChangeEvent change, Map<SToken, Integer> rowIndices) {
+		String qName = change.getQName();
+		Integer colIndex = annotationGrid.getColumnHeaderMap().inverse().get(qName);
+		List<SToken> tokens = node instanceof SToken ? Collections.singletonList((SToken) node) : graph.getOverlappedTokens(node);
+		if (tokens == null) {
+			return;
+		}
+		SAnnotation annotation = node.getAnnotation(qName);
+		for (SToken token : tokens) {
+			Integer rowIndex = rowIndices.get(token);
+			if (rowIndex == null) {
+				continue;
+			}
+			if (change.getType() == DocumentGraphChangeEvent.Type.ANNOTATION_ADDED) {
+				if (annotation != null) {
+					annotationGrid.record(rowIndex, colIndex != null ? colIndex : annotationGrid.getColumnHeaderMap().size(), qName, annotation);
+				}
+			}
+			else if (colIndex != null) {
+				Object value = annotationGrid.get(rowIndex, colIndex);
+				// Keep annotations of other spans covering the token
+				if (value instanceof SAnnotation && value != annotation && (((SAnnotation) value).getContainer() == node || ((SAnnotation) value).getContainer() == null)) {
+					annotationGrid.record(rowIndex, colIndex, qName, null);
+				}
+			}
+		}
+	}
+	
+	private void clearAnnotationCells(Predicate<SAnnotation> filter) {
+		for (Map.Entry<Integer, AnnotationGrid.Row> row : annotationGrid.getRowMap().entrySet()) {
+			for (Map.Entry<Integer, AnnotationGrid.Cell> cell : row.getValue().getCells().entrySet()) {
+				Object value = cell.getValue().getValue();
+				if (value instanceof SAnnotation && filter.test((SAnnotation) value)) {
+					annotationGrid.record(row.getKey(), cell.getKey(), cell.getValue().getColumnHeader(), null);
+				}
+			}
+		}
 	}
 	
 	/**
-	 * Compiles and lays out an instance of {@link AnnotationGrid}
-	 * for the current {@link SDocumentGraph}.
+	 * Records the first column of the grid, i.e., the tokens of the
+	 * current {@link SDocumentGraph}, as the first stage of compiling
+	 * an {@link AnnotationGrid}, so that the text can be displayed
+	 * right away.
 	 * 
 	 * Row indices are thereby got from the index of a specific
 	 * token in the list of tokens ordered by text returned from
-	 * {@link SDocumentGraph#getSortedTokenByText()}. Cell values
-	 * are, apart from the first column which is the token's text
-	 * returned by {@link SDocumentGraph#getText(SNode)}, of type
-	 * {@link SAnnotation}, and for each token, the token's annotations
-	 * are added to the grid first, then the annotations for each
-	 * span that is governing the token, etc.
+	 * {@link SDocumentGraph#getSortedTokenByText()}.
+	 * 
+	 * @param grid the empty grid
+	 * @return the tokens in the order of the rows
+	 */
+	private List<SToken> compileTokenRows(AnnotationGrid grid) {
+		List<SToken> orderedTokens = graph.getSortedTokenByText();
+		if (orderedTokens == null) {
+			return Collections.emptyList();
+		}
+		for (int rowIndex = 0; rowIndex < orderedTokens.size(); rowIndex++) {
+			grid.record(rowIndex, 0, "Token", orderedTokens.get(rowIndex));
+		}
+		return orderedTokens;
+	}
+	
+	/**
+	 * Fills the annotation columns of the grid via an
+	 * {@link AnnotationGridCompilationJob}, replacing a running
+	 * compilation.
+	 * 
+	 * @param orderedTokens the tokens in the order of the rows
+	 */
+	private void compileAnnotations(List<SToken> orderedTokens) {
+		if (compilationJob != null) {
+			compilationJob.cancel();
+			compilationJob.progress.done();
+		}
+		compilationJob = new AnnotationGridCompilationJob(orderedTokens, getEditorProgressMonitor());
+		compilationJob.schedule();
+	}
+	
+	/**
+	 * Records the annotations of a token, and of the spans governing
+	 * it, in the token's row. Cell values are of type {@link SAnnotation}.
 	 * 
-	 * @param graph
-	 * @return
+	 * @param rowIndex the row of the token
+	 * @param token the token
 	 */
-	private AnnotationGrid compileAnnotationGrid(SDocumentGraph graph) {
-		AnnotationGridCompilation compilationRunnable = new AnnotationGridCompilation(graph.getSortedTokenByText());
-		try {
-			new ProgressMonitorDialog(Display.getDefault().getActiveShell()).run(true, true, compilationRunnable);
+	private void compileAnnotationRow(int rowIndex, SToken token) {
+		if (token.getAnnotations() != null) {
+			for (SAnnotation a : token.getAnnotations()) {
+				annotationGrid.record(rowIndex, getColumnIndex(a.getQName()), a.getQName(), a);
+			}
 		}
-		catch (InvocationTargetException | InterruptedException e) {
-			GridEditor.log.error("An error occurred during the compilation of the annotation grid.", e);
+		for (SRelation<SNode, SNode> r : graph.getInRelations(token.getId())) {
+			SNode src = r.getSource();
+			if (src instanceof SSpan && src.getAnnotations() != null) {
+				for (SAnnotation a : src.getAnnotations()) {
+					annotationGrid.record(rowIndex, getColumnIndex(a.getQName()), a.getQName(), a);
+				}
+			}
 		}
-		return compilationRunnable.getGrid();
+	}
+	
+	private int getColumnIndex(String header) {
+		Integer index = annotationGrid.getColumnHeaderMap().inverse().get(header);
+		return index != null ? index : annotationGrid.getColumnHeaderMap().size();
 	}
 
 	/* (non-Javadoc)
@@ -271,57 +479,63 @@ public class GridEditor extends DocumentGraphEditor implements ISelectionProvide
 		}
 	}
 
-	public class AnnotationGridCompilation implements IRunnableWithProgress {
+	/**
+	 * Fills the annotation columns of the grid for one chunk of rows
+	 * after another in the UI thread, refreshing the table after each
+	 * chunk, so that annotations are displayed as they are compiled
+	 * while the editor stays responsive, and changes to the graph are
+	 * applied between chunks.
+	 */
+	private class AnnotationGridCompilationJob extends UIJob {
 	
-		private final AnnotationGrid grid;
 		private final List<SToken> orderedTokens;
+		private final IProgressMonitor progress;
+		private int nextRow = 0;
+		private final long start = System.currentTimeMillis();
 	
-		public AnnotationGridCompilation(List<SToken> sortedTokenByText) {
-			this.orderedTokens = sortedTokenByText;
-			this.grid = new AnnotationGrid(graph);
-		}
-	
-		public AnnotationGrid getGrid() {
-			return grid;
+		private AnnotationGridCompilationJob(List<SToken> orderedTokens, IProgressMonitor progress) {
+			super("Compiling annotation grid");
+			this.orderedTokens = orderedTokens;
+			this.progress = progress;
+			setSystem(true);
+			progress.beginTask("Compiling annotations", orderedTokens.size());
 		}
 	
 		@Override
-		public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
-			
-			monitor.beginTask("Compiling annotation grid", this.orderedTokens.size() + 1);
-			monitor.subTask("Compiling rows per token");
-	
-			int colIndex = 0;
-			for (int rowIndex = 0; rowIndex < orderedTokens.size(); rowIndex++) {
-				SToken t = orderedTokens.get(rowIndex);
-				grid.record(rowIndex, 0, "Token", t);
-				for (SAnnotation a : t.getAnnotations()) {
-					grid.record(rowIndex, ++colIndex, a.getQName(), a);
-				}
-				List<SRelation<SNode, SNode>> rels = graph.getInRelations(t.getId());
-				for (SRelation<SNode, SNode> r : rels) {
-					SNode src = null;
-					if ((src = r.getSource()) instanceof SSpan) {
-						for (SAnnotation a : src.getAnnotations()) {
-							if (grid.getColumnHeaderMap().containsValue(a.getQName())) {
-								colIndex = grid.getColumnHeaderMap().inverse().get(a.getQName());
-							}
-							else {
-								colIndex = colIndex + 1;
-							}
-							grid.record(rowIndex, colIndex, a.getQName(), a);
-						}
-					}
+		public IStatus runInUIThread(IProgressMonitor monitor) {
+			if (natTable == null || natTable.isDisposed() || compilationJob != this) {
+				return Status.CANCEL_STATUS;
+			}
+			Lock lock = DocumentGraphRegistry.getInstance().getLock(getGraph()).readLock();
+			if (!lock.tryLock()) {
+				// The graph is being changed in the background, try again later
+				schedule(COMPILATION_CHUNK_MILLIS);
+				return Status.OK_STATUS;
+			}
+			long deadline = System.currentTimeMillis() + COMPILATION_CHUNK_MILLIS;
+			int firstRow = nextRow;
+			try {
+				while (nextRow < orderedTokens.size() && System.currentTimeMillis() < deadline) {
+					compileAnnotationRow(nextRow, orderedTokens.get(nextRow));
+					nextRow++;
 				}
-				monitor.worked(1);
 			}
-			monitor.subTask("Laying out grid");
-			grid.layout();
-			monitor.worked(1);
-			monitor.done();
-			if (monitor.isCanceled()) {
-				throw new InterruptedException("Annotation grid compilation has been cancelled.");
+			finally {
+				lock.unlock();
+			}
+			progress.worked(nextRow - firstRow);
+			if (nextRow < orderedTokens.size()) {
+				natTable.refresh();
+				schedule();
+			}
+			else {
+				annotationGrid.layout();
+				natTable.refresh();
+				progress.done();
+				compilationJob = null;
+				log.trace("Compiled annotation grid with {} rows in {} ms.", orderedTokens.size(), System.currentTimeMillis() - start);
 			}
+			return Status.OK_STATUS;
 		}
 	}
 
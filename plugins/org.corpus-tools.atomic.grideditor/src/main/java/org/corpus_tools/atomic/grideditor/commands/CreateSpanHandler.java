@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.salt.common.SSpan;
@@ -87,12 +88,14 @@ public class CreateSpanHandler extends AbstractHandler {
 		});
 		SSpan span = grid.getGraph().createSpan(spanTokens);
 		SAnnotation annotation = span.createAnnotation(annotationNamespace, annotationName, null);
+		List<DocumentGraphChangeEvent> changes = DocumentGraphChangeEvent.nodeAddedWithRelations(span);
+		changes.add(DocumentGraphChangeEvent.annotationAdded(span, annotation));
 		int col = colIndex;
 		String colName = (annotationNamespace == null ? "null" : annotationNamespace.toString()).concat("::").concat(annotationName);
 		tokenIndices.stream().forEach(i -> {
 			grid.record(i, col, colName, annotation);
 		});
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 	
@@ -3,6 +3,10 @@
  */
 package org.corpus_tools.atomic.grideditor.commands;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -39,13 +43,16 @@ public class DeleteClickedSpanAnnotationHandler extends AbstractHandler {
 		Object value = clickedCell.getDataValue();
 		int rowIndex = clickedCell.getRowIndex();
 		int colIndex = clickedCell.getColumnIndex();
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		if (value instanceof SAnnotation && ((SAnnotation) value).getContainer() instanceof SSpan) {
 			SSpan parent = null;
 			// Remove this annotation from the parent span
 			(parent = (SSpan) ((SAnnotation) value).getContainer()).removeLabel(((SAnnotation) value).getQName());
+			changes.add(DocumentGraphChangeEvent.annotationRemoved(parent, ((SAnnotation) value).getQName(), ((SAnnotation) value).getValue()));
 			// If, now, the parent span doesn't contain any annotations, delete
 			// it
 			if (parent.getAnnotations().size() == 0) {
+				changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(parent));
 				parent.getGraph().removeNode(parent);
 			}
 			Row row = grid.getRowMap().get(rowIndex);
@@ -67,7 +74,7 @@ public class DeleteClickedSpanAnnotationHandler extends AbstractHandler {
 			}
 			table.refresh();
 		}
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 }
@@ -3,7 +3,10 @@
  */
 package org.corpus_tools.atomic.grideditor.commands;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -38,6 +41,7 @@ public class DeleteSelectedSpanAnnotationHandler extends AbstractHandler {
 		Collection<ILayerCell> selectedCells = (Collection<ILayerCell>) ((Object[]) ((Event) event.getTrigger()).data)[0];
 		AnnotationGrid grid = (AnnotationGrid) ((Object[]) ((Event) event.getTrigger()).data)[1];
 		// FIXME Use try catch for ClassCastExceptions for above code
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		for (ILayerCell cell : selectedCells) {
 			Range<Integer> indexRange = CellUtils.getRowIndicesForCell(cell);
 			int rowIndex = cell.getRowIndex();
@@ -47,8 +51,10 @@ public class DeleteSelectedSpanAnnotationHandler extends AbstractHandler {
 				SSpan parent = null;
 				// Remove this annotation from the parent span
 				(parent = (SSpan) ((SAnnotation) value).getContainer()).removeLabel(((SAnnotation) value).getQName());
+				changes.add(DocumentGraphChangeEvent.annotationRemoved(parent, ((SAnnotation) value).getQName(), ((SAnnotation) value).getValue()));
 				// If, now, the parent span doesn't contain any annotations, delete it
 				if (parent.getAnnotations().isEmpty()) {
+					changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(parent));
 					parent.getGraph().removeNode(parent);
 				}
 				Row row = grid.getRowMap().get(rowIndex);
@@ -70,8 +76,8 @@ public class DeleteSelectedSpanAnnotationHandler extends AbstractHandler {
 				}
 				table.refresh();
 			}
-			((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
 		}
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
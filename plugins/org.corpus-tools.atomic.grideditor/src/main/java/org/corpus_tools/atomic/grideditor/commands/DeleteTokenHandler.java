@@ -10,6 +10,7 @@ import java.util.stream.IntStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -82,9 +83,11 @@ public class DeleteTokenHandler extends AbstractHandler {
 		StringBuffer buf = new StringBuffer(ds.getText());
         buf.replace(start, end, ""); 
         ds.setText(buf.toString());
+		List<DocumentGraphChangeEvent> changes = DocumentGraphChangeEvent.nodeRemovedWithRelations(tokenToDelete);
+		changes.add(DocumentGraphChangeEvent.textChanged(ds));
 		grid.getGraph().removeNode((SNode) clickedCell.getDataValue());
 		table.refresh();
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
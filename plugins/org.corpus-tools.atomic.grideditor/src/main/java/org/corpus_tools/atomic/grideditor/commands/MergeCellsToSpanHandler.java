@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -57,6 +58,7 @@ public class MergeCellsToSpanHandler extends AbstractHandler {
 		}
 
 		List<Integer> tokenIndices = new ArrayList<>();
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		sortedSelectedCells.stream().forEach(c -> {
 			Row row = grid.getRowMap().get(c.getRowIndex());
 			row.put(c.getColumnIndex(), grid.getColumnHeaderMap().get(c.getColumnIndex()), firstValue);
@@ -64,6 +66,9 @@ public class MergeCellsToSpanHandler extends AbstractHandler {
 			if (c.getDataValue() instanceof SAnnotation) {
 				SAnnotation annotation = (SAnnotation) c.getDataValue();
 				SSpan parent = annotation.getContainer();
+				if (parent.getGraph() != null) {
+					changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(parent));
+				}
 				grid.getGraph().removeNode(parent);
 				tokenIndices.add(c.getRowIndex());
 			}
@@ -74,8 +79,11 @@ public class MergeCellsToSpanHandler extends AbstractHandler {
 			tokenList.add(grid.getGraph().getSortedTokenByText().get(i));
 		});
 		grid.getGraph().removeNode(firstSpan);
-		grid.getGraph().createSpan(tokenList).addAnnotation(firstAnnotation);
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		SSpan mergedSpan = grid.getGraph().createSpan(tokenList);
+		mergedSpan.addAnnotation(firstAnnotation);
+		changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(mergedSpan));
+		changes.add(DocumentGraphChangeEvent.annotationAdded(mergedSpan, firstAnnotation));
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
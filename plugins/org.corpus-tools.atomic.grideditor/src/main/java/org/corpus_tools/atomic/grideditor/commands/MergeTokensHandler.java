@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeSet;
 
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -79,7 +80,9 @@ public class MergeTokensHandler extends AbstractHandler {
 		textRel.setStart(start);
 		textRel.setEnd(end);
 		grid.getGraph().addRelation(textRel);
+		List<DocumentGraphChangeEvent> changes = DocumentGraphChangeEvent.nodeAddedWithRelations(mergedToken);
 		tokensToMerge.stream().forEach(t -> {
+			changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(t));
 			grid.getGraph().removeNode(t);
 		});
 		// Update grid
@@ -108,7 +111,7 @@ public class MergeTokensHandler extends AbstractHandler {
 			grid.getRowMap().put(entry.getKey() - surplusRowsCount, entry.getValue());
 		}
 		table.refresh();
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
@@ -47,8 +47,10 @@ public class NewAnnotationColumnHandler extends DocumentGraphAwareHandler {
 			log.trace("User input (new annotation key) is null/empty."); 
 			return null;
 		}
+		// Rows may not be laid out yet while the grid is being compiled
+		int colIndex = grid.getColumnHeaderMap().size();
 		for (Row row : grid.getRowMap().values()) {
-			row.put(row.getCells().size(), key, null);
+			row.put(colIndex, key, null);
 		}
 		table.refresh();
 		return null;
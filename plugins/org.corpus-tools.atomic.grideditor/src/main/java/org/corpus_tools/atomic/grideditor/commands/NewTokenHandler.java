@@ -3,12 +3,14 @@
  */
 package org.corpus_tools.atomic.grideditor.commands;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -85,6 +87,8 @@ public class NewTokenHandler extends AbstractHandler {
 		}
 		// Change STextualDS
 		STextualDS ds = textRel.getTarget(); 
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
+		changes.add(DocumentGraphChangeEvent.textChanged(ds));
 		if (!addBeforeFirst) {
 			int startIndex = textRel.getEnd();
 			String originalText = ds.getText();
@@ -112,6 +116,7 @@ public class NewTokenHandler extends AbstractHandler {
 			});
 			// Create new token
 			SToken newToken = createToken(startIndex, realTokenLength, ds, graph, addWhitespace, addBeforeFirst, clickedToken);
+			changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(newToken));
 			// Update grid
 			Map<Integer, Row> tempRowMap = new HashMap<>();
 			for (Iterator<Entry<Integer, Row>> iterator = grid.getRowMap().entrySet().iterator(); iterator.hasNext();) {
@@ -149,6 +154,7 @@ public class NewTokenHandler extends AbstractHandler {
 			});
 			// Create new token
 			SToken newToken = createToken(startIndex, realTokenLength, ds, graph, addWhitespace, addBeforeFirst, clickedToken);
+			changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(newToken));
 			// Update grid
 			Map<Integer, Row> tempRowMap = new HashMap<>();
 			for (Iterator<Entry<Integer, Row>> iterator = grid.getRowMap().entrySet().iterator(); iterator.hasNext();) {
@@ -160,7 +166,7 @@ public class NewTokenHandler extends AbstractHandler {
 			tempRowMap.entrySet().stream().forEach(e -> grid.getRowMap().put(e.getKey(), e.getValue()));
 		}
 		table.refresh();
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
@@ -3,9 +3,11 @@
  */
 package org.corpus_tools.atomic.grideditor.commands;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -48,6 +50,7 @@ public class SplitClickedSpanAnnotationHandler extends AbstractHandler {
 		String name = null;
 		Object value = null;
 		SAnnotation originalAnnotation = null;
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		if (cellObject instanceof SAnnotation) {
 			originalAnnotation = (SAnnotation) cellObject;
 			ns = originalAnnotation.getNamespace();
@@ -63,8 +66,10 @@ public class SplitClickedSpanAnnotationHandler extends AbstractHandler {
 			SSpan parent = null;
 			// Remove this annotation from the parent span
 			(parent = (SSpan) ((SAnnotation) cellObject).getContainer()).removeLabel(((SAnnotation) cellObject).getQName());
+			changes.add(DocumentGraphChangeEvent.annotationRemoved(parent, originalAnnotation.getQName(), value));
 			// If, now, the parent span doesn't contain any annotations, delete it
 			if (parent.getAnnotations().size() == 0) {
+				changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(parent));
 				parent.getGraph().removeNode(parent);
 			}
 			SDocumentGraph graph = grid.getGraph();
@@ -78,12 +83,14 @@ public class SplitClickedSpanAnnotationHandler extends AbstractHandler {
 			for (int i = indexRange.lowerEndpoint(); i < indexRange.upperEndpoint() + 1; i++) {
 				SSpan span = grid.getGraph().createSpan(sortedTokens.get(i));
 				SAnnotation annotation = span.createAnnotation(ns, name, value);
+				changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(span));
+				changes.add(DocumentGraphChangeEvent.annotationAdded(span, annotation));
 				Row row = grid.getRowMap().get(i);
 				row.put(columnIndex, header, annotation);
 			}
 			table.refresh();
 		}
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
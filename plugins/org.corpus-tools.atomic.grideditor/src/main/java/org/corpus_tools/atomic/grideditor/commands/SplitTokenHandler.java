@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.TreeSet;
 import java.util.Map.Entry;
 
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.GridEditor;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid.Row;
@@ -76,6 +77,7 @@ public class SplitTokenHandler extends AbstractHandler {
 		final STextualDS ds = originalTextualRelation.getTarget();
 		Integer startIndex = originalTextualRelation.getStart();
 		List<SToken> tokensToAdd = new ArrayList<>();
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		SToken token = null;
 		// Create tokens
 		for (int length : segmentLengths) {
@@ -89,7 +91,9 @@ public class SplitTokenHandler extends AbstractHandler {
 			grid.getGraph().addRelation(rel);
 			startIndex = startIndex + length;
 			tokensToAdd.add(token);
+			changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(token));
 		}
+		changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(clickedToken));
 		grid.getGraph().removeNode(clickedToken);
 		// Update grid
 		Map<Integer, Row> tempRowMap = new HashMap<>();
@@ -107,7 +111,7 @@ public class SplitTokenHandler extends AbstractHandler {
 		tempRowMap.entrySet().stream().forEach(e -> grid.getRowMap().put(e.getKey(), e.getValue()));
 		// Refresh and set dirty
 		table.refresh();
-		((GridEditor) HandlerUtil.getActiveEditor(event)).setDirty(true);
+		((GridEditor) HandlerUtil.getActiveEditor(event)).fireGraphChanges(changes);
 		return null;
 	}
 
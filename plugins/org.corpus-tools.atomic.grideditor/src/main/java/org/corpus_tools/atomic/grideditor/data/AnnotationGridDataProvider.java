@@ -3,11 +3,17 @@
  */
 package org.corpus_tools.atomic.grideditor.data;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.grideditor.data.annotationgrid.AnnotationGrid;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.graph.IdentifiableElement;
 import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
 
 /**
@@ -19,9 +25,19 @@ import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
 public class AnnotationGridDataProvider implements IDataProvider {
 
 	private AnnotationGrid annotationGrid;
+	private final DocumentGraphEditor editor;
 
 	public AnnotationGridDataProvider(AnnotationGrid annotationGrid) {
+		this(annotationGrid, null);
+	}
+
+	/**
+	 * @param annotationGrid The grid providing the data.
+	 * @param editor The editor publishing changes made via {@link #setDataValue(int, int, Object)}, or `null`.
+	 */
+	public AnnotationGridDataProvider(AnnotationGrid annotationGrid, DocumentGraphEditor editor) {
 		this.annotationGrid = annotationGrid;
+		this.editor = editor;
 	}
 
 	/* (non-Javadoc)
@@ -44,9 +60,15 @@ public class AnnotationGridDataProvider implements IDataProvider {
 	public void setDataValue(int columnIndex, int rowIndex, Object newValue) {
 		Object previous = getDataValue(columnIndex, rowIndex); 
 		SDocumentGraph graph = annotationGrid.getGraph();
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
 		if (previous instanceof SAnnotation) {
-			((SAnnotation) previous).setValue(newValue);
+			SAnnotation annotation = (SAnnotation) previous;
+			Object oldValue = annotation.getValue();
+			annotation.setValue(newValue);
 			annotationGrid.record(rowIndex, columnIndex, annotationGrid.getColumnHeaderMap().get(columnIndex), previous);
+			if (annotation.getContainer() instanceof IdentifiableElement) {
+				changes.add(DocumentGraphChangeEvent.annotationChanged((IdentifiableElement) annotation.getContainer(), annotation.getQName(), oldValue, newValue));
+			}
 		}
 		else if (previous == null) {
 			SToken token = graph.getSortedTokenByText().get(rowIndex);
@@ -63,11 +85,16 @@ public class AnnotationGridDataProvider implements IDataProvider {
 			}
 			SAnnotation newAnno = span.createAnnotation(namespace, name, newValue);
 			annotationGrid.record(rowIndex, columnIndex, annotationGrid.getColumnHeaderMap().get(columnIndex), newAnno);
+			changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(span));
+			changes.add(DocumentGraphChangeEvent.annotationAdded(span, newAnno));
 		}
 		else {
 			// Not null, not an SAnnotation
 			throw new UnsupportedOperationException("Not supported yet!");
 		}
+		if (editor != null) {
+			editor.fireGraphChanges(changes);
+		}
 	}
 
 	/* (non-Javadoc)
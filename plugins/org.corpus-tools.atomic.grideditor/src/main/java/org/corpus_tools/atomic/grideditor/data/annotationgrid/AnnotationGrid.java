@@ -103,6 +103,15 @@ public class AnnotationGrid {
 		return row.get(colIndex).getValue();
 	}
 
+	/**
+	 * Removes all rows and column headers from the grid,
+	 * so that it can be recompiled from the graph.
+	 */
+	public void clear() {
+		rowMap.clear();
+		columnHeaderMap.clear();
+	}
+
 	/**
 	 * @return the columnHeaderMap
 	 */
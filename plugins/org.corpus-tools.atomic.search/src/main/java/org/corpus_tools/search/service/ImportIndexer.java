@@ -0,0 +1,44 @@
+package org.corpus_tools.search.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentImportListener;
+import org.corpus_tools.atomic.api.events.DocumentImportNotifier;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.ui.IStartup;
+import org.eclipse.ui.PlatformUI;
+
+/**
+ * Indexes the documents of Pepper imports as they are converted, so that
+ * imported documents do not have to be re-indexed from their files.
+ * <p>
+ * The indexer is registered with the {@link DocumentImportNotifier} when
+ * the workbench starts, so that imports are indexed whether or not the
+ * {@link SearchService} has been used before.
+ * </p>
+ */
+public class ImportIndexer implements IStartup, DocumentImportListener {
+
+	private static final Logger log = LogManager.getLogger(ImportIndexer.class);
+
+	private volatile SearchService service = null;
+
+	@Override
+	public void earlyStartup() {
+		IEclipseContext context = PlatformUI.getWorkbench().getService(IEclipseContext.class);
+		service = ContextInjectionFactory.make(SearchService.class, context);
+		DocumentImportNotifier.getInstance().addListener(this);
+		log.trace("Registered the search index for imported documents.");
+	}
+
+	@Override
+	public void documentImported(IProject project, SDocumentGraph documentGraph) {
+		long start = System.currentTimeMillis();
+		service.addDocument(project.getName(), documentGraph);
+		log.trace("Indexed imported document {} in {} ms", documentGraph.getId(), System.currentTimeMillis() - start);
+	}
+
+}
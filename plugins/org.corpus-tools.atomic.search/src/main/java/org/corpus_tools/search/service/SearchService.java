@@ -2,11 +2,19 @@ package org.corpus_tools.search.service;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Singleton;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.editors.DocumentGraphSaveJob;
+import org.corpus_tools.atomic.api.editors.ProjectDocumentLoader;
 import org.corpus_tools.graphannis.API;
 import org.corpus_tools.graphannis.API.CorpusStorageManager;
 import org.corpus_tools.graphannis.API.GraphUpdate;
@@ -14,11 +22,7 @@ import org.corpus_tools.graphannis.API.StringVector;
 import org.corpus_tools.graphannis.QueryToJSON;
 import org.corpus_tools.graphannis.SaltImport;
 import org.corpus_tools.salt.common.SDocumentGraph;
-import org.corpus_tools.salt.util.SaltUtil;
-import org.eclipse.core.resources.IContainer;
-import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -29,23 +33,35 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.e4.core.di.annotations.Creatable;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.PlatformUI;
 
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
-
 import annis.service.objects.Match;
 import annis.service.objects.MatchGroup;
 
 @Creatable
+@Singleton
 public class SearchService {
 	
 	public static final String IDX_FOLDER = ".idx-graphannis";
 	
 	private static final Logger log = LogManager.getLogger(SearchService.class);
 	
+	/**
+	 * The prefix of the corpora in which single document graphs are indexed
+	 * to be searched on their own, cf. {@link #findInDocumentGraph(List, SDocumentGraph)}.
+	 * They do not belong to a project, and are not searched otherwise.
+	 */
+	private static final String DOCUMENT_GRAPH_CORPUS = ".atomic-document-graph";
+	
+	/**
+	 * The document graph corpora which are empty and not in use. There are
+	 * only as many of them as graphs have been searched concurrently.
+	 */
+	private final Queue<String> freeDocumentGraphCorpora = new ConcurrentLinkedQueue<>();
+	
+	private final AtomicInteger documentGraphCorpusCount = new AtomicInteger();
+	
 	private final CorpusStorageManager corpusManager;
 	
 	
@@ -55,25 +71,6 @@ public class SearchService {
 		this.corpusManager  = new CorpusStorageManager(corpusIndexLocation.getAbsolutePath());
 	}
 	
-	private void findDocumentsRecursive(IResource res, String projectName, 
-			IProgressMonitor monitor, Collection<URI> docList) throws CoreException {
-		if(monitor.isCanceled()) {
-			return;
-		}
-		
-		if(res instanceof IFile) {
-			IFile file = (IFile) res;
-			if("salt".equals(file.getFileExtension()) && !"saltProject.salt".equals(file.getName())) {
-				URI location = URI.createURI(file.getLocationURI().toASCIIString());
-				docList.add(location);
-			} 
-		} else if (res instanceof IContainer ) {
-			for (IResource child : ((IContainer) res).members()) {
-				findDocumentsRecursive(child, projectName, monitor, docList);
-			}
-		}
-	}
-	
 	public void reindexAllDocuments(boolean blockUI) {
 		
 		
@@ -87,38 +84,44 @@ public class SearchService {
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
 				
+				// editors save in the background, so wait for the files to be written
+				DocumentGraphSaveJob.joinAll(monitor);
+				
 				// get all documents of workspace
 				IWorkspace workspace = ResourcesPlugin.getWorkspace();
 				IWorkspaceRoot root = workspace.getRoot();
 				
-				Multimap<String, URI> docList = LinkedHashMultimap.create();
+				Map<String, ProjectDocumentLoader> loaders = new LinkedHashMap<>();
+				int documentCount = 0;
 				
 				SubMonitor monitorDelete = SubMonitor.convert(monitor, root.getProjects().length);
 				monitorDelete.setTaskName("Deleting old corpora from index");
-				int indexProjects = 0;
 				for(IProject p : root.getProjects()) {
 					// delete all old documents first					
 					deleteCorpus(p.getName());
 
 					try {
 						log.trace("Finding documents for project {}", p.getName());
-						findDocumentsRecursive(p, p.getName(), monitor, docList.get(p.getName()));
+						ProjectDocumentLoader loader = ProjectDocumentLoader.forProject(p);
+						loaders.put(p.getName(), loader);
+						documentCount += loader.getDocumentGraphLocations().size();
 					} catch (CoreException ex) {
 						log.error("Could not get find documents for project {}", p.getName(), ex);
 					}
-					monitorDelete.worked(indexProjects++);
+					monitorDelete.worked(1);
 				}
 				
-				SubMonitor monitorImport = SubMonitor.convert(monitor, docList.size());
+				SubMonitor monitorImport = SubMonitor.convert(monitor, documentCount);
 				monitorImport.setTaskName("Indexing documents");
-				// index each document
-				int indexDocs = 0;
-				for(Map.Entry<String, URI> e : docList.entries()) {
-					SDocumentGraph docGraph = SaltUtil.loadDocumentGraph(e.getValue());
-					
-					addDocument(e.getKey(), docGraph);
-					
-					monitorImport.worked(indexDocs++);
+				// index each document, loading the next ones in parallel
+				for(Map.Entry<String, ProjectDocumentLoader> e : loaders.entrySet()) {
+					String corpusName = e.getKey();
+					ProjectDocumentLoader loader = e.getValue();
+					loader.forEachDocument((location, docGraph) -> addDocument(corpusName, docGraph), 
+							monitorImport.newChild(loader.getDocumentGraphLocations().size()));
+					if(monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
 				}
 				
 				return Status.OK_STATUS;
@@ -150,7 +153,10 @@ public class SearchService {
 		API.GraphUpdate updateList = saltImport.finish();
 		updateList.finish();
 		
-		corpusManager.applyUpdate(corpusName, updateList);
+		// documents are added concurrently by imports
+		synchronized(corpusManager) {
+			corpusManager.applyUpdate(corpusName, updateList);
+		}
 	}
 	
 	private StringVector createAllCorporaList() {
@@ -184,4 +190,67 @@ public class SearchService {
 
 	}
 	
+	/**
+	 * Finds the matches of queries in the current state of a single document
+	 * graph. The graph is indexed once for all queries in a corpus of its own,
+	 * which is not used by any other call while this method runs, so that
+	 * the matches reflect all changes to the graph, whether they have been
+	 * saved and re-indexed or not, only the graph is searched, and graphs
+	 * can be searched concurrently. Callers must make sure that the graph is
+	 * not changed while this method runs.
+	 * 
+	 * @param queries the AQL queries
+	 * @param documentGraph the document graph to search
+	 * @return the matches of each query in the graph, in the order of the queries
+	 */
+	public List<List<Match>> findInDocumentGraph(List<String> queries, SDocumentGraph documentGraph) {
+		
+		List<List<Match>> result = new ArrayList<>(queries.size());
+		long start = System.currentTimeMillis();
+		
+		String corpusName = acquireDocumentGraphCorpus();
+		try {
+			SaltImport saltImport = new SaltImport();
+			saltImport.map(documentGraph);
+			API.GraphUpdate updateList = saltImport.finish();
+			updateList.finish();
+			corpusManager.applyUpdate(corpusName, updateList);
+			
+			for(String query : queries) {
+				StringVector resultRaw = corpusManager.find(new StringVector(corpusName), QueryToJSON.aqlToJSON(query));
+				ArrayList<Match> matches = new ArrayList<>((int) resultRaw.size());
+				for(long i=0; i < resultRaw.size(); i++) {
+					matches.add(Match.parseFromString(resultRaw.get(i).getString()));
+				}
+				result.add(matches);
+			}
+		}
+		finally {
+			releaseDocumentGraphCorpus(corpusName);
+		}
+		log.trace("Found matches for {} queries in document {} in {} ms", queries.size(), documentGraph.getPath(), System.currentTimeMillis() - start);
+		return result;
+	}
+	
+	/**
+	 * @return the name of an empty corpus in which a single document graph
+	 * can be indexed, and which is not used by anyone else until it is
+	 * returned to {@link #freeDocumentGraphCorpora}
+	 */
+	private String acquireDocumentGraphCorpus() {
+		String corpusName = freeDocumentGraphCorpora.poll();
+		if(corpusName == null) {
+			corpusName = DOCUMENT_GRAPH_CORPUS + "-" + documentGraphCorpusCount.incrementAndGet();
+			// the corpus may be left over from a previous session
+			deleteCorpus(corpusName);
+		}
+		return corpusName;
+	}
+	
+	private void releaseDocumentGraphCorpus(String corpusName) {
+		deleteCorpus(corpusName);
+		// corpora which could not be emptied are not reused
+		freeDocumentGraphCorpora.offer(corpusName);
+	}
+	
 }
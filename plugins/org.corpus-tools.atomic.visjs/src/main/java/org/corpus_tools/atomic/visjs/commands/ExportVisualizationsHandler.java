@@ -0,0 +1,141 @@
+package org.corpus_tools.atomic.visjs.commands;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.corpus_tools.atomic.api.editors.ProjectDocumentLoader;
+import org.corpus_tools.atomic.visjs.editors.VisJsBatchExporter;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.exceptions.SaltException;
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+/**
+ * Exports the visualizations of all documents in the project selected in the
+ * navigator into a folder chosen by the user, via the
+ * {@link VisJsBatchExporter}.
+ * <p>
+ * The documents are loaded and exported one by one in a {@link Job}, so that
+ * only the documents being loaded ahead and rendered are kept in memory. The
+ * job reports documents that could not be exported in its result status.
+ * </p>
+ */
+public class ExportVisualizationsHandler extends AbstractHandler {
+
+	private static final String PLUGIN_ID = "org.corpus_tools.atomic.visjs";
+	private static final String TITLE = "Export visualizations";
+
+	/*
+	 * @copydoc @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		Shell shell = HandlerUtil.getActiveShell(event);
+		IProject project = getSelectedProject(HandlerUtil.getCurrentSelection(event));
+		if (project == null) {
+			MessageDialog.openInformation(shell, TITLE, "Please select the project to export in the navigator.");
+			return null;
+		}
+		DirectoryDialog dialog = new DirectoryDialog(shell);
+		dialog.setText(TITLE);
+		dialog.setMessage("Select the folder to export the visualizations of " + project.getName() + " to.");
+		String folder = dialog.open();
+		if (folder == null) {
+			return null;
+		}
+		Job job = new ExportJob(project, URI.createFileURI(folder));
+		job.setUser(true);
+		job.schedule();
+		return null;
+	}
+
+	private static IProject getSelectedProject(ISelection selection) {
+		if (!(selection instanceof IStructuredSelection)) {
+			return null;
+		}
+		Object element = ((IStructuredSelection) selection).getFirstElement();
+		IResource resource = null;
+		if (element instanceof IResource) {
+			resource = (IResource) element;
+		}
+		else if (element instanceof IAdaptable) {
+			resource = ((IAdaptable) element).getAdapter(IResource.class);
+		}
+		return resource == null ? null : resource.getProject();
+	}
+
+	/**
+	 * Loads the documents of a project and exports their visualizations.
+	 */
+	private static final class ExportJob extends Job {
+
+		private final IProject project;
+		private final URI outputFolderUri;
+
+		private ExportJob(IProject project, URI outputFolderUri) {
+			super("Exporting the visualizations of " + project.getName());
+			this.project = project;
+			this.outputFolderUri = outputFolderUri;
+		}
+
+		/*
+		 * @copydoc @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			SubMonitor progress = SubMonitor.convert(monitor, getName(), 20);
+			VisJsBatchExporter exporter = new VisJsBatchExporter(outputFolderUri);
+			try {
+				ProjectDocumentLoader loader = ProjectDocumentLoader.forProject(project);
+				loader.forEachDocument((location, graph) -> {
+					SDocument document = graph.getDocument();
+					if (document.getName() == null) {
+						document.setName(location.trimFileExtension().lastSegment());
+					}
+					try {
+						exporter.write(document);
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, progress.newChild(19));
+				if (progress.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				progress.subTask("Writing the document index");
+				exporter.finish();
+				progress.worked(1);
+				return Status.OK_STATUS;
+			}
+			catch (CoreException e) {
+				return e.getStatus();
+			}
+			catch (UncheckedIOException e) {
+				return new Status(IStatus.ERROR, PLUGIN_ID, "Could not export the visualizations of " + project.getName() + ": " + e.getCause().getMessage(), e.getCause());
+			}
+			catch (SaltException | IOException | XMLStreamException e) {
+				return new Status(IStatus.ERROR, PLUGIN_ID, "Could not export the visualizations of " + project.getName() + ": " + e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.CodeSource;
@@ -35,6 +36,7 @@ import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -45,9 +47,10 @@ import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
 import org.corpus_tools.salt.Beta;
-import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SDominanceRelation;
 import org.corpus_tools.salt.common.SPointingRelation;
 import org.corpus_tools.salt.common.SSpan;
@@ -66,6 +69,7 @@ import org.corpus_tools.salt.util.ExportFilter;
 import org.corpus_tools.salt.util.StyleImporter;
 import org.eclipse.emf.common.util.URI;
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.json.JSONWriter;
 
 import com.google.common.io.ByteStreams;
@@ -212,6 +216,7 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 	private static final String JSON_COLOR_BACKGROUND = "background";
 	private static final String JSON_COLOR_BORDER = "border";
 	private static final String JSON_X = "x";
+	private static final String JSON_Y = "y";
 	private static final String JSON_LEVEL = "level";
 	private static final String JSON_GROUP = "group";
 	private static final String JSON_PHYSICS = "physics";
@@ -224,6 +229,7 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 	private static final String JSON_BORDER_WIDTH = "borderWidth";
 	private static final String JSON_FONT = "font";
 	private static final String JSON_FONT_SIZE = "size";
+	private static final String JSON_DASHES = "dashes";
 
 	private int xPosition = 0;
 	private int nTokens = 0;
@@ -293,6 +299,58 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 	private boolean withPhysics = false;
 
+	/**
+	 * The default number of nodes above which a document is rendered in
+	 * level-of-detail mode, cf. {@link #setLodThreshold(int)}.
+	 */
+	public static final int LOD_NODE_THRESHOLD = 5000;
+	// number of tokens covered by a single span cluster of one annotation class
+	private static final int LOD_SPAN_CLUSTER_TOKENS = 50;
+	private static final int LEVEL_DIST = 120;
+	private static final String LOD_CLUSTER_PREFIX = "lod:";
+
+	private static final String CLUSTER_COLOR_VALUE = "#e8e8e8";
+	private static final String CLUSTER_BORDER_COLOR_VALUE = "#a0a0a0";
+
+	private int lodThreshold = LOD_NODE_THRESHOLD;
+	private boolean levelOfDetail = false;
+	private final Map<SToken, Integer> tokenIndex = new HashMap<>();
+	private final Map<SNode, int[]> tokenExtents = new HashMap<>();
+	private final Map<SNode, SNode> topStructures = new HashMap<>();
+	private final Map<SNode, LodCluster> nodeToCluster = new HashMap<>();
+	private final Map<String, LodCluster> clusters = new LinkedHashMap<>();
+
+	// vis.js options for nodes with precomputed coordinates
+	static final String FIXED_POSITIONS_SMOOTH_JS = "{" + NEWLINE + "type: 'cubicBezier'," + NEWLINE
+			+ "forceDirection: 'vertical'," + NEWLINE + "roundness: 0.4" + NEWLINE + "}";
+	static final String FIXED_POSITIONS_LAYOUT_JS = "layout: {" + NEWLINE + "improvedLayout: false" + NEWLINE + "},"
+			+ NEWLINE + "physics: {" + NEWLINE + "enabled: false" + NEWLINE + "}" + NEWLINE;
+	// replaces a cluster node with its members on double click
+	static final String EXPAND_CLUSTER_JS = "network.on(\"doubleClick\", function(params) {" + NEWLINE
+			+ "if (params.nodes.length !== 1) {" + NEWLINE + "return;" + NEWLINE + "}" + NEWLINE
+			+ "var clusterId = params.nodes[0];" + NEWLINE + "var cluster = clustersJson[clusterId];"
+			+ NEWLINE + "if (cluster === undefined) {" + NEWLINE + "return;" + NEWLINE + "}" + NEWLINE
+			+ "edges.remove(network.getConnectedEdges(clusterId));" + NEWLINE + "nodes.remove(clusterId);"
+			+ NEWLINE + "nodes.add(cluster.nodes.filter(function(n) {" + NEWLINE
+			+ "return nodes.get(n.id) === null;" + NEWLINE + "}));" + NEWLINE
+			+ "edges.add(cluster.edges.filter(function(e) {" + NEWLINE
+			+ "return edges.get(e.id) === null;" + NEWLINE + "}));" + NEWLINE
+			+ "delete clustersJson[clusterId];" + NEWLINE + "});" + NEWLINE;
+
+	// updates the label of a displayed or collapsed node without redrawing
+	static final String UPDATE_NODE_LABEL_JS = "function updateNodeLabel(id, label) {" + NEWLINE
+			+ "if (nodeData !== null) {" + NEWLINE + "if (nodeData.get(id) !== null) {" + NEWLINE
+			+ "nodeData.update({id: id, label: label});" + NEWLINE + "return;" + NEWLINE + "}" + NEWLINE + "}"
+			+ NEWLINE + "for (var clusterId in clustersJson) {" + NEWLINE
+			+ "clustersJson[clusterId].nodes.forEach(function(n) {" + NEWLINE + "if (n.id === id) {" + NEWLINE
+			+ "n.label = label;" + NEWLINE + "}" + NEWLINE + "});" + NEWLINE + "}" + NEWLINE + "}" + NEWLINE;
+
+	// null to use the layered layout for documents containing trees only
+	private Boolean layeredLayout = null;
+	private LayeredLayout layout = null;
+	private final Map<SNode, Long> pendingNodes = new LinkedHashMap<>();
+	private final List<SRelation> pendingRelations = new ArrayList<>();
+
 	/**
 	 * Creates a new VisJsVisualizer instance for specified salt document.
 	 * 
@@ -360,8 +418,10 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 	 *            a hierarchical <a href=
 	 *            "http://download.eclipse.org/modeling/emf/emf/javadoc/2.4.3/org/eclipse/emf/common/util/URI.html">
 	 *            org.eclipse.emf.common.util.URI</a> of a salt file to be
-	 *            visualized. The constructor will create a new [SDocument](\ref
-	 *            org.corpus_tools.salt.common.SDocument) of this.
+	 *            visualized. The constructor will use the graph registered in
+	 *            the {@link DocumentGraphRegistry} or create a new
+	 *            [SDocument](\ref org.corpus_tools.salt.common.SDocument) of
+	 *            this.
 	 * 
 	 * @throws IOException
 	 *             if creation of tmp file failed
@@ -406,8 +466,8 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			throw new SaltParameterException("inputUri", "VisJsVisualizer", this.getClass());
 
 		try {
-			this.doc = SaltFactory.createSDocument();
-			doc.loadDocumentGraph(inputFileUri);
+			// reuse the graph if the document is open in an editor
+			this.doc = DocumentGraphRegistry.getInstance().getOrLoad(inputFileUri).getDocument();
 			docId = doc.getId();
 		} catch (SaltResourceException e) {
 			throw new SaltResourceException(
@@ -597,10 +657,13 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 					+ "  loadSaltObjectAndDraw();" + NEWLINE
 					+ "  $(window).bind(\"resize\", elementResize);" + NEWLINE
 					+ "});" + NEWLINE + "var nodesJson = [];" + NEWLINE + "var edgesJson = [];"
-					+ NEWLINE + "var network = null;" + NEWLINE + "function loadSaltObjectAndDraw() {" + NEWLINE
-					+ "var nodesJson = " + NEWLINE);
+					+ NEWLINE + "var clustersJson = {};" + NEWLINE + "var network = null;" + NEWLINE
+					+ "var nodeData = null;" + NEWLINE + UPDATE_NODE_LABEL_JS
+					+ "function loadSaltObjectAndDraw() {" + NEWLINE + "var nodesJson = " + NEWLINE);
 			xmlWriter.flush();
 
+			boolean fixedPositions = prepareLayout();
+
 			try {
 				buildJSON();
 			} catch (SaltParameterException e) {
@@ -647,6 +710,18 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 			xmlWriter.writeCharacters(";" + NEWLINE);
 
+			if (levelOfDetail) {
+				// collapsed cluster contents, expanded on demand in the browser
+				xmlWriter.writeCharacters("clustersJson = ");
+				xmlWriter.flush();
+				writeClustersJson();
+				xmlWriter.writeCharacters(";" + NEWLINE);
+			}
+			if (fixedPositions) {
+				// coordinates are precomputed, there is nothing to stabilize
+				withPhysics = false;
+			}
+
 			xmlWriter.writeCharacters("var nodeDist =" + nodeDist + ";" + NEWLINE);
 
 			xmlWriter.writeCharacters("draw(nodesJson, edgesJson, nodeDist);" + NEWLINE + "}" + NEWLINE
@@ -656,20 +731,35 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 					+ "function draw(nodesJson, edgesJson, nodeDist) {" + NEWLINE + "destroy();" + NEWLINE
 					+ "var connectionCount = [];" + NEWLINE + "var nodes = [];" + NEWLINE + "var edges = [];" + NEWLINE
 					+ NEWLINE + "nodes = new vis.DataSet(nodesJson);" + NEWLINE + "edges = new vis.DataSet(edgesJson);"
+					+ NEWLINE + "nodeData = nodes;"
 					+ NEWLINE + "var container = document.getElementById('mynetwork');" + NEWLINE + "var data = {"
 					+ NEWLINE + "nodes: nodes," + NEWLINE + "edges: edges" + NEWLINE + "};" + NEWLINE
 					+ "var options = {" + NEWLINE + "nodes:{" + NEWLINE + "shape: \"box\"" + NEWLINE + "}," + NEWLINE
-					+ "edges: {" + NEWLINE + "smooth: true," + NEWLINE + "arrows: {" + NEWLINE + "to: {" + NEWLINE
+					+ "edges: {" + NEWLINE + "smooth: "
+					+ (fixedPositions ? FIXED_POSITIONS_SMOOTH_JS : "true")
+					+ "," + NEWLINE + "arrows: {" + NEWLINE + "to: {" + NEWLINE
 					+ "enabled: true" + NEWLINE + "}" + NEWLINE + "}" + NEWLINE + "}," + NEWLINE + "interaction: {"
-					+ NEWLINE + "navigationButtons: true," + NEWLINE + "keyboard: true" + NEWLINE + "}," + NEWLINE
-					+ "layout: {" + NEWLINE + "hierarchical:{" + NEWLINE + "direction: directionInput.value" + NEWLINE
-					+ "}" + NEWLINE + "}," + NEWLINE + "physics: {" + NEWLINE + "hierarchicalRepulsion: {" + NEWLINE
-					+ "centralGravity: 0.8," + NEWLINE + "springLength: " + sprLength + "," + NEWLINE
-					+ "springConstant: " + sprConstant + "," + NEWLINE + "nodeDistance: nodeDist," + NEWLINE
-					+ "damping: 0.04" + NEWLINE + "}," + NEWLINE + "maxVelocity: 50," + NEWLINE + "minVelocity: 1,"
-					+ NEWLINE + "solver: 'hierarchicalRepulsion'," + NEWLINE + "timestep: 0.5," + NEWLINE
-					+ "stabilization: {" + NEWLINE + "iterations: 1000" + NEWLINE + "}" + NEWLINE + "}" + NEWLINE + "}"
-					+ NEWLINE + ";" + NEWLINE + "network = new vis.Network(container, data, options);" + NEWLINE);
+					+ NEWLINE + "navigationButtons: true," + NEWLINE + "keyboard: true" + NEWLINE + "}," + NEWLINE);
+
+			if (fixedPositions) {
+				xmlWriter.writeCharacters(FIXED_POSITIONS_LAYOUT_JS);
+			} else {
+				xmlWriter.writeCharacters("layout: {" + NEWLINE + "hierarchical:{" + NEWLINE
+						+ "direction: directionInput.value" + NEWLINE + "}" + NEWLINE + "}," + NEWLINE + "physics: {"
+						+ NEWLINE + "hierarchicalRepulsion: {" + NEWLINE + "centralGravity: 0.8," + NEWLINE
+						+ "springLength: " + sprLength + "," + NEWLINE + "springConstant: " + sprConstant + "," + NEWLINE
+						+ "nodeDistance: nodeDist," + NEWLINE + "damping: 0.04" + NEWLINE + "}," + NEWLINE
+						+ "maxVelocity: 50," + NEWLINE + "minVelocity: 1," + NEWLINE + "solver: 'hierarchicalRepulsion',"
+						+ NEWLINE + "timestep: 0.5," + NEWLINE + "stabilization: {" + NEWLINE + "iterations: 1000"
+						+ NEWLINE + "}" + NEWLINE + "}" + NEWLINE);
+			}
+
+			xmlWriter.writeCharacters("}" + NEWLINE + ";" + NEWLINE
+					+ "network = new vis.Network(container, data, options);" + NEWLINE);
+
+			if (levelOfDetail) {
+				xmlWriter.writeCharacters(EXPAND_CLUSTER_JS);
+			}
 
 			if (withPhysics == true) {
 				xmlWriter.writeCharacters("network.on(\"stabilizationProgress\", function(params) {" + NEWLINE
@@ -787,6 +877,79 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 	}
 
+	/**
+	 * Writes the nodes, edges and, in level-of-detail mode, the collapsed
+	 * clusters of the Salt document specified by the constructor as a single
+	 * JSON object of the form
+	 * <code>{"nodes": [...], "edges": [...], "clusters": {...}}</code> to a
+	 * file. The nodes are laid out as in {@link #visualize(URI)}.
+	 * 
+	 * @param jsonFile
+	 *            the output file
+	 * @throws SaltException
+	 *             if a problem occurred while building JSON objects
+	 * @throws IOException
+	 *             if a problem occurred while writing the output file
+	 */
+	public void writeJSON(File jsonFile) throws SaltException, IOException {
+		prepareLayout();
+		try (OutputStream os = new FileOutputStream(jsonFile); FileOutputStream fos = new FileOutputStream(tmpFile)) {
+			setNodeWriter(os);
+			setEdgeWriter(fos);
+
+			nodeWriter.write("{\"nodes\":");
+			buildJSON();
+			nodeWriter.write(",\"edges\":");
+			nodeWriter.flush();
+			try (InputStream edges = new FileInputStream(tmpFile)) {
+				ByteStreams.copy(edges, os);
+			}
+			nodeWriter.write(",\"clusters\":");
+			if (levelOfDetail) {
+				writeClustersJson();
+			} else {
+				nodeWriter.write("{}");
+			}
+			nodeWriter.write("}");
+			nodeWriter.close();
+			edgeWriter.close();
+		}
+	}
+
+	/*
+	 * Decides whether the document is rendered in level-of-detail mode and
+	 * whether it is laid out in Java, and returns whether the nodes get
+	 * precomputed coordinates.
+	 */
+	private boolean prepareLayout() {
+		levelOfDetail = lodThreshold > 0 && doc.getDocumentGraph().getNodes().size() > lodThreshold;
+		boolean isLayered = layeredLayout != null ? layeredLayout : hasTrees(doc.getDocumentGraph());
+		layout = isLayered ? new LayeredLayout(NODE_DIST) : null;
+		return layout != null || levelOfDetail;
+	}
+
+	/*
+	 * Returns whether the graph contains constituency trees, i.e., dominance
+	 * relations, or dependency trees, i.e., pointing relations no target of
+	 * which has more than one head.
+	 */
+	static boolean hasTrees(SDocumentGraph graph) {
+		if (!graph.getDominanceRelations().isEmpty()) {
+			return true;
+		}
+		List<SPointingRelation> pointingRelations = graph.getPointingRelations();
+		if (pointingRelations.isEmpty()) {
+			return false;
+		}
+		Set<SNode> targets = new HashSet<>();
+		for (SPointingRelation relation : pointingRelations) {
+			if (!targets.add(relation.getTarget())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/*
 	 * Organizes the output folder structure and invokes the method for copying
 	 * of auxiliary files.
@@ -805,6 +968,16 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			}
 		}
 
+		writeResources(outputFolder);
+
+		return outputFolder;
+	}
+
+	/*
+	 * Creates the css, js and image folders in an existing output folder and
+	 * copies the auxiliary files into them.
+	 */
+	static void writeResources(File outputFolder) throws SecurityException, FileNotFoundException, IOException {
 		File cssFolderOut = new File(outputFolder, CSS_FOLDER_OUT);
 		if (!cssFolderOut.exists()) {
 			if (!cssFolderOut.mkdir()) {
@@ -827,18 +1000,18 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 		}
 
 		copyResourceFile(
-				getClass().getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + CSS_FILE),
+				CustomVisJsVisualizer.class.getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + CSS_FILE),
 				outputFolder.getPath(), CSS_FOLDER_OUT, CSS_FILE);
 
 		copyResourceFile(
-				getClass().getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + JS_FILE),
+				CustomVisJsVisualizer.class.getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + JS_FILE),
 				outputFolder.getPath(), JS_FOLDER_OUT, JS_FILE);
 
 		copyResourceFile(
-				getClass().getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + JQUERY_FILE),
+				CustomVisJsVisualizer.class.getResourceAsStream(RESOURCE_FOLDER + System.getProperty("file.separator") + JQUERY_FILE),
 				outputFolder.getPath(), JS_FOLDER_OUT, JQUERY_FILE);
 
-		ClassLoader classLoader = getClass().getClassLoader();
+		ClassLoader classLoader = CustomVisJsVisualizer.class.getClassLoader();
 		CodeSource srcCode = CustomVisJsVisualizer.class.getProtectionDomain().getCodeSource();
 		URL codeSourceUrl = srcCode.getLocation();
 		File codeSourseFile = new File(codeSourceUrl.getPath());
@@ -847,7 +1020,7 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			File imgFolder = new File(classLoader.getResource(RESOURCE_FOLDER_IMG_NETWORK).getFile());
 		
 			for (String imgFileName : NETWORK_IMAGES) {
-				InputStream inputStream = getClass().getResourceAsStream(System.getProperty("file.separator")
+				InputStream inputStream = CustomVisJsVisualizer.class.getResourceAsStream(System.getProperty("file.separator")
 						+ RESOURCE_FOLDER_IMG_NETWORK + System.getProperty("file.separator") + imgFileName);
 				copyResourceFile(inputStream, outputFolder.getPath(), IMG_FOLDER_OUT, imgFileName);
 			}
@@ -868,11 +1041,9 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			jarFile.close();
 
 		}
-
-		return outputFolder;
 	}
 
-	private void copyResourceFile(InputStream inputStream, String outputFolder, String outSubFolder, String outFile)
+	private static void copyResourceFile(InputStream inputStream, String outputFolder, String outSubFolder, String outFile)
 			throws IOException {
 
 		File outFileObject;
@@ -965,15 +1136,24 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 		try {
 
+			nTokens = sTokens.size();
+
+			if (levelOfDetail || layout != null) {
+				for (int i = 0; i < sTokens.size(); i++) {
+					tokenIndex.put(sTokens.get(i), i);
+				}
+			}
+			if (levelOfDetail) {
+				assignClusters();
+			}
+
 			// create node array
 			jsonWriterNodes.array();
 			for (SToken token : sTokens) {
-				writeJsonNode(token, maxLevel);
+				emitNode(token, maxLevel);
 				nNodes++;
 			}
 
-			nTokens = sTokens.size();
-
 			// create edge array
 			jsonWriterEdges.array();
 
@@ -981,6 +1161,24 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			// edges
 			doc.getDocumentGraph().traverse(doc.getDocumentGraph().getRoots(), GRAPH_TRAVERSE_TYPE.TOP_DOWN_DEPTH_FIRST,
 					TRAV_MODE_READ_NODES, this);
+
+			if (layout != null) {
+				// all levels are known now, write the laid out nodes and edges
+				layout.compute();
+				for (Map.Entry<SNode, Long> node : pendingNodes.entrySet()) {
+					writeJsonNode(node.getKey(), node.getValue());
+				}
+				for (SRelation relation : pendingRelations) {
+					writeJsonEdge((SNode) relation.getSource(), (SNode) relation.getTarget(), relation);
+				}
+			}
+
+			if (levelOfDetail) {
+				for (LodCluster cluster : clusters.values()) {
+					writeJsonCluster(cluster, sTokens);
+				}
+			}
+
 			// close node array
 			jsonWriterNodes.endArray();
 
@@ -1031,25 +1229,55 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 		return entries;
 	}
 
-	private void writeJsonNode(SNode node, long levelValue) throws SaltParameterException, IOException {
-		String highlightingColor = null;
-		if (styleImporter != null) {
-			highlightingColor = styleImporter.setHighlightingColor(node);
+	/*
+	 * Writes a node, or records it for the layered layout, in which case it
+	 * is written once the levels of all nodes are known.
+	 */
+	private void emitNode(SNode node, long levelValue) throws IOException {
+		if (layout == null) {
+			writeJsonNode(node, levelValue);
+			return;
 		}
+		if (node instanceof SToken) {
+			layout.addNode(node, levelValue, tokenIndex.get(node) * NODE_DIST, true);
+		} else {
+			layout.addNode(node, levelValue, getTokenCenterX(node), false);
+		}
+		pendingNodes.put(node, levelValue);
+	}
 
-		String idValue = node.getPath().fragment();
-		String idLabel = "id=" + idValue;
-		StringBuilder allLabels = new StringBuilder(idLabel);
+	private void emitEdge(SNode fromNode, SNode toNode, SRelation relation) throws IOException {
+		if (layout == null) {
+			writeJsonEdge(fromNode, toNode, relation);
+			return;
+		}
+		layout.addEdge(fromNode, toNode);
+		pendingRelations.add(relation);
+	}
 
-		// node object
-		jsonWriterNodes.object();
-		jsonWriterNodes.key(JSON_ID);
-		jsonWriterNodes.value(idValue);
-		jsonWriterNodes.key(JSON_LABEL);
+	private long getInitialX(SNode node) {
+		if (layout != null) {
+			return layout.getX(node);
+		} else if (levelOfDetail) {
+			return getTokenCenterX(node);
+		}
+		// initial x-value in center
+		return (nTokens / 2) * NODE_DIST;
+	}
+
+	/**
+	 * Creates the label of a node, consisting of its id, its annotations
+	 * sorted by name, and for tokens, the covered text.
+	 *
+	 * @param node
+	 *            a node of a document graph
+	 * @return the label the node is displayed with
+	 */
+	static String createNodeLabel(SNode node) {
+		StringBuilder allLabels = new StringBuilder("id=" + node.getPath().fragment());
 
-		Set<SAnnotation> sAnnotations = node.getAnnotations();
 		// sort annotation keys lexicographically
-		List<Map.Entry<String, String>> sortedAnnotations = sortAnnotations(sAnnotations);
+		List<Map.Entry<String, String>> sortedAnnotations = sortAnnotations(node.getAnnotations());
 
 		// add all annotation key-value-pairs
 		for (Map.Entry<String, String> annotation : sortedAnnotations) {
@@ -1060,13 +1288,30 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 		// add token text
 		if (node instanceof SToken) {
-			String text = doc.getDocumentGraph().getText(node);
+			String text = ((SDocumentGraph) node.getGraph()).getText(node);
 			if (text != null && !text.isEmpty()) {
 				allLabels.append(NEWLINE).append(NEWLINE).append(text);
 			}
 		}
+		return allLabels.toString();
+	}
+
+	private void writeJsonNode(SNode node, long levelValue) throws SaltParameterException, IOException {
+		String highlightingColor = null;
+		if (styleImporter != null) {
+			highlightingColor = styleImporter.setHighlightingColor(node);
+		}
+
+		// in level-of-detail mode, span and structure nodes are written into their cluster
+		LodCluster cluster = levelOfDetail ? nodeToCluster.get(node) : null;
+		JSONWriter writer = cluster != null ? cluster.nodeJson : jsonWriterNodes;
 
-		jsonWriterNodes.value(allLabels.toString());
+		// node object
+		writer.object();
+		writer.key(JSON_ID);
+		writer.value(node.getPath().fragment());
+		writer.key(JSON_LABEL);
+		writer.value(createNodeLabel(node));
 
 		String nodeColorValue;
 		String nodeColorBorder;
@@ -1075,13 +1320,13 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			nodeColorValue = TOK_COLOR_VALUE;
 			nodeColorBorder = TOK_BORDER_COLOR_VALUE;
 
-			jsonWriterNodes.key(JSON_X);
-			jsonWriterNodes.value((xPosition++) * NODE_DIST);
+			writer.key(JSON_X);
+			writer.value((xPosition++) * NODE_DIST);
 
 			// in order to keep the relative order to each other, tokens are not
 			// part of physics
-			jsonWriterNodes.key(JSON_PHYSICS);
-			jsonWriterNodes.value("false");
+			writer.key(JSON_PHYSICS);
+			writer.value("false");
 
 		}
 
@@ -1090,16 +1335,15 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			nodeColorBorder = SPAN_BORDER_COLOR_VALUE;
 
 			if (nGroupsId == 3) {
-				jsonWriterNodes.key(JSON_GROUP);
-				jsonWriterNodes.value("1");
+				writer.key(JSON_GROUP);
+				writer.value("1");
 
 			} else {
-				jsonWriterNodes.key(JSON_GROUP);
-				jsonWriterNodes.value("0");
+				writer.key(JSON_GROUP);
+				writer.value("0");
 			}
-			// initial x-value in center
-			jsonWriterNodes.key(JSON_X);
-			jsonWriterNodes.value((nTokens / 2) * NODE_DIST);
+			writer.key(JSON_X);
+			writer.value(getInitialX(node));
 
 		}
 
@@ -1107,45 +1351,55 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			nodeColorValue = STRUCTURE_COLOR_VALUE;
 			nodeColorBorder = STRUCTURE_BORDER_COLOR_VALUE;
 
-			jsonWriterNodes.key(JSON_GROUP);
-			jsonWriterNodes.value("0");
+			writer.key(JSON_GROUP);
+			writer.value("0");
 
-			// initial x-value in center
-			jsonWriterNodes.key(JSON_X);
-			jsonWriterNodes.value((nTokens / 2) * NODE_DIST);
+			writer.key(JSON_X);
+			writer.value(getInitialX(node));
 
 		} else {
 			throw new SaltParameterException(node.getId(), "writeJsonNode", this.getClass());
 		}
 
-		jsonWriterNodes.key(JSON_COLOR);
-		jsonWriterNodes.object();
-		jsonWriterNodes.key(JSON_COLOR_BACKGROUND);
-		jsonWriterNodes.value(nodeColorValue);
+		writer.key(JSON_COLOR);
+		writer.object();
+		writer.key(JSON_COLOR_BACKGROUND);
+		writer.value(nodeColorValue);
 		if (highlightingColor != null) {
-			jsonWriterNodes.key(JSON_COLOR_BORDER);
-			jsonWriterNodes.value(highlightingColor);
-			jsonWriterNodes.endObject(); // end color
-			jsonWriterNodes.key(JSON_BORDER_WIDTH);
-			jsonWriterNodes.value(HIGHLIGHTING_BORDER_WIDTH);
+			writer.key(JSON_COLOR_BORDER);
+			writer.value(highlightingColor);
+			writer.endObject(); // end color
+			writer.key(JSON_BORDER_WIDTH);
+			writer.value(HIGHLIGHTING_BORDER_WIDTH);
 
 		} else {
-			jsonWriterNodes.key(JSON_COLOR_BORDER);
-			jsonWriterNodes.value(nodeColorBorder);
-			jsonWriterNodes.endObject(); // end color
+			writer.key(JSON_COLOR_BORDER);
+			writer.value(nodeColorBorder);
+			writer.endObject(); // end color
 		}
 
-		jsonWriterNodes.key(JSON_LEVEL);
-		jsonWriterNodes.value(levelValue);
+		writer.key(JSON_LEVEL);
+		writer.value(levelValue);
 
-		// a bigger font
-		jsonWriterNodes.key(JSON_FONT);
-		jsonWriterNodes.object();
-		jsonWriterNodes.key(JSON_FONT_SIZE);
-		jsonWriterNodes.value(JSON_FONT_SIZE_VALUE);
-		jsonWriterNodes.endObject();
+		if (layout != null || levelOfDetail) {
+			writer.key(JSON_Y);
+			writer.value(levelValue * LEVEL_DIST);
+		}
 
-		jsonWriterNodes.endObject(); // end node object
+		// a bigger font
+		writer.key(JSON_FONT);
+		writer.object();
+		writer.key(JSON_FONT_SIZE);
+		writer.value(JSON_FONT_SIZE_VALUE);
+		writer.endObject();
+
+		writer.endObject(); // end node object
+
+		if (cluster != null) {
+			cluster.size++;
+			cluster.level = Math.min(cluster.level, levelValue);
+			return;
+		}
 		nodeWriter.newLine();
 
 		if (writeNodeImmediately) {
@@ -1156,6 +1410,28 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 
 	private void writeJsonEdge(SNode fromNode, SNode toNode, SRelation relation)
 			throws IOException, SaltParameterException {
+		LodCluster fromCluster = levelOfDetail ? nodeToCluster.get(fromNode) : null;
+		LodCluster toCluster = levelOfDetail ? nodeToCluster.get(toNode) : null;
+		if (fromCluster == null && toCluster == null) {
+			writeJsonEdge(jsonWriterEdges, fromNode, toNode, relation);
+			edgeWriter.newLine();
+			return;
+		}
+		/*
+		 * Edges touching collapsed nodes become visible once a cluster is
+		 * expanded. Edges between two clusters are stored with both of them
+		 * and deduplicated by id in the browser.
+		 */
+		if (fromCluster != null) {
+			writeJsonEdge(fromCluster.edgeJson, fromNode, toNode, relation);
+		}
+		if (toCluster != null && toCluster != fromCluster) {
+			writeJsonEdge(toCluster.edgeJson, fromNode, toNode, relation);
+		}
+	}
+
+	private void writeJsonEdge(JSONWriter writer, SNode fromNode, SNode toNode, SRelation relation)
+			throws SaltParameterException {
 		// get class of fromNode
 		String edgeColor;
 		if (fromNode instanceof SToken) {
@@ -1168,11 +1444,15 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 			throw new SaltParameterException(fromNode.getId(), "writeJsonEdge", this.getClass());
 		}
 
-		jsonWriterEdges.object();
-		jsonWriterEdges.key(JSON_EDGE_FROM);
-		jsonWriterEdges.value(fromNode.getPath().fragment());
-		jsonWriterEdges.key(JSON_EDGE_TO);
-		jsonWriterEdges.value(toNode.getPath().fragment());
+		writer.object();
+		if (levelOfDetail) {
+			writer.key(JSON_ID);
+			writer.value(relation.getId());
+		}
+		writer.key(JSON_EDGE_FROM);
+		writer.value(fromNode.getPath().fragment());
+		writer.key(JSON_EDGE_TO);
+		writer.value(toNode.getPath().fragment());
 
 		Set<SAnnotation> sAnnotations = relation.getAnnotations();
 		if (sAnnotations.size() > 0) {
@@ -1189,31 +1469,265 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 				i++;
 			}
 
-			jsonWriterEdges.key(JSON_LABEL);
-			jsonWriterEdges.value(allLabels.toString());
+			writer.key(JSON_LABEL);
+			writer.value(allLabels.toString());
 
 		}
 
-		jsonWriterEdges.key(JSON_WIDTH);
-		jsonWriterEdges.value(EDGE_WIDTH);
+		writer.key(JSON_WIDTH);
+		writer.value(EDGE_WIDTH);
 
-		jsonWriterEdges.key(JSON_COLOR);
-		jsonWriterEdges.value(edgeColor);
+		writer.key(JSON_COLOR);
+		writer.value(edgeColor);
 
 		if (relation instanceof SPointingRelation) {
-			jsonWriterEdges.key(JSON_SMOOTH);
-			jsonWriterEdges.object();
-			jsonWriterEdges.key(JSON_TYPE);
-			jsonWriterEdges.value(JSON_EDGE_TYPE_VALUE);
-			jsonWriterEdges.key(JSON_ROUNDNESS);
-			jsonWriterEdges.value(JSON_ROUNDNESS_VALUE);
-			jsonWriterEdges.endObject();
+			writer.key(JSON_SMOOTH);
+			writer.object();
+			writer.key(JSON_TYPE);
+			writer.value(JSON_EDGE_TYPE_VALUE);
+			writer.key(JSON_ROUNDNESS);
+			writer.value(JSON_ROUNDNESS_VALUE);
+			writer.endObject();
 		}
 
-		jsonWriterEdges.endObject();
+		writer.endObject();
 
-		edgeWriter.newLine();
+	}
 
+	/*
+	 * Level of detail: assigns each included structure to a cluster for the
+	 * subtree of its topmost dominating structure, and each included span to
+	 * a cluster per annotation class and window of covered tokens.
+	 */
+	private void assignClusters() {
+		for (SStructure structure : doc.getDocumentGraph().getStructures()) {
+			if (exportFilter != null && !exportFilter.includeNode(structure)) {
+				continue;
+			}
+			SNode top = getTopStructure(structure);
+			String topId = top.getPath().fragment();
+			addToCluster(structure, LOD_CLUSTER_PREFIX + "struct:" + topId, "subtree of " + topId);
+		}
+		for (SSpan span : doc.getDocumentGraph().getSpans()) {
+			if (exportFilter != null && !exportFilter.includeNode(span)) {
+				continue;
+			}
+			String annClass = "";
+			if (span.getAnnotations().size() > 0) {
+				// use first annotation, as for the span levels
+				annClass = sortAnnotations(span.getAnnotations()).iterator().next().getKey();
+			}
+			int window = Math.max(getTokenExtent(span)[0], 0) / LOD_SPAN_CLUSTER_TOKENS;
+			addToCluster(span, LOD_CLUSTER_PREFIX + "span:" + annClass + ":" + window,
+					(annClass.isEmpty() ? "spans" : annClass + " spans"));
+		}
+	}
+
+	private void addToCluster(SNode node, String clusterId, String label) {
+		LodCluster cluster = clusters.get(clusterId);
+		if (cluster == null) {
+			cluster = new LodCluster(clusterId, label);
+			clusters.put(clusterId, cluster);
+		}
+		int[] extent = getTokenExtent(node);
+		cluster.firstToken = Math.min(cluster.firstToken, extent[0]);
+		cluster.lastToken = Math.max(cluster.lastToken, extent[1]);
+		nodeToCluster.put(node, cluster);
+	}
+
+	/*
+	 * Follows dominance relations upwards to the topmost structure.
+	 */
+	private SNode getTopStructure(SNode structure) {
+		SNode top = topStructures.get(structure);
+		if (top != null) {
+			return top;
+		}
+		top = structure;
+		for (SRelation<?, ?> relation : doc.getDocumentGraph().getInRelations(structure.getId())) {
+			if (relation instanceof SDominanceRelation
+					&& (exportFilter == null || exportFilter.includeNode(((SDominanceRelation) relation).getSource()))) {
+				top = getTopStructure(((SDominanceRelation) relation).getSource());
+				break;
+			}
+		}
+		topStructures.put(structure, top);
+		return top;
+	}
+
+	/*
+	 * Returns the indices of the first and last included token covered by the
+	 * node, or {Integer.MAX_VALUE, -1} if it covers none.
+	 */
+	private int[] getTokenExtent(SNode node) {
+		if (node instanceof SToken) {
+			Integer index = tokenIndex.get(node);
+			return index == null ? new int[] { Integer.MAX_VALUE, -1 } : new int[] { index, index };
+		}
+		int[] extent = tokenExtents.get(node);
+		if (extent != null) {
+			return extent;
+		}
+		extent = new int[] { Integer.MAX_VALUE, -1 };
+		for (SRelation<?, ?> relation : doc.getDocumentGraph().getOutRelations(node.getId())) {
+			if (relation instanceof SDominanceRelation || relation instanceof SSpanningRelation) {
+				int[] childExtent = getTokenExtent((SNode) relation.getTarget());
+				extent[0] = Math.min(extent[0], childExtent[0]);
+				extent[1] = Math.max(extent[1], childExtent[1]);
+			}
+		}
+		tokenExtents.put(node, extent);
+		return extent;
+	}
+
+	/*
+	 * Returns the x coordinate centered above the tokens a node covers.
+	 */
+	private long getTokenCenterX(SNode node) {
+		int[] extent = getTokenExtent(node);
+		if (extent[1] < 0) {
+			return (nTokens / 2) * NODE_DIST;
+		}
+		return (long) (extent[0] + extent[1]) * NODE_DIST / 2;
+	}
+
+	/*
+	 * Writes the placeholder node for a cluster, and dashed edges to the
+	 * outermost tokens it covers.
+	 */
+	private void writeJsonCluster(LodCluster cluster, List<SToken> sTokens) throws IOException {
+		long x = cluster.lastToken < 0 ? (nTokens / 2) * NODE_DIST
+				: (long) (cluster.firstToken + cluster.lastToken) * NODE_DIST / 2;
+		long level = cluster.size > 0 ? cluster.level : 0;
+
+		jsonWriterNodes.object();
+		jsonWriterNodes.key(JSON_ID);
+		jsonWriterNodes.value(cluster.id);
+		jsonWriterNodes.key(JSON_LABEL);
+		jsonWriterNodes.value(cluster.label + NEWLINE + "(" + cluster.size + " nodes)");
+		jsonWriterNodes.key(JSON_X);
+		jsonWriterNodes.value(x);
+		jsonWriterNodes.key(JSON_Y);
+		jsonWriterNodes.value(level * LEVEL_DIST);
+		jsonWriterNodes.key(JSON_LEVEL);
+		jsonWriterNodes.value(level);
+		jsonWriterNodes.key(JSON_COLOR);
+		jsonWriterNodes.object();
+		jsonWriterNodes.key(JSON_COLOR_BACKGROUND);
+		jsonWriterNodes.value(CLUSTER_COLOR_VALUE);
+		jsonWriterNodes.key(JSON_COLOR_BORDER);
+		jsonWriterNodes.value(CLUSTER_BORDER_COLOR_VALUE);
+		jsonWriterNodes.endObject();
+		jsonWriterNodes.key(JSON_FONT);
+		jsonWriterNodes.object();
+		jsonWriterNodes.key(JSON_FONT_SIZE);
+		jsonWriterNodes.value(JSON_FONT_SIZE_VALUE);
+		jsonWriterNodes.endObject();
+		jsonWriterNodes.endObject();
+		nodeWriter.newLine();
+
+		if (cluster.lastToken >= 0) {
+			Set<SToken> outerTokens = new HashSet<>();
+			outerTokens.add(sTokens.get(cluster.firstToken));
+			outerTokens.add(sTokens.get(cluster.lastToken));
+			for (SToken token : outerTokens) {
+				jsonWriterEdges.object();
+				jsonWriterEdges.key(JSON_EDGE_FROM);
+				jsonWriterEdges.value(cluster.id);
+				jsonWriterEdges.key(JSON_EDGE_TO);
+				jsonWriterEdges.value(token.getPath().fragment());
+				jsonWriterEdges.key(JSON_COLOR);
+				jsonWriterEdges.value(CLUSTER_BORDER_COLOR_VALUE);
+				jsonWriterEdges.key(JSON_DASHES);
+				jsonWriterEdges.value(true);
+				jsonWriterEdges.endObject();
+				edgeWriter.newLine();
+			}
+		}
+
+		cluster.nodeJson.endArray();
+		cluster.edgeJson.endArray();
+	}
+
+	/*
+	 * Writes the collapsed members of all clusters as a JSON object keyed by
+	 * cluster id to the node writer.
+	 */
+	private void writeClustersJson() throws IOException {
+		nodeWriter.write("{");
+		boolean first = true;
+		for (LodCluster cluster : clusters.values()) {
+			if (!first) {
+				nodeWriter.write(",");
+			}
+			first = false;
+			nodeWriter.write(JSONObject.quote(cluster.id));
+			nodeWriter.write(":{\"nodes\":" + cluster.nodes.toString() + ",\"edges\":" + cluster.edges.toString() + "}");
+			nodeWriter.newLine();
+		}
+		nodeWriter.write("}");
+		nodeWriter.flush();
+	}
+
+	/**
+	 * Sets the number of nodes above which {@link #visualize(URI)} renders
+	 * the document in level-of-detail mode: span and structure nodes are
+	 * collapsed into cluster nodes which are expanded on double click, and
+	 * nodes are placed at precomputed coordinates instead of running the
+	 * physics simulation. A value of 0 or less disables level-of-detail mode.
+	 * 
+	 * @param lodThreshold
+	 *            the number of nodes, defaults to {@link #LOD_NODE_THRESHOLD}
+	 */
+	public void setLodThreshold(int lodThreshold) {
+		this.lodThreshold = lodThreshold;
+	}
+
+	/**
+	 * Sets whether {@link #visualize(URI)} places the nodes using a layered
+	 * layout with crossing minimization computed in Java, which makes the
+	 * rendering deterministic and does not need the vis.js physics
+	 * simulation. Otherwise, the hierarchical layout and physics of vis.js
+	 * are used. By default, the layered layout is used for documents
+	 * containing dependency or constituency trees only.
+	 * 
+	 * @param layeredLayout
+	 *            whether to compute the layout in Java
+	 */
+	public void setLayeredLayout(boolean layeredLayout) {
+		this.layeredLayout = layeredLayout;
+	}
+
+	/**
+	 * @return whether the last call to {@link #visualize(URI)} rendered the
+	 *         document in level-of-detail mode
+	 */
+	public boolean isLevelOfDetail() {
+		return levelOfDetail;
+	}
+
+	/*
+	 * A collapsed group of nodes, with the JSON of its members and of the
+	 * edges touching them.
+	 */
+	private static class LodCluster {
+		private final String id;
+		private final String label;
+		private final StringWriter nodes = new StringWriter();
+		private final StringWriter edges = new StringWriter();
+		private final JSONWriter nodeJson = new JSONWriter(nodes);
+		private final JSONWriter edgeJson = new JSONWriter(edges);
+		private int size = 0;
+		private long level = Long.MAX_VALUE;
+		private int firstToken = Integer.MAX_VALUE;
+		private int lastToken = -1;
+
+		private LodCluster(String id, String label) {
+			this.id = id;
+			this.label = label;
+			nodeJson.array();
+			edgeJson.array();
+		}
 	}
 
 	/*
@@ -1354,7 +1868,7 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 						spanOffset = spanClasses.get(annotation);
 
 						try {
-							writeJsonNode(fromNode, maxLevel - currHeightFromToken - spanOffset);
+							emitNode(fromNode, maxLevel - currHeightFromToken - spanOffset);
 							nNodes++;
 						} catch (IOException e) {
 							throw new SaltException("A problem occurred while building JSON objects.");
@@ -1381,9 +1895,9 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 									minRootLevel = currLevel;
 								}
 								// write root node with min level
-								writeJsonNode(currNode, minRootLevel);
+								emitNode(currNode, minRootLevel);
 							} else {
-								writeJsonNode(currNode, currLevel);
+								emitNode(currNode, currLevel);
 
 							}
 
@@ -1414,7 +1928,7 @@ public class CustomVisJsVisualizer implements GraphTraverseHandler {
 							&& (exportFilter == null || (exportFilter.includeRelation(relation)
 									&& exportFilter.includeNode(fromNode) && exportFilter.includeNode(currNode)))) {
 						try {
-							writeJsonEdge(fromNode, currNode, relation);
+							emitEdge(fromNode, currNode, relation);
 						} catch (IOException e) {
 							throw new SaltException("A problem occurred while building JSON objects.");
 						}
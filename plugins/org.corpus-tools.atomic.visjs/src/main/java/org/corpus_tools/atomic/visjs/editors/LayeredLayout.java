@@ -0,0 +1,350 @@
+package org.corpus_tools.atomic.visjs.editors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.corpus_tools.salt.core.SNode;
+
+/**
+ * A Sugiyama-style layered layout for the node levels derived by
+ * {@link CustomVisJsVisualizer}.
+ * <p>
+ * Each distinct level forms a layer. Edges spanning more than one layer are
+ * split by dummy vertices, the order of vertices within the layers is
+ * improved by alternating barycenter sweeps, keeping the ordering with the
+ * fewest crossings, and x coordinates are assigned by centering each vertex
+ * above its neighbours in the layer below, separated by at least the node
+ * distance. Fixed vertices (i.e., tokens) keep their given order and
+ * coordinates.
+ * </p>
+ */
+class LayeredLayout {
+
+	private static final int MAX_SWEEPS = 12;
+
+	private final int nodeDist;
+	private final Map<SNode, Vertex> vertices = new HashMap<>();
+	private final TreeMap<Long, List<Vertex>> layersByLevel = new TreeMap<>();
+	private final List<SNode[]> edges = new ArrayList<>();
+	private List<List<Vertex>> layers;
+
+	/**
+	 * @param nodeDist
+	 *            the minimum horizontal distance between two vertices in a
+	 *            layer
+	 */
+	LayeredLayout(int nodeDist) {
+		this.nodeDist = nodeDist;
+	}
+
+	/**
+	 * Adds a node to the layer for its level.
+	 *
+	 * @param node
+	 *            the node
+	 * @param level
+	 *            the node's level
+	 * @param hint
+	 *            the initial x coordinate, which is kept for fixed nodes
+	 * @param fixed
+	 *            whether the node's position must not change
+	 */
+	void addNode(SNode node, long level, double hint, boolean fixed) {
+		if (vertices.containsKey(node)) {
+			return;
+		}
+		Vertex vertex = new Vertex(node, hint, fixed);
+		vertices.put(node, vertex);
+		getLayer(level).add(vertex);
+	}
+
+	/**
+	 * Adds an edge between two nodes. Edges between nodes which have not
+	 * been added, or which are in the same layer, are ignored.
+	 */
+	void addEdge(SNode source, SNode target) {
+		edges.add(new SNode[] { source, target });
+	}
+
+	/**
+	 * @return the computed x coordinate for the node, or 0 if it has not
+	 *         been added
+	 */
+	long getX(SNode node) {
+		Vertex vertex = vertices.get(node);
+		return vertex == null ? 0 : Math.round(vertex.x);
+	}
+
+	/**
+	 * @return the number of vertices in the layer for the level, including
+	 *         the dummy vertices inserted by {@link #compute()}
+	 */
+	int getLayerSize(long level) {
+		List<Vertex> layer = layersByLevel.get(level);
+		return layer == null ? 0 : layer.size();
+	}
+
+	/**
+	 * Computes the x coordinates of all nodes.
+	 */
+	void compute() {
+		insertEdges();
+		layers = new ArrayList<>(layersByLevel.values());
+		for (List<Vertex> layer : layers) {
+			layer.sort(Comparator.comparingDouble(v -> v.hint));
+			updatePositions(layer);
+		}
+		minimizeCrossings();
+		assignCoordinates();
+	}
+
+	private List<Vertex> getLayer(long level) {
+		List<Vertex> layer = layersByLevel.get(level);
+		if (layer == null) {
+			layer = new ArrayList<>();
+			layersByLevel.put(level, layer);
+		}
+		return layer;
+	}
+
+	/*
+	 * Connects the vertices, inserting a dummy vertex per layer crossed by a
+	 * long edge.
+	 */
+	private void insertEdges() {
+		Map<Long, Integer> levelToIndex = new HashMap<>();
+		List<Long> levels = new ArrayList<>(layersByLevel.keySet());
+		for (int i = 0; i < levels.size(); i++) {
+			levelToIndex.put(levels.get(i), i);
+		}
+		for (Vertex vertex : vertices.values()) {
+			vertex.layer = -1;
+		}
+		for (Map.Entry<Long, List<Vertex>> entry : layersByLevel.entrySet()) {
+			for (Vertex vertex : entry.getValue()) {
+				vertex.layer = levelToIndex.get(entry.getKey());
+			}
+		}
+		for (SNode[] edge : edges) {
+			Vertex a = vertices.get(edge[0]);
+			Vertex b = vertices.get(edge[1]);
+			if (a == null || b == null || a.layer == b.layer) {
+				continue;
+			}
+			Vertex upper = a.layer < b.layer ? a : b;
+			Vertex lower = upper == a ? b : a;
+			Vertex previous = upper;
+			for (int layer = upper.layer + 1; layer < lower.layer; layer++) {
+				double ratio = (double) (layer - upper.layer) / (lower.layer - upper.layer);
+				Vertex dummy = new Vertex(null, upper.hint + ratio * (lower.hint - upper.hint), false);
+				dummy.layer = layer;
+				layersByLevel.get(levels.get(layer)).add(dummy);
+				connect(previous, dummy);
+				previous = dummy;
+			}
+			connect(previous, lower);
+		}
+	}
+
+	private static void connect(Vertex upper, Vertex lower) {
+		upper.down.add(lower);
+		lower.up.add(upper);
+	}
+
+	private void minimizeCrossings() {
+		List<List<Vertex>> best = snapshot();
+		long bestCrossings = countCrossings();
+		for (int sweep = 0; sweep < MAX_SWEEPS && bestCrossings > 0; sweep++) {
+			// upwards, ordering each layer by its neighbours below
+			for (int i = layers.size() - 2; i >= 0; i--) {
+				reorder(layers.get(i), true);
+			}
+			// downwards, ordering each layer by its neighbours above
+			for (int i = 1; i < layers.size(); i++) {
+				reorder(layers.get(i), false);
+			}
+			long crossings = countCrossings();
+			if (crossings < bestCrossings) {
+				bestCrossings = crossings;
+				best = snapshot();
+			} else {
+				break;
+			}
+		}
+		restore(best);
+	}
+
+	private void reorder(List<Vertex> layer, boolean byLower) {
+		for (Vertex vertex : layer) {
+			if (vertex.fixed) {
+				// layers containing fixed vertices keep their order
+				return;
+			}
+		}
+		for (Vertex vertex : layer) {
+			List<Vertex> neighbours = byLower ? vertex.down : vertex.up;
+			if (neighbours.isEmpty()) {
+				vertex.barycenter = vertex.position;
+			} else {
+				double sum = 0;
+				for (Vertex neighbour : neighbours) {
+					sum += neighbour.position;
+				}
+				vertex.barycenter = sum / neighbours.size();
+			}
+		}
+		layer.sort(Comparator.comparingDouble(v -> v.barycenter));
+		updatePositions(layer);
+	}
+
+	private static void updatePositions(List<Vertex> layer) {
+		for (int i = 0; i < layer.size(); i++) {
+			layer.get(i).position = i;
+		}
+	}
+
+	/**
+	 * Counts the crossings between all pairs of adjacent layers by counting
+	 * inversions with a Fenwick tree. Must be called after {@link #compute()}.
+	 *
+	 * @return the number of crossings of the current ordering
+	 */
+	long countCrossings() {
+		long crossings = 0;
+		for (int i = 0; i < layers.size() - 1; i++) {
+			List<int[]> layerEdges = new ArrayList<>();
+			for (Vertex upper : layers.get(i)) {
+				for (Vertex lower : upper.down) {
+					layerEdges.add(new int[] { upper.position, lower.position });
+				}
+			}
+			layerEdges.sort((e1, e2) -> e1[0] != e2[0] ? Integer.compare(e1[0], e2[0]) : Integer.compare(e1[1], e2[1]));
+			int size = layers.get(i + 1).size();
+			long[] tree = new long[size + 1];
+			long inserted = 0;
+			for (int[] edge : layerEdges) {
+				// edges already inserted which end right of this one cross it
+				long notGreater = 0;
+				for (int j = edge[1] + 1; j > 0; j -= j & -j) {
+					notGreater += tree[j];
+				}
+				crossings += inserted - notGreater;
+				for (int j = edge[1] + 1; j <= size; j += j & -j) {
+					tree[j]++;
+				}
+				inserted++;
+			}
+		}
+		return crossings;
+	}
+
+	private List<List<Vertex>> snapshot() {
+		List<List<Vertex>> orderings = new ArrayList<>(layers.size());
+		for (List<Vertex> layer : layers) {
+			orderings.add(new ArrayList<>(layer));
+		}
+		return orderings;
+	}
+
+	private void restore(List<List<Vertex>> orderings) {
+		for (int i = 0; i < layers.size(); i++) {
+			List<Vertex> layer = layers.get(i);
+			layer.clear();
+			layer.addAll(orderings.get(i));
+			updatePositions(layer);
+		}
+	}
+
+	/*
+	 * Assigns x coordinates bottom-up, centering vertices above their lower
+	 * neighbours and resolving overlaps by averaging a left-to-right and a
+	 * right-to-left compaction.
+	 */
+	private void assignCoordinates() {
+		for (int i = layers.size() - 1; i >= 0; i--) {
+			List<Vertex> layer = layers.get(i);
+			int n = layer.size();
+			double[] ideal = new double[n];
+			boolean hasFixed = false;
+			for (int j = 0; j < n; j++) {
+				Vertex vertex = layer.get(j);
+				hasFixed |= vertex.fixed;
+				if (vertex.fixed || vertex.down.isEmpty()) {
+					ideal[j] = vertex.hint;
+				} else {
+					double sum = 0;
+					for (Vertex lower : vertex.down) {
+						sum += lower.x;
+					}
+					ideal[j] = sum / vertex.down.size();
+				}
+			}
+			if (hasFixed) {
+				for (int j = 0; j < n; j++) {
+					layer.get(j).x = ideal[j];
+				}
+				continue;
+			}
+			double[] left = Arrays.copyOf(ideal, n);
+			for (int j = 1; j < n; j++) {
+				left[j] = Math.max(left[j], left[j - 1] + getSeparation(layer.get(j - 1), layer.get(j)));
+			}
+			double[] right = Arrays.copyOf(ideal, n);
+			for (int j = n - 2; j >= 0; j--) {
+				right[j] = Math.min(right[j], right[j + 1] - getSeparation(layer.get(j), layer.get(j + 1)));
+			}
+			for (int j = 0; j < n; j++) {
+				double x = (left[j] + right[j]) / 2;
+				if (j > 0) {
+					x = Math.max(x, layer.get(j - 1).x + getSeparation(layer.get(j - 1), layer.get(j)));
+				}
+				layer.get(j).x = x;
+			}
+		}
+	}
+
+	/*
+	 * Dummy vertices are invisible, so they only need to keep edges apart.
+	 */
+	private double getSeparation(Vertex a, Vertex b) {
+		if (a.node == null && b.node == null) {
+			return nodeDist / 6.0;
+		} else if (a.node == null || b.node == null) {
+			return nodeDist / 2.0;
+		}
+		return nodeDist;
+	}
+
+	/*
+	 * A node in a layer, or a dummy vertex on a long edge if node is null.
+	 */
+	private static class Vertex {
+		private final SNode node;
+		private final double hint;
+		private final boolean fixed;
+		private final List<Vertex> up = new ArrayList<>();
+		private final List<Vertex> down = new ArrayList<>();
+		private int layer;
+		private int position;
+		private double barycenter;
+		private double x;
+
+		private Vertex(SNode node, double hint, boolean fixed) {
+			this.node = node;
+			this.hint = hint;
+			this.fixed = fixed;
+			this.x = hint;
+		}
+
+		@Override
+		public String toString() {
+			return node == null ? "dummy" : node.getId();
+		}
+	}
+
+}
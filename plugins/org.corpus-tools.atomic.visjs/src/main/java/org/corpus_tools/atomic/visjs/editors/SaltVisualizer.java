@@ -5,6 +5,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
 import org.corpus_tools.atomic.api.salt.SaltGraphUpdatable;
 import org.corpus_tools.atomic.api.salt.SaltNodeSelectable;
 import org.corpus_tools.salt.SALT_TYPE;
@@ -38,6 +40,8 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.browser.Browser;
+import org.eclipse.swt.browser.ProgressAdapter;
+import org.eclipse.swt.browser.ProgressEvent;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.ModifyEvent;
@@ -54,7 +58,7 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
-import org.eclipse.ui.part.EditorPart;
+import org.json.JSONObject;
 
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Multimap;
@@ -71,6 +75,11 @@ public class SaltVisualizer extends DocumentGraphEditor implements SaltNodeSelec
 	private Table textRangeTable;
 	private Text txtSegmentFilter;
 	private Button btnIncludePointingRelations;
+	/**
+	 * Whether a visualization is being created or loaded, so that
+	 * changes cannot be applied to the displayed page.
+	 */
+	private boolean renderPending = false;
 
 	public SaltVisualizer() {
 		super();
@@ -99,6 +108,14 @@ public class SaltVisualizer extends DocumentGraphEditor implements SaltNodeSelec
 
 		browser = new Browser(parent, SWT.NONE);
 		browser.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 1, 1));
+		browser.addProgressListener(new ProgressAdapter() {
+			@Override
+			public void completed(ProgressEvent event) {
+				if (browser.getUrl().endsWith(CustomVisJsVisualizer.HTML_FILE)) {
+					renderPending = false;
+				}
+			}
+		});
 
 		Composite composite = new Composite(parent, SWT.NONE);
 		composite.setLayoutData(new GridData(SWT.LEFT, SWT.TOP, false, true, 1, 1));
@@ -272,12 +289,53 @@ public class SaltVisualizer extends DocumentGraphEditor implements SaltNodeSelec
 	@Override
 	public void updateSDocumentGraph(SDocumentGraph newGraph) {
 		this.graph = newGraph;
-		this.dirty = true;
-		firePropertyChange(EditorPart.PROP_DIRTY);
+		setDirty(true);
 		updateView(true);
 		
 	}
 	
+	/**
+	 * Applies changes made to the graph by other clients. Annotation
+	 * changes on nodes are applied to the displayed page directly, other
+	 * changes trigger a new visualization, and the segments are only
+	 * recalculated if the changes affect the text ranges covered by nodes.
+	 */
+	@Override
+	protected void handleGraphChanges(List<DocumentGraphChangeEvent> changes) {
+		if (browser == null || browser.isDisposed()) {
+			return;
+		}
+		boolean recalculateSegments = false;
+		boolean redraw = renderPending;
+		boolean filtered = !txtSegmentFilter.getText().isEmpty();
+		Set<SNode> relabeledNodes = new LinkedHashSet<>();
+		for (DocumentGraphChangeEvent change : changes) {
+			if (change.affectsTextRanges()) {
+				recalculateSegments = true;
+			}
+			else if (change.isAnnotationChange() && change.getElement() instanceof SNode) {
+				// the segment filter selects nodes by annotation name
+				recalculateSegments |= filtered && change.getType() != DocumentGraphChangeEvent.Type.ANNOTATION_CHANGED;
+				relabeledNodes.add((SNode) change.getElement());
+			}
+			else {
+				redraw = true;
+			}
+		}
+		if (recalculateSegments || redraw) {
+			updateView(recalculateSegments);
+			return;
+		}
+		for (SNode node : relabeledNodes) {
+			String script = "if (typeof updateNodeLabel === 'function') { updateNodeLabel(" + JSONObject.quote(node.getPath().fragment()) + ", " + JSONObject.quote(CustomVisJsVisualizer.createNodeLabel(node)) + "); }";
+			if (!browser.execute(script)) {
+				log.debug("Could not update the label of node {} in the visualization, redrawing.", node.getId());
+				updateView(false);
+				return;
+			}
+		}
+	}
+	
 	private List<Integer> getSegmentIdxSortedByLength() {
 		List<Integer> result = IntStream.range(0, textRangeTable.getItemCount()).boxed().collect(Collectors.toList());
 		
@@ -337,6 +395,7 @@ public class SaltVisualizer extends DocumentGraphEditor implements SaltNodeSelec
 			textRangeTable.getItem(idx).setChecked(textRangeTable.isSelected(idx));
 		}
 		
+		renderPending = true;
 		browser.setText("please wait while visualization is loading...");
 
 		Job j = new Job("Create Salt visualization") {
@@ -0,0 +1,378 @@
+package org.corpus_tools.atomic.visjs.editors;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.exceptions.SaltException;
+import org.corpus_tools.salt.exceptions.SaltParameterException;
+import org.corpus_tools.salt.exceptions.SaltResourceException;
+import org.corpus_tools.salt.util.ExportFilter;
+import org.corpus_tools.salt.util.StyleImporter;
+import org.eclipse.emf.common.util.URI;
+import org.json.JSONWriter;
+
+/**
+ * Exports the visualizations of many {@link SDocument}s into one output
+ * folder.
+ * <p>
+ * The vis.js, jQuery, CSS and image resources are written once, each
+ * document is rendered by its own {@link CustomVisJsVisualizer} into a JSON
+ * file in the {@value #DATA_FOLDER_OUT} folder (cf.
+ * {@link CustomVisJsVisualizer#writeJSON(File)}), and a single viewer page
+ * {@value #VIEWER_FILE} lists the documents from {@value #INDEX_FILE} and
+ * loads the selected document's JSON file. As the viewer loads the JSON files
+ * via XMLHttpRequest, the output folder should be served via HTTP.
+ * </p>
+ * <p>
+ * Documents are passed to {@link #write(SDocument)} one by one, e.g., while
+ * they are loaded, so that only the documents being rendered are kept in
+ * memory, and the index and viewer page are written by {@link #finish()}.
+ * {@link #export(List)} exports documents which are already loaded, rendering
+ * them in parallel.
+ * </p>
+ */
+public class VisJsBatchExporter {
+
+	private static final Logger log = LogManager.getLogger(VisJsBatchExporter.class);
+
+	public static final String DATA_FOLDER_OUT = "data";
+	public static final String INDEX_FILE = "documents.json";
+	public static final String VIEWER_FILE = "index.html";
+
+	private static final String NEWLINE = System.lineSeparator();
+
+	private final File outputFolder;
+	private ExportFilter exportFilter = null;
+	private StyleImporter styleImporter = null;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private boolean isStarted = false;
+	private final Set<String> usedNames = new HashSet<>();
+	private final List<IndexEntry> index = new ArrayList<>();
+	private int failures = 0;
+	private Throwable firstFailure = null;
+
+	/**
+	 * @param outputFolderUri
+	 *            the URI of the output folder, which is created if it does not
+	 *            exist yet
+	 * @throws SaltParameterException
+	 *             if the outputFolderUri is null
+	 */
+	public VisJsBatchExporter(URI outputFolderUri) {
+		if (outputFolderUri == null) {
+			throw new SaltParameterException("outputFolderUri", "VisJsBatchExporter", this.getClass());
+		}
+		this.outputFolder = new File(outputFolderUri.path());
+	}
+
+	/**
+	 * @param exportFilter
+	 *            an {@link ExportFilter} passed to each visualizer, or null
+	 */
+	public void setExportFilter(ExportFilter exportFilter) {
+		this.exportFilter = exportFilter;
+	}
+
+	/**
+	 * @param styleImporter
+	 *            a {@link StyleImporter} passed to each visualizer, or null
+	 */
+	public void setStyleImporter(StyleImporter styleImporter) {
+		this.styleImporter = styleImporter;
+	}
+
+	/**
+	 * @param threads
+	 *            the number of documents rendered in parallel by
+	 *            {@link #export(List)}, defaults to the number of available
+	 *            processors
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Renders the documents into the output folder, and writes the shared
+	 * resources, the document index and the viewer page.
+	 * <p>
+	 * Documents which fail to render are logged and left out of the index,
+	 * and a {@link SaltResourceException} is thrown once all other documents
+	 * have been exported.
+	 * </p>
+	 *
+	 * @param documents
+	 *            the documents to export, with their document graphs loaded
+	 * @throws SaltResourceException
+	 *             if one or more documents could not be exported
+	 * @throws SaltException
+	 *             if the output folders cannot be created
+	 * @throws IOException
+	 *             if a problem occurred while writing the shared files
+	 * @throws XMLStreamException
+	 *             if a problem occurred while writing the viewer page
+	 */
+	public void export(List<SDocument> documents) throws SaltException, IOException, XMLStreamException {
+		start();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, documents.size())));
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (final SDocument document : documents) {
+				// reserve the index entries in the order of the documents
+				final IndexEntry entry = reserve(document);
+				results.add(executor.submit(() -> render(document, entry)));
+			}
+			for (Future<?> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					throw new SaltException("Could not export the visualizations.", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SaltException("The export of the visualizations has been interrupted.", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		finish();
+	}
+
+	/**
+	 * Renders a single document into the output folder, and writes the shared
+	 * resources first if this is the first document. A document which fails
+	 * to render is logged and left out of the index, and is reported by
+	 * {@link #finish()}.
+	 *
+	 * @param document
+	 *            the document to export, with its document graph loaded
+	 * @throws SaltException
+	 *             if the output folders cannot be created
+	 * @throws IOException
+	 *             if a problem occurred while writing the shared files
+	 */
+	public void write(SDocument document) throws SaltException, IOException {
+		start();
+		render(document, reserve(document));
+	}
+
+	/**
+	 * Writes the document index and the viewer page for the documents which
+	 * have been written so far.
+	 *
+	 * @throws SaltResourceException
+	 *             if one or more documents could not be exported
+	 * @throws SaltException
+	 *             if the output folders cannot be created
+	 * @throws IOException
+	 *             if a problem occurred while writing the shared files or
+	 *             the index
+	 * @throws XMLStreamException
+	 *             if a problem occurred while writing the viewer page
+	 */
+	public void finish() throws SaltException, IOException, XMLStreamException {
+		start();
+		List<IndexEntry> written = new ArrayList<>();
+		int failed;
+		Throwable failure;
+		synchronized (this) {
+			for (IndexEntry entry : index) {
+				if (entry.isWritten) {
+					written.add(entry);
+				}
+			}
+			failed = failures;
+			failure = firstFailure;
+		}
+		writeIndex(written);
+		writeViewer();
+		if (failed > 0) {
+			throw new SaltResourceException(failed + " of " + (written.size() + failed) + " documents could not be exported.", failure);
+		}
+	}
+
+	private synchronized void start() throws SaltException, IOException {
+		if (isStarted) {
+			return;
+		}
+		File dataFolder = new File(outputFolder, DATA_FOLDER_OUT);
+		if (!dataFolder.exists() && !dataFolder.mkdirs()) {
+			throw new SaltException("Can't create folder " + dataFolder.getAbsolutePath());
+		}
+		CustomVisJsVisualizer.writeResources(outputFolder);
+		isStarted = true;
+	}
+
+	/*
+	 * Assigns a unique file name to the document, and adds its entry to the
+	 * index.
+	 */
+	private synchronized IndexEntry reserve(SDocument document) {
+		String name = document.getId() != null ? document.getId() : document.getName() != null ? document.getName() : "document";
+		name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+		String fileName = name;
+		for (int i = 2; !usedNames.add(fileName); i++) {
+			fileName = name + "_" + i;
+		}
+		IndexEntry entry = new IndexEntry(document.getName() != null ? document.getName() : document.getId(), DATA_FOLDER_OUT + "/" + fileName + ".json");
+		index.add(entry);
+		return entry;
+	}
+
+	private void render(SDocument document, IndexEntry entry) {
+		try {
+			new CustomVisJsVisualizer(document, exportFilter, styleImporter).writeJSON(new File(outputFolder, entry.file));
+			synchronized (this) {
+				entry.isWritten = true;
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("Could not export the visualization of document {}.", document.getId(), e);
+			synchronized (this) {
+				failures++;
+				if (firstFailure == null) {
+					firstFailure = e;
+				}
+			}
+		}
+	}
+
+	private void writeIndex(List<IndexEntry> entries) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outputFolder, INDEX_FILE)),
+				StandardCharsets.UTF_8)) {
+			JSONWriter json = new JSONWriter(writer);
+			json.array();
+			for (IndexEntry entry : entries) {
+				json.object().key("name").value(entry.name).key("file").value(entry.file).endObject();
+			}
+			json.endArray();
+		}
+	}
+
+	private void writeViewer() throws IOException, XMLStreamException {
+		try (OutputStream os = new FileOutputStream(new File(outputFolder, VIEWER_FILE))) {
+			XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8");
+			xmlWriter.writeStartDocument("UTF-8", "1.0");
+			xmlWriter.writeCharacters(NEWLINE);
+			xmlWriter.writeStartElement("html");
+			xmlWriter.writeStartElement("head");
+			xmlWriter.writeStartElement("title");
+			xmlWriter.writeCharacters("Salt Documents");
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+
+			xmlWriter.writeStartElement("style");
+			xmlWriter.writeAttribute("type", "text/css");
+			xmlWriter.writeCharacters("body {" + NEWLINE + "font: 10pt sans;" + NEWLINE + "}" + NEWLINE
+					+ "#mynetwork {" + NEWLINE + "height: 90vh;" + NEWLINE + "width: 98%;" + NEWLINE
+					+ "border: 1px solid lightgray;" + NEWLINE + "}" + NEWLINE);
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+
+			for (String script : new String[] { CustomVisJsVisualizer.JS_FOLDER_OUT + "/" + CustomVisJsVisualizer.JS_FILE,
+					CustomVisJsVisualizer.JS_FOLDER_OUT + "/" + CustomVisJsVisualizer.JQUERY_FILE }) {
+				xmlWriter.writeStartElement("script");
+				xmlWriter.writeAttribute("src", script);
+				xmlWriter.writeAttribute("type", "text/javascript");
+				xmlWriter.writeCharacters(NEWLINE);
+				xmlWriter.writeEndElement();
+				xmlWriter.writeCharacters(NEWLINE);
+			}
+
+			xmlWriter.writeEmptyElement("link");
+			xmlWriter.writeAttribute("href", CustomVisJsVisualizer.CSS_FOLDER_OUT + "/" + CustomVisJsVisualizer.CSS_FILE);
+			xmlWriter.writeAttribute("rel", "stylesheet");
+			xmlWriter.writeAttribute("type", "text/css");
+			xmlWriter.writeCharacters(NEWLINE);
+
+			xmlWriter.writeStartElement("script");
+			xmlWriter.writeAttribute("type", "text/javascript");
+			xmlWriter.writeCharacters(NEWLINE + "var network = null;" + NEWLINE + "var clustersJson = {};" + NEWLINE
+					+ "function destroy() {" + NEWLINE + "if (network !== null) {" + NEWLINE + "network.destroy();"
+					+ NEWLINE + "network = null;" + NEWLINE + "}" + NEWLINE + "}" + NEWLINE + NEWLINE
+					+ "function draw(documentJson) {" + NEWLINE + "destroy();" + NEWLINE
+					+ "clustersJson = documentJson.clusters;" + NEWLINE
+					+ "var nodes = new vis.DataSet(documentJson.nodes);" + NEWLINE
+					+ "var edges = new vis.DataSet(documentJson.edges);" + NEWLINE
+					+ "var container = document.getElementById('mynetwork');" + NEWLINE
+					+ "var data = {" + NEWLINE + "nodes: nodes," + NEWLINE + "edges: edges" + NEWLINE + "};" + NEWLINE
+					+ "var options = {" + NEWLINE + "nodes:{" + NEWLINE + "shape: \"box\"" + NEWLINE + "}," + NEWLINE
+					+ "edges: {" + NEWLINE + "smooth: " + CustomVisJsVisualizer.FIXED_POSITIONS_SMOOTH_JS + ","
+					+ NEWLINE + "arrows: {" + NEWLINE + "to: {" + NEWLINE + "enabled: true" + NEWLINE + "}" + NEWLINE
+					+ "}" + NEWLINE + "}," + NEWLINE + "interaction: {" + NEWLINE + "navigationButtons: true,"
+					+ NEWLINE + "keyboard: true" + NEWLINE + "}," + NEWLINE
+					+ CustomVisJsVisualizer.FIXED_POSITIONS_LAYOUT_JS + "};" + NEWLINE
+					+ "network = new vis.Network(container, data, options);" + NEWLINE
+					+ CustomVisJsVisualizer.EXPAND_CLUSTER_JS + "}" + NEWLINE + NEWLINE
+					+ "function showDocument(file) {" + NEWLINE + "$.getJSON(file, draw);" + NEWLINE + "}" + NEWLINE
+					+ NEWLINE + "$(document).ready(function() {" + NEWLINE
+					+ "$.getJSON('" + INDEX_FILE + "', function(documents) {" + NEWLINE
+					+ "var select = $('#documents');" + NEWLINE + "$.each(documents, function(i, doc) {" + NEWLINE
+					+ "select.append($(document.createElement('option')).val(doc.file).text(doc.name));" + NEWLINE + "});" + NEWLINE
+					+ "select.change(function() {" + NEWLINE + "showDocument(this.value);" + NEWLINE + "});" + NEWLINE
+					+ "if (documents.length > 0) {" + NEWLINE + "showDocument(documents[0].file);" + NEWLINE + "}"
+					+ NEWLINE + "});" + NEWLINE + "});" + NEWLINE);
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+			// head
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+
+			xmlWriter.writeStartElement("body");
+			xmlWriter.writeCharacters(NEWLINE);
+			xmlWriter.writeStartElement("select");
+			xmlWriter.writeAttribute("id", "documents");
+			xmlWriter.writeCharacters("");
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+			xmlWriter.writeStartElement("div");
+			xmlWriter.writeAttribute("id", "mynetwork");
+			xmlWriter.writeCharacters("");
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+			// body
+			xmlWriter.writeEndElement();
+			xmlWriter.writeCharacters(NEWLINE);
+			// html
+			xmlWriter.writeEndElement();
+			xmlWriter.writeEndDocument();
+			xmlWriter.flush();
+			xmlWriter.close();
+		}
+	}
+
+	/**
+	 * The name and JSON file of an exported document.
+	 */
+	private static final class IndexEntry {
+
+		private final String name;
+		private final String file;
+		private boolean isWritten = false;
+
+		private IndexEntry(String name, String file) {
+			this.name = name;
+			this.file = file;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@ package org.corpus_tools.atomic;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.editors.CorpusStructureCache;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -59,6 +60,7 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		CorpusStructureCache.shutdown();
 		plugin = null;
 		super.stop(context);
 		log.trace("Stop {}", PLUGIN_ID);
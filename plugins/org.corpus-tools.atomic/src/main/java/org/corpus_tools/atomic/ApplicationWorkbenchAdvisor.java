@@ -17,6 +17,8 @@ package org.corpus_tools.atomic;
 
 import java.net.URL;
 
+import org.corpus_tools.atomic.api.editors.DocumentGraphSaveJob;
+import org.corpus_tools.atomic.projects.pepper.PepperService;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IAdaptable;
@@ -98,4 +100,27 @@ public class ApplicationWorkbenchAdvisor extends WorkbenchAdvisor {
 	public String getInitialWindowPerspectiveId() {
 		return PERSPECTIVE_ID;
 	}
+
+	/**
+	 * Starts Pepper in the background, so that imports and exports don't
+	 * have to wait for it.
+	 * 
+	 * @copydoc @see org.eclipse.ui.application.WorkbenchAdvisor#postStartup()
+	 */
+	@Override
+	public void postStartup() {
+		super.postStartup();
+		PepperService.getInstance().start();
+	}
+
+	/**
+	 * Waits for documents which are still being saved in the background.
+	 * 
+	 * @copydoc @see org.eclipse.ui.application.WorkbenchAdvisor#postShutdown()
+	 */
+	@Override
+	public void postShutdown() {
+		DocumentGraphSaveJob.joinAll(null);
+		super.postShutdown();
+	}
 }
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SaltProject;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A cache of the corpus structures of the Salt projects in the workspace,
+ * so that the corpus structure of a project is only loaded once, rather
+ * than every time a document of the project is opened.
+ * <p>
+ * For each Salt project file, the cache holds the loaded
+ * {@link SaltProject} and a map from the locations of the documents' graphs
+ * to the {@link SDocument}s. Entries are invalidated when the Salt project
+ * file is changed, removed or replaced, or when its project is closed or
+ * deleted.
+ * </p>
+ *
+ */
+public final class CorpusStructureCache implements IResourceChangeListener {
+
+	private static final Logger log = LogManager.getLogger(CorpusStructureCache.class);
+
+	private static CorpusStructureCache instance = null;
+
+	private final Map<URI, Entry> entries = new HashMap<>();
+
+	private CorpusStructureCache() {
+		// Singleton
+	}
+
+	/**
+	 * Returns the cache instance, which listens to resource changes in the
+	 * workspace if there is one.
+	 *
+	 * @return the cache instance
+	 */
+	public static synchronized CorpusStructureCache getInstance() {
+		if (instance == null) {
+			instance = new CorpusStructureCache();
+			try {
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(instance, IResourceChangeEvent.POST_CHANGE);
+			}
+			catch (IllegalStateException e) {
+				log.warn("No workspace available, corpus structures will not be invalidated on changes.", e);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Stops listening to resource changes and discards all cached corpus
+	 * structures. Called when the plugin is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			try {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance);
+			}
+			catch (IllegalStateException e) {
+				// Workspace is already closed
+			}
+			instance.clear();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Returns the Salt project file of a project.
+	 *
+	 * @param project
+	 *            the project
+	 * @return the Salt project file, or <code>null</code> if the project
+	 *         does not contain one
+	 */
+	public static IFile findSaltProjectFile(IProject project) {
+		IFile file = project.getFile(DocumentGraphEditor.SALT_PROJECT_FILE_NAME);
+		if (file.exists()) {
+			return file;
+		}
+		try {
+			for (IResource member : project.members()) {
+				if (member instanceof IFile && member.getName().equalsIgnoreCase(DocumentGraphEditor.SALT_PROJECT_FILE_NAME)) {
+					return (IFile) member;
+				}
+			}
+		}
+		catch (CoreException e) {
+			log.error("An error occurred getting the Salt project file of project {}.", project.getName(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the Salt project persisted at the given location, and loads
+	 * its corpus structure if it is not cached yet.
+	 *
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file
+	 * @return the Salt project with its corpus structure
+	 */
+	public synchronized SaltProject getSaltProject(URI saltProjectLocation) {
+		return getEntry(saltProjectLocation).saltProject;
+	}
+
+	/**
+	 * Returns the document of the Salt project persisted at the given
+	 * location, whose graph is persisted at the given location.
+	 *
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document
+	 *            graph
+	 * @return the document, or <code>null</code> if the project does not
+	 *         contain a document for the location
+	 */
+	public synchronized SDocument getDocument(URI saltProjectLocation, URI documentGraphLocation) {
+		return getEntry(saltProjectLocation).documents.get(normalize(documentGraphLocation));
+	}
+
+	/**
+	 * Removes the corpus structure of the Salt project persisted at the
+	 * given location from the cache.
+	 *
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file
+	 */
+	public synchronized void invalidate(URI saltProjectLocation) {
+		if (entries.remove(normalize(saltProjectLocation)) != null) {
+			log.trace("Invalidated corpus structure of {}.", saltProjectLocation);
+		}
+	}
+
+	/**
+	 * Removes all corpus structures from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					IResource resource = delta.getResource();
+					if (resource instanceof IProject) {
+						if (delta.getKind() == IResourceDelta.REMOVED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							invalidateProject(delta);
+							return false;
+						}
+						return true;
+					}
+					if (resource instanceof IFile) {
+						if (resource.getName().equalsIgnoreCase(DocumentGraphEditor.SALT_PROJECT_FILE_NAME) && isRelevant(delta)) {
+							IPath location = resource.getLocation();
+							if (location != null) {
+								invalidate(URI.createFileURI(location.toOSString()));
+							}
+							else {
+								clear();
+							}
+						}
+						return false;
+					}
+					return true;
+				}
+			});
+		}
+		catch (CoreException e) {
+			log.error("An error occurred processing resource changes, clearing the corpus structure cache.", e);
+			clear();
+		}
+	}
+
+	private static boolean isRelevant(IResourceDelta delta) {
+		switch (delta.getKind()) {
+		case IResourceDelta.ADDED:
+		case IResourceDelta.REMOVED:
+			return true;
+		case IResourceDelta.CHANGED:
+			return (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0;
+		default:
+			return false;
+		}
+	}
+
+	/*
+	 * The location of a removed project is not known anymore, so its
+	 * location is taken from before the change if possible.
+	 */
+	private synchronized void invalidateProject(IResourceDelta delta) {
+		IPath location = delta.getResource().getLocation();
+		if (location == null) {
+			clear();
+			return;
+		}
+		String projectPath = normalize(URI.createFileURI(location.toOSString())).toFileString() + File.separator;
+		for (Iterator<URI> it = entries.keySet().iterator(); it.hasNext();) {
+			if (it.next().toFileString().startsWith(projectPath)) {
+				it.remove();
+			}
+		}
+	}
+
+	private Entry getEntry(URI saltProjectLocation) {
+		URI key = normalize(saltProjectLocation);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			long start = System.currentTimeMillis();
+			SaltProject saltProject = SaltFactory.createSaltProject();
+			saltProject.loadCorpusStructure(saltProjectLocation);
+			entry = new Entry(saltProject);
+			for (SCorpusGraph corpusGraph : saltProject.getCorpusGraphs()) {
+				for (SDocument document : corpusGraph.getDocuments()) {
+					if (document.getDocumentGraphLocation() != null) {
+						entry.documents.put(normalize(document.getDocumentGraphLocation()), document);
+					}
+				}
+			}
+			entries.put(key, entry);
+			log.trace("Loaded corpus structure of {} with {} documents in {} ms.", key, entry.documents.size(), System.currentTimeMillis() - start);
+		}
+		return entry;
+	}
+
+	/**
+	 * @param location
+	 *            a URI
+	 * @return an absolute, normalized file URI for file URIs, the URI itself
+	 *         otherwise
+	 */
+	static URI normalize(URI location) {
+		if (location.isFile()) {
+			return URI.createFileURI(new File(location.toFileString()).getAbsoluteFile().toPath().normalize().toString());
+		}
+		return location;
+	}
+
+	private static class Entry {
+		private final SaltProject saltProject;
+		private final Map<URI, SDocument> documents = new HashMap<>();
+
+		private Entry(SaltProject saltProject) {
+			this.saltProject = saltProject;
+		}
+	}
+
+}
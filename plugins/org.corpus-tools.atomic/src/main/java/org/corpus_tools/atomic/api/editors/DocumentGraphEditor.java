@@ -3,23 +3,39 @@
  */
 package org.corpus_tools.atomic.api.editors;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeListener;
 import org.corpus_tools.atomic.api.events.PartContextListener;
+import org.corpus_tools.atomic.api.salt.BinaryDocumentGraphCache;
 import org.corpus_tools.atomic.exceptions.AtomicGeneralException;
-import org.corpus_tools.salt.SaltFactory;
-import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SaltProject;
 import org.corpus_tools.salt.util.SaltUtil;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.jface.wizard.ProgressMonitorPart;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorInput;
@@ -38,15 +54,35 @@ import org.eclipse.ui.part.FileEditorInput;
  * the persisted document graph. The input type must be
  * {@link FileEditorInput}. The editor retains a single instance
  * instance of {@link SDocumentGraph} which contains the contents
- * of the input file.
+ * of the input file, and which is shared with all other editors
+ * for the same file via the {@link DocumentGraphRegistry}.
+ * 
+ * Changes which an editor makes to the shared graph should be
+ * published via {@link #fireGraphChanges(List)}. Changes made by
+ * others are passed to {@link #handleGraphChanges(List)} in the UI
+ * thread, which clients can override to update their views
+ * incrementally.
+ * 
+ * Editors for which {@link #isLoadedInBackground()} returns `true`
+ * load the graph with a {@link DocumentGraphLoadJob}, and show the
+ * loading progress in the editor. For these editors, {@link #graph}
+ * is `null` after {@link #init(IEditorSite, IEditorInput)}, and
+ * {@link #createEditorPartControl(Composite)} is only called once
+ * the graph has been loaded.
  *
  * @author Stephan Druskat <mail@sdruskat.net>
  *
  */
-public abstract class DocumentGraphEditor extends EditorPart {
+public abstract class DocumentGraphEditor extends EditorPart implements DocumentGraphChangeListener {
 	
 	private static final Logger log = LogManager.getLogger(DocumentGraphEditor.class);
 
+	/**
+	 * The delay after which the UI thread tries again to read the graph
+	 * when it is being changed in the background.
+	 */
+	private static final int LOCK_RETRY_MILLIS = 50;
+
 
 	/**
 	 * The default name for {@link SaltProject} serialization files.
@@ -57,23 +93,164 @@ public abstract class DocumentGraphEditor extends EditorPart {
 	protected SDocumentGraph graph = null;
 
 
+	/**
+	 * The location of the input file, under which the graph has been
+	 * acquired from the {@link DocumentGraphRegistry}.
+	 */
+	private URI graphLocation = null;
+
+
 	protected boolean dirty;
 
 
+	/**
+	 * Counts the changes to the graph, so that a background save of an
+	 * older state does not mark the editor as not dirty.
+	 */
+	private long modificationCount = 0;
+
+
 	private boolean isValidInput = true;
+
+	/**
+	 * The job loading the graph for editors which are loaded in the
+	 * background, or `null`.
+	 */
+	private DocumentGraphLoadJob loadJob = null;
+
+	/**
+	 * The composite containing the control created by
+	 * {@link #createEditorPartControl(Composite)}, and the progress
+	 * part below it, for editors which are loaded in the background.
+	 */
+	private Composite editorArea = null;
+	private ProgressMonitorPart progressPart = null;
+
+	/**
+	 * The composite passed to {@link #createPartControl(Composite)}.
+	 */
+	private Composite partControl = null;
+
+	/**
+	 * The number of running background changes to the graph by other
+	 * clients, cf. {@link #documentGraphMutating(Object, boolean)}, and
+	 * the monitor showing them.
+	 */
+	private int backgroundMutations = 0;
+	private IProgressMonitor backgroundMutationMonitor = null;
+
+	/**
+	 * The changes by other clients which have not been passed to
+	 * {@link #handleGraphChanges(List)} yet, as the graph has been locked
+	 * for changes in the background, and whether a retry is scheduled.
+	 */
+	private final List<DocumentGraphChangeEvent> pendingChanges = new ArrayList<>();
+	private boolean isApplyRetryScheduled = false;
 	
 	
-	/* (non-Javadoc)
+	/**
+	 * Saves the graph in the background via a {@link DocumentGraphSaveJob},
+	 * which works on a snapshot of the graph so that editing can continue
+	 * right away. The editor is marked as not dirty when the job has
+	 * finished, unless the graph has been changed in the meantime. Graphs
+	 * of which no snapshot can be taken are saved synchronously. Once the
+	 * graph has been saved, the saved changes are dropped from its journal.
+	 * The graph and its journal stay registered until the job has finished,
+	 * and if saving fails, until the graph has been saved successfully, so
+	 * that no changes are lost when the editor is closed meanwhile. Save
+	 * failures are reported to the user.
+	 * The snapshot is taken holding the graph's read lock, so that changes
+	 * which are being made in the background are not saved half-way. If
+	 * the graph is being changed in the background, the snapshot is taken
+	 * once the changes are done, without blocking the UI thread meanwhile.
+	 * 
 	 * @see org.eclipse.ui.part.EditorPart#doSave(org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	@Override
 	public void doSave(IProgressMonitor monitor) {
+		if (getGraph() == null) {
+			// Still loading
+			return;
+		}
 		IPath resPath = ((FileEditorInput) getEditorInput()).getPath();
-		SaltUtil.saveDocumentGraph(getGraph(), URI.createFileURI(resPath.toOSString()));
-		
-		this.dirty = false;
-		firePropertyChange(EditorPart.PROP_DIRTY);
+		URI location = URI.createFileURI(resPath.toOSString());
+		// Keep the graph and its journal registered while it is saved, even if the editor is closed
+		URI registeredLocation = graphLocation;
+		boolean isRetained = DocumentGraphRegistry.getInstance().retain(registeredLocation);
+		save(getGraph(), location, registeredLocation, isRetained);
+	}
 
+	/*
+	 * Takes a snapshot of the graph and saves it in the background, or
+	 * tries again later if the graph is being changed in the background.
+	 */
+	private void save(final SDocumentGraph savedGraph, final URI location, final URI registeredLocation, final boolean isRetained) {
+		final long journalPosition;
+		final DocumentGraphSaveJob job;
+		Lock lock = DocumentGraphRegistry.getInstance().getLock(savedGraph).readLock();
+		if (!lock.tryLock()) {
+			Display.getDefault().timerExec(LOCK_RETRY_MILLIS, () -> save(savedGraph, location, registeredLocation, isRetained));
+			return;
+		}
+		try {
+			journalPosition = DocumentGraphRegistry.getInstance().getJournalPosition(savedGraph);
+			try {
+				job = new DocumentGraphSaveJob(location, savedGraph);
+			}
+			catch (UnsupportedOperationException e) {
+				log.debug("Cannot save document graph to {} in the background, saving synchronously: {}", location, e.getMessage());
+				try {
+					SaltUtil.saveDocumentGraph(savedGraph, location);
+				}
+				catch (RuntimeException e1) {
+					if (isRetained) {
+						DocumentGraphRegistry.getInstance().releaseWhenSaved(registeredLocation);
+					}
+					throw e1;
+				}
+				BinaryDocumentGraphCache.store(savedGraph, location);
+				File savedFile = new File(location.toFileString());
+				DocumentGraphRegistry.getInstance().compactJournal(savedGraph, journalPosition, savedFile.length(), savedFile.lastModified());
+				if (isRetained) {
+					DocumentGraphRegistry.getInstance().release(registeredLocation);
+				}
+				if (graphLocation != null) {
+					setDirty(false);
+				}
+				return;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		final long savedModification = modificationCount;
+		job.addJobChangeListener(new JobChangeAdapter() {
+			@Override
+			public void done(IJobChangeEvent event) {
+				final IStatus result = event.getResult();
+				if (result.isOK()) {
+					DocumentGraphRegistry.getInstance().compactJournal(savedGraph, journalPosition, job.getSavedLength(), job.getSavedTimestamp());
+					if (isRetained) {
+						DocumentGraphRegistry.getInstance().release(registeredLocation);
+					}
+				}
+				else if (isRetained) {
+					DocumentGraphRegistry.getInstance().releaseWhenSaved(registeredLocation);
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (result.getSeverity() == IStatus.ERROR) {
+							ErrorDialog.openError(Display.getDefault().getActiveShell(), "Save failed", "Could not save " + location.lastSegment() + ". The changes have been kept, and are restored when the document is opened again.", result);
+						}
+						else if (result.isOK() && graphLocation != null && modificationCount == savedModification) {
+							setDirty(false);
+						}
+					}
+				});
+			}
+		});
+		job.schedule();
 	}
 
 	/* (non-Javadoc)
@@ -131,34 +308,282 @@ public abstract class DocumentGraphEditor extends EditorPart {
 				return;
 			}
 			IProject iProject = ((FileEditorInput) input).getFile().getProject();
-			IFile saltProjectResource = null;
-			try {
-				for (IResource member : iProject.members()) {
-					if (member instanceof IFile && member.getName().equalsIgnoreCase(SALT_PROJECT_FILE_NAME)) { // FIXME Externalize and treat for case, etc
-						saltProjectResource = (IFile) member;
-					}
-				}
+			IFile saltProjectResource = CorpusStructureCache.findSaltProjectFile(iProject);
+			URI projectLocation = null;
+			if (saltProjectResource != null && saltProjectResource.getLocation() != null) {
+				projectLocation = URI.createFileURI(saltProjectResource.getLocation().toOSString());
 			}
-			catch (CoreException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+			else {
+				log.warn("Project {} does not contain a Salt project file, loading {} as a standalone document.", iProject.getName(), filePath);
 			}
-			String projectFilePath = saltProjectResource.getRawLocation().toOSString();
-			SaltProject saltProject = SaltFactory.createSaltProject();
-			saltProject.loadCorpusStructure(URI.createFileURI(projectFilePath));
-			for (SDocument doc : saltProject.getCorpusGraphs().get(0).getDocuments()) {
-				if (doc.getDocumentGraphLocation().equals(URI.createFileURI(filePath))) {
-					doc.loadDocumentGraph();
-					graph = doc.getDocumentGraph();
-				}
+			// Other editors on the same document share the graph, and the corpus structure is cached per project
+			graphLocation = URI.createFileURI(filePath);
+			if (isLoadedInBackground()) {
+				final DocumentGraphLoadJob job = new DocumentGraphLoadJob(graphLocation, projectLocation);
+				job.addJobChangeListener(new JobChangeAdapter() {
+					@Override
+					public void done(IJobChangeEvent event) {
+						Display.getDefault().asyncExec(new Runnable() {
+							@Override
+							public void run() {
+								graphLoaded(job);
+							}
+						});
+					}
+				});
+				loadJob = job;
+				job.schedule();
+			}
+			else {
+				graph = DocumentGraphRegistry.getInstance().acquire(graphLocation, projectLocation);
+				registerGraph();
 			}
-			log.trace("Loaded document graph {}.", graph);
 			
 			// Set up editor for automatic context switches on activation/deactivation 
 			PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().addPartListener(new PartContextListener(site.getId(), site.getPluginId()));
 		}
 	}
 
+	private void registerGraph() {
+		DocumentGraphRegistry.getInstance().addChangeListener(graph, this);
+		log.trace("Loaded document graph {}.", graph);
+		if (DocumentGraphRegistry.getInstance().hasUnsavedChanges(graph)) {
+			log.info("Document graph {} contains unsaved changes.", graphLocation);
+			setDirty(true);
+		}
+	}
+
+	/*
+	 * Called in the UI thread when the load job has finished. The graph
+	 * is released right away if the editor has been disposed meanwhile.
+	 */
+	private void graphLoaded(DocumentGraphLoadJob job) {
+		if (job != loadJob) {
+			if (job.getGraph() != null) {
+				DocumentGraphRegistry.getInstance().release(job.getDocumentGraphLocation());
+			}
+			return;
+		}
+		loadJob = null;
+		if (job.getGraph() == null) {
+			graphLocation = null;
+			if (progressPart != null && !progressPart.isDisposed()) {
+				progressPart.done();
+				progressPart.setTaskName("Failed to load " + job.getDocumentGraphLocation().lastSegment() + ". See the log for details.");
+			}
+			return;
+		}
+		graph = job.getGraph();
+		registerGraph();
+		if (editorArea != null && !editorArea.isDisposed()) {
+			progressPart.done();
+			createEditorPartControl(editorArea);
+			editorArea.layout(true, true);
+			setFocus();
+		}
+	}
+
+	/**
+	 * Whether the graph is loaded by a {@link DocumentGraphLoadJob}
+	 * rather than in {@link #init(IEditorSite, IEditorInput)}. Clients
+	 * which can handle {@link #graph} being `null` until
+	 * {@link #createEditorPartControl(Composite)} is called can override
+	 * this to return `true`, so that opening large documents does not
+	 * block the workbench. The default implementation returns `false`.
+	 * 
+	 * @return whether the graph is loaded in the background
+	 */
+	protected boolean isLoadedInBackground() {
+		return false;
+	}
+
+	/**
+	 * Returns a progress monitor which shows its progress at the bottom
+	 * of the editor while a task is running, e.g., for the staged
+	 * compilation of a view after the graph has been loaded. The monitor
+	 * must only be used in the UI thread.
+	 * 
+	 * @return the monitor, or a {@link NullProgressMonitor} for editors
+	 *         which are not loaded in the background
+	 */
+	protected final IProgressMonitor getEditorProgressMonitor() {
+		if (progressPart == null || progressPart.isDisposed()) {
+			return new NullProgressMonitor();
+		}
+		return new ProgressMonitorWrapper(progressPart) {
+			@Override
+			public void beginTask(String name, int totalWork) {
+				setProgressPartVisible(true);
+				super.beginTask(name, totalWork);
+			}
+
+			@Override
+			public void done() {
+				super.done();
+				setProgressPartVisible(false);
+			}
+		};
+	}
+
+	private void setProgressPartVisible(boolean visible) {
+		if (progressPart == null || progressPart.isDisposed() || progressPart.getVisible() == visible) {
+			return;
+		}
+		progressPart.setVisible(visible);
+		((GridData) progressPart.getLayoutData()).exclude = !visible;
+		progressPart.getParent().layout(true);
+	}
+
+	/**
+	 * Releases the graph in the {@link DocumentGraphRegistry}.
+	 * Clients overriding this method must call `super.dispose()`.
+	 * 
+	 * @see org.eclipse.ui.part.WorkbenchPart#dispose()
+	 */
+	@Override
+	public void dispose() {
+		if (loadJob != null) {
+			// The graph is released when the job has finished
+			loadJob.cancel();
+			loadJob = null;
+			graphLocation = null;
+		}
+		if (graphLocation != null) {
+			DocumentGraphRegistry.getInstance().removeChangeListener(graph, this);
+			DocumentGraphRegistry.getInstance().release(graphLocation);
+			graphLocation = null;
+		}
+		super.dispose();
+	}
+
+	/**
+	 * Publishes changes which this editor has made to the graph to all
+	 * other clients sharing it, and marks the editor dirty.
+	 *
+	 * @param changes the changes in the order in which they have been made
+	 */
+	public final void fireGraphChanges(List<DocumentGraphChangeEvent> changes) {
+		if (graph == null || changes.isEmpty()) {
+			return;
+		}
+		DocumentGraphRegistry.getInstance().fireChanges(graph, this, changes);
+		setDirty(true);
+	}
+
+	/**
+	 * Marks the editor dirty and passes the changes to
+	 * {@link #handleGraphChanges(List)} in the UI thread.
+	 * 
+	 * @see org.corpus_tools.atomic.api.events.DocumentGraphChangeListener#documentGraphChanged(java.lang.Object, java.util.List)
+	 */
+	@Override
+	public final void documentGraphChanged(Object source, final List<DocumentGraphChangeEvent> changes) {
+		if (Display.getCurrent() != null) {
+			applyGraphChanges(changes);
+		}
+		else {
+			Display.getDefault().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					applyGraphChanges(changes);
+				}
+			});
+		}
+	}
+
+	private void applyGraphChanges(List<DocumentGraphChangeEvent> changes) {
+		if (graphLocation == null) {
+			// Disposed in the meantime
+			return;
+		}
+		setDirty(true);
+		pendingChanges.addAll(changes);
+		applyPendingChanges();
+	}
+
+	/*
+	 * Passes the pending changes to handleGraphChanges(List) in order,
+	 * unless the graph is being changed in the background, in which case
+	 * the UI thread tries again later instead of waiting for the lock.
+	 */
+	private void applyPendingChanges() {
+		if (graphLocation == null || pendingChanges.isEmpty()) {
+			return;
+		}
+		Lock lock = DocumentGraphRegistry.getInstance().getLock(graph).readLock();
+		if (!lock.tryLock()) {
+			if (!isApplyRetryScheduled) {
+				isApplyRetryScheduled = true;
+				Display.getDefault().timerExec(LOCK_RETRY_MILLIS, () -> {
+					isApplyRetryScheduled = false;
+					applyPendingChanges();
+				});
+			}
+			return;
+		}
+		try {
+			List<DocumentGraphChangeEvent> changes = new ArrayList<>(pendingChanges);
+			pendingChanges.clear();
+			handleGraphChanges(changes);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Disables the editor while other clients change the graph in the
+	 * background, so that users cannot edit it in the meantime, and shows
+	 * the progress at the bottom of editors which are loaded in the
+	 * background.
+	 * 
+	 * @see org.corpus_tools.atomic.api.events.DocumentGraphChangeListener#documentGraphMutating(java.lang.Object, boolean)
+	 */
+	@Override
+	public final void documentGraphMutating(Object source, final boolean mutating) {
+		Display.getDefault().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				if (graphLocation == null) {
+					return;
+				}
+				backgroundMutations += mutating ? 1 : -1;
+				Composite control = editorArea != null ? editorArea : partControl;
+				if (control != null && !control.isDisposed()) {
+					control.setEnabled(backgroundMutations <= 0);
+				}
+				if (backgroundMutations > 0 && backgroundMutationMonitor == null && (progressPart == null || !progressPart.getVisible())) {
+					backgroundMutationMonitor = getEditorProgressMonitor();
+					backgroundMutationMonitor.beginTask("Applying changes...", IProgressMonitor.UNKNOWN);
+				}
+				else if (backgroundMutations <= 0 && backgroundMutationMonitor != null) {
+					backgroundMutationMonitor.done();
+					backgroundMutationMonitor = null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return whether other clients are changing the graph in the
+	 *         background, in which case users must not change it, e.g.,
+	 *         via undo and redo
+	 */
+	public boolean isMutatingInBackground() {
+		return backgroundMutations > 0;
+	}
+
+	/**
+	 * Called in the UI thread when other clients have changed the graph.
+	 * The default implementation does nothing. Clients should override
+	 * this method to apply the changes to their views incrementally.
+	 *
+	 * @param changes the changes in the order in which they have been made
+	 */
+	protected void handleGraphChanges(List<DocumentGraphChangeEvent> changes) {
+		// Nothing to update by default
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.ui.part.EditorPart#isDirty()
 	 */
@@ -189,7 +614,24 @@ public abstract class DocumentGraphEditor extends EditorPart {
 	 */
 	@Override
 	public void createPartControl(Composite parent) {
-		createEditorPartControl(parent);
+		partControl = parent;
+		if (!isLoadedInBackground()) {
+			createEditorPartControl(parent);
+			return;
+		}
+		GridLayoutFactory.fillDefaults().spacing(0, 0).applyTo(parent);
+		editorArea = new Composite(parent, SWT.NONE);
+		editorArea.setLayout(new FillLayout());
+		GridDataFactory.fillDefaults().grab(true, true).applyTo(editorArea);
+		progressPart = new ProgressMonitorPart(parent, null, false);
+		GridDataFactory.fillDefaults().grab(true, false).applyTo(progressPart);
+		if (graph != null) {
+			setProgressPartVisible(false);
+			createEditorPartControl(editorArea);
+		}
+		else if (loadJob != null) {
+			progressPart.beginTask("Loading " + graphLocation.lastSegment() + "...", IProgressMonitor.UNKNOWN);
+		}
 	}
 
 	/**
@@ -210,11 +652,12 @@ public abstract class DocumentGraphEditor extends EditorPart {
 
 	/**
 	 * Returns the single instance of {@link SDocumentGraph} that
-	 * the editor can work on. The graph is initially set in {@link #init(IEditorSite, IEditorInput)}
-	 * and the referenced object itself should not be changed anywhere 
+	 * the editor can work on. The graph is initially set in {@link #init(IEditorSite, IEditorInput)},
+	 * or when it has been loaded for editors which are loaded in the
+	 * background, and the referenced object itself should not be changed anywhere 
 	 * in the editor.
 	 * 
-	 * @return the graph
+	 * @return the graph, or `null` while it is being loaded
 	 */
 	public final SDocumentGraph getGraph() {
 		return graph;
@@ -224,6 +667,9 @@ public abstract class DocumentGraphEditor extends EditorPart {
 	 * @param dirty the dirty to set
 	 */
 	public final void setDirty(boolean dirty) {
+		if (dirty) {
+			modificationCount++;
+		}
 		this.dirty = dirty;
 		firePropertyChange(PROP_DIRTY);
 	}
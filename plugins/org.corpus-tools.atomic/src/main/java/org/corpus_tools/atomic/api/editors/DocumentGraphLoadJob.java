@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.Activator;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A {@link Job} acquiring a document graph from the
+ * {@link DocumentGraphRegistry} in the background, so that editors for
+ * large documents can be opened without blocking the UI thread.
+ * <p>
+ * When the job has finished successfully, the acquired graph is available
+ * via {@link #getGraph()}, and the client which has scheduled the job is
+ * responsible for releasing it.
+ * </p>
+ *
+ */
+public class DocumentGraphLoadJob extends Job {
+
+	private static final Logger log = LogManager.getLogger(DocumentGraphLoadJob.class);
+
+	private final URI documentGraphLocation;
+
+	private final URI saltProjectLocation;
+
+	private volatile SDocumentGraph graph = null;
+
+	/**
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file, or <code>null</code>
+	 */
+	public DocumentGraphLoadJob(URI documentGraphLocation, URI saltProjectLocation) {
+		super("Loading " + documentGraphLocation.lastSegment());
+		this.documentGraphLocation = documentGraphLocation;
+		this.saltProjectLocation = saltProjectLocation;
+		setPriority(Job.INTERACTIVE);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+		try {
+			graph = DocumentGraphRegistry.getInstance().acquire(documentGraphLocation, saltProjectLocation);
+			log.trace("Acquired document graph {} in {} ms.", documentGraphLocation, System.currentTimeMillis() - start);
+			return Status.OK_STATUS;
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to load document graph {}.", documentGraphLocation, e);
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Failed to load " + documentGraphLocation.lastSegment() + ".", e);
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * @return the acquired graph, or <code>null</code> if the job has not
+	 *         finished successfully
+	 */
+	public SDocumentGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return the file URI of the SaltXML file containing the document graph
+	 */
+	public URI getDocumentGraphLocation() {
+		return documentGraphLocation;
+	}
+
+}
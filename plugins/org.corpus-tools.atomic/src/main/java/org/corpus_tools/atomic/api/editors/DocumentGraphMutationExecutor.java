@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.common.SDocumentGraph;
+
+/**
+ * Changes shared document graphs on a dedicated worker thread, so that
+ * long-running changes, e.g., by the AtomicAL console, do not block the
+ * UI thread.
+ * <p>
+ * Mutations run one after the other, each holding the write lock of its
+ * graph (cf. {@link DocumentGraphRegistry#getLock(SDocumentGraph)}).
+ * Mutations publish their changes via
+ * {@link DocumentGraphRegistry#fireChanges(SDocumentGraph, Object, java.util.List)}
+ * as usual, and editors apply them to their views in the UI thread once
+ * the mutation has released the lock. The
+ * listeners of a graph are notified when a mutation starts and ends, so
+ * that editors can keep users from editing the graph in the meantime.
+ * Mutations must not wait for the UI thread, e.g., via
+ * {@link org.eclipse.swt.widgets.Display#syncExec(Runnable)}, as the UI
+ * thread may be waiting for the graph's lock.
+ * </p>
+ *
+ */
+public final class DocumentGraphMutationExecutor {
+
+	private static final Logger log = LogManager.getLogger(DocumentGraphMutationExecutor.class);
+
+	private static final DocumentGraphMutationExecutor INSTANCE = new DocumentGraphMutationExecutor();
+
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Document graph mutations");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private DocumentGraphMutationExecutor() {
+		// Singleton
+	}
+
+	/**
+	 * @return the executor instance
+	 */
+	public static DocumentGraphMutationExecutor getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Schedules a mutation of a graph on the worker thread.
+	 *
+	 * @param graph
+	 *            the graph to change
+	 * @param source
+	 *            the object which changes the graph, and publishes the
+	 *            changes
+	 * @param mutation
+	 *            the mutation, which is called holding the graph's write lock
+	 * @return the result of the mutation
+	 */
+	public <T> Future<T> submit(final SDocumentGraph graph, final Object source, final Callable<T> mutation) {
+		return worker.submit(() -> {
+			DocumentGraphRegistry registry = DocumentGraphRegistry.getInstance();
+			Lock lock = registry.getLock(graph).writeLock();
+			long start = System.currentTimeMillis();
+			registry.notifyMutating(graph, source, true);
+			lock.lock();
+			try {
+				return mutation.call();
+			}
+			finally {
+				lock.unlock();
+				registry.notifyMutating(graph, source, false);
+				log.trace("Changed document graph {} in {} ms.", graph, System.currentTimeMillis() - start);
+			}
+		});
+	}
+
+}
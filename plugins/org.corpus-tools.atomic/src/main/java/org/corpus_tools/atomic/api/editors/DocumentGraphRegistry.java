@@ -0,0 +1,638 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeListener;
+import org.corpus_tools.atomic.api.salt.BinaryDocumentGraphCache;
+import org.corpus_tools.atomic.api.salt.DocumentGraphJournal;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A registry of the {@link SDocumentGraph}s currently in use, so that a
+ * document which is opened in several editors is loaded and held in memory
+ * only once.
+ * <p>
+ * Graphs are registered by the location of their SaltXML file. Clients
+ * {@link #acquire(URI, URI)} a graph, which loads it if it is not registered
+ * yet, and must {@link #release(URI)} it when they do not use it anymore, e.g.,
+ * when an editor is disposed. When the last reference to a graph is released,
+ * it is removed from the registry. Note that all clients share the same graph
+ * object, i.e., unsaved changes made by one client are visible to all others.
+ * </p>
+ * <p>
+ * As Salt graphs do not notify about changes themselves, clients changing a
+ * shared graph publish their changes via
+ * {@link #fireChanges(SDocumentGraph, Object, List)}, so that the other
+ * clients, which have registered a {@link DocumentGraphChangeListener} for
+ * the graph, can apply them incrementally.
+ * </p>
+ * <p>
+ * All changes published for an acquired graph are recorded in its
+ * {@link DocumentGraphJournal}, which provides {@link #undo(SDocumentGraph)}
+ * and {@link #redo(SDocumentGraph)}, and from which unsaved changes are
+ * recovered when the graph is acquired again after a crash. When the last
+ * reference to a graph is released, its journal is discarded.
+ * </p>
+ *
+ */
+public final class DocumentGraphRegistry {
+
+	private static final Logger log = LogManager.getLogger(DocumentGraphRegistry.class);
+
+	private static final DocumentGraphRegistry INSTANCE = new DocumentGraphRegistry();
+
+	private final Map<URI, Entry> entries = new HashMap<>();
+
+	private final Map<SDocumentGraph, List<DocumentGraphChangeListener>> listeners = new IdentityHashMap<>();
+
+	private final Map<SDocumentGraph, Entry> entriesByGraph = new IdentityHashMap<>();
+
+	private DocumentGraphRegistry() {
+		// Singleton
+	}
+
+	/**
+	 * @return the registry instance
+	 */
+	public static DocumentGraphRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the graph persisted at the given location and increments its
+	 * reference count. If the graph is not registered yet, it is loaded.
+	 *
+	 * If the location of the Salt project file containing the document is
+	 * given, the document is loaded as part of the project's corpus
+	 * structure, which is taken from the {@link CorpusStructureCache}.
+	 * Otherwise, or if the project does not contain the document,
+	 * a standalone {@link SDocument} is created for the graph. The graph
+	 * itself is loaded from its {@link BinaryDocumentGraphCache} snapshot
+	 * if that is fresh, and from SaltXML otherwise. Changes which have not
+	 * been saved before a crash are recovered from the graph's journal.
+	 *
+	 * The graph is loaded without holding the registry's lock, so that the
+	 * registry can be used while a large graph is loaded, e.g., by a
+	 * {@link DocumentGraphLoadJob}. Concurrent calls for the same location
+	 * wait for the graph to be loaded once.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file, or <code>null</code>
+	 * @return the shared graph
+	 */
+	public SDocumentGraph acquire(URI documentGraphLocation, URI saltProjectLocation) {
+		URI key = normalize(documentGraphLocation);
+		Entry entry;
+		boolean isLoader = false;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null) {
+				entry = new Entry(key);
+				entries.put(key, entry);
+				isLoader = true;
+			}
+			entry.references++;
+		}
+		if (isLoader) {
+			SDocumentGraph graph;
+			DocumentGraphJournal journal;
+			try {
+				graph = load(documentGraphLocation, saltProjectLocation);
+				journal = openJournal(graph, documentGraphLocation);
+			}
+			catch (RuntimeException e) {
+				synchronized (this) {
+					entries.remove(key);
+					entry.failure = e;
+					notifyAll();
+				}
+				throw e;
+			}
+			synchronized (this) {
+				entry.graph = graph;
+				entry.journal = journal;
+				entriesByGraph.put(graph, entry);
+				log.trace("Registered document graph {} for {}.", graph, key);
+				notifyAll();
+				if (entry.references <= 0) {
+					// Released by all clients while loading
+					unregister(key, entry);
+				}
+				return graph;
+			}
+		}
+		synchronized (this) {
+			while (entry.graph == null && entry.failure == null) {
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					entry.references--;
+					throw new IllegalStateException("Interrupted while waiting for document graph " + key + " to be loaded.", e);
+				}
+			}
+			if (entry.failure != null) {
+				throw new IllegalStateException("Failed to load document graph " + key + ".", entry.failure);
+			}
+			return entry.graph;
+		}
+	}
+
+	/**
+	 * Decrements the reference count of the graph persisted at the given
+	 * location, and removes it from the registry if it is not referenced
+	 * anymore, discarding its journal.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 */
+	public synchronized void release(URI documentGraphLocation) {
+		URI key = normalize(documentGraphLocation);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			log.warn("Attempt to release document graph for {}, which is not registered.", key);
+			return;
+		}
+		if (--entry.references <= 0 && entry.graph != null) {
+			unregister(key, entry);
+		}
+	}
+
+	/**
+	 * Increments the reference count of a registered graph, e.g., to keep
+	 * the graph and its journal registered while it is being saved.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return whether the graph is registered, i.e., whether the reference
+	 *         must be released
+	 */
+	public synchronized boolean retain(URI documentGraphLocation) {
+		Entry entry = entries.get(normalize(documentGraphLocation));
+		if (entry == null || entry.graph == null) {
+			return false;
+		}
+		entry.references++;
+		return true;
+	}
+
+	/**
+	 * Hands over a reference to the graph persisted at the given location
+	 * to the registry, which releases it once all changes to the graph have
+	 * been saved, cf. {@link #compactJournal(SDocumentGraph, long, long, long)}.
+	 * This keeps the changes of a graph which could not be saved in memory
+	 * and in its journal when its editors are closed, so that they are
+	 * restored when it is opened again. The registry holds at most one
+	 * such reference per graph, further references are released right away.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 */
+	public synchronized void releaseWhenSaved(URI documentGraphLocation) {
+		Entry entry = entries.get(normalize(documentGraphLocation));
+		if (entry == null || entry.isReleasedWhenSaved) {
+			release(documentGraphLocation);
+			return;
+		}
+		entry.isReleasedWhenSaved = true;
+		log.info("Keeping unsaved changes to document graph {} until it is saved.", entry.key);
+	}
+
+	private void unregister(URI key, Entry entry) {
+		entries.remove(key);
+		entriesByGraph.remove(entry.graph);
+		listeners.remove(entry.graph);
+		if (entry.journal != null) {
+			entry.journal.discard();
+		}
+		// Don't retain the graph via the cached corpus structure
+		SDocument document = entry.graph.getDocument();
+		if (document != null && document.getDocumentGraph() == entry.graph) {
+			document.setDocumentGraph(null);
+		}
+		log.trace("Unregistered document graph for {}.", key);
+	}
+
+	/**
+	 * Returns the registered graph for the given location without changing
+	 * its reference count.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return the shared graph, or <code>null</code> if it is not registered
+	 *         or still being loaded
+	 */
+	public synchronized SDocumentGraph get(URI documentGraphLocation) {
+		Entry entry = entries.get(normalize(documentGraphLocation));
+		return entry == null ? null : entry.graph;
+	}
+
+	/**
+	 * Returns the registered graph for the given location if there is one,
+	 * or loads a graph which is not registered otherwise. The reference count
+	 * is not changed, so this is meant for short-lived, read-only clients.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return the shared graph, or a newly loaded one
+	 */
+	public SDocumentGraph getOrLoad(URI documentGraphLocation) {
+		return getOrLoad(documentGraphLocation, null);
+	}
+
+	/**
+	 * Returns the registered graph for the given location if there is one,
+	 * or loads a graph which is not registered otherwise, as part of the
+	 * corpus structure of the given Salt project. The reference count is
+	 * not changed. Clients must detach loaded graphs from their document
+	 * when they are done, so that they are not retained via the cached
+	 * corpus structure.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @param saltProjectLocation
+	 *            the file URI of the Salt project file, or <code>null</code>
+	 * @return the shared graph, or a newly loaded one
+	 */
+	public SDocumentGraph getOrLoad(URI documentGraphLocation, URI saltProjectLocation) {
+		SDocumentGraph graph = get(documentGraphLocation);
+		return graph != null ? graph : load(documentGraphLocation, saltProjectLocation);
+	}
+
+	/**
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return the number of clients which have acquired the graph
+	 */
+	public synchronized int getReferenceCount(URI documentGraphLocation) {
+		Entry entry = entries.get(normalize(documentGraphLocation));
+		return entry == null ? 0 : entry.references;
+	}
+
+	/**
+	 * Registers a listener for changes to the given graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param listener
+	 *            the listener to notify of changes to the graph
+	 */
+	public synchronized void addChangeListener(SDocumentGraph graph, DocumentGraphChangeListener listener) {
+		List<DocumentGraphChangeListener> graphListeners = listeners.get(graph);
+		if (graphListeners == null) {
+			graphListeners = new CopyOnWriteArrayList<>();
+			listeners.put(graph, graphListeners);
+		}
+		if (!graphListeners.contains(listener)) {
+			graphListeners.add(listener);
+		}
+	}
+
+	/**
+	 * Removes a listener for changes to the given graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public synchronized void removeChangeListener(SDocumentGraph graph, DocumentGraphChangeListener listener) {
+		List<DocumentGraphChangeListener> graphListeners = listeners.get(graph);
+		if (graphListeners != null) {
+			graphListeners.remove(listener);
+			if (graphListeners.isEmpty()) {
+				listeners.remove(graph);
+			}
+		}
+	}
+
+	/**
+	 * Notifies all listeners registered for the given graph of changes which
+	 * have been made to it, except the source of the changes itself, and
+	 * records the changes in the graph's journal. The listeners are called
+	 * in the calling thread.
+	 *
+	 * @param graph
+	 *            the changed graph
+	 * @param source
+	 *            the object which has made the changes, or <code>null</code>
+	 * @param changes
+	 *            the changes in the order in which they have been made
+	 */
+	public void fireChanges(SDocumentGraph graph, Object source, List<DocumentGraphChangeEvent> changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+		DocumentGraphJournal journal = getJournal(graph);
+		if (journal != null) {
+			journal.record(changes);
+		}
+		notifyListeners(graph, source, changes);
+	}
+
+	/**
+	 * Reverts the last change to the given graph which has been published
+	 * via {@link #fireChanges(SDocumentGraph, Object, List)}, and notifies
+	 * all listeners registered for the graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return whether a change has been undone
+	 */
+	public boolean undo(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		if (journal == null) {
+			return false;
+		}
+		Lock lock = getLock(graph).writeLock();
+		lock.lock();
+		try {
+			List<DocumentGraphChangeEvent> changes = journal.undo();
+			notifyListeners(graph, null, changes);
+			return !changes.isEmpty();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Re-applies the last change to the given graph which has been undone
+	 * via {@link #undo(SDocumentGraph)}, and notifies all listeners
+	 * registered for the graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return whether a change has been redone
+	 */
+	public boolean redo(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		if (journal == null) {
+			return false;
+		}
+		Lock lock = getLock(graph).writeLock();
+		lock.lock();
+		try {
+			List<DocumentGraphChangeEvent> changes = journal.redo();
+			notifyListeners(graph, null, changes);
+			return !changes.isEmpty();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the lock guarding the given graph against concurrent access.
+	 * Clients changing the graph outside the UI thread, e.g., via the
+	 * {@link DocumentGraphMutationExecutor}, hold the write lock, and
+	 * editors hold the read lock while they read the graph outside of
+	 * painting, e.g., to update their views or to save the graph. The UI
+	 * thread must not block on the lock, but try to acquire it and try
+	 * again later if it is held by a background change.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the graph's lock, or a new lock if the graph is not
+	 *         registered and thus not shared
+	 */
+	public synchronized ReadWriteLock getLock(SDocumentGraph graph) {
+		Entry entry = entriesByGraph.get(graph);
+		return entry == null ? new ReentrantReadWriteLock() : entry.lock;
+	}
+
+	/*
+	 * Notifies the listeners registered for the given graph that a client
+	 * has started or finished changing the graph in the background.
+	 */
+	void notifyMutating(SDocumentGraph graph, Object source, boolean mutating) {
+		List<DocumentGraphChangeListener> graphListeners;
+		synchronized (this) {
+			graphListeners = listeners.get(graph);
+		}
+		if (graphListeners == null) {
+			return;
+		}
+		for (DocumentGraphChangeListener listener : graphListeners) {
+			if (listener != source) {
+				listener.documentGraphMutating(source, mutating);
+			}
+		}
+	}
+
+	/**
+	 * @param graph
+	 *            the graph
+	 * @return whether there is a change to the graph which can be undone
+	 */
+	public boolean canUndo(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		return journal != null && journal.canUndo();
+	}
+
+	/**
+	 * @param graph
+	 *            the graph
+	 * @return whether there is a change to the graph which can be redone
+	 */
+	public boolean canRedo(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		return journal != null && journal.canRedo();
+	}
+
+	/**
+	 * @param graph
+	 *            the graph
+	 * @return whether the journal of the graph contains changes which have
+	 *         not been saved, e.g., changes recovered after a crash
+	 */
+	public boolean hasUnsavedChanges(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		return journal != null && journal.hasUnsavedTransactions();
+	}
+
+	/**
+	 * Returns the position of the journal of the given graph, which must be
+	 * taken together with a snapshot of the graph which is saved, and passed
+	 * to {@link #compactJournal(SDocumentGraph, long, long, long)} when it
+	 * has been saved.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the journal position, or -1 if the graph has no journal
+	 */
+	public long getJournalPosition(SDocumentGraph graph) {
+		DocumentGraphJournal journal = getJournal(graph);
+		return journal == null ? -1 : journal.getPosition();
+	}
+
+	/**
+	 * Drops the changes which have been saved from the journal of the
+	 * given graph. If no unsaved changes are left, a reference handed over
+	 * via {@link #releaseWhenSaved(URI)} is released.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param position
+	 *            the journal position at the time the saved snapshot has
+	 *            been taken
+	 * @param savedLength
+	 *            the length of the SaltXML file after saving
+	 * @param savedTimestamp
+	 *            the timestamp of the SaltXML file after saving
+	 */
+	public void compactJournal(SDocumentGraph graph, long position, long savedLength, long savedTimestamp) {
+		DocumentGraphJournal journal = getJournal(graph);
+		if (journal != null && position >= 0) {
+			journal.compact(position, savedLength, savedTimestamp);
+		}
+		synchronized (this) {
+			Entry entry = entriesByGraph.get(graph);
+			if (entry != null && entry.isReleasedWhenSaved && (journal == null || !journal.hasUnsavedTransactions())) {
+				entry.isReleasedWhenSaved = false;
+				if (--entry.references <= 0) {
+					unregister(entry.key, entry);
+				}
+			}
+		}
+	}
+
+	private void notifyListeners(SDocumentGraph graph, Object source, List<DocumentGraphChangeEvent> changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+		List<DocumentGraphChangeListener> graphListeners;
+		synchronized (this) {
+			graphListeners = listeners.get(graph);
+		}
+		if (graphListeners == null) {
+			return;
+		}
+		log.trace("Publishing {} changes to graph {} by {}.", changes.size(), graph.getId(), source);
+		for (DocumentGraphChangeListener listener : graphListeners) {
+			if (listener != source) {
+				try {
+					listener.documentGraphChanged(source, changes);
+				}
+				catch (RuntimeException e) {
+					log.error("Listener {} failed to process changes to graph {}.", listener, graph.getId(), e);
+				}
+			}
+		}
+	}
+
+	private synchronized DocumentGraphJournal getJournal(SDocumentGraph graph) {
+		Entry entry = entriesByGraph.get(graph);
+		return entry == null ? null : entry.journal;
+	}
+
+	/*
+	 * Opens the journal of a newly loaded graph, and replays the changes
+	 * which have not been saved before the graph has last been closed.
+	 */
+	private static DocumentGraphJournal openJournal(SDocumentGraph graph, URI documentGraphLocation) {
+		if (!documentGraphLocation.isFile()) {
+			return null;
+		}
+		try {
+			DocumentGraphJournal journal = DocumentGraphJournal.open(graph, documentGraphLocation);
+			List<DocumentGraphChangeEvent> recovered = journal.recover();
+			if (!recovered.isEmpty()) {
+				log.info("Recovered {} unsaved changes to {}.", recovered.size(), documentGraphLocation);
+			}
+			return journal;
+		}
+		catch (IOException | RuntimeException e) {
+			log.error("Failed to open the journal for {}, changes will not be recoverable.", documentGraphLocation, e);
+			return null;
+		}
+	}
+
+	/*
+	 * Loads a graph without registering it, also used by the ProjectDocumentLoader.
+	 */
+	static SDocumentGraph load(URI documentGraphLocation, URI saltProjectLocation) {
+		if (saltProjectLocation != null) {
+			SDocument doc = CorpusStructureCache.getInstance().getDocument(saltProjectLocation, documentGraphLocation);
+			if (doc != null) {
+				return loadDocumentGraph(doc, documentGraphLocation);
+			}
+			log.warn("Salt project {} does not contain a document at {}, loading it as a standalone document.", saltProjectLocation, documentGraphLocation);
+		}
+		SDocument doc = SaltFactory.createSDocument();
+		doc.setDocumentGraphLocation(documentGraphLocation);
+		return loadDocumentGraph(doc, documentGraphLocation);
+	}
+
+	/*
+	 * Loads the graph from its binary snapshot if that is fresh, and from
+	 * SaltXML otherwise, in which case the snapshot is (re-)created for the
+	 * next time.
+	 */
+	private static SDocumentGraph loadDocumentGraph(SDocument doc, URI documentGraphLocation) {
+		SDocumentGraph graph = BinaryDocumentGraphCache.load(documentGraphLocation);
+		if (graph != null) {
+			doc.setDocumentGraph(graph);
+			return graph;
+		}
+		doc.loadDocumentGraph(documentGraphLocation);
+		BinaryDocumentGraphCache.store(doc.getDocumentGraph(), documentGraphLocation);
+		return doc.getDocumentGraph();
+	}
+
+	private static URI normalize(URI location) {
+		return CorpusStructureCache.normalize(location);
+	}
+
+	private static class Entry {
+		private final URI key;
+		// Null while the graph is being loaded
+		private SDocumentGraph graph = null;
+		private RuntimeException failure = null;
+		private DocumentGraphJournal journal = null;
+		private int references = 0;
+		// Whether one of the references is released once the graph is saved
+		private boolean isReleasedWhenSaved = false;
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+		private Entry(URI key) {
+			this.key = key;
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.Activator;
+import org.corpus_tools.atomic.api.salt.BinaryDocumentGraphCache;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A {@link Job} saving a snapshot of a document graph to its SaltXML file
+ * in the background.
+ * <p>
+ * The snapshot is taken with
+ * {@link BinaryDocumentGraphCache#createSnapshot(SDocumentGraph)} when the
+ * job is created, so that the graph can be edited further while it is
+ * being saved. The job writes the graph to a temporary file first, which
+ * then atomically replaces the SaltXML file, so that the file is never
+ * left half-written. Jobs saving different files run in parallel, jobs
+ * saving the same file run one after the other in the order in which they
+ * have been scheduled.
+ * </p>
+ *
+ */
+public class DocumentGraphSaveJob extends Job {
+
+	private static final Logger log = LogManager.getLogger(DocumentGraphSaveJob.class);
+
+	/**
+	 * The family of all save jobs, cf. {@link #joinAll(IProgressMonitor)}.
+	 */
+	public static final Object FAMILY = DocumentGraphSaveJob.class;
+
+	private final URI documentGraphLocation;
+
+	private final byte[] snapshot;
+
+	private volatile long savedLength = -1;
+	private volatile long savedTimestamp = -1;
+
+	/**
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file to save the graph to
+	 * @param graph
+	 *            the graph to save, of which a snapshot is taken immediately
+	 * @throws UnsupportedOperationException
+	 *             if no snapshot can be taken of the graph, in which case
+	 *             it must be saved synchronously
+	 */
+	public DocumentGraphSaveJob(URI documentGraphLocation, SDocumentGraph graph) {
+		super("Saving " + documentGraphLocation.lastSegment());
+		this.documentGraphLocation = documentGraphLocation;
+		this.snapshot = BinaryDocumentGraphCache.createSnapshot(graph);
+		setRule(new FileRule(new File(documentGraphLocation.toFileString())));
+		setPriority(Job.SHORT);
+	}
+
+	/**
+	 * Waits until all scheduled save jobs have finished, e.g., before
+	 * reading documents from disk.
+	 *
+	 * @param monitor
+	 *            a progress monitor, or <code>null</code>
+	 */
+	public static void joinAll(IProgressMonitor monitor) {
+		try {
+			Job.getJobManager().join(FAMILY, monitor);
+		}
+		catch (InterruptedException e) {
+			log.warn("Interrupted while waiting for document graphs to be saved.", e);
+			Thread.currentThread().interrupt();
+		}
+		catch (OperationCanceledException e) {
+			log.warn("Cancelled waiting for document graphs to be saved.", e);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		File target = new File(documentGraphLocation.toFileString());
+		File temp = new File(target.getParentFile(), "." + target.getName() + ".tmp");
+		try {
+			SDocumentGraph graph = BinaryDocumentGraphCache.readSnapshot(snapshot);
+			SDocument document = SaltFactory.createSDocument();
+			document.setDocumentGraph(graph);
+			SaltUtil.saveDocumentGraph(graph, URI.createFileURI(temp.getAbsolutePath()));
+			try {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			savedLength = target.length();
+			savedTimestamp = target.lastModified();
+			BinaryDocumentGraphCache.store(snapshot, documentGraphLocation);
+			log.trace("Saved document graph to {} in {} ms.", target, System.currentTimeMillis() - start);
+			return Status.OK_STATUS;
+		}
+		catch (IOException | RuntimeException e) {
+			log.error("Failed to save document graph to {}.", target, e);
+			try {
+				Files.deleteIfExists(temp.toPath());
+			}
+			catch (IOException e1) {
+				log.debug("Failed to delete {}.", temp, e1);
+			}
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Failed to save " + target.getName() + ".", e);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+	 */
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == FAMILY;
+	}
+
+	/**
+	 * @return the file URI of the SaltXML file the graph is saved to
+	 */
+	public URI getDocumentGraphLocation() {
+		return documentGraphLocation;
+	}
+
+	/**
+	 * @return the length of the SaltXML file as written by this job, or -1
+	 *         if the job has not saved the graph (yet)
+	 */
+	public long getSavedLength() {
+		return savedLength;
+	}
+
+	/**
+	 * @return the timestamp of the SaltXML file as written by this job, or
+	 *         -1 if the job has not saved the graph (yet)
+	 */
+	public long getSavedTimestamp() {
+		return savedTimestamp;
+	}
+
+	/**
+	 * A rule serializing jobs which write the same file. It is not a
+	 * resource rule, so that saving does not lock the workspace.
+	 */
+	private static final class FileRule implements ISchedulingRule {
+
+		private final File file;
+
+		private FileRule(File file) {
+			this.file = file.getAbsoluteFile();
+		}
+
+		@Override
+		public boolean contains(ISchedulingRule rule) {
+			return rule == this;
+		}
+
+		@Override
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule instanceof FileRule && ((FileRule) rule).file.equals(file);
+		}
+
+	}
+
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.editors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * Loads all document graphs of a project for operations which process
+ * every document, e.g., re-indexing.
+ * <p>
+ * The graphs are loaded on a shared fork-join pool with a bounded number
+ * of threads, from their binary snapshots if these are fresh, and are
+ * passed to the consumer of {@link #forEachDocument(BiConsumer, IProgressMonitor)}
+ * in the calling thread, one after the other and in the order of their
+ * locations. While the consumer processes a graph, at most as many of
+ * the next graphs as the pool has threads are loaded ahead. Loading ahead
+ * stops while more than {@link #MEMORY_BUDGET} of the maximum heap is in
+ * use, so that once the graphs already loaded ahead have been processed,
+ * only the graph being processed is kept in memory.
+ * </p>
+ * <p>
+ * The graphs are loaded as standalone documents, i.e., they are neither
+ * shared with editors via the {@link DocumentGraphRegistry}, nor attached
+ * to the cached corpus structure, and can be collected once the consumer
+ * is done with them.
+ * </p>
+ *
+ */
+public final class ProjectDocumentLoader {
+
+	private static final Logger log = LogManager.getLogger(ProjectDocumentLoader.class);
+
+	/**
+	 * The fraction of the maximum heap above which no more graphs are loaded
+	 * ahead.
+	 */
+	public static final double MEMORY_BUDGET = 0.7;
+
+	private static final String SALT_FILE_EXTENSION = "salt";
+
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+
+	private static final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), forkJoinPool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+		thread.setName("Document loader #" + threadCounter.incrementAndGet());
+		return thread;
+	}, null, false);
+
+	private final List<URI> documentGraphLocations;
+
+	/**
+	 * @param documentGraphLocations
+	 *            the file URIs of the SaltXML files containing the document
+	 *            graphs
+	 */
+	public ProjectDocumentLoader(List<URI> documentGraphLocations) {
+		this.documentGraphLocations = Collections.unmodifiableList(new ArrayList<>(documentGraphLocations));
+	}
+
+	/**
+	 * Creates a loader for all documents of a project, i.e., the SaltXML
+	 * files in the project except its Salt project file.
+	 *
+	 * @param project
+	 *            the project
+	 * @return the loader
+	 * @throws CoreException
+	 *             if the members of the project cannot be listed
+	 */
+	public static ProjectDocumentLoader forProject(IProject project) throws CoreException {
+		List<URI> locations = new ArrayList<>();
+		findDocumentGraphs(project, locations);
+		return new ProjectDocumentLoader(locations);
+	}
+
+	private static void findDocumentGraphs(IResource resource, List<URI> locations) throws CoreException {
+		if (resource instanceof IFile) {
+			IFile file = (IFile) resource;
+			if (SALT_FILE_EXTENSION.equals(file.getFileExtension()) && !DocumentGraphEditor.SALT_PROJECT_FILE_NAME.equalsIgnoreCase(file.getName()) && file.getLocationURI() != null) {
+				locations.add(URI.createURI(file.getLocationURI().toASCIIString()));
+			}
+		}
+		else if (resource instanceof IContainer && resource.isAccessible()) {
+			for (IResource member : ((IContainer) resource).members()) {
+				findDocumentGraphs(member, locations);
+			}
+		}
+	}
+
+	/**
+	 * @return the file URIs of the SaltXML files containing the document
+	 *         graphs
+	 */
+	public List<URI> getDocumentGraphLocations() {
+		return documentGraphLocations;
+	}
+
+	/**
+	 * Loads the document graphs and passes each of them to the consumer in
+	 * the calling thread. Documents which cannot be loaded are logged and
+	 * skipped. When the monitor is cancelled or the calling thread is
+	 * interrupted, no more documents are passed to the consumer, and the
+	 * graphs loaded ahead are discarded.
+	 *
+	 * @param consumer
+	 *            the consumer of the document graphs and their locations
+	 * @param monitor
+	 *            the monitor to report progress to, which is worked once
+	 *            per document, or <code>null</code>
+	 * @return the number of documents which have been passed to the
+	 *         consumer
+	 */
+	public int forEachDocument(BiConsumer<URI, SDocumentGraph> consumer, IProgressMonitor monitor) {
+		SubMonitor progress = SubMonitor.convert(monitor, documentGraphLocations.size());
+		Deque<ForkJoinTask<SDocumentGraph>> loading = new ArrayDeque<>();
+		// including the graph which is passed to the consumer next
+		int maxLoadingAhead = pool.getParallelism() + 1;
+		int next = 0;
+		int consumed = 0;
+		try {
+			for (int i = 0; i < documentGraphLocations.size(); i++) {
+				if (progress.isCanceled()) {
+					log.debug("Cancelled loading documents after {} of {}.", consumed, documentGraphLocations.size());
+					break;
+				}
+				while (next < documentGraphLocations.size() && loading.size() < maxLoadingAhead && (loading.isEmpty() || !isMemoryLow())) {
+					final URI location = documentGraphLocations.get(next++);
+					loading.add(pool.submit(() -> DocumentGraphRegistry.load(location, null)));
+				}
+				ForkJoinTask<SDocumentGraph> task = loading.poll();
+				URI location = documentGraphLocations.get(i);
+				SDocumentGraph graph;
+				try {
+					graph = task.get();
+				}
+				catch (ExecutionException e) {
+					log.error("Could not load document graph {}, skipping it.", location, e.getCause());
+					progress.worked(1);
+					continue;
+				}
+				progress.subTask(location.lastSegment());
+				consumer.accept(location, graph);
+				consumed++;
+				progress.worked(1);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			for (ForkJoinTask<SDocumentGraph> task : loading) {
+				task.cancel(false);
+			}
+			progress.done();
+		}
+		return consumed;
+	}
+
+	/**
+	 * Loads the document graphs and passes each of them to the consumer.
+	 *
+	 * @param consumer
+	 *            the consumer of the document graphs and their locations
+	 * @return the number of documents which have been passed to the
+	 *         consumer
+	 * @see #forEachDocument(BiConsumer, IProgressMonitor)
+	 */
+	public int forEachDocument(BiConsumer<URI, SDocumentGraph> consumer) {
+		return forEachDocument(consumer, null);
+	}
+
+	private static boolean isMemoryLow() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = runtime.totalMemory() - runtime.freeMemory();
+		return used > runtime.maxMemory() * MEMORY_BUDGET;
+	}
+
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.graph.IdentifiableElement;
+
+/**
+ * A single, fine-grained change to an {@link org.corpus_tools.salt.common.SDocumentGraph}.
+ * <p>
+ * Salt graphs do not notify about changes themselves, so clients changing
+ * a shared graph describe their changes with events of this type and
+ * publish them via
+ * {@link org.corpus_tools.atomic.api.editors.DocumentGraphRegistry#fireChanges(org.corpus_tools.salt.common.SDocumentGraph, Object, List)}.
+ * Events reference the live graph elements, i.e., removed elements are
+ * not part of the graph anymore when the event is received.
+ * </p>
+ *
+ */
+public final class DocumentGraphChangeEvent {
+
+	/**
+	 * The kinds of change.
+	 */
+	public enum Type {
+		NODE_ADDED, NODE_REMOVED, RELATION_ADDED, RELATION_REMOVED, ANNOTATION_ADDED, ANNOTATION_CHANGED, ANNOTATION_REMOVED,
+		/**
+		 * The text of an {@link STextualDS} has changed, and with it the
+		 * offsets of the tokens overlapping it.
+		 */
+		TEXT_CHANGED
+	}
+
+	private final Type type;
+	private final IdentifiableElement element;
+	private final String qName;
+	private final Object oldValue;
+	private final Object newValue;
+	private Set<SLayer> layers = Collections.emptySet();
+
+	private DocumentGraphChangeEvent(Type type, IdentifiableElement element, String qName, Object oldValue, Object newValue) {
+		this.type = type;
+		this.element = element;
+		this.qName = qName;
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+	}
+
+	public static DocumentGraphChangeEvent nodeAdded(SNode node) {
+		return new DocumentGraphChangeEvent(Type.NODE_ADDED, node, null, null, null);
+	}
+
+	public static DocumentGraphChangeEvent nodeRemoved(SNode node) {
+		return new DocumentGraphChangeEvent(Type.NODE_REMOVED, node, null, null, null).withLayers(node.getLayers());
+	}
+
+	public static DocumentGraphChangeEvent relationAdded(SRelation<?, ?> relation) {
+		return new DocumentGraphChangeEvent(Type.RELATION_ADDED, relation, null, null, null);
+	}
+
+	public static DocumentGraphChangeEvent relationRemoved(SRelation<?, ?> relation) {
+		return new DocumentGraphChangeEvent(Type.RELATION_REMOVED, relation, null, null, null).withLayers(relation.getLayers());
+	}
+
+	public static DocumentGraphChangeEvent annotationAdded(IdentifiableElement element, SAnnotation annotation) {
+		return new DocumentGraphChangeEvent(Type.ANNOTATION_ADDED, element, annotation.getQName(), null, annotation.getValue());
+	}
+
+	public static DocumentGraphChangeEvent annotationChanged(IdentifiableElement element, String qName, Object oldValue, Object newValue) {
+		return new DocumentGraphChangeEvent(Type.ANNOTATION_CHANGED, element, qName, oldValue, newValue);
+	}
+
+	public static DocumentGraphChangeEvent annotationRemoved(IdentifiableElement element, String qName, Object oldValue) {
+		return new DocumentGraphChangeEvent(Type.ANNOTATION_REMOVED, element, qName, oldValue, null);
+	}
+
+	public static DocumentGraphChangeEvent textChanged(STextualDS text) {
+		return new DocumentGraphChangeEvent(Type.TEXT_CHANGED, text, null, null, null);
+	}
+
+	/*
+	 * Removing an element from a graph also removes it from its layers, so
+	 * these are kept with the event.
+	 */
+	private DocumentGraphChangeEvent withLayers(Set<SLayer> elementLayers) {
+		if (elementLayers != null && !elementLayers.isEmpty()) {
+			layers = Collections.unmodifiableSet(new LinkedHashSet<>(elementLayers));
+		}
+		return this;
+	}
+
+	/**
+	 * Creates the events for a node which has been added to a graph,
+	 * followed by the events for all relations connected to it.
+	 *
+	 * @param node
+	 *            the added node
+	 * @return the events, node first
+	 */
+	public static List<DocumentGraphChangeEvent> nodeAddedWithRelations(SNode node) {
+		List<DocumentGraphChangeEvent> events = new ArrayList<>();
+		events.add(nodeAdded(node));
+		for (SRelation<?, ?> relation : node.getInRelations()) {
+			events.add(relationAdded(relation));
+		}
+		for (SRelation<?, ?> relation : node.getOutRelations()) {
+			events.add(relationAdded(relation));
+		}
+		return events;
+	}
+
+	/**
+	 * Creates the events for removing a node from a graph, preceded by
+	 * the events for all relations connected to it, which are removed
+	 * with the node. Note that this method must be called <em>before</em>
+	 * the node is removed.
+	 *
+	 * @param node
+	 *            the node to remove
+	 * @return the events, relations first
+	 */
+	public static List<DocumentGraphChangeEvent> nodeRemovedWithRelations(SNode node) {
+		List<DocumentGraphChangeEvent> events = new ArrayList<>();
+		for (SRelation<?, ?> relation : node.getInRelations()) {
+			events.add(relationRemoved(relation));
+		}
+		for (SRelation<?, ?> relation : node.getOutRelations()) {
+			events.add(relationRemoved(relation));
+		}
+		events.add(nodeRemoved(node));
+		return events;
+	}
+
+	/**
+	 * @return the type of change
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the changed node or relation, or the annotated element for
+	 *         annotation changes
+	 */
+	public IdentifiableElement getElement() {
+		return element;
+	}
+
+	/**
+	 * @return the layers a removed node or relation belonged to when the
+	 *         event has been created, an empty set for other changes
+	 */
+	public Set<SLayer> getLayers() {
+		return layers;
+	}
+
+	/**
+	 * @return the qualified name of the changed annotation, or
+	 *         <code>null</code> for other changes
+	 */
+	public String getQName() {
+		return qName;
+	}
+
+	/**
+	 * @return the annotation value before the change, or <code>null</code>
+	 */
+	public Object getOldValue() {
+		return oldValue;
+	}
+
+	/**
+	 * @return the annotation value after the change, or <code>null</code>
+	 */
+	public Object getNewValue() {
+		return newValue;
+	}
+
+	/**
+	 * @return whether this is an annotation change
+	 */
+	public boolean isAnnotationChange() {
+		return type == Type.ANNOTATION_ADDED || type == Type.ANNOTATION_CHANGED || type == Type.ANNOTATION_REMOVED;
+	}
+
+	/**
+	 * Whether the change may affect the text ranges which nodes overlap,
+	 * i.e., whether it adds or removes nodes, changes texts, or adds or
+	 * removes textual, spanning or dominance relations.
+	 *
+	 * @return whether the change affects the overlapped text ranges
+	 */
+	public boolean affectsTextRanges() {
+		switch (type) {
+		case NODE_ADDED:
+		case NODE_REMOVED:
+		case TEXT_CHANGED:
+			return true;
+		case RELATION_ADDED:
+		case RELATION_REMOVED:
+			return element instanceof STextualRelation || element instanceof SSpanningRelation || element instanceof SDominanceRelation;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the change adds or removes tokens, or changes texts
+	 */
+	public boolean affectsTokens() {
+		return type == Type.TEXT_CHANGED || element instanceof SToken && (type == Type.NODE_ADDED || type == Type.NODE_REMOVED);
+	}
+
+	@Override
+	public String toString() {
+		return type + "[" + (element == null ? null : element.getId()) + (qName == null ? "" : ", " + qName + ": " + oldValue + " -> " + newValue) + "]";
+	}
+
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.events;
+
+import java.util.List;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+
+/**
+ * A listener for changes to a shared {@link SDocumentGraph}, registered
+ * with {@link org.corpus_tools.atomic.api.editors.DocumentGraphRegistry#addChangeListener(SDocumentGraph, DocumentGraphChangeListener)}.
+ *
+ */
+public interface DocumentGraphChangeListener {
+
+	/**
+	 * Notifies the listener of a batch of changes to the graph it has been
+	 * registered for. The method is called in the thread which has published
+	 * the changes.
+	 *
+	 * @param source
+	 *            the object which has made the changes, or <code>null</code>
+	 * @param changes
+	 *            the changes in the order in which they have been made
+	 */
+	public void documentGraphChanged(Object source, List<DocumentGraphChangeEvent> changes);
+
+	/**
+	 * Notifies the listener that a client has started or finished changing
+	 * the graph in the background, e.g., via the
+	 * {@link org.corpus_tools.atomic.api.editors.DocumentGraphMutationExecutor}.
+	 * Listeners which edit the graph in the UI thread should not let users
+	 * do so in the meantime. The method is called in the background thread,
+	 * and does nothing by default.
+	 *
+	 * @param source
+	 *            the object which changes the graph
+	 * @param mutating
+	 *            whether the client has started or finished changing the graph
+	 */
+	public default void documentGraphMutating(Object source, boolean mutating) {
+		// Nothing to do by default
+	}
+
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.events;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * A listener for documents imported into a project via Pepper, registered
+ * with {@link DocumentImportNotifier#addListener(DocumentImportListener)}.
+ *
+ */
+public interface DocumentImportListener {
+
+	/**
+	 * Notifies the listener that a document has been converted by the
+	 * importer, before it is written to the project. The method is called
+	 * in one of Pepper's worker threads, possibly for several documents of
+	 * the same import concurrently, and the conversion of the document
+	 * waits for it to return. Listeners must not change the graph.
+	 *
+	 * @param project
+	 *            the project the document is imported into
+	 * @param documentGraph
+	 *            the graph of the imported document
+	 */
+	public void documentImported(IProject project, SDocumentGraph documentGraph);
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Hands the documents of Pepper imports to the registered
+ * {@link DocumentImportListener}s while they are still in memory, so that
+ * clients, e.g., the search index, can process them as they are converted,
+ * instead of reading the imported files again afterwards.
+ * <p>
+ * Imports only notify listeners which have been registered before the
+ * import has been started.
+ * </p>
+ *
+ */
+public final class DocumentImportNotifier {
+
+	private static final Logger log = LogManager.getLogger(DocumentImportNotifier.class);
+
+	private static final DocumentImportNotifier INSTANCE = new DocumentImportNotifier();
+
+	private final List<DocumentImportListener> listeners = new CopyOnWriteArrayList<>();
+
+	private DocumentImportNotifier() {
+		// Singleton
+	}
+
+	/**
+	 * @return the notifier instance
+	 */
+	public static DocumentImportNotifier getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers a listener for imported documents. Registering the same
+	 * listener twice has no effect.
+	 *
+	 * @param listener
+	 *            the listener
+	 */
+	public void addListener(DocumentImportListener listener) {
+		if (!listeners.contains(listener)) {
+			listeners.add(listener);
+		}
+	}
+
+	/**
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeListener(DocumentImportListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return whether any listeners are registered
+	 */
+	public boolean hasListeners() {
+		return !listeners.isEmpty();
+	}
+
+	/**
+	 * Notifies all listeners of an imported document in the calling thread.
+	 * A failing listener is logged and does not fail the import.
+	 *
+	 * @param project
+	 *            the project the document is imported into
+	 * @param documentGraph
+	 *            the graph of the imported document
+	 */
+	public void fireDocumentImported(IProject project, SDocumentGraph documentGraph) {
+		for (DocumentImportListener listener : listeners) {
+			try {
+				listener.documentImported(project, documentGraph);
+			}
+			catch (RuntimeException e) {
+				log.warn("Listener {} failed to process imported document {}.", listener, documentGraph.getId(), e);
+			}
+		}
+	}
+
+}
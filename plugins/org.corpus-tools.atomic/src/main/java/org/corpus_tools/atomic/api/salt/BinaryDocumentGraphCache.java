@@ -0,0 +1,839 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.salt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.SOrderRelation;
+import org.corpus_tools.salt.common.SPointingRelation;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SFeature;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SMetaAnnotation;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SProcessingAnnotation;
+import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.graph.Identifier;
+import org.corpus_tools.salt.graph.Label;
+import org.corpus_tools.salt.graph.LabelableElement;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A compact binary snapshot of an {@link SDocumentGraph}, which is stored
+ * next to the SaltXML file of the graph and can be loaded much faster than
+ * the XML.
+ * <p>
+ * The snapshot of <code>document.salt</code> is stored in
+ * <code>document.saltbin</code>. It is only used while it is fresh, i.e.,
+ * while the length and timestamp of the SaltXML file are the ones recorded
+ * in the snapshot header, and while the checksum of its contents is valid.
+ * Clients should always fall back to the SaltXML file when
+ * {@link #load(URI)} returns <code>null</code>. SaltXML remains the
+ * authoritative format: snapshots are never written for graphs containing
+ * elements or label values the format does not support.
+ * </p>
+ * <p>
+ * The format consists of a header (magic number, version, length and
+ * timestamp of the SaltXML file, payload length and CRC32 checksum),
+ * followed by the payload: a table of all strings in the graph, and the
+ * graph, its layers, nodes and relations, which reference strings and
+ * nodes by their index as unsigned variable-length integers. Snapshots
+ * are read in one piece into a heap buffer.
+ * </p>
+ * <p>
+ * The cache is enabled by default, and can be disabled by setting the
+ * system property {@value #ENABLED_PROPERTY} to <code>false</code>.
+ * </p>
+ *
+ */
+public final class BinaryDocumentGraphCache {
+
+	private static final Logger log = LogManager.getLogger(BinaryDocumentGraphCache.class);
+
+	/**
+	 * The file extension of binary snapshots.
+	 */
+	public static final String FILE_EXTENSION = "saltbin";
+
+	/**
+	 * The system property which enables or disables the cache.
+	 */
+	public static final String ENABLED_PROPERTY = "org.corpus_tools.atomic.binaryDocumentCache";
+
+	private static final int MAGIC = 0x41544247; // "ATBG"
+	private static final int VERSION = 1;
+	// Magic, version, source length, source timestamp, payload length, checksum
+	private static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + 4 + 4;
+
+	static final byte NODE_TEXTUAL_DS = 0;
+	static final byte NODE_TOKEN = 1;
+	static final byte NODE_SPAN = 2;
+	static final byte NODE_STRUCTURE = 3;
+
+	static final byte RELATION_TEXTUAL = 0;
+	static final byte RELATION_SPANNING = 1;
+	static final byte RELATION_DOMINANCE = 2;
+	static final byte RELATION_POINTING = 3;
+	static final byte RELATION_ORDER = 4;
+
+	static final byte LABEL_ANNOTATION = 0;
+	static final byte LABEL_META_ANNOTATION = 1;
+	static final byte LABEL_PROCESSING_ANNOTATION = 2;
+	static final byte LABEL_FEATURE = 3;
+
+	static final byte VALUE_NULL = 0;
+	static final byte VALUE_STRING = 1;
+	static final byte VALUE_INTEGER = 2;
+	static final byte VALUE_LONG = 3;
+	static final byte VALUE_DOUBLE = 4;
+	static final byte VALUE_FLOAT = 5;
+	static final byte VALUE_TRUE = 6;
+	static final byte VALUE_FALSE = 7;
+	static final byte VALUE_URI = 8;
+
+	private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+
+	private BinaryDocumentGraphCache() {
+		// Static utility
+	}
+
+	/**
+	 * @return whether snapshots are loaded and stored
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *            whether snapshots should be loaded and stored
+	 */
+	public static void setEnabled(boolean enabled) {
+		BinaryDocumentGraphCache.enabled = enabled;
+	}
+
+	/**
+	 * @param saltFile
+	 *            a SaltXML document file
+	 * @return the file containing the snapshot of the document graph
+	 */
+	public static File getCacheFile(File saltFile) {
+		String name = saltFile.getName();
+		int dot = name.lastIndexOf('.');
+		return new File(saltFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + "." + FILE_EXTENSION);
+	}
+
+	/**
+	 * Loads the document graph from the snapshot stored next to its SaltXML
+	 * file, if the cache is enabled and the snapshot is fresh and valid.
+	 *
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return the graph, which is not contained in an
+	 *         {@link org.corpus_tools.salt.common.SDocument} yet, or
+	 *         <code>null</code> if it must be loaded from SaltXML
+	 */
+	public static SDocumentGraph load(URI documentGraphLocation) {
+		if (!enabled || !documentGraphLocation.isFile()) {
+			return null;
+		}
+		File saltFile = new File(documentGraphLocation.toFileString());
+		File cacheFile = getCacheFile(saltFile);
+		if (!saltFile.isFile() || !cacheFile.isFile()) {
+			return null;
+		}
+		long start = System.currentTimeMillis();
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			// Read into a heap buffer rather than mapping the file, as a mapping
+			// is only released on garbage collection, and keeps the file from
+			// being replaced by store() on Windows until then
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					return null;
+				}
+			}
+			buffer.flip();
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				log.debug("Snapshot {} has an unknown format, ignoring it.", cacheFile);
+				return null;
+			}
+			if (buffer.getLong() != saltFile.length() || buffer.getLong() != saltFile.lastModified()) {
+				log.trace("Snapshot {} is stale, ignoring it.", cacheFile);
+				return null;
+			}
+			int payloadLength = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (payloadLength != buffer.remaining()) {
+				log.debug("Snapshot {} is truncated, ignoring it.", cacheFile);
+				return null;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buffer.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				log.debug("Snapshot {} is corrupt, ignoring it.", cacheFile);
+				return null;
+			}
+			SDocumentGraph graph = new Decoder(buffer).readGraph();
+			log.trace("Loaded document graph from snapshot {} in {} ms.", cacheFile, System.currentTimeMillis() - start);
+			return graph;
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Failed to load snapshot {}, falling back to SaltXML.", cacheFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a snapshot of a document graph next to its SaltXML file. This
+	 * must be called right after the graph has been saved to or loaded from
+	 * the SaltXML file, as the snapshot is valid for the current state of
+	 * that file.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return whether the snapshot has been stored
+	 */
+	public static boolean store(SDocumentGraph graph, URI documentGraphLocation) {
+		if (!enabled || graph == null || !documentGraphLocation.isFile()) {
+			return false;
+		}
+		File saltFile = new File(documentGraphLocation.toFileString());
+		// Record the source state first, so that concurrent changes make the snapshot stale
+		long sourceLength = saltFile.length();
+		long sourceTimestamp = saltFile.lastModified();
+		if (!saltFile.isFile()) {
+			return false;
+		}
+		byte[] snapshot;
+		try {
+			snapshot = createSnapshot(graph);
+		}
+		catch (UnsupportedOperationException e) {
+			log.debug("Not storing a snapshot of document graph {}: {}", graph.getId(), e.getMessage());
+			deleteQuietly(getCacheFile(saltFile));
+			return false;
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to create a snapshot of document graph {}.", graph.getId(), e);
+			deleteQuietly(getCacheFile(saltFile));
+			return false;
+		}
+		return write(snapshot, saltFile, sourceLength, sourceTimestamp);
+	}
+
+	/**
+	 * Stores a snapshot created with {@link #createSnapshot(SDocumentGraph)}
+	 * next to the SaltXML file of the graph, which must have been saved
+	 * from the same state of the graph right before.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the document graph
+	 * @return whether the snapshot has been stored
+	 */
+	public static boolean store(byte[] snapshot, URI documentGraphLocation) {
+		if (!enabled || !documentGraphLocation.isFile()) {
+			return false;
+		}
+		File saltFile = new File(documentGraphLocation.toFileString());
+		if (!saltFile.isFile()) {
+			return false;
+		}
+		return write(snapshot, saltFile, saltFile.length(), saltFile.lastModified());
+	}
+
+	/**
+	 * Creates an in-memory snapshot of a graph, e.g., to save a copy of
+	 * the graph in the background while the original is being edited.
+	 * This is considerably faster than copying or serializing the graph
+	 * otherwise.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the snapshot
+	 * @throws UnsupportedOperationException
+	 *             if the graph contains elements or label values which the
+	 *             format does not support
+	 */
+	public static byte[] createSnapshot(SDocumentGraph graph) {
+		return new Encoder().encode(graph);
+	}
+
+	/**
+	 * Creates a new graph from a snapshot created with
+	 * {@link #createSnapshot(SDocumentGraph)}.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @return a new graph, which is not contained in an
+	 *         {@link org.corpus_tools.salt.common.SDocument} yet
+	 * @throws IOException
+	 *             if the snapshot is malformed
+	 */
+	public static SDocumentGraph readSnapshot(byte[] snapshot) throws IOException {
+		return new Decoder(ByteBuffer.wrap(snapshot)).readGraph();
+	}
+
+	private static boolean write(byte[] payload, File saltFile, long sourceLength, long sourceTimestamp) {
+		File cacheFile = getCacheFile(saltFile);
+		long start = System.currentTimeMillis();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putLong(sourceTimestamp).putInt(payload.length).putInt((int) crc.getValue());
+		File tempFile = new File(cacheFile.getParentFile(), "." + cacheFile.getName() + ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+				out.write(header.array());
+				out.write(payload);
+			}
+			try {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			log.trace("Stored snapshot {} ({} bytes) in {} ms.", cacheFile, HEADER_LENGTH + payload.length, System.currentTimeMillis() - start);
+			return true;
+		}
+		catch (IOException e) {
+			log.warn("Failed to store snapshot {}.", cacheFile, e);
+			deleteQuietly(tempFile);
+			return false;
+		}
+	}
+
+	private static void deleteQuietly(File file) {
+		try {
+			Files.deleteIfExists(file.toPath());
+		}
+		catch (IOException e) {
+			log.debug("Failed to delete {}.", file, e);
+		}
+	}
+
+	static byte nodeKind(SNode node) {
+		if (node instanceof STextualDS) {
+			return NODE_TEXTUAL_DS;
+		}
+		else if (node instanceof SToken) {
+			return NODE_TOKEN;
+		}
+		else if (node instanceof SSpan) {
+			return NODE_SPAN;
+		}
+		else if (node instanceof SStructure) {
+			return NODE_STRUCTURE;
+		}
+		throw new UnsupportedOperationException("node of type " + node.getClass().getName());
+	}
+
+	static byte relationKind(SRelation<?, ?> relation) {
+		if (relation instanceof STextualRelation) {
+			return RELATION_TEXTUAL;
+		}
+		else if (relation instanceof SSpanningRelation) {
+			return RELATION_SPANNING;
+		}
+		else if (relation instanceof SDominanceRelation) {
+			return RELATION_DOMINANCE;
+		}
+		else if (relation instanceof SPointingRelation) {
+			return RELATION_POINTING;
+		}
+		else if (relation instanceof SOrderRelation) {
+			return RELATION_ORDER;
+		}
+		throw new UnsupportedOperationException("relation of type " + relation.getClass().getName());
+	}
+
+	static byte labelKind(Label label) {
+		if (label instanceof SAnnotation) {
+			return LABEL_ANNOTATION;
+		}
+		else if (label instanceof SMetaAnnotation) {
+			return LABEL_META_ANNOTATION;
+		}
+		else if (label instanceof SProcessingAnnotation) {
+			return LABEL_PROCESSING_ANNOTATION;
+		}
+		else if (label instanceof SFeature) {
+			return LABEL_FEATURE;
+		}
+		throw new UnsupportedOperationException("label of type " + label.getClass().getName());
+	}
+
+	static SNode createNode(byte kind) throws IOException {
+		switch (kind) {
+		case NODE_TEXTUAL_DS:
+			return SaltFactory.createSTextualDS();
+		case NODE_TOKEN:
+			return SaltFactory.createSToken();
+		case NODE_SPAN:
+			return SaltFactory.createSSpan();
+		case NODE_STRUCTURE:
+			return SaltFactory.createSStructure();
+		default:
+			throw new IOException("Unknown node type " + kind + ".");
+		}
+	}
+
+	static SRelation<?, ?> createRelation(byte kind) throws IOException {
+		switch (kind) {
+		case RELATION_TEXTUAL:
+			return SaltFactory.createSTextualRelation();
+		case RELATION_SPANNING:
+			return SaltFactory.createSSpanningRelation();
+		case RELATION_DOMINANCE:
+			return SaltFactory.createSDominanceRelation();
+		case RELATION_POINTING:
+			return SaltFactory.createSPointingRelation();
+		case RELATION_ORDER:
+			return SaltFactory.createSOrderRelation();
+		default:
+			throw new IOException("Unknown relation type " + kind + ".");
+		}
+	}
+
+	static Label createLabel(byte kind) throws IOException {
+		switch (kind) {
+		case LABEL_ANNOTATION:
+			return SaltFactory.createSAnnotation();
+		case LABEL_META_ANNOTATION:
+			return SaltFactory.createSMetaAnnotation();
+		case LABEL_PROCESSING_ANNOTATION:
+			return SaltFactory.createSProcessingAnnotation();
+		case LABEL_FEATURE:
+			return SaltFactory.createSFeature();
+		default:
+			throw new IOException("Unknown label type " + kind + ".");
+		}
+	}
+
+	/**
+	 * Writes a graph into a payload, collecting its strings into the string
+	 * table on the way.
+	 */
+	private static final class Encoder {
+
+		private final Map<String, Integer> strings = new HashMap<>();
+		private final List<String> stringTable = new ArrayList<>();
+		private final Map<SNode, Integer> nodeIndices = new IdentityHashMap<>();
+		private final Map<SLayer, Integer> layerIndices = new IdentityHashMap<>();
+		private Bytes body = new Bytes(4096);
+
+		private byte[] encode(SDocumentGraph graph) {
+			writeString(graph.getId());
+			writeLabels(graph, true);
+
+			List<SLayer> layers = new ArrayList<>(graph.getLayers());
+			body.writeVarint(layers.size());
+			for (SLayer layer : layers) {
+				layerIndices.put(layer, layerIndices.size());
+				writeString(layer.getId());
+				writeLabels(layer, false);
+			}
+
+			List<SNode> nodes = graph.getNodes();
+			body.writeVarint(nodes.size());
+			for (SNode node : nodes) {
+				nodeIndices.put(node, nodeIndices.size());
+				body.write(nodeKind(node));
+				writeString(node.getId());
+				writeLabels(node, false);
+				writeLayers(node.getLayers());
+			}
+
+			List<SRelation<SNode, SNode>> relations = graph.getRelations();
+			body.writeVarint(relations.size());
+			for (SRelation<SNode, SNode> relation : relations) {
+				body.write(relationKind(relation));
+				writeString(relation.getId());
+				body.writeVarint(nodeIndex(relation.getSource()));
+				body.writeVarint(nodeIndex(relation.getTarget()));
+				writeLabels(relation, false);
+				writeLayers(relation.getLayers());
+			}
+
+			Bytes payload = new Bytes(body.length() + stringTable.size() * 16);
+			payload.writeVarint(stringTable.size());
+			for (String string : stringTable) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				payload.writeVarint(bytes.length);
+				payload.write(bytes, bytes.length);
+			}
+			payload.write(body.bytes, body.length());
+			body = null;
+			return payload.toByteArray();
+		}
+
+		private int nodeIndex(SNode node) {
+			Integer index = nodeIndices.get(node);
+			if (index == null) {
+				throw new UnsupportedOperationException("relation to a node outside the graph");
+			}
+			return index;
+		}
+
+		private void writeLayers(Collection<SLayer> layers) {
+			body.writeVarint(layers.size());
+			for (SLayer layer : layers) {
+				Integer index = layerIndices.get(layer);
+				if (index == null) {
+					throw new UnsupportedOperationException("element in a layer outside the graph");
+				}
+				body.writeVarint(index);
+			}
+		}
+
+		private void writeLabels(LabelableElement element, boolean isGraph) {
+			List<Label> labels = new ArrayList<>();
+			Collection<Label> allLabels = element.getLabels();
+			for (Label label : allLabels == null ? Collections.<Label> emptyList() : allLabels) {
+				// Identifiers are written separately, the graph is re-attached to its document by clients
+				if (!(label instanceof Identifier) && !(isGraph && SaltUtil.FEAT_SDOCUMENT_QNAME.equals(label.getQName()))) {
+					labels.add(label);
+				}
+			}
+			body.writeVarint(labels.size());
+			for (Label label : labels) {
+				body.write(labelKind(label));
+				writeString(label.getNamespace());
+				writeString(label.getName());
+				writeValue(label.getValue());
+				writeLabels(label, false);
+			}
+		}
+
+		private void writeValue(Object value) {
+			if (value == null) {
+				body.write(VALUE_NULL);
+			}
+			else if (value instanceof String) {
+				body.write(VALUE_STRING);
+				writeString((String) value);
+			}
+			else if (value instanceof Integer) {
+				body.write(VALUE_INTEGER);
+				body.writeSignedVarint((Integer) value);
+			}
+			else if (value instanceof Long) {
+				body.write(VALUE_LONG);
+				body.writeSignedVarint((Long) value);
+			}
+			else if (value instanceof Double) {
+				body.write(VALUE_DOUBLE);
+				body.writeLong(Double.doubleToLongBits((Double) value));
+			}
+			else if (value instanceof Float) {
+				body.write(VALUE_FLOAT);
+				body.writeInt(Float.floatToIntBits((Float) value));
+			}
+			else if (value instanceof Boolean) {
+				body.write((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+			}
+			else if (value instanceof URI) {
+				body.write(VALUE_URI);
+				writeString(value.toString());
+			}
+			else {
+				throw new UnsupportedOperationException("label value of type " + value.getClass().getName());
+			}
+		}
+
+		/*
+		 * Strings are referenced by their index in the table plus one, so
+		 * that 0 can denote null.
+		 */
+		private void writeString(String string) {
+			if (string == null) {
+				body.writeVarint(0);
+				return;
+			}
+			Integer index = strings.get(string);
+			if (index == null) {
+				index = stringTable.size();
+				strings.put(string, index);
+				stringTable.add(string);
+			}
+			body.writeVarint(index + 1);
+		}
+
+	}
+
+	/**
+	 * Reads a graph from a payload buffer.
+	 */
+	private static final class Decoder {
+
+		private final ByteBuffer buffer;
+		private String[] strings;
+		private SLayer[] layers;
+		private SNode[] nodes;
+
+		private Decoder(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private SDocumentGraph readGraph() throws IOException {
+			try {
+				strings = new String[readCount()];
+				for (int i = 0; i < strings.length; i++) {
+					byte[] bytes = new byte[readCount()];
+					buffer.get(bytes);
+					strings[i] = new String(bytes, StandardCharsets.UTF_8);
+				}
+
+				SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+				graph.setId(readString());
+				readLabels(graph);
+
+				layers = new SLayer[readCount()];
+				for (int i = 0; i < layers.length; i++) {
+					SLayer layer = SaltFactory.createSLayer();
+					layer.setId(readString());
+					readLabels(layer);
+					graph.addLayer(layer);
+					layers[i] = layer;
+				}
+
+				nodes = new SNode[readCount()];
+				for (int i = 0; i < nodes.length; i++) {
+					SNode node = createNode(buffer.get());
+					node.setId(readString());
+					readLabels(node);
+					graph.addNode(node);
+					for (int l = readCount(); l > 0; l--) {
+						layer(readCount()).addNode(node);
+					}
+					nodes[i] = node;
+				}
+
+				for (int i = readCount(); i > 0; i--) {
+					SRelation<?, ?> relation = createRelation(buffer.get());
+					relation.setId(readString());
+					setEnds(relation, node(readCount()), node(readCount()));
+					readLabels(relation);
+					graph.addRelation(relation);
+					for (int l = readCount(); l > 0; l--) {
+						layer(readCount()).addRelation(relation);
+					}
+				}
+				if (buffer.hasRemaining()) {
+					throw new IOException("Trailing data after the graph.");
+				}
+				return graph;
+			}
+			catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+				throw new IOException("Malformed snapshot.", e);
+			}
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private static void setEnds(SRelation relation, SNode source, SNode target) {
+			relation.setSource(source);
+			relation.setTarget(target);
+		}
+
+		private void readLabels(LabelableElement element) throws IOException {
+			for (int i = readCount(); i > 0; i--) {
+				Label label = createLabel(buffer.get());
+				label.setNamespace(readString());
+				label.setName(readString());
+				label.setValue(readValue());
+				readLabels(label);
+				element.addLabel(label);
+			}
+		}
+
+		private Object readValue() throws IOException {
+			byte tag = buffer.get();
+			switch (tag) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+				return readString();
+			case VALUE_INTEGER:
+				return (int) readSignedVarint();
+			case VALUE_LONG:
+				return readSignedVarint();
+			case VALUE_DOUBLE:
+				return Double.longBitsToDouble(buffer.getLong());
+			case VALUE_FLOAT:
+				return Float.intBitsToFloat(buffer.getInt());
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case VALUE_URI:
+				return URI.createURI(readString());
+			default:
+				throw new IOException("Unknown value type " + tag + ".");
+			}
+		}
+
+		private SLayer layer(int index) {
+			return layers[index];
+		}
+
+		private SNode node(int index) {
+			return nodes[index];
+		}
+
+		private String readString() {
+			int index = readCount();
+			return index == 0 ? null : strings[index - 1];
+		}
+
+		private int readCount() {
+			long value = readVarint();
+			if (value > Integer.MAX_VALUE) {
+				throw new ArrayIndexOutOfBoundsException("Count out of range: " + value);
+			}
+			return (int) value;
+		}
+
+		private long readVarint() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				if (shift > 63) {
+					throw new ArrayIndexOutOfBoundsException("Malformed varint.");
+				}
+				b = buffer.get();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return value;
+		}
+
+		private long readSignedVarint() {
+			long value = readVarint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+	}
+
+	/**
+	 * A growable byte array with variable-length integer encoding.
+	 */
+	private static final class Bytes {
+
+		private byte[] bytes;
+		private int length = 0;
+
+		private Bytes(int capacity) {
+			bytes = new byte[Math.max(capacity, 16)];
+		}
+
+		private void ensureCapacity(int additional) {
+			if (length + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+			}
+		}
+
+		private void write(byte b) {
+			ensureCapacity(1);
+			bytes[length++] = b;
+		}
+
+		private void write(byte[] source, int count) {
+			ensureCapacity(count);
+			System.arraycopy(source, 0, bytes, length, count);
+			length += count;
+		}
+
+		private void writeVarint(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		private void writeSignedVarint(long value) {
+			writeVarint((value << 1) ^ (value >> 63));
+		}
+
+		private void writeInt(int value) {
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		private void writeLong(long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		private int length() {
+			return length;
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(bytes, length);
+		}
+
+	}
+
+}
@@ -0,0 +1,1249 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.api.salt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+import org.corpus_tools.salt.graph.Identifier;
+import org.corpus_tools.salt.graph.IdentifiableElement;
+import org.corpus_tools.salt.graph.Label;
+import org.corpus_tools.salt.graph.LabelableElement;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * An append-only journal of the edits made to an open document graph,
+ * which provides undo and redo, and crash recovery for unsaved edits.
+ * <p>
+ * The journal records each batch of {@link DocumentGraphChangeEvent}s as
+ * one transaction of operations which carry all data needed to apply and
+ * revert them: nodes and relations which are added or removed with their
+ * labels, annotation values before and after a change, and text changes
+ * with the resulting changes to token offsets. Transactions are appended
+ * to <code>document.saltlog</code> next to the SaltXML file of the graph,
+ * and flushed to the operating system after each transaction.
+ * </p>
+ * <p>
+ * The journal is based on a specific state of the SaltXML file. When the
+ * graph is opened again after a crash, and the journal is still based on
+ * the current state of the file, its transactions are replayed onto the
+ * graph via {@link #recover()}. When the graph has been saved, the
+ * transactions contained in the saved state are dropped from the journal
+ * via {@link #compact(long, long, long)}, so that saving is merely a
+ * periodic compaction of the journal.
+ * </p>
+ *
+ */
+public final class DocumentGraphJournal {
+
+	private static final Logger log = LogManager.getLogger(DocumentGraphJournal.class);
+
+	/**
+	 * The file extension of journal files.
+	 */
+	public static final String FILE_EXTENSION = "saltlog";
+
+	private static final int MAGIC = 0x41544a4c; // "ATJL"
+	private static final int VERSION = 1;
+	// Magic, version, base length, base timestamp
+	private static final int HEADER_LENGTH = 4 + 4 + 8 + 8;
+
+	/**
+	 * The maximum number of transactions which can be undone.
+	 */
+	private static final int MAX_UNDO = 1000;
+
+	private static final byte OP_NODE_ADDED = 0;
+	private static final byte OP_NODE_REMOVED = 1;
+	private static final byte OP_RELATION_ADDED = 2;
+	private static final byte OP_RELATION_REMOVED = 3;
+	private static final byte OP_ANNOTATION = 4;
+
+	private final SDocumentGraph graph;
+	private final File file;
+	private OutputStream out;
+
+	/*
+	 * Logical position of the journal, i.e., the number of transaction
+	 * bytes ever written, and the number of those which have been dropped
+	 * from the file by compaction.
+	 */
+	private long position = 0;
+	private long compacted = 0;
+
+	private final List<Transaction> pending;
+	private final Deque<Transaction> undoStack = new ArrayDeque<>();
+	private final Deque<Transaction> redoStack = new ArrayDeque<>();
+
+	/*
+	 * The texts and token offsets as of the last recorded transaction,
+	 * against which text changes are determined.
+	 */
+	private Map<String, TextState> textStates;
+
+	private DocumentGraphJournal(SDocumentGraph graph, File file, List<Transaction> pending, long position) throws IOException {
+		this.graph = graph;
+		this.file = file;
+		this.pending = pending;
+		this.position = position;
+		this.out = new BufferedOutputStream(new FileOutputStream(file, true));
+		this.textStates = captureTextStates();
+	}
+
+	/**
+	 * @param saltFile
+	 *            a SaltXML document file
+	 * @return the journal file for the document
+	 */
+	public static File getJournalFile(File saltFile) {
+		String name = saltFile.getName();
+		int dot = name.lastIndexOf('.');
+		return new File(saltFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + "." + FILE_EXTENSION);
+	}
+
+	/**
+	 * Opens the journal for a graph which has just been loaded from its
+	 * SaltXML file. If a journal exists which is based on the current
+	 * state of the file, its transactions can be replayed with
+	 * {@link #recover()}. Otherwise, a new journal is started.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param documentGraphLocation
+	 *            the file URI of the SaltXML file containing the graph
+	 * @return the journal
+	 * @throws IOException
+	 *             if the journal file cannot be read or written
+	 */
+	public static DocumentGraphJournal open(SDocumentGraph graph, URI documentGraphLocation) throws IOException {
+		File saltFile = new File(documentGraphLocation.toFileString());
+		File file = getJournalFile(saltFile);
+		long baseLength = saltFile.length();
+		long baseTimestamp = saltFile.lastModified();
+		List<Transaction> pending = new ArrayList<>();
+		long position = 0;
+		if (file.isFile()) {
+			position = read(file, baseLength, baseTimestamp, pending);
+		}
+		if (position < 0) {
+			log.debug("Discarding stale journal {}.", file);
+		}
+		if (position <= 0) {
+			writeHeader(file, baseLength, baseTimestamp);
+			position = 0;
+		}
+		else {
+			log.info("Journal {} contains {} unsaved transactions.", file, pending.size());
+		}
+		return new DocumentGraphJournal(graph, file, pending, position);
+	}
+
+	/**
+	 * Replays the transactions which have been found in the journal when
+	 * it has been opened onto the graph. They can be undone afterwards.
+	 *
+	 * @return the changes which have been made to the graph
+	 */
+	public synchronized List<DocumentGraphChangeEvent> recover() {
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
+		for (Transaction transaction : pending) {
+			transaction.apply(graph, changes);
+			pushUndo(transaction);
+		}
+		pending.clear();
+		textStates = captureTextStates();
+		return changes;
+	}
+
+	/**
+	 * @return whether the journal contains transactions which are not
+	 *         contained in the SaltXML file
+	 */
+	public synchronized boolean hasUnsavedTransactions() {
+		return position > compacted || !pending.isEmpty();
+	}
+
+	/**
+	 * Records a batch of changes which has been made to the graph as one
+	 * transaction.
+	 *
+	 * @param changes
+	 *            the changes in the order in which they have been made
+	 */
+	public synchronized void record(List<DocumentGraphChangeEvent> changes) {
+		Transaction transaction = new Transaction();
+		boolean affectsText = false;
+		for (DocumentGraphChangeEvent change : changes) {
+			Op op = createOp(change, textStates);
+			if (op != null) {
+				transaction.ops.add(op);
+			}
+			affectsText |= change.affectsTokens() || change.getElement() instanceof STextualRelation;
+		}
+		if (affectsText) {
+			Map<String, TextState> current = captureTextStates();
+			for (Map.Entry<String, TextState> entry : current.entrySet()) {
+				TextState previous = textStates.get(entry.getKey());
+				if (previous != null) {
+					TextOp textOp = TextOp.diff(entry.getKey(), previous, entry.getValue());
+					if (textOp != null) {
+						transaction.textOps.add(textOp);
+					}
+				}
+			}
+			textStates = current;
+		}
+		if (transaction.isEmpty()) {
+			return;
+		}
+		append(transaction);
+		pushUndo(transaction);
+		redoStack.clear();
+	}
+
+	/**
+	 * @return whether there is a transaction to undo
+	 */
+	public synchronized boolean canUndo() {
+		return !undoStack.isEmpty();
+	}
+
+	/**
+	 * @return whether there is a transaction to redo
+	 */
+	public synchronized boolean canRedo() {
+		return !redoStack.isEmpty();
+	}
+
+	/**
+	 * Reverts the last transaction. The reverting changes are recorded
+	 * in the journal as a new transaction.
+	 *
+	 * @return the changes which have been made to the graph, which are
+	 *         empty if there is nothing to undo
+	 */
+	public synchronized List<DocumentGraphChangeEvent> undo() {
+		if (undoStack.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Transaction transaction = undoStack.pop();
+		redoStack.push(transaction);
+		return applyAndAppend(transaction.inverse());
+	}
+
+	/**
+	 * Re-applies the last undone transaction.
+	 *
+	 * @return the changes which have been made to the graph, which are
+	 *         empty if there is nothing to redo
+	 */
+	public synchronized List<DocumentGraphChangeEvent> redo() {
+		if (redoStack.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Transaction transaction = redoStack.pop();
+		undoStack.push(transaction);
+		return applyAndAppend(transaction);
+	}
+
+	/**
+	 * @return the logical position of the journal, which is passed to
+	 *         {@link #compact(long, long, long)} when the current state of
+	 *         the graph has been saved
+	 */
+	public synchronized long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Drops the transactions up to the given position, which have been
+	 * saved to the SaltXML file, from the journal, and bases the journal
+	 * on the given state of the file.
+	 *
+	 * @param savedPosition
+	 *            the position of the journal when the saved state of the
+	 *            graph has been taken
+	 * @param baseLength
+	 *            the length of the SaltXML file after saving
+	 * @param baseTimestamp
+	 *            the timestamp of the SaltXML file after saving
+	 */
+	public synchronized void compact(long savedPosition, long baseLength, long baseTimestamp) {
+		if (out == null || savedPosition < compacted || savedPosition > position) {
+			return;
+		}
+		File temp = new File(file.getParentFile(), "." + file.getName() + ".tmp");
+		try {
+			out.flush();
+			byte[] tail;
+			try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+				in.seek(HEADER_LENGTH + (savedPosition - compacted));
+				tail = new byte[(int) (in.length() - in.getFilePointer())];
+				in.readFully(tail);
+			}
+			out.close();
+			writeHeader(temp, baseLength, baseTimestamp);
+			try (OutputStream tempOut = new FileOutputStream(temp, true)) {
+				tempOut.write(tail);
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			compacted = savedPosition;
+			log.trace("Compacted journal {} to {} bytes.", file, tail.length);
+		}
+		catch (IOException e) {
+			log.warn("Failed to compact journal {}.", file, e);
+		}
+		finally {
+			reopen();
+		}
+	}
+
+	/**
+	 * Closes and deletes the journal, e.g., when the graph is closed
+	 * without saving its changes.
+	 */
+	public synchronized void discard() {
+		try {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+			Files.deleteIfExists(file.toPath());
+		}
+		catch (IOException e) {
+			log.warn("Failed to delete journal {}.", file, e);
+		}
+	}
+
+	private List<DocumentGraphChangeEvent> applyAndAppend(Transaction transaction) {
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
+		transaction.apply(graph, changes);
+		append(transaction);
+		textStates = captureTextStates();
+		return changes;
+	}
+
+	private void pushUndo(Transaction transaction) {
+		undoStack.push(transaction);
+		if (undoStack.size() > MAX_UNDO) {
+			undoStack.removeLast();
+		}
+	}
+
+	private void append(Transaction transaction) {
+		if (out == null) {
+			return;
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			transaction.write(new DataOutputStream(bytes));
+			byte[] payload = bytes.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			DataOutputStream data = new DataOutputStream(out);
+			data.writeInt(payload.length);
+			data.writeInt((int) crc.getValue());
+			data.write(payload);
+			data.flush();
+			position += 8 + payload.length;
+		}
+		catch (IOException e) {
+			log.error("Failed to write to journal {}, unsaved changes will not be recoverable.", file, e);
+		}
+	}
+
+	private void reopen() {
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(file, true));
+		}
+		catch (IOException e) {
+			log.error("Failed to reopen journal {}.", file, e);
+			out = null;
+		}
+	}
+
+	private static void writeHeader(File file, long baseLength, long baseTimestamp) throws IOException {
+		try (DataOutputStream data = new DataOutputStream(new FileOutputStream(file))) {
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeLong(baseLength);
+			data.writeLong(baseTimestamp);
+		}
+	}
+
+	/*
+	 * Reads the transactions from a journal file, and truncates the file
+	 * after the last complete transaction. Returns the length of the
+	 * complete transactions, or -1 if the journal is not based on the
+	 * given state of the SaltXML file.
+	 */
+	private static long read(File file, long baseLength, long baseTimestamp, List<Transaction> transactions) throws IOException {
+		long valid = 0;
+		try (DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			try {
+				if (data.readInt() != MAGIC || data.readInt() != VERSION || data.readLong() != baseLength || data.readLong() != baseTimestamp) {
+					return -1;
+				}
+			}
+			catch (EOFException e) {
+				return -1;
+			}
+			while (true) {
+				byte[] payload;
+				int checksum;
+				try {
+					int length = data.readInt();
+					checksum = data.readInt();
+					if (length < 0 || length > file.length()) {
+						break;
+					}
+					payload = new byte[length];
+					data.readFully(payload);
+				}
+				catch (EOFException e) {
+					break;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+				try {
+					transactions.add(Transaction.read(new DataInputStream(new ByteArrayInputStream(payload))));
+				}
+				catch (IOException | RuntimeException e) {
+					log.warn("Malformed transaction in journal {}, ignoring the rest of the journal.", file, e);
+					break;
+				}
+				valid += 8 + payload.length;
+			}
+		}
+		if (HEADER_LENGTH + valid < file.length()) {
+			// Drop an incomplete transaction written during a crash
+			try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+				truncate.setLength(HEADER_LENGTH + valid);
+			}
+		}
+		return valid;
+	}
+
+	private Map<String, TextState> captureTextStates() {
+		Map<String, TextState> states = new HashMap<>();
+		for (STextualDS text : graph.getTextualDSs()) {
+			states.put(text.getId(), new TextState(text.getText()));
+		}
+		for (STextualRelation relation : graph.getTextualRelations()) {
+			TextState state = relation.getTarget() == null ? null : states.get(relation.getTarget().getId());
+			if (state != null) {
+				state.offsets.put(relation.getId(), new int[] { relation.getStart(), relation.getEnd() });
+			}
+		}
+		return states;
+	}
+
+	/*
+	 * Removed elements are recorded with the layers they belonged to, and
+	 * removed textual relations with their offsets before the text change
+	 * of the transaction, which is reverted before they are restored.
+	 */
+	private static Op createOp(DocumentGraphChangeEvent change, Map<String, TextState> previousTextStates) {
+		switch (change.getType()) {
+		case NODE_ADDED:
+			SNode node = (SNode) change.getElement();
+			return NodeOp.of(node, true, node.getLayers());
+		case NODE_REMOVED:
+			return NodeOp.of((SNode) change.getElement(), false, change.getLayers());
+		case RELATION_ADDED:
+			SRelation<?, ?> relation = (SRelation<?, ?>) change.getElement();
+			return RelationOp.of(relation, true, relation.getLayers(), null);
+		case RELATION_REMOVED:
+			relation = (SRelation<?, ?>) change.getElement();
+			int[] offsets = null;
+			if (relation instanceof STextualRelation && relation.getTarget() != null) {
+				TextState state = previousTextStates.get(relation.getTarget().getId());
+				offsets = state == null ? null : state.offsets.get(relation.getId());
+			}
+			return RelationOp.of(relation, false, change.getLayers(), offsets);
+		case ANNOTATION_ADDED:
+		case ANNOTATION_CHANGED:
+		case ANNOTATION_REMOVED:
+			return AnnotationOp.of(change);
+		default:
+			// Text changes are determined from the text states
+			return null;
+		}
+	}
+
+	/**
+	 * A batch of operations. Text operations are applied first, so that
+	 * token offsets are shifted before tokens are added or restored with
+	 * their final offsets.
+	 */
+	private static final class Transaction {
+
+		private final List<TextOp> textOps = new ArrayList<>();
+		private final List<Op> ops = new ArrayList<>();
+
+		private boolean isEmpty() {
+			return textOps.isEmpty() && ops.isEmpty();
+		}
+
+		private Transaction inverse() {
+			Transaction inverse = new Transaction();
+			for (TextOp textOp : textOps) {
+				inverse.textOps.add(textOp.inverse());
+			}
+			for (int i = ops.size() - 1; i >= 0; i--) {
+				inverse.ops.add(ops.get(i).inverse());
+			}
+			return inverse;
+		}
+
+		private void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes) {
+			for (TextOp textOp : textOps) {
+				textOp.apply(graph, changes);
+			}
+			for (Op op : ops) {
+				op.apply(graph, changes);
+			}
+		}
+
+		private void write(DataOutput out) throws IOException {
+			out.writeInt(textOps.size());
+			for (TextOp textOp : textOps) {
+				textOp.write(out);
+			}
+			out.writeInt(ops.size());
+			for (Op op : ops) {
+				out.writeByte(op.type());
+				op.write(out);
+			}
+		}
+
+		private static Transaction read(DataInput in) throws IOException {
+			Transaction transaction = new Transaction();
+			for (int i = in.readInt(); i > 0; i--) {
+				transaction.textOps.add(TextOp.read(in));
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				byte type = in.readByte();
+				switch (type) {
+				case OP_NODE_ADDED:
+				case OP_NODE_REMOVED:
+					transaction.ops.add(NodeOp.read(in, type == OP_NODE_ADDED));
+					break;
+				case OP_RELATION_ADDED:
+				case OP_RELATION_REMOVED:
+					transaction.ops.add(RelationOp.read(in, type == OP_RELATION_ADDED));
+					break;
+				case OP_ANNOTATION:
+					transaction.ops.add(AnnotationOp.read(in));
+					break;
+				default:
+					throw new IOException("Unknown operation type " + type + ".");
+				}
+			}
+			return transaction;
+		}
+
+	}
+
+	/**
+	 * An operation on the graph. Operations are applied leniently, i.e.,
+	 * an operation whose target does not exist (anymore) is skipped.
+	 */
+	private interface Op {
+
+		byte type();
+
+		Op inverse();
+
+		void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes);
+
+		void write(DataOutput out) throws IOException;
+
+	}
+
+	/**
+	 * Adds or removes a node, which is restored with its labels and
+	 * layers.
+	 */
+	private static final class NodeOp implements Op {
+
+		private final boolean add;
+		private final byte kind;
+		private final String id;
+		private final List<LabelData> labels;
+		private final List<String> layers;
+
+		private NodeOp(boolean add, byte kind, String id, List<LabelData> labels, List<String> layers) {
+			this.add = add;
+			this.kind = kind;
+			this.id = id;
+			this.labels = labels;
+			this.layers = layers;
+		}
+
+		private static NodeOp of(SNode node, boolean add, Set<SLayer> nodeLayers) {
+			try {
+				return new NodeOp(add, BinaryDocumentGraphCache.nodeKind(node), node.getId(), LabelData.of(node), layerIds(nodeLayers));
+			}
+			catch (UnsupportedOperationException e) {
+				log.debug("Cannot journal {}: {}", node.getId(), e.getMessage());
+				return null;
+			}
+		}
+
+		@Override
+		public byte type() {
+			return add ? OP_NODE_ADDED : OP_NODE_REMOVED;
+		}
+
+		@Override
+		public Op inverse() {
+			return new NodeOp(!add, kind, id, labels, layers);
+		}
+
+		@Override
+		public void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes) {
+			SNode existing = graph.getNode(id);
+			if (add && existing == null) {
+				SNode node;
+				try {
+					node = BinaryDocumentGraphCache.createNode(kind);
+				}
+				catch (IOException e) {
+					log.warn("Cannot restore node {}.", id, e);
+					return;
+				}
+				node.setId(id);
+				LabelData.addAll(node, labels);
+				graph.addNode(node);
+				for (String layerId : layers) {
+					SLayer layer = graph.getLayer(layerId);
+					if (layer != null) {
+						layer.addNode(node);
+					}
+				}
+				changes.add(DocumentGraphChangeEvent.nodeAdded(node));
+			}
+			else if (!add && existing != null) {
+				changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(existing));
+				graph.removeNode(existing);
+			}
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeByte(kind);
+			writeString(out, id);
+			LabelData.writeAll(out, labels);
+			writeStrings(out, layers);
+		}
+
+		private static NodeOp read(DataInput in, boolean add) throws IOException {
+			return new NodeOp(add, in.readByte(), readString(in), LabelData.readAll(in), readStrings(in));
+		}
+
+	}
+
+	/**
+	 * Adds or removes a relation, which is restored with its labels and
+	 * layers between its original source and target.
+	 */
+	private static final class RelationOp implements Op {
+
+		private final boolean add;
+		private final byte kind;
+		private final String id;
+		private final String sourceId;
+		private final String targetId;
+		private final List<LabelData> labels;
+		private final List<String> layers;
+
+		private RelationOp(boolean add, byte kind, String id, String sourceId, String targetId, List<LabelData> labels, List<String> layers) {
+			this.add = add;
+			this.kind = kind;
+			this.id = id;
+			this.sourceId = sourceId;
+			this.targetId = targetId;
+			this.labels = labels;
+			this.layers = layers;
+		}
+
+		private static RelationOp of(SRelation<?, ?> relation, boolean add, Set<SLayer> relationLayers, int[] offsets) {
+			if (relation.getSource() == null || relation.getTarget() == null) {
+				log.debug("Cannot journal {} without source or target.", relation.getId());
+				return null;
+			}
+			try {
+				List<LabelData> labels = LabelData.of(relation);
+				if (offsets != null) {
+					labels = LabelData.withOffsets(labels, offsets[0], offsets[1]);
+				}
+				return new RelationOp(add, BinaryDocumentGraphCache.relationKind(relation), relation.getId(), relation.getSource().getId(), relation.getTarget().getId(), labels, layerIds(relationLayers));
+			}
+			catch (UnsupportedOperationException e) {
+				log.debug("Cannot journal {}: {}", relation.getId(), e.getMessage());
+				return null;
+			}
+		}
+
+		@Override
+		public byte type() {
+			return add ? OP_RELATION_ADDED : OP_RELATION_REMOVED;
+		}
+
+		@Override
+		public Op inverse() {
+			return new RelationOp(!add, kind, id, sourceId, targetId, labels, layers);
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		@Override
+		public void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes) {
+			SRelation existing = graph.getRelation(id);
+			if (add && existing == null) {
+				SNode source = graph.getNode(sourceId);
+				SNode target = graph.getNode(targetId);
+				if (source == null || target == null) {
+					log.warn("Cannot restore relation {}, as its source or target does not exist.", id);
+					return;
+				}
+				SRelation relation;
+				try {
+					relation = BinaryDocumentGraphCache.createRelation(kind);
+				}
+				catch (IOException e) {
+					log.warn("Cannot restore relation {}.", id, e);
+					return;
+				}
+				relation.setId(id);
+				LabelData.addAll(relation, labels);
+				relation.setSource(source);
+				relation.setTarget(target);
+				graph.addRelation(relation);
+				for (String layerId : layers) {
+					SLayer layer = graph.getLayer(layerId);
+					if (layer != null) {
+						layer.addRelation(relation);
+					}
+				}
+				changes.add(DocumentGraphChangeEvent.relationAdded(relation));
+			}
+			else if (!add && existing != null) {
+				changes.add(DocumentGraphChangeEvent.relationRemoved(existing));
+				graph.removeRelation(existing);
+			}
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeByte(kind);
+			writeString(out, id);
+			writeString(out, sourceId);
+			writeString(out, targetId);
+			LabelData.writeAll(out, labels);
+			writeStrings(out, layers);
+		}
+
+		private static RelationOp read(DataInput in, boolean add) throws IOException {
+			return new RelationOp(add, in.readByte(), readString(in), readString(in), readString(in), LabelData.readAll(in), readStrings(in));
+		}
+
+	}
+
+	/**
+	 * Sets an annotation on a node or relation to a value, or removes it.
+	 */
+	private static final class AnnotationOp implements Op {
+
+		private final String elementId;
+		private final String namespace;
+		private final String name;
+		private final boolean hadValue;
+		private final Object oldValue;
+		private final boolean hasValue;
+		private final Object newValue;
+
+		private AnnotationOp(String elementId, String namespace, String name, boolean hadValue, Object oldValue, boolean hasValue, Object newValue) {
+			this.elementId = elementId;
+			this.namespace = namespace;
+			this.name = name;
+			this.hadValue = hadValue;
+			this.oldValue = oldValue;
+			this.hasValue = hasValue;
+			this.newValue = newValue;
+		}
+
+		private static AnnotationOp of(DocumentGraphChangeEvent change) {
+			String qName = change.getQName();
+			int separator = qName.indexOf(Label.NS_SEPERATOR);
+			String namespace = separator < 0 ? null : qName.substring(0, separator);
+			String name = separator < 0 ? qName : qName.substring(separator + Label.NS_SEPERATOR.length());
+			boolean hadValue = change.getType() != DocumentGraphChangeEvent.Type.ANNOTATION_ADDED;
+			boolean hasValue = change.getType() != DocumentGraphChangeEvent.Type.ANNOTATION_REMOVED;
+			return new AnnotationOp(change.getElement().getId(), namespace, name, hadValue, change.getOldValue(), hasValue, change.getNewValue());
+		}
+
+		@Override
+		public byte type() {
+			return OP_ANNOTATION;
+		}
+
+		@Override
+		public Op inverse() {
+			return new AnnotationOp(elementId, namespace, name, hasValue, newValue, hadValue, oldValue);
+		}
+
+		@Override
+		public void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes) {
+			IdentifiableElement element = graph.getNode(elementId);
+			if (element == null) {
+				element = graph.getRelation(elementId);
+			}
+			if (!(element instanceof SAnnotationContainer)) {
+				log.warn("Cannot apply change to annotation {} of {}, which does not exist.", name, elementId);
+				return;
+			}
+			SAnnotationContainer container = (SAnnotationContainer) element;
+			String qName = namespace == null ? name : namespace + Label.NS_SEPERATOR + name;
+			SAnnotation annotation = container.getAnnotation(qName);
+			if (hasValue && annotation == null) {
+				changes.add(DocumentGraphChangeEvent.annotationAdded(element, container.createAnnotation(namespace, name, newValue)));
+			}
+			else if (hasValue) {
+				Object previous = annotation.getValue();
+				annotation.setValue(newValue);
+				changes.add(DocumentGraphChangeEvent.annotationChanged(element, qName, previous, newValue));
+			}
+			else if (annotation != null) {
+				container.removeLabel(qName);
+				changes.add(DocumentGraphChangeEvent.annotationRemoved(element, qName, annotation.getValue()));
+			}
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			writeString(out, elementId);
+			writeString(out, namespace);
+			writeString(out, name);
+			out.writeBoolean(hadValue);
+			writeValue(out, oldValue);
+			out.writeBoolean(hasValue);
+			writeValue(out, newValue);
+		}
+
+		private static AnnotationOp read(DataInput in) throws IOException {
+			return new AnnotationOp(readString(in), readString(in), readString(in), in.readBoolean(), readValue(in), in.readBoolean(), readValue(in));
+		}
+
+	}
+
+	/**
+	 * Replaces a range of a text, shifting the offsets of the tokens after
+	 * it, and sets the offsets of the tokens which do not simply shift.
+	 */
+	private static final class TextOp {
+
+		private final String textId;
+		private final int offset;
+		private final String removed;
+		private final String inserted;
+		// Relation ID -> start and end before and after the change
+		private final Map<String, int[]> offsets;
+
+		private TextOp(String textId, int offset, String removed, String inserted, Map<String, int[]> offsets) {
+			this.textId = textId;
+			this.offset = offset;
+			this.removed = removed;
+			this.inserted = inserted;
+			this.offsets = offsets;
+		}
+
+		/*
+		 * Returns the operation changing one text state into the other,
+		 * or null if they are equal.
+		 */
+		private static TextOp diff(String textId, TextState before, TextState after) {
+			String oldText = before.text == null ? "" : before.text;
+			String newText = after.text == null ? "" : after.text;
+			int prefix = 0;
+			int max = Math.min(oldText.length(), newText.length());
+			while (prefix < max && oldText.charAt(prefix) == newText.charAt(prefix)) {
+				prefix++;
+			}
+			int suffix = 0;
+			while (suffix < max - prefix && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+				suffix++;
+			}
+			String removed = oldText.substring(prefix, oldText.length() - suffix);
+			String inserted = newText.substring(prefix, newText.length() - suffix);
+			Map<String, int[]> offsets = new HashMap<>();
+			for (Map.Entry<String, int[]> entry : after.offsets.entrySet()) {
+				int[] old = before.offsets.get(entry.getKey());
+				if (old == null) {
+					continue;
+				}
+				int[] now = entry.getValue();
+				if (shift(old[0], prefix, removed, inserted) != now[0] || shift(old[1], prefix, removed, inserted) != now[1] || shift(now[0], prefix, inserted, removed) != old[0] || shift(now[1], prefix, inserted, removed) != old[1]) {
+					offsets.put(entry.getKey(), new int[] { old[0], old[1], now[0], now[1] });
+				}
+			}
+			if (removed.isEmpty() && inserted.isEmpty() && offsets.isEmpty()) {
+				return null;
+			}
+			return new TextOp(textId, prefix, removed, inserted, offsets);
+		}
+
+		private static int shift(int position, int offset, String removed, String inserted) {
+			return position >= offset + removed.length() ? position + inserted.length() - removed.length() : position;
+		}
+
+		private TextOp inverse() {
+			Map<String, int[]> inverseOffsets = new HashMap<>();
+			for (Map.Entry<String, int[]> entry : offsets.entrySet()) {
+				int[] o = entry.getValue();
+				inverseOffsets.put(entry.getKey(), new int[] { o[2], o[3], o[0], o[1] });
+			}
+			return new TextOp(textId, offset, inserted, removed, inverseOffsets);
+		}
+
+		private void apply(SDocumentGraph graph, List<DocumentGraphChangeEvent> changes) {
+			SNode node = graph.getNode(textId);
+			if (!(node instanceof STextualDS)) {
+				log.warn("Cannot apply change to text {}, which does not exist.", textId);
+				return;
+			}
+			STextualDS text = (STextualDS) node;
+			String oldText = text.getText() == null ? "" : text.getText();
+			if (!removed.isEmpty() || !inserted.isEmpty()) {
+				text.setText(oldText.substring(0, offset) + inserted + oldText.substring(offset + removed.length()));
+			}
+			for (STextualRelation relation : graph.getTextualRelations()) {
+				if (relation.getTarget() != text) {
+					continue;
+				}
+				int[] o = offsets.get(relation.getId());
+				if (o != null) {
+					relation.setStart(o[2]);
+					relation.setEnd(o[3]);
+				}
+				else if (!removed.isEmpty() || !inserted.isEmpty()) {
+					relation.setStart(shift(relation.getStart(), offset, removed, inserted));
+					relation.setEnd(shift(relation.getEnd(), offset, removed, inserted));
+				}
+			}
+			changes.add(DocumentGraphChangeEvent.textChanged(text));
+		}
+
+		private void write(DataOutput out) throws IOException {
+			writeString(out, textId);
+			out.writeInt(offset);
+			writeString(out, removed);
+			writeString(out, inserted);
+			out.writeInt(offsets.size());
+			for (Map.Entry<String, int[]> entry : offsets.entrySet()) {
+				writeString(out, entry.getKey());
+				for (int value : entry.getValue()) {
+					out.writeInt(value);
+				}
+			}
+		}
+
+		private static TextOp read(DataInput in) throws IOException {
+			String textId = readString(in);
+			int offset = in.readInt();
+			String removed = readString(in);
+			String inserted = readString(in);
+			Map<String, int[]> offsets = new HashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				offsets.put(readString(in), new int[] { in.readInt(), in.readInt(), in.readInt(), in.readInt() });
+			}
+			return new TextOp(textId, offset, removed, inserted, offsets);
+		}
+
+	}
+
+	/**
+	 * The text of an {@link STextualDS} and the offsets of the tokens
+	 * overlapping it.
+	 */
+	private static final class TextState {
+
+		private final String text;
+		private final Map<String, int[]> offsets = new HashMap<>();
+
+		private TextState(String text) {
+			this.text = text;
+		}
+
+	}
+
+	/**
+	 * The data of a label, which is recorded so that removed elements can
+	 * be restored.
+	 */
+	private static final class LabelData {
+
+		private final byte kind;
+		private final String namespace;
+		private final String name;
+		private final Object value;
+		private final List<LabelData> labels;
+
+		private LabelData(byte kind, String namespace, String name, Object value, List<LabelData> labels) {
+			this.kind = kind;
+			this.namespace = namespace;
+			this.name = name;
+			this.value = value;
+			this.labels = labels;
+		}
+
+		private static List<LabelData> of(LabelableElement element) {
+			Collection<Label> labels = element.getLabels();
+			if (labels == null || labels.isEmpty()) {
+				return Collections.emptyList();
+			}
+			List<LabelData> data = new ArrayList<>(labels.size());
+			for (Label label : labels) {
+				if (!(label instanceof Identifier)) {
+					data.add(new LabelData(BinaryDocumentGraphCache.labelKind(label), label.getNamespace(), label.getName(), label.getValue(), of(label)));
+				}
+			}
+			return data;
+		}
+
+		/*
+		 * Replaces the values of the start and end features of a textual
+		 * relation.
+		 */
+		private static List<LabelData> withOffsets(List<LabelData> labels, int start, int end) {
+			List<LabelData> replaced = new ArrayList<>(labels.size());
+			for (LabelData data : labels) {
+				if (SaltUtil.SALT_NAMESPACE.equals(data.namespace) && SaltUtil.FEAT_SSTART.equals(data.name)) {
+					data = new LabelData(data.kind, data.namespace, data.name, start, data.labels);
+				}
+				else if (SaltUtil.SALT_NAMESPACE.equals(data.namespace) && SaltUtil.FEAT_SEND.equals(data.name)) {
+					data = new LabelData(data.kind, data.namespace, data.name, end, data.labels);
+				}
+				replaced.add(data);
+			}
+			return replaced;
+		}
+
+		private static void addAll(LabelableElement element, List<LabelData> labels) {
+			for (LabelData data : labels) {
+				Label label;
+				try {
+					label = BinaryDocumentGraphCache.createLabel(data.kind);
+				}
+				catch (IOException e) {
+					log.warn("Cannot restore label {}.", data.name, e);
+					continue;
+				}
+				label.setNamespace(data.namespace);
+				label.setName(data.name);
+				label.setValue(data.value);
+				addAll(label, data.labels);
+				element.addLabel(label);
+			}
+		}
+
+		private static void writeAll(DataOutput out, List<LabelData> labels) throws IOException {
+			out.writeInt(labels.size());
+			for (LabelData data : labels) {
+				out.writeByte(data.kind);
+				writeString(out, data.namespace);
+				writeString(out, data.name);
+				writeValue(out, data.value);
+				writeAll(out, data.labels);
+			}
+		}
+
+		private static List<LabelData> readAll(DataInput in) throws IOException {
+			int count = in.readInt();
+			if (count == 0) {
+				return Collections.emptyList();
+			}
+			List<LabelData> labels = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				labels.add(new LabelData(in.readByte(), readString(in), readString(in), readValue(in), readAll(in)));
+			}
+			return labels;
+		}
+
+	}
+
+	private static List<String> layerIds(Set<SLayer> layers) {
+		if (layers == null || layers.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Set<String> ids = new LinkedHashSet<>();
+		for (SLayer layer : layers) {
+			ids.add(layer.getId());
+		}
+		return new ArrayList<>(ids);
+	}
+
+	private static void writeString(DataOutput out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String string : strings) {
+			writeString(out, string);
+		}
+	}
+
+	private static List<String> readStrings(DataInput in) throws IOException {
+		int count = in.readInt();
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			strings.add(readString(in));
+		}
+		return strings;
+	}
+
+	/*
+	 * Values are written with the type tags of the binary snapshot format.
+	 * Values of other types are journaled as strings.
+	 */
+	private static void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_NULL);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte((Boolean) value ? BinaryDocumentGraphCache.VALUE_TRUE : BinaryDocumentGraphCache.VALUE_FALSE);
+		}
+		else if (value instanceof URI) {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_URI);
+			writeString(out, value.toString());
+		}
+		else {
+			out.writeByte(BinaryDocumentGraphCache.VALUE_STRING);
+			writeString(out, value.toString());
+		}
+	}
+
+	private static Object readValue(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case BinaryDocumentGraphCache.VALUE_NULL:
+			return null;
+		case BinaryDocumentGraphCache.VALUE_STRING:
+			return readString(in);
+		case BinaryDocumentGraphCache.VALUE_INTEGER:
+			return in.readInt();
+		case BinaryDocumentGraphCache.VALUE_LONG:
+			return in.readLong();
+		case BinaryDocumentGraphCache.VALUE_DOUBLE:
+			return in.readDouble();
+		case BinaryDocumentGraphCache.VALUE_FLOAT:
+			return in.readFloat();
+		case BinaryDocumentGraphCache.VALUE_TRUE:
+			return Boolean.TRUE;
+		case BinaryDocumentGraphCache.VALUE_FALSE:
+			return Boolean.FALSE;
+		case BinaryDocumentGraphCache.VALUE_URI:
+			return URI.createURI(readString(in));
+		default:
+			throw new IOException("Unknown value type " + tag + ".");
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.commands;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.editors.DocumentGraphMutationExecutor;
+import org.corpus_tools.atomic.api.editors.DocumentGraphRegistry;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+/**
+ * Handles <code>org.eclipse.ui.edit.redo</code> for {@link DocumentGraphEditor}s.
+ * Re-applies the last undone change to the graph of the active editor, which is
+ * redone for all editors sharing the graph.
+ * The change is redone on the {@link DocumentGraphMutationExecutor}'s
+ * worker, so that the UI thread does not wait for the graph's lock, and
+ * not at all while the graph is being changed in the background.
+ *
+ */
+public class RedoGraphChangeHandler extends AbstractHandler {
+
+	private static final Logger log = LogManager.getLogger(RedoGraphChangeHandler.class);
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IEditorPart editor = HandlerUtil.getActiveEditor(event);
+		if (!(editor instanceof DocumentGraphEditor) || ((DocumentGraphEditor) editor).getGraph() == null) {
+			return null;
+		}
+		if (((DocumentGraphEditor) editor).isMutatingInBackground()) {
+			log.trace("Not redoing in {} while the graph is being changed in the background.", editor.getTitle());
+			return null;
+		}
+		final SDocumentGraph graph = ((DocumentGraphEditor) editor).getGraph();
+		final String title = editor.getTitle();
+		DocumentGraphMutationExecutor.getInstance().submit(graph, this, () -> {
+			if (!DocumentGraphRegistry.getInstance().redo(graph)) {
+				log.trace("Nothing to redo in {}.", title);
+			}
+			return null;
+		});
+		return null;
+	}
+
+}
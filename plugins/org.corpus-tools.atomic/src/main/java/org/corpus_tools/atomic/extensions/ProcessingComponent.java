@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+
+/**
+ * A component which processes the document graphs of a corpus, e.g., a
+ * tokenizer. Processing components are contributed via the extension points
+ * <code>org.corpus_tools.atomic.processingComponents.tokenizers</code> and
+ * <code>org.corpus_tools.atomic.processingComponents.custom</code>, and are
+ * looked up via the {@link ProcessingComponentRegistry}.
+ * <p>
+ * Implementations must have a public constructor without arguments. A
+ * component instance may be used for several documents one after the
+ * other, but not concurrently.
+ * </p>
+ *
+ * @param <C> the type of the component's configuration
+ *
+ */
+public abstract class ProcessingComponent<C extends ProcessingComponentConfiguration> {
+
+	private C configuration = null;
+
+	/**
+	 * Processes a document graph, changing it in place.
+	 *
+	 * @param documentGraph the document graph to process
+	 */
+	public abstract void processDocument(SDocumentGraph documentGraph);
+
+	/**
+	 * @return the configuration, or <code>null</code> if the component has
+	 *         none
+	 */
+	public C getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * @param configuration the configuration to set
+	 */
+	public void setConfiguration(C configuration) {
+		this.configuration = configuration;
+	}
+
+}
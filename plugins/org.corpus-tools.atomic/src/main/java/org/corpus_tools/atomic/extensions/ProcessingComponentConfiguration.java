@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions;
+
+/**
+ * The configuration of a {@link ProcessingComponent}.
+ * <p>
+ * Implementations extend {@link org.corpus_tools.atomic.models.AbstractBean},
+ * and fire property changes from their setters, so that
+ * {@link org.corpus_tools.atomic.extensions.processingcomponents.ui.ProcessingComponentConfigurationControls}
+ * can bind their widgets to them. They are contributed via the
+ * <code>configuration</code> attribute of processing component extensions,
+ * and must have a public constructor without arguments, which creates the
+ * default configuration.
+ * </p>
+ *
+ */
+public interface ProcessingComponentConfiguration {
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions;
+
+import org.corpus_tools.atomic.extensions.processingcomponents.ui.ProcessingComponentConfigurationControls;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+
+/**
+ * Describes a processing component contributed via an extension, so that
+ * it can be listed, e.g., in a wizard, without loading its classes.
+ *
+ */
+public final class ProcessingComponentDescriptor {
+
+	private static final String ATTR_ID = "id";
+	private static final String ATTR_NAME = "name";
+	private static final String ATTR_CLASS = "class";
+	private static final String ATTR_CATEGORY = "category";
+	private static final String ATTR_DESCRIPTION = "description";
+	private static final String ATTR_CREATOR = "creator";
+	private static final String ATTR_CONFIGURATION = "configuration";
+	private static final String ATTR_CONFIGURATION_CONTROLS = "configurationControls";
+
+	private final IConfigurationElement element;
+
+	ProcessingComponentDescriptor(IConfigurationElement element) {
+		this.element = element;
+	}
+
+	/**
+	 * @return the unique id of the component
+	 */
+	public String getId() {
+		return element.getAttribute(ATTR_ID);
+	}
+
+	/**
+	 * @return the name of the component
+	 */
+	public String getName() {
+		return element.getAttribute(ATTR_NAME);
+	}
+
+	/**
+	 * @return the category of the component, i.e., "tokenizer" or "custom"
+	 */
+	public String getCategory() {
+		return element.getAttribute(ATTR_CATEGORY);
+	}
+
+	/**
+	 * @return the description of the component
+	 */
+	public String getDescription() {
+		return element.getAttribute(ATTR_DESCRIPTION);
+	}
+
+	/**
+	 * @return the creator of the component
+	 */
+	public String getCreator() {
+		return element.getAttribute(ATTR_CREATOR);
+	}
+
+	/**
+	 * Creates a new instance of the component, with a new instance of its
+	 * default configuration if it declares a configuration class.
+	 *
+	 * @return the component
+	 * @throws CoreException if the component or its configuration cannot be
+	 *             created
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ProcessingComponent<?> createComponent() throws CoreException {
+		ProcessingComponent component = (ProcessingComponent) element.createExecutableExtension(ATTR_CLASS);
+		ProcessingComponentConfiguration configuration = createConfiguration();
+		if (configuration != null) {
+			component.setConfiguration(configuration);
+		}
+		return component;
+	}
+
+	/**
+	 * @return a new instance of the component's default configuration, or
+	 *         <code>null</code> if the component does not declare a
+	 *         configuration class
+	 * @throws CoreException if the configuration cannot be created
+	 */
+	public ProcessingComponentConfiguration createConfiguration() throws CoreException {
+		if (element.getAttribute(ATTR_CONFIGURATION) == null) {
+			return null;
+		}
+		return (ProcessingComponentConfiguration) element.createExecutableExtension(ATTR_CONFIGURATION);
+	}
+
+	/**
+	 * @return a new instance of the component's configuration controls, or
+	 *         <code>null</code> if the component does not declare any
+	 * @throws CoreException if the controls cannot be created
+	 */
+	public ProcessingComponentConfigurationControls<?> createConfigurationControls() throws CoreException {
+		if (element.getAttribute(ATTR_CONFIGURATION_CONTROLS) == null) {
+			return null;
+		}
+		return (ProcessingComponentConfigurationControls<?>) element.createExecutableExtension(ATTR_CONFIGURATION_CONTROLS);
+	}
+
+	/*
+	 * @copydoc @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return getName() + " (" + getId() + ")";
+	}
+
+}
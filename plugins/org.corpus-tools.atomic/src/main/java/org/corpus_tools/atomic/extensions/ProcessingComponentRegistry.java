@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Lists the processing components contributed via the extension points
+ * {@link #TOKENIZERS_EXTENSION_POINT_ID} and
+ * {@link #CUSTOM_EXTENSION_POINT_ID}.
+ *
+ */
+public final class ProcessingComponentRegistry {
+
+	private static final Logger log = LogManager.getLogger(ProcessingComponentRegistry.class);
+
+	/**
+	 * The id of the extension point for tokenizers.
+	 */
+	public static final String TOKENIZERS_EXTENSION_POINT_ID = "org.corpus_tools.atomic.processingComponents.tokenizers";
+
+	/**
+	 * The id of the extension point for custom processing components.
+	 */
+	public static final String CUSTOM_EXTENSION_POINT_ID = "org.corpus_tools.atomic.processingComponents.custom";
+
+	/**
+	 * The id of the built-in rule-based tokenizer.
+	 */
+	public static final String RULE_BASED_TOKENIZER_ID = "org.corpus_tools.atomic.tokenizers.rulebased";
+
+	private static final ProcessingComponentRegistry INSTANCE = new ProcessingComponentRegistry();
+
+	private ProcessingComponentRegistry() {
+		// Singleton
+	}
+
+	/**
+	 * @return the registry instance
+	 */
+	public static ProcessingComponentRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the contributed tokenizers
+	 */
+	public List<ProcessingComponentDescriptor> getTokenizers() {
+		return getDescriptors(TOKENIZERS_EXTENSION_POINT_ID);
+	}
+
+	/**
+	 * @return the contributed custom processing components
+	 */
+	public List<ProcessingComponentDescriptor> getCustomComponents() {
+		return getDescriptors(CUSTOM_EXTENSION_POINT_ID);
+	}
+
+	/**
+	 * @param id the id of a processing component
+	 * @return the descriptor of the component, or <code>null</code> if no
+	 *         component with the id has been contributed
+	 */
+	public ProcessingComponentDescriptor getComponent(String id) {
+		for (String extensionPointId : new String[] { TOKENIZERS_EXTENSION_POINT_ID, CUSTOM_EXTENSION_POINT_ID }) {
+			for (ProcessingComponentDescriptor descriptor : getDescriptors(extensionPointId)) {
+				if (descriptor.getId().equals(id)) {
+					return descriptor;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static List<ProcessingComponentDescriptor> getDescriptors(String extensionPointId) {
+		if (Platform.getExtensionRegistry() == null) {
+			log.warn("No extension registry available, processing components from {} cannot be found.", extensionPointId);
+			return Collections.emptyList();
+		}
+		// The registry caches the elements, and reflects plugins installed at runtime
+		IConfigurationElement[] elements = Platform.getExtensionRegistry().getConfigurationElementsFor(extensionPointId);
+		List<ProcessingComponentDescriptor> descriptors = new ArrayList<>(elements.length);
+		for (IConfigurationElement element : elements) {
+			descriptors.add(new ProcessingComponentDescriptor(element));
+		}
+		return descriptors;
+	}
+
+}
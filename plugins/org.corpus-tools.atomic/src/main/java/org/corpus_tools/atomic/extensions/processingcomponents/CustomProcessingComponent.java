@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions.processingcomponents;
+
+import org.corpus_tools.atomic.extensions.ProcessingComponent;
+import org.corpus_tools.atomic.extensions.ProcessingComponentConfiguration;
+
+/**
+ * A processing component which does not fit any of the other categories,
+ * contributed via the extension point
+ * <code>org.corpus_tools.atomic.processingComponents.custom</code>.
+ *
+ * @param <C> the type of the component's configuration
+ *
+ */
+public abstract class CustomProcessingComponent<C extends ProcessingComponentConfiguration> extends ProcessingComponent<C> {
+
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions.processingcomponents;
+
+import java.util.ArrayList;
+
+import org.corpus_tools.atomic.extensions.ProcessingComponent;
+import org.corpus_tools.atomic.extensions.ProcessingComponentConfiguration;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+
+/**
+ * A processing component which tokenizes the primary texts of a document
+ * graph, i.e., adds {@link org.corpus_tools.salt.common.SToken}s and their
+ * {@link org.corpus_tools.salt.common.STextualRelation}s to the graph.
+ * Tokenizers are contributed via the extension point
+ * <code>org.corpus_tools.atomic.processingComponents.tokenizers</code>.
+ *
+ * @param <C> the type of the tokenizer's configuration
+ *
+ */
+public abstract class Tokenizer<C extends ProcessingComponentConfiguration> extends ProcessingComponent<C> {
+
+	/**
+	 * Tokenizes a primary text of a document graph.
+	 *
+	 * @param documentGraph the document graph to add the tokens to
+	 * @param textualDS the primary text to tokenize, which must belong to
+	 *            the graph
+	 * @return the number of tokens which have been added
+	 */
+	public abstract int tokenize(SDocumentGraph documentGraph, STextualDS textualDS);
+
+	/**
+	 * Tokenizes all primary texts of the document graph.
+	 *
+	 * @see org.corpus_tools.atomic.extensions.ProcessingComponent#processDocument(org.corpus_tools.salt.common.SDocumentGraph)
+	 */
+	@Override
+	public void processDocument(SDocumentGraph documentGraph) {
+		for (STextualDS textualDS : new ArrayList<>(documentGraph.getTextualDSs())) {
+			tokenize(documentGraph, textualDS);
+		}
+	}
+
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions.processingcomponents.impl;
+
+import java.util.Set;
+
+import org.corpus_tools.atomic.extensions.processingcomponents.Tokenizer;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * The built-in tokenizer, which splits texts by a few language-independent
+ * rules in a single pass over the text.
+ * <p>
+ * Tokens are separated by whitespace. Runs of letters, digits and combining
+ * marks form word tokens, which also contain
+ * <ul>
+ * <li>hyphens between word characters, e.g., "well-known", and apostrophes
+ * between letters, e.g., "don't", unless disabled in the
+ * {@link RuleBasedTokenizerConfiguration},</li>
+ * <li>periods, commas and colons between digits, e.g., "3.14" or
+ * "10:30",</li>
+ * <li>the periods of initialisms, e.g., "e.g." or "U.S.A.",</li>
+ * <li>the period following a configured abbreviation, e.g., "Dr.".</li>
+ * </ul>
+ * Any other character forms a token of its own, where runs of the same
+ * character, e.g., "...", are kept together unless disabled.
+ * </p>
+ * <p>
+ * The text is not copied, and tokens are reported as spans via
+ * {@link #tokenize(CharSequence, TokenSpanConsumer)}, so that the only
+ * objects created per token are the Salt objects added by
+ * {@link #tokenize(SDocumentGraph, STextualDS)}.
+ * </p>
+ *
+ */
+public class RuleBasedTokenizer extends Tokenizer<RuleBasedTokenizerConfiguration> {
+
+	/**
+	 * Receives the spans of the tokens of a text, in the order of the text.
+	 */
+	public interface TokenSpanConsumer {
+
+		/**
+		 * @param start the index of the first character of the token
+		 * @param end the index after the last character of the token
+		 */
+		public void token(int start, int end);
+
+	}
+
+	/**
+	 * Creates a tokenizer with the default configuration.
+	 */
+	public RuleBasedTokenizer() {
+		setConfiguration(new RuleBasedTokenizerConfiguration());
+	}
+
+	/*
+	 * @copydoc @see org.corpus_tools.atomic.extensions.processingcomponents.Tokenizer#tokenize(org.corpus_tools.salt.common.SDocumentGraph, org.corpus_tools.salt.common.STextualDS)
+	 */
+	@Override
+	public int tokenize(SDocumentGraph documentGraph, STextualDS textualDS) {
+		String text = textualDS.getText();
+		if (text == null || text.isEmpty()) {
+			return 0;
+		}
+		TokenWriter writer = new TokenWriter(documentGraph, textualDS);
+		tokenize(text, writer);
+		return writer.count;
+	}
+
+	/**
+	 * Splits a text into tokens.
+	 *
+	 * @param text the text
+	 * @param consumer the consumer of the tokens' spans
+	 */
+	public void tokenize(CharSequence text, TokenSpanConsumer consumer) {
+		RuleBasedTokenizerConfiguration configuration = getConfiguration();
+		boolean keepHyphens = configuration.isKeepHyphenatedWords();
+		boolean keepApostrophes = configuration.isKeepApostrophes();
+		boolean groupPunctuation = configuration.isGroupRepeatedPunctuation();
+		Set<String> abbreviations = configuration.getAbbreviations();
+		int maxAbbreviationLength = 0;
+		for (String abbreviation : abbreviations) {
+			maxAbbreviationLength = Math.max(maxAbbreviationLength, abbreviation.length());
+		}
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			int c = Character.codePointAt(text, i);
+			if (isSeparator(c)) {
+				i += Character.charCount(c);
+				continue;
+			}
+			int start = i;
+			i += Character.charCount(c);
+			if (isWordCharacter(c)) {
+				int segmentStart = start;
+				boolean isInitialism = false;
+				while (i < length) {
+					int d = Character.codePointAt(text, i);
+					if (isWordCharacter(d)) {
+						i += Character.charCount(d);
+						continue;
+					}
+					if (i + 1 < length && Character.charCount(d) == 1) {
+						int previous = Character.codePointBefore(text, i);
+						int next = Character.codePointAt(text, i + 1);
+						boolean joins;
+						if (d == '-' || d == '‐') {
+							joins = keepHyphens && isWordCharacter(next);
+						}
+						else if (d == '\'' || d == '’') {
+							joins = keepApostrophes && Character.isLetter(previous) && Character.isLetter(next);
+						}
+						else if (d == '.' || d == ',' || d == ':') {
+							joins = Character.isDigit(previous) && Character.isDigit(next);
+							if (!joins && d == '.' && i - segmentStart == 1 && Character.isLetter(previous) && Character.isLetter(next) && (i + 2 == length || !isWordCharacter(Character.codePointAt(text, i + 2)))) {
+								// A period between single letters, e.g., in "e.g"
+								joins = isInitialism = true;
+							}
+						}
+						else {
+							joins = false;
+						}
+						if (joins) {
+							i++;
+							segmentStart = i;
+							continue;
+						}
+					}
+					break;
+				}
+				if (i < length && text.charAt(i) == '.') {
+					if ((isInitialism && i - segmentStart == 1) || (i - start <= maxAbbreviationLength && abbreviations.contains(text.subSequence(start, i).toString()))) {
+						i++;
+					}
+				}
+			}
+			else if (groupPunctuation) {
+				while (i < length && Character.codePointAt(text, i) == c) {
+					i += Character.charCount(c);
+				}
+			}
+			consumer.token(start, i);
+		}
+	}
+
+	private static boolean isSeparator(int c) {
+		return Character.isWhitespace(c) || Character.isSpaceChar(c) || Character.getType(c) == Character.CONTROL;
+	}
+
+	private static boolean isWordCharacter(int c) {
+		if (Character.isLetterOrDigit(c)) {
+			return true;
+		}
+		int type = Character.getType(c);
+		return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK;
+	}
+
+	/**
+	 * Adds a token and its textual relation to the graph for each span.
+	 */
+	private static final class TokenWriter implements TokenSpanConsumer {
+
+		private final SDocumentGraph documentGraph;
+		private final STextualDS textualDS;
+		private int count = 0;
+
+		private TokenWriter(SDocumentGraph documentGraph, STextualDS textualDS) {
+			this.documentGraph = documentGraph;
+			this.textualDS = textualDS;
+		}
+
+		@Override
+		public void token(int start, int end) {
+			SToken token = SaltFactory.createSToken();
+			documentGraph.addNode(token);
+			STextualRelation relation = SaltFactory.createSTextualRelation();
+			relation.setSource(token);
+			relation.setTarget(textualDS);
+			relation.setStart(start);
+			relation.setEnd(end);
+			documentGraph.addRelation(relation);
+			count++;
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions.processingcomponents.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.corpus_tools.atomic.extensions.ProcessingComponentConfiguration;
+import org.corpus_tools.atomic.models.AbstractBean;
+
+/**
+ * The configuration of the {@link RuleBasedTokenizer}.
+ *
+ */
+public class RuleBasedTokenizerConfiguration extends AbstractBean implements ProcessingComponentConfiguration {
+
+	/**
+	 * The abbreviations recognized by default, without their final period.
+	 */
+	public static final Set<String> DEFAULT_ABBREVIATIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+			"Mr", "Mrs", "Ms", "Dr", "Prof", "St", "Jr", "Sr", "vs", "etc", "cf", "al", "approx", "Fig", "No", "Vol", "pp",
+			"Nr", "bzw", "usw", "ca", "vgl", "Hr", "Fr", "Str", "evtl", "ggf", "inkl", "zzgl")));
+
+	private boolean keepHyphenatedWords = true;
+	private boolean keepApostrophes = true;
+	private boolean groupRepeatedPunctuation = true;
+	private Set<String> abbreviations = DEFAULT_ABBREVIATIONS;
+
+	/**
+	 * @return whether words joined by hyphens, e.g., "well-known", are kept
+	 *         as one token
+	 */
+	public boolean isKeepHyphenatedWords() {
+		return keepHyphenatedWords;
+	}
+
+	/**
+	 * @param keepHyphenatedWords whether words joined by hyphens are kept as
+	 *            one token
+	 */
+	public void setKeepHyphenatedWords(boolean keepHyphenatedWords) {
+		boolean oldKeepHyphenatedWords = this.keepHyphenatedWords;
+		this.keepHyphenatedWords = keepHyphenatedWords;
+		firePropertyChange("keepHyphenatedWords", oldKeepHyphenatedWords, this.keepHyphenatedWords);
+	}
+
+	/**
+	 * @return whether words containing apostrophes, e.g., "don't", are kept
+	 *         as one token
+	 */
+	public boolean isKeepApostrophes() {
+		return keepApostrophes;
+	}
+
+	/**
+	 * @param keepApostrophes whether words containing apostrophes are kept
+	 *            as one token
+	 */
+	public void setKeepApostrophes(boolean keepApostrophes) {
+		boolean oldKeepApostrophes = this.keepApostrophes;
+		this.keepApostrophes = keepApostrophes;
+		firePropertyChange("keepApostrophes", oldKeepApostrophes, this.keepApostrophes);
+	}
+
+	/**
+	 * @return whether runs of the same punctuation character, e.g., "...",
+	 *         are kept as one token
+	 */
+	public boolean isGroupRepeatedPunctuation() {
+		return groupRepeatedPunctuation;
+	}
+
+	/**
+	 * @param groupRepeatedPunctuation whether runs of the same punctuation
+	 *            character are kept as one token
+	 */
+	public void setGroupRepeatedPunctuation(boolean groupRepeatedPunctuation) {
+		boolean oldGroupRepeatedPunctuation = this.groupRepeatedPunctuation;
+		this.groupRepeatedPunctuation = groupRepeatedPunctuation;
+		firePropertyChange("groupRepeatedPunctuation", oldGroupRepeatedPunctuation, this.groupRepeatedPunctuation);
+	}
+
+	/**
+	 * @return the abbreviations, without their final period, which keep the
+	 *         period following them in their token
+	 */
+	public Set<String> getAbbreviations() {
+		return abbreviations;
+	}
+
+	/**
+	 * @param abbreviations the abbreviations, without their final period,
+	 *            which keep the period following them in their token
+	 */
+	public void setAbbreviations(Collection<String> abbreviations) {
+		Set<String> oldAbbreviations = this.abbreviations;
+		this.abbreviations = Collections.unmodifiableSet(new LinkedHashSet<>(abbreviations));
+		firePropertyChange("abbreviations", oldAbbreviations, this.abbreviations);
+	}
+
+}
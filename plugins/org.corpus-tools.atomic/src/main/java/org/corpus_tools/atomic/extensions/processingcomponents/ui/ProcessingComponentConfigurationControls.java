@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.extensions.processingcomponents.ui;
+
+import org.corpus_tools.atomic.extensions.ProcessingComponentConfiguration;
+import org.eclipse.swt.widgets.Composite;
+
+/**
+ * Creates the widgets which collect the configuration of a processing
+ * component, e.g., on a wizard page.
+ * <p>
+ * Implementations are contributed via the
+ * <code>configurationControls</code> attribute of processing component
+ * extensions, and must have a public constructor without arguments, as
+ * they are instantiated before their parent composite exists.
+ * </p>
+ *
+ * @param <C> the type of the configuration
+ *
+ */
+public abstract class ProcessingComponentConfigurationControls<C extends ProcessingComponentConfiguration> {
+
+	/**
+	 * Creates the widgets, bound to the configuration, i.e., changes made in
+	 * the widgets are set in the configuration.
+	 *
+	 * @param parent the parent composite
+	 * @param configuration the configuration to edit
+	 * @return the composite containing the widgets
+	 */
+	public abstract Composite createControls(Composite parent, C configuration);
+
+}
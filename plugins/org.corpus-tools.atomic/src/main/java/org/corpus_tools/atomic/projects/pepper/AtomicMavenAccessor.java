@@ -18,23 +18,19 @@
  *******************************************************************************/
 package org.corpus_tools.atomic.projects.pepper;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -42,18 +38,11 @@ import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
-import org.apache.maven.repository.internal.DefaultVersionRangeResolver;
-import org.apache.maven.repository.internal.DefaultVersionResolver;
-import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
-import org.apache.maven.repository.internal.SnapshotMetadataGeneratorFactory;
-import org.apache.maven.repository.internal.VersionsMetadataGeneratorFactory;
-import org.codehaus.plexus.util.FileUtils;
+import org.corpus_tools.atomic.projects.pepper.DependencyBlacklist.Status;
 import org.eclipse.aether.AbstractRepositoryListener;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryEvent;
 import org.eclipse.aether.RepositorySystem;
-import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.artifact.DefaultArtifactType;
@@ -64,32 +53,22 @@ import org.eclipse.aether.collection.DependencyGraphTransformer;
 import org.eclipse.aether.collection.DependencyManager;
 import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.collection.DependencyTraverser;
-import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
-import org.eclipse.aether.impl.ArtifactDescriptorReader;
-import org.eclipse.aether.impl.DefaultServiceLocator;
-import org.eclipse.aether.impl.MetadataGeneratorFactory;
-import org.eclipse.aether.impl.VersionRangeResolver;
-import org.eclipse.aether.impl.VersionResolver;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
-import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
-import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.transfer.AbstractTransferListener;
 import org.eclipse.aether.transfer.ArtifactNotFoundException;
 import org.eclipse.aether.transfer.MetadataNotFoundException;
 import org.eclipse.aether.transfer.TransferEvent;
 import org.eclipse.aether.transfer.TransferResource;
-import org.eclipse.aether.transport.file.FileTransporterFactory;
-import org.eclipse.aether.transport.http.HttpTransporterFactory;
 import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
 import org.eclipse.aether.util.graph.manager.ClassicDependencyManager;
 import org.eclipse.aether.util.graph.selector.AndDependencySelector;
@@ -121,6 +100,11 @@ import org.xml.sax.ext.DefaultHandler2;
  * Maven repositories, e.g., in the update process.
  * <p>It provides accessibility to Maven repositories via
  * the Eclipse Aether libraries.
+ * <p>Resolution is offline-first if configured so (cf. {@link AtomicPepperConfiguration#PROP_UPDATE_MIRROR},
+ * {@link AtomicPepperConfiguration#PROP_UPDATE_REMOTE}): a file-system mirror is asked before any other
+ * repository, and remote repositories are only asked when enabled. Otherwise, artifacts and metadata which
+ * have been downloaded to the local repository before are used. Metadata is checked again after its time to
+ * live (cf. {@link AtomicPepperConfiguration#PROP_UPDATE_METADATA_TTL}) has expired.
  * <p>
  * @author Stephan Druskat <stephan.druskat@uni-jena.de>
  */
@@ -144,96 +128,71 @@ public class AtomicMavenAccessor {
 	/** Path to Sonatype Snapshots Maven repo */
 	public static final String SONATYPE_SNAPSHOTS_REPO = "https://oss.sonatype.org/content/repositories/snapshots/";
 
-	/** flag which is added to the blacklist entry of a dependency – a FINAL dependency can not be overridden */
-	private static enum STATUS {
-		OVERRIDABLE, FINAL;
-	}
-
-	/** delimiter for artifact strings */
-	private static final String DELIMITER = ":";
-
 	private final AtomicPepperOSGiConnector atomicPepperOSGiConnector;
 
 	private RepositorySystem mvnSystem = null;
 
 	/**
-	 * this {@link Set} stores all dependencies, that are installed or forbidden. The format of the {@link String}s is GROUP_ID:ARTIFACT_ID:EXTENSION:VERSION, which is also the output format of {@link Dependency#getArtifact()#toString()}.
+	 * this blacklist stores all dependencies, that are installed or forbidden, indexed by groupId:artifactId.
 	 */
-	private Set<String> forbiddenFruits = null;
+	private DependencyBlacklist forbiddenFruits = null;
 
 	/** this Map contains all repos already used in this pepper session, key is url, value is repo */
-	HashMap<String, RemoteRepository> repos = null;
+	Map<String, RemoteRepository> repos = null;
 	/** maven/aether utility used to build Objects of class {@link RemoteRepository}. */
 	RemoteRepository.Builder repoBuilder = null;
 	/** this map contains already collected pepper parent dependencies (version-String->List<Dependency>) */
-	private HashMap<String, List<Dependency>> parentDependencies = null;
+	private Map<String, List<Dependency>> parentDependencies = null;
+	/** the resolver shared by the updates of the current update run, if any */
+	private volatile PepperModuleResolver updateRunResolver = null;
 	/** path to temporary repository */
 	private final String PATH_LOCAL_REPO;
+	/** id of the file-system mirror repository */
+	private static final String MIRROR_REPO_ID = "mirror";
+	/** the file-system mirror which is asked before any other repository, or null */
+	private final RemoteRepository mirror;
+	/** whether remote repositories are asked, or only the mirror and the local repository */
+	private final boolean remoteEnabled;
+	/** the time in minutes for which metadata in the local repository is trusted */
+	private final int metadataTTL;
 
 	/**
 	 * @param atomicPepperOSGiConnector
 	 */
 	public AtomicMavenAccessor(AtomicPepperOSGiConnector atomicPepperOSGiConnector) {
 		this.atomicPepperOSGiConnector = atomicPepperOSGiConnector;
-		{
-			DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
-			locator.addService(ArtifactDescriptorReader.class, DefaultArtifactDescriptorReader.class);
-			locator.addService(VersionResolver.class, DefaultVersionResolver.class);
-			locator.addService(VersionRangeResolver.class, DefaultVersionRangeResolver.class);
-			locator.addService(MetadataGeneratorFactory.class, SnapshotMetadataGeneratorFactory.class);
-			locator.addService(MetadataGeneratorFactory.class, VersionsMetadataGeneratorFactory.class);
-			locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
-			locator.addService(TransporterFactory.class, FileTransporterFactory.class);
-			locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
-			mvnSystem = locator.getService(RepositorySystem.class);
-		}
+		mvnSystem = PepperModuleResolver.newRepositorySystem();
 		repoBuilder = new RemoteRepository.Builder("", "default", "");
-		repos = new HashMap<>();
-		forbiddenFruits = new HashSet<>();
-		parentDependencies = new HashMap<>();
-		PATH_LOCAL_REPO = atomicPepperOSGiConnector.getAtomicPepperConfiguration().getTempPath().getAbsolutePath().concat("/local-repo/");
-		try {
-			File lr = new File(PATH_LOCAL_REPO);
-			if (lr.exists()) {
-				FileUtils.deleteDirectory(lr);
-			}
-		}
-		catch (IOException e) {
-			log.warn("Failed to clean local repository.");
+		repos = new ConcurrentHashMap<>();
+		parentDependencies = new ConcurrentHashMap<>();
+		AtomicPepperConfiguration configuration = atomicPepperOSGiConnector.getAtomicPepperConfiguration();
+		/* the local repository is kept between sessions, it caches metadata and artifacts */
+		PATH_LOCAL_REPO = configuration.getTempPath().getAbsolutePath().concat("/local-repo/");
+		File mirrorFolder = configuration.getUpdateMirror();
+		if (mirrorFolder != null && !mirrorFolder.isDirectory()) {
+			log.warn("The Pepper module mirror at {} does not exist, and will be ignored.", mirrorFolder.getAbsolutePath());
+			mirrorFolder = null;
 		}
+		mirror = mirrorFolder == null ? null : new RemoteRepository.Builder(MIRROR_REPO_ID, "default", mirrorFolder.toURI().toString()).build();
+		remoteEnabled = configuration.isRemoteUpdateEnabled();
+		metadataTTL = configuration.getUpdateMetadataTTL();
+		log.info("Resolving Pepper modules from {}{}, caching metadata for {} minutes.", mirror == null ? "" : "mirror " + mirror.getUrl() + ", ", remoteEnabled ? "remote repositories" : "the local repository only", metadataTTL);
 		init();
 		initDependencies();
 	}
 
 	/**
-	 * This method tries to read the blacklist file, if it already exists
+	 * This method reads the blacklist file, if it already exists
 	 */
 	private void init() {
-		/* init Maven utils */
 		/* read/write dependency blacklist */
-		File blacklistFile = new File(BLACKLIST_PATH);
-		if (blacklistFile.exists()) {
-			try {
-				FileReader fR = new FileReader(blacklistFile);
-				BufferedReader reader = new BufferedReader(fR);
-				String line = reader.readLine();
-				while (line != null) {
-					forbiddenFruits.add(line);
-					line = reader.readLine();
-				}
-				reader.close();
-				fR.close();
-			}
-			catch (IOException e) {
-				log.debug("Could not read blacklist file.", e);
-			}
-		}
+		forbiddenFruits = new DependencyBlacklist(new File(BLACKLIST_PATH));
 	}
 
 	/**
 	 * this method initializes the dependency blacklist
 	 */
-	private boolean initDependencies() {
+	private synchronized boolean initDependencies() {
 		String frameworkVersion = atomicPepperOSGiConnector.getFrameworkVersion();
 		if (frameworkVersion.split("\\.").length > 3) { // I.e., Is a snapshot version
 			String[] segments = frameworkVersion.split("\\.");
@@ -253,7 +212,7 @@ public class AtomicMavenAccessor {
 			/* utils for dependency collection */
 			CollectRequest collectRequest = new CollectRequest();
 			collectRequest.setRoot(new Dependency(pepArt, ""));
-			collectRequest.setRepositories(null);
+			collectRequest.setRepositories(withMirror(new ArrayList<RemoteRepository>()));
 			collectRequest.addRepository(repo);
 			collectRequest.addRepository(repos.get(CENTRAL_REPO));
 			collectRequest.addRepository(repos.get(SONATYPE_SNAPSHOTS_REPO));
@@ -263,18 +222,18 @@ public class AtomicMavenAccessor {
 				List<Dependency> allDeps = getAllDependencies(collectResult.getRoot(), false);
 				parentDependencies.put(frameworkVersion.replace("-SNAPSHOT", ""), allDeps);
 				Bundle bundle = null;
-				STATUS status = null;
+				Status status = null;
 				for (Dependency dependency : allDeps) {
 					bundle = atomicPepperOSGiConnector.getBundle(dependency.getArtifact().getGroupId(), dependency.getArtifact().getArtifactId(), null);
-					status = bundle == null || bundle.getHeaders().get("Bundle-SymbolicName").contains("singleton:=true") ? STATUS.FINAL : STATUS.OVERRIDABLE;
-					forbiddenFruits.add(dependency.getArtifact().toString().concat(DELIMITER).concat(status.toString()).concat(DELIMITER).concat(bundle == null ? "" : bundle.getSymbolicName()));
+					status = bundle == null || bundle.getHeaders().get("Bundle-SymbolicName").contains("singleton:=true") ? Status.FINAL : Status.OVERRIDABLE;
+					forbiddenFruits.add(dependency.getArtifact(), status, bundle == null ? null : bundle.getSymbolicName());
 				}
 				write2Blacklist();
 				collectResult = null;
 
 			}
 			catch (DependencyCollectionException e) {
-				log.warn("An error occured initializing the update mechanism. Please check your internet connection.", e);
+				log.warn(remoteEnabled ? "An error occured initializing the update mechanism. Please check your internet connection." : "An error occured initializing the update mechanism. Please check that the Pepper parent is available in the mirror, or enable remote repositories via " + AtomicPepperConfiguration.PROP_UPDATE_REMOTE + ".", e);
 				return false;
 			}
 			session = null;
@@ -328,9 +287,29 @@ public class AtomicMavenAccessor {
 		session.setSystemProperties(sysProps);
 		session.setConfigProperties(sysProps);
 
+		/* metadata in the local repository is trusted until its time to live has expired */
+		session.setUpdatePolicy(metadataTTL == 0 ? RepositoryPolicy.UPDATE_POLICY_ALWAYS : RepositoryPolicy.UPDATE_POLICY_INTERVAL + ":" + metadataTTL);
+		if (!remoteEnabled) {
+			/* remote repositories are not asked, but their artifacts and metadata in the local repository are used, as are file-system repositories */
+			session.setOffline(true);
+			session.setConfigProperty("aether.offline.protocols", "file");
+		}
 		return session;
 	}
 
+	/**
+	 * Returns the repositories to resolve from, asking the file-system mirror first, if one is configured.
+	 */
+	private List<RemoteRepository> withMirror(List<RemoteRepository> repositories) {
+		if (mirror == null) {
+			return repositories;
+		}
+		List<RemoteRepository> mirrored = new ArrayList<>();
+		mirrored.add(mirror);
+		mirrored.addAll(repositories);
+		return mirrored;
+	}
+
 	/** This listener does not write the maven transfer output. */
 	private final MavenTransferListener transferListener = new MavenTransferListener();
 
@@ -338,12 +317,45 @@ public class AtomicMavenAccessor {
 	private final MavenRepositoryListener repoListener = new MavenRepositoryListener();
 
 	/**
-	 * This method checks the provided pepper plugin for updates and triggers the installation process if a newer version is available
+	 * Starts an update run. Until {@link #endUpdateRun()} is called, all
+	 * updates share a single {@link PepperModuleResolver}, i.e., one session
+	 * and the results of all version range resolutions, artifact
+	 * resolutions and dependency collections, so that the modules of a run
+	 * can be updated concurrently without resolving the same artifacts
+	 * again and again.
+	 */
+	public synchronized void beginUpdateRun() {
+		updateRunResolver = new PepperModuleResolver(mvnSystem, getNewSession());
+	}
+
+	/**
+	 * Ends the current update run, and drops the results it has resolved.
+	 */
+	public synchronized void endUpdateRun() {
+		PepperModuleResolver resolver = updateRunResolver;
+		if (resolver != null) {
+			log.info("Update run resolved {} artifacts, and reused {} resolutions.", resolver.getMissCount(), resolver.getHitCount());
+		}
+		updateRunResolver = null;
+	}
+
+	private PepperModuleResolver getResolver() {
+		PepperModuleResolver resolver = updateRunResolver;
+		return resolver != null ? resolver : new PepperModuleResolver(mvnSystem, getNewSession());
+	}
+
+	/**
+	 * This method checks the provided pepper plugin for updates and triggers the installation process if a newer version is available.
+	 * <p>
+	 * The method may be called concurrently for different modules. Artifacts are resolved concurrently,
+	 * whereas the blacklist is read and written, and bundles are installed, by one thread at a time.
 	 */
 	public boolean update(String groupId, String artifactId, String repositoryUrl, boolean isSnapshot, boolean ignoreFrameworkVersion, Bundle installedBundle) {
-		if (forbiddenFruits.isEmpty() && !initDependencies()) {
-			log.warn("Update could not be performed, because the pepper dependencies could not be listed.");
-			return false;
+		synchronized (this) {
+			if (forbiddenFruits.isEmpty() && !initDependencies()) {
+				log.warn("Update could not be performed, because the pepper dependencies could not be listed.");
+				return false;
+			}
 		}
 
 		if (log.isTraceEnabled()) {
@@ -355,192 +367,71 @@ public class AtomicMavenAccessor {
 
 		String newLine = System.getProperty("line.separator");
 
-		DefaultRepositorySystemSession session = getNewSession();
-
-		boolean update = true; // MUST be born true!
+		PepperModuleResolver resolver = getResolver();
 
 		/* build repository */
-
 		RemoteRepository repo = getRepo("repo", repositoryUrl);
 
-		/* build artifact */
-		Artifact artifact = new DefaultArtifact(groupId, artifactId, "zip", "[0,)");
-
 		try {
-			/* version range request */
-			VersionRangeRequest rangeRequest = new VersionRangeRequest();
-			rangeRequest.addRepository(repo);
-			rangeRequest.setArtifact(artifact);
-			VersionRangeResult rangeResult = mvnSystem.resolveVersionRange(session, rangeRequest);
-			rangeRequest.setArtifact(artifact);
-
-			/* utils needed for request */
-			ArtifactRequest artifactRequest = new ArtifactRequest();
-			artifactRequest.addRepository(repo);
-			ArtifactResult artifactResult = null;
-
-			/* get all pepperModules versions listed in the maven repository */
-			List<Version> versions = rangeResult.getVersions();
-			Collections.reverse(versions);
-
-			/* utils for version comparison */
-			Iterator<Version> itVersions = versions.iterator();
+			/* find the newest version listed in the maven repository which really exists */
 			VersionScheme vScheme = new GenericVersionScheme();
-			boolean srcExists = false;
 			Version installedVersion = installedBundle == null ? vScheme.parseVersion("0.0.0") : vScheme.parseVersion(installedBundle.getVersion().toString().replace(".SNAPSHOT", "-SNAPSHOT"));
-			Version newestVersion = null;
-
-			/* compare, if the listed version really exists in the maven repository */
-			File file = null;
-			while (!srcExists && itVersions.hasNext() && update) {
-				newestVersion = itVersions.next();
-				artifact = new DefaultArtifact(groupId, artifactId, "zip", newestVersion.toString());
-				if (!(artifact.isSnapshot() && !isSnapshot)) {
-					update = newestVersion.compareTo(installedVersion) > 0;
-					artifactRequest.setArtifact(artifact);
-					try {
-						artifactResult = mvnSystem.resolveArtifact(session, artifactRequest);
-						artifact = artifactResult.getArtifact();
-						srcExists = update && artifact.getFile().exists();
-						file = artifact.getFile();
-
-					}
-					catch (ArtifactResolutionException e) {
-						log.warn("Plugin version " + newestVersion + " could not be found in repository. Checking the next lower version ...");
-					}
-				}
+			Artifact artifact = resolver.resolveNewestVersion(groupId, artifactId, "zip", withMirror(Collections.singletonList(repo)), isSnapshot, installedVersion);
+			if (artifact == null) {
+				// in case of no newer version, or of only snapshots in the maven repository vs. isSnapshot=false
+				return false;
 			}
-			update &= file != null;// in case of only snapshots in the maven repository vs. isSnapshot=false
-			/* if an update is possible/necessary, perform dependency collection and installation */
-			if (update) {
-				/* create list of necessary repositories */
-				Artifact pom = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getVersion());
-				artifactRequest.setArtifact(pom);
-				boolean pomReadingErrors = false;
-				try {
-					artifactResult = null;
-					artifactResult = mvnSystem.resolveArtifact(session, artifactRequest);
-				}
-				catch (ArtifactResolutionException e1) {
-					pomReadingErrors = true;
-				}
-				List<RemoteRepository> repoList = new ArrayList<>();
-				repoList.add(repos.get(CENTRAL_REPO));
-//				repoList.add(repos.get(SONATYPE_SNAPSHOTS_REPO));
-				repoList.add(repos.get(repositoryUrl));
-				if (artifactResult != null && artifactResult.getArtifact().getFile().exists()) {
-					try {
-						SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
-						saxParser.parse(artifactResult.getArtifact().getFile().getAbsolutePath(), new POMReader(repoList));
-					}
-					catch (SAXException | IOException | ParserConfigurationException e) {
-						pomReadingErrors = true;
-					}
-				}
-				if (pomReadingErrors) {
-					log.warn("Could not determine all relevant repositories, update might fail. Trying to continue ...");
-					repoList.add(repos.get(KORPLING_MAVEN_REPO));
-				}
 
-				/* remove older version */
-				if (installedBundle != null) {
-					try {
-						if (!atomicPepperOSGiConnector.remove(installedBundle.getSymbolicName())) {
-							log.warn("Could not remove older version. Update process aborted.");
-							return false;
-						}
-					}
-					catch (BundleException | IOException e) {
-						log.warn("An error occured while trying to remove OSGi bundle " + installedBundle.getSymbolicName() + ". This may cause update problems. Trying to continue ...");
-					}
-				}
+			/* create list of necessary repositories */
+			List<RemoteRepository> repoList = getRepositories(resolver, artifact, repositoryUrl);
 
-				/* utils for file-collection */
-				List<Artifact> installArtifacts = new ArrayList<>();
-				installArtifacts.add(artifact);
+			/* utils for dependency collection */
+			CollectResult collectResult = resolver.collectDependencies(artifact, repoList);
+			List<Dependency> allDependencies;
+			synchronized (this) {
+				allDependencies = getAllDependencies(collectResult.getRoot(), true);
+			}
 
-				/* utils for dependency collection */
-				CollectRequest collectRequest = new CollectRequest();
-				collectRequest.setRoot(new Dependency(artifact, ""));
-				collectRequest.setRepositories(repoList);
-				CollectResult collectResult = mvnSystem.collectDependencies(session, collectRequest);
-				List<Dependency> allDependencies = getAllDependencies(collectResult.getRoot(), true);
-
-				/*
-				 * we have to remove the dependencies of pepperParent from the dependency list, since they are (sometimes) not already on the blacklist
-				 */
-				String parentVersion = null;
-				for (int i = 0; i < allDependencies.size() && parentVersion == null; i++) {
-					if (ARTIFACT_ID_PEPPER_FRAMEWORK.equals(allDependencies.get(i).getArtifact().getArtifactId())) {
-						parentVersion = allDependencies.get(i).getArtifact().getVersion();
-					}
-				}
-				if (parentVersion == null) {
-					log.warn(artifactId + ": Could not perform update: pepper-parent version could not be determined.");
-					return false;
-				}
-				VersionRange range = isCompatiblePlugin(parentVersion);
-				if (!ignoreFrameworkVersion && range != null) {
-					log.info((new StringBuilder()).append("No update was performed because of a version incompatibility according to pepper-framework: ").append(newLine).append(artifactId).append(" only supports ").append(range.toString()).append(", but ").append(atomicPepperOSGiConnector.getFrameworkVersion()).append(" is installed!").append(newLine).append("You can make pepper ignore this by using \"update").append(isSnapshot ? " snapshot " : " ").append("iv ").append(artifactId).append("\"").toString());
-					return false;
+			/*
+			 * we have to remove the dependencies of pepperParent from the dependency list, since they are (sometimes) not already on the blacklist
+			 */
+			String parentVersion = null;
+			for (int i = 0; i < allDependencies.size() && parentVersion == null; i++) {
+				if (ARTIFACT_ID_PEPPER_FRAMEWORK.equals(allDependencies.get(i).getArtifact().getArtifactId())) {
+					parentVersion = allDependencies.get(i).getArtifact().getVersion();
 				}
-				allDependencies = cleanDependencies(allDependencies, session, parentVersion);
-				Bundle bundle = null;
-				Dependency dependency = null;
-				// in the following we ignore the first dependency (i=0), because it is the module itself
-				for (int i = 1; i < allDependencies.size(); i++) {
-					dependency = allDependencies.get(i);
-					if (!ARTIFACT_ID_PEPPER_FRAMEWORK.equals(dependency.getArtifact().getArtifactId())) {
-						artifactRequest = new ArtifactRequest();
-						artifactRequest.setArtifact(dependency.getArtifact());
-						artifactRequest.setRepositories(repoList);
-						try {
-							artifactResult = mvnSystem.resolveArtifact(session, artifactRequest);
-							installArtifacts.add(artifactResult.getArtifact());
-						}
-						catch (ArtifactResolutionException e) {
-							log.warn("Artifact " + dependency.getArtifact().getArtifactId() + " could not be resolved. Dependency will not be installed.");
-							if (!Boolean.parseBoolean(atomicPepperOSGiConnector.getPepperStarterConfiguration().getProperty("pepper.forceUpdate").toString())) {
-								log.error("Artifact ".concat(artifact.getArtifactId()).concat(" will not be installed. Resolution of dependency ").concat(dependency.getArtifact().getArtifactId()).concat(" failed and \"force update\" is disabled in pepper.properties."));
-								return false;
-							}
-						}
-					}
-				}
-				artifact = null;
-				Artifact installArtifact = null;
-				for (int i = installArtifacts.size() - 1; i >= 0; i--) {
+			}
+			if (parentVersion == null) {
+				log.warn(artifactId + ": Could not perform update: pepper-parent version could not be determined.");
+				return false;
+			}
+			VersionRange range = isCompatiblePlugin(parentVersion);
+			if (!ignoreFrameworkVersion && range != null) {
+				log.info((new StringBuilder()).append("No update was performed because of a version incompatibility according to pepper-framework: ").append(newLine).append(artifactId).append(" only supports ").append(range.toString()).append(", but ").append(atomicPepperOSGiConnector.getFrameworkVersion()).append(" is installed!").append(newLine).append("You can make pepper ignore this by using \"update").append(isSnapshot ? " snapshot " : " ").append("iv ").append(artifactId).append("\"").toString());
+				return false;
+			}
+			allDependencies = cleanDependencies(allDependencies, resolver, parentVersion);
+
+			/* utils for file-collection */
+			List<Artifact> installArtifacts = new ArrayList<>();
+			installArtifacts.add(artifact);
+			// in the following we ignore the first dependency (i=0), because it is the module itself
+			for (int i = 1; i < allDependencies.size(); i++) {
+				Dependency dependency = allDependencies.get(i);
+				if (!ARTIFACT_ID_PEPPER_FRAMEWORK.equals(dependency.getArtifact().getArtifactId())) {
 					try {
-						installArtifact = installArtifacts.get(i);
-						log.info("installing: " + installArtifact);
-						bundle = atomicPepperOSGiConnector.installAndCopy(installArtifact.getFile().toURI());
-						if (i != 0) {// the module itself must not be put on the blacklist
-							putOnBlacklist(installArtifact);
-						}
-						else if (installedBundle != null) {
-							atomicPepperOSGiConnector.remove(installedBundle.getSymbolicName());
-							log.info("Successfully removed version ".concat(installedBundle.getVersion().toString()).concat(" of ").concat(artifactId));
-						}
-						if (bundle != null) {
-							bundle.start();
-						}
+						installArtifacts.add(resolver.resolveArtifact(dependency.getArtifact(), repoList).getArtifact());
 					}
-					catch (IOException | BundleException e) {
-						if (log.isTraceEnabled()) {
-							log.trace("File could not be installed: " + installArtifact + " (" + installArtifact.getFile() + "); " + e.getClass().getSimpleName());
-						}
-						else {
-							log.warn("File could not be installed: " + installArtifact.getFile());
+					catch (ArtifactResolutionException e) {
+						log.warn("Artifact " + dependency.getArtifact().getArtifactId() + " could not be resolved. Dependency will not be installed.");
+						if (!Boolean.parseBoolean(atomicPepperOSGiConnector.getPepperStarterConfiguration().getProperty("pepper.forceUpdate").toString())) {
+							log.error("Artifact ".concat(artifact.getArtifactId()).concat(" will not be installed. Resolution of dependency ").concat(dependency.getArtifact().getArtifactId()).concat(" failed and \"force update\" is disabled in pepper.properties."));
+							return false;
 						}
 					}
 				}
-				/*
-				 * btw: root is not supposed to be stored as forbidden dependency. This makes the removal of a module much less complicated. If a pepper module would be put onto the blacklist and the bundle would be removed, we always had
-				 * to make sure, it its entry on the blacklist would be removed. Assuming the entry would remain on the blacklist, the module could be reinstalled, BUT(!) the dependencies would all be dropped and never being installed
-				 * again, since the modules node dominates all other nodes in the dependency tree.
-				 */
-				write2Blacklist();
 			}
+			return install(artifactId, installArtifacts, installedBundle);
 		}
 		catch (VersionRangeResolutionException | InvalidVersionSpecificationException | DependencyCollectionException e) {
 			if (e instanceof DependencyCollectionException) {
@@ -557,9 +448,95 @@ public class AtomicMavenAccessor {
 					}
 				}
 			}
-			update = false;
+			return false;
+		}
+	}
+
+	/**
+	 * Determines the repositories to resolve the dependencies of a module from, i.e., Maven Central, the module's
+	 * repository, and the repositories listed in the module's POM.
+	 */
+	private List<RemoteRepository> getRepositories(PepperModuleResolver resolver, Artifact artifact, String repositoryUrl) {
+		Artifact pom = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getVersion());
+		boolean pomReadingErrors = false;
+		ArtifactResult artifactResult = null;
+		try {
+			artifactResult = resolver.resolveArtifact(pom, withMirror(Collections.singletonList(repos.get(repositoryUrl))));
+		}
+		catch (ArtifactResolutionException e1) {
+			pomReadingErrors = true;
+		}
+		List<RemoteRepository> repoList = withMirror(new ArrayList<RemoteRepository>());
+		repoList.add(repos.get(CENTRAL_REPO));
+//		repoList.add(repos.get(SONATYPE_SNAPSHOTS_REPO));
+		repoList.add(repos.get(repositoryUrl));
+		if (artifactResult != null && artifactResult.getArtifact().getFile().exists()) {
+			try {
+				SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+				saxParser.parse(artifactResult.getArtifact().getFile().getAbsolutePath(), new POMReader(repoList));
+			}
+			catch (SAXException | IOException | ParserConfigurationException e) {
+				pomReadingErrors = true;
+			}
+		}
+		if (pomReadingErrors) {
+			log.warn("Could not determine all relevant repositories, update might fail. Trying to continue ...");
+			repoList.add(repos.get(KORPLING_MAVEN_REPO));
+		}
+		return repoList;
+	}
+
+	/**
+	 * Installs the resolved artifacts of a module, the module itself being the first, and replaces the installed version
+	 * of the module.
+	 */
+	private synchronized boolean install(String artifactId, List<Artifact> installArtifacts, Bundle installedBundle) {
+		/* remove older version */
+		if (installedBundle != null) {
+			try {
+				if (!atomicPepperOSGiConnector.remove(installedBundle.getSymbolicName())) {
+					log.warn("Could not remove older version. Update process aborted.");
+					return false;
+				}
+			}
+			catch (BundleException | IOException e) {
+				log.warn("An error occured while trying to remove OSGi bundle " + installedBundle.getSymbolicName() + ". This may cause update problems. Trying to continue ...");
+			}
+		}
+		Bundle bundle = null;
+		Artifact installArtifact = null;
+		for (int i = installArtifacts.size() - 1; i >= 0; i--) {
+			try {
+				installArtifact = installArtifacts.get(i);
+				log.info("installing: " + installArtifact);
+				bundle = atomicPepperOSGiConnector.installAndCopy(installArtifact.getFile().toURI());
+				if (i != 0) {// the module itself must not be put on the blacklist
+					putOnBlacklist(installArtifact);
+				}
+				else if (installedBundle != null) {
+					atomicPepperOSGiConnector.remove(installedBundle.getSymbolicName());
+					log.info("Successfully removed version ".concat(installedBundle.getVersion().toString()).concat(" of ").concat(artifactId));
+				}
+				if (bundle != null) {
+					bundle.start();
+				}
+			}
+			catch (IOException | BundleException e) {
+				if (log.isTraceEnabled()) {
+					log.trace("File could not be installed: " + installArtifact + " (" + installArtifact.getFile() + "); " + e.getClass().getSimpleName());
+				}
+				else {
+					log.warn("File could not be installed: " + installArtifact.getFile());
+				}
+			}
 		}
-		return update;
+		/*
+		 * btw: root is not supposed to be stored as forbidden dependency. This makes the removal of a module much less complicated. If a pepper module would be put onto the blacklist and the bundle would be removed, we always had
+		 * to make sure, it its entry on the blacklist would be removed. Assuming the entry would remain on the blacklist, the module could be reinstalled, BUT(!) the dependencies would all be dropped and never being installed
+		 * again, since the modules node dominates all other nodes in the dependency tree.
+		 */
+		write2Blacklist();
+		return true;
 	}
 
 	private VersionRange isCompatiblePlugin(String pluginFrameworkVersion) {
@@ -592,8 +569,7 @@ public class AtomicMavenAccessor {
 			boolean isFramework = ARTIFACT_ID_PEPPER_FRAMEWORK.equals(node.getArtifact().getArtifactId());
 			boolean isSalt = node.getArtifact().getArtifactId().contains("salt-");
 			if ((isFramework && !skipFramework) || (!isFramework && !isSalt)) {
-				String blackListLine = getBlackListString(node.getArtifact());
-				if (blackListLine != null && blackListLine.split(DELIMITER)[4].equals(STATUS.FINAL.toString())) {// dependency already installed AND singleton
+				if (forbiddenFruits.getStatus(node.getArtifact()) == Status.FINAL) {// dependency already installed AND singleton
 					// do nothing at the Moment (TODO-> maybe implement a version range check, that enables an exchange of singletons)
 				}
 				else {// dependency not installed yet or not singleton
@@ -614,59 +590,31 @@ public class AtomicMavenAccessor {
 	}
 
 	private void putOnBlacklist(Artifact artifact) {
-		if (getBlackListString(artifact) == null) {// for safety reasons (future use of this method, etc) we do the check
+		if (forbiddenFruits.get(artifact) == null) {// for safety reasons (future use of this method, etc) we do the check
 			Bundle bundle = atomicPepperOSGiConnector.getBundle(artifact.getGroupId(), artifact.getArtifactId(), null);
-			STATUS status = bundle == null || !atomicPepperOSGiConnector.isSingleton(bundle) ? STATUS.OVERRIDABLE : STATUS.FINAL;
-			forbiddenFruits.add(artifact.toString().concat(DELIMITER).concat(status.toString()).concat(DELIMITER).concat(bundle == null ? "" : bundle.getSymbolicName()));
+			Status status = bundle == null || !atomicPepperOSGiConnector.isSingleton(bundle) ? Status.OVERRIDABLE : Status.FINAL;
+			forbiddenFruits.add(artifact, status, bundle == null ? null : bundle.getSymbolicName());
 			log.debug("Put dependency on blacklist: ".concat(artifact.toString()));
 		}
 	}
 
-	private String getBlackListString(Artifact artifact) {
-		String as = artifact.toString().substring(0, artifact.toString().lastIndexOf(DELIMITER.charAt(0)));
-		for (String artifactString : forbiddenFruits) {
-			if (artifactString.startsWith(as)) {
-				return artifactString;
-			}
-		}
-		return null;
-	}
-
 	/**
-	 * writes the old, freshly installed and forbidden dependencies to the blacklist file.
+	 * appends the freshly installed and forbidden dependencies to the blacklist file.
 	 */
 	private void write2Blacklist() {
-		File blacklistFile = new File(BLACKLIST_PATH);
-		if (!blacklistFile.exists()) {
-			blacklistFile.getParentFile().mkdirs();
-		}
-		try {
-			blacklistFile.createNewFile();
-			PrintWriter fW = new PrintWriter(blacklistFile);
-			BufferedWriter bW = new BufferedWriter(fW);
-			for (String s : forbiddenFruits) {
-				bW.write(s);
-				bW.newLine();
-			}
-			bW.close();
-			fW.close();
-		}
-		catch (IOException e) {
-			log.debug("Could not write blacklist file.");
-		}
-
+		forbiddenFruits.flush();
 	}
 
 	/**
 	 * @returns the Blacklist of already installed or forbidden dependencies
 	 */
-	public String getBlacklist() {
+	public synchronized String getBlacklist() {
 		String lineSeparator = System.getProperty("line.separator");
 		String indent = "\t";
 		StringBuilder retVal = (new StringBuilder()).append(lineSeparator);
 		retVal.append(indent).append("installed dependencies:").append(lineSeparator).append(lineSeparator);
-		for (String s : forbiddenFruits) {
-			retVal.append(indent).append(s).append(lineSeparator);
+		for (DependencyBlacklist.Entry entry : forbiddenFruits.getEntries()) {
+			retVal.append(indent).append(entry).append(lineSeparator);
 		}
 		return retVal.toString();
 	}
@@ -675,72 +623,60 @@ public class AtomicMavenAccessor {
 	 * This method cleans the dependencies, i.e. dependencies inherited from pepperParent as direct dependencies are removed.
 	 * 
 	 * @param dependencies
-	 * @param session
+	 * @param resolver
 	 * @param parentVersion
 	 * @return
 	 */
-	private List<Dependency> cleanDependencies(List<Dependency> dependencies, RepositorySystemSession session, String parentVersion) {
+	private List<Dependency> cleanDependencies(List<Dependency> dependencies, PepperModuleResolver resolver, String parentVersion) {
+		final List<Dependency> parentDeps;
 		try {
-			final List<Dependency> parentDeps;
-			List<Dependency> checkList = parentDependencies.get(parentVersion.replace("-SNAPSHOT", ""));
-			if (checkList == null) {
-				CollectRequest collectRequest = new CollectRequest();
-				collectRequest.setRoot(new Dependency(new DefaultArtifact("org.corpus-tools", ARTIFACT_ID_PEPPER_PARENT, "pom", parentVersion), ""));
-				collectRequest.addRepository(repos.get(CENTRAL_REPO));
-//				collectRequest.addRepository(repos.get(KORPLING_MAVEN_REPO));
-				collectRequest.addRepository(repos.get(SONATYPE_SNAPSHOTS_REPO));
-				CollectResult collectResult;
-				collectResult = mvnSystem.collectDependencies(session, collectRequest);
-				parentDeps = getAllDependencies(collectResult.getRoot(), false);
-				parentDependencies.put(parentVersion.replace("-SNAPSHOT", ""), parentDeps);
-			}
-			else {
-				parentDeps = checkList;
-			}
-			Iterator<Dependency> itDeps = parentDeps.iterator();
-			Dependency next = itDeps.next();
-			while (!ARTIFACT_ID_PEPPER_FRAMEWORK.equals(next.getArtifact().getArtifactId()) && itDeps.hasNext()) {
-				next = itDeps.next();
-			}
-			itDeps = null;
-			int j = 0;
+			parentDeps = getParentDependencies(resolver, parentVersion);
+		}
+		catch (DependencyCollectionException e) {
+			log.warn("Could not collect dependencies for parent. No dependencies will be installed.");
+			return new ArrayList<>();
+		}
+		Set<String> parentArtifactIds = new HashSet<>();
+		for (Dependency parentDep : parentDeps) {
+			parentArtifactIds.add(parentDep.getArtifact().getArtifactId());
+		}
+		synchronized (this) {
 			List<Dependency> newDeps = new ArrayList<>();
-			STATUS status = null;
-			for (int i = 0; i < dependencies.size(); i++) {
-				j = 0;
-				next = dependencies.get(i);
-				status = getDependencyStatus(next.toString());
-				while (j < parentDeps.size() && !(next.getArtifact().getArtifactId().equals(parentDeps.get(j).getArtifact().getArtifactId()) || STATUS.OVERRIDABLE.equals(status))) {
-					j++;
-				}
-				if (j == parentDeps.size() || STATUS.OVERRIDABLE.equals(status)) {
+			for (Dependency next : dependencies) {
+				if (!parentArtifactIds.contains(next.getArtifact().getArtifactId()) || Status.OVERRIDABLE.equals(forbiddenFruits.getStatus(next.getArtifact()))) {
 					newDeps.add(next);
 				}
 				else {
-					forbiddenFruits.add(next.getArtifact().toString() + DELIMITER + STATUS.FINAL);
+					forbiddenFruits.add(next.getArtifact(), Status.FINAL, null);
 					log.debug("The following dependency was put on blacklist, because it equals a parent dependency: " + next.getArtifact().toString());
 				}
 			}
 			return newDeps;
 		}
-		catch (DependencyCollectionException e) {
-			log.warn("Could not collect dependencies for parent. No dependencies will be installed.");
-		}
-		ArrayList<Dependency> retVal = new ArrayList<>();
-		return retVal;
 	}
 
-	private STATUS getDependencyStatus(String dependencyString) {
-		dependencyString = dependencyString.substring(0, dependencyString.lastIndexOf(':'));
-		for (String fruit : forbiddenFruits) {
-			if (fruit.startsWith(dependencyString)) {
-				if (fruit.split(DELIMITER)[4].equals(STATUS.FINAL.toString())) {
-					return STATUS.FINAL;
+	/**
+	 * Returns the dependencies of pepperParent in the given version, collecting them once per version.
+	 */
+	private List<Dependency> getParentDependencies(PepperModuleResolver resolver, String parentVersion) throws DependencyCollectionException {
+		String key = parentVersion.replace("-SNAPSHOT", "");
+		List<Dependency> parentDeps = parentDependencies.get(key);
+		if (parentDeps == null) {
+			Artifact parent = new DefaultArtifact("org.corpus-tools", ARTIFACT_ID_PEPPER_PARENT, "pom", parentVersion);
+			List<RemoteRepository> repoList = withMirror(new ArrayList<RemoteRepository>());
+			repoList.add(repos.get(CENTRAL_REPO));
+//			repoList.add(repos.get(KORPLING_MAVEN_REPO));
+			repoList.add(repos.get(SONATYPE_SNAPSHOTS_REPO));
+			CollectResult collectResult = resolver.collectDependencies(parent, repoList);
+			synchronized (this) {
+				parentDeps = parentDependencies.get(key);
+				if (parentDeps == null) {
+					parentDeps = getAllDependencies(collectResult.getRoot(), false);
+					parentDependencies.put(key, parentDeps);
 				}
-				return STATUS.OVERRIDABLE;
 			}
 		}
-		return null;
+		return parentDeps;
 	}
 
 	/**
@@ -750,7 +686,7 @@ public class AtomicMavenAccessor {
 	 * @param url
 	 * @return
 	 */
-	private RemoteRepository getRepo(String id, String url) {
+	private synchronized RemoteRepository getRepo(String id, String url) {
 		RemoteRepository repo = repos.get(url);
 		if (repo == null) {
 			repoBuilder.setId(id);
@@ -780,6 +716,7 @@ public class AtomicMavenAccessor {
 		if (version == null) {
 			VersionRangeRequest request = new VersionRangeRequest();
 			request.setArtifact(artifact);
+			request.setRepositories(withMirror(new ArrayList<RemoteRepository>()));
 			if (repositoryUrl == null) {
 				request.addRepository(repos.get(CENTRAL_REPO));
 				request.addRepository(repos.get(SONATYPE_SNAPSHOTS_REPO));
@@ -797,6 +734,7 @@ public class AtomicMavenAccessor {
 		}
 		CollectRequest collectRequest = new CollectRequest();
 		collectRequest.setRoot(new Dependency(artifact, ""));
+		collectRequest.setRepositories(withMirror(new ArrayList<RemoteRepository>()));
 		if (repositoryUrl == null) {
 			collectRequest.addRepository(repos.get(CENTRAL_REPO));
 		}
@@ -829,13 +767,11 @@ public class AtomicMavenAccessor {
 	/**
 	 * This method tries to determine maven project coordinates from a bundle id to invoke {@link #printDependencies(String, String, String, String)}.
 	 */
-	protected String printDependencies(Bundle bundle) { // NO UCD (unused code)
-		String[] coords = null;
-		for (String s : forbiddenFruits) {
-			coords = s.split(DELIMITER);
-			if (bundle != null && coords.length == 6 && coords[5].equals(bundle.getSymbolicName())) {
-				return printDependencies(coords[0], coords[1], coords[3].replace(".SNAPSHOT", "-SNAPSHOT"), null);
-			}
+	protected synchronized String printDependencies(Bundle bundle) { // NO UCD (unused code)
+		DependencyBlacklist.Entry entry = bundle == null ? null : forbiddenFruits.getByBundle(bundle.getSymbolicName());
+		if (entry != null) {
+			Artifact artifact = entry.getArtifact();
+			return printDependencies(artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion().replace(".SNAPSHOT", "-SNAPSHOT"), null);
 		}
 		// maven coordinates could not be determined, assume, we talk about a pepper plugin:
 		return printDependencies(bundle.getSymbolicName().substring(0, bundle.getSymbolicName().lastIndexOf('.')), bundle.getSymbolicName().substring(bundle.getSymbolicName().lastIndexOf('.') + 1), bundle.getVersion().toString(), KORPLING_MAVEN_REPO);
@@ -57,6 +57,15 @@ public class AtomicPepperConfiguration extends PepperConfiguration {
 	/** Folder containing configuration files for Pepper */
 	public static final String FOLDER_PEPPER_CONF = "configuration";
 	
+	/** Path of a file-system Maven repository which is asked for Pepper modules before any remote repository */
+	public static final String PROP_UPDATE_MIRROR = "pepper.update.mirror";
+	/** Whether remote Maven repositories are asked for Pepper modules, defaults to <code>true</code> unless a mirror is configured */
+	public static final String PROP_UPDATE_REMOTE = "pepper.update.remote";
+	/** The time in minutes for which Maven metadata, e.g., lists of versions, is cached before it is checked again */
+	public static final String PROP_UPDATE_METADATA_TTL = "pepper.update.metadataTTL";
+	/** The default of {@link #PROP_UPDATE_METADATA_TTL}, i.e., one day */
+	public static final int DEFAULT_UPDATE_METADATA_TTL = 24 * 60;
+	
 
 	/**
 	 * Loads the "pepper.properties" file via the 
@@ -142,6 +151,62 @@ public class AtomicPepperConfiguration extends PepperConfiguration {
 		return (tmpFolder);
 	}
 
+	/**
+	 * Returns the file-system Maven repository which is asked for
+	 * Pepper modules and their dependencies first, as configured by
+	 * {@link #PROP_UPDATE_MIRROR}. Relative paths are resolved against
+	 * the Atomic home folder.
+	 * 
+	 * @return the mirror folder, or <code>null</code> if no mirror is configured
+	 */
+	public File getUpdateMirror() {
+		String mirror = getProperty(PROP_UPDATE_MIRROR);
+		if (mirror == null || mirror.trim().isEmpty()) {
+			return null;
+		}
+		File mirrorFolder = new File(mirror.trim());
+		if (!mirrorFolder.isAbsolute()) {
+			mirrorFolder = new File(findAtomicHome(), mirror.trim());
+		}
+		return mirrorFolder;
+	}
+
+	/**
+	 * Returns whether remote Maven repositories are asked for Pepper
+	 * modules, as configured by {@link #PROP_UPDATE_REMOTE}. Remote
+	 * repositories are asked by default, unless a mirror is configured
+	 * (cf. {@link #getUpdateMirror()}).
+	 * 
+	 * @return whether remote repositories are asked
+	 */
+	public boolean isRemoteUpdateEnabled() {
+		String remote = getProperty(PROP_UPDATE_REMOTE);
+		if (remote == null || remote.trim().isEmpty()) {
+			return getUpdateMirror() == null;
+		}
+		return Boolean.parseBoolean(remote.trim());
+	}
+
+	/**
+	 * Returns the time for which Maven metadata is cached in the local
+	 * repository before remote repositories are checked again, as
+	 * configured by {@link #PROP_UPDATE_METADATA_TTL}.
+	 * 
+	 * @return the time to live in minutes
+	 */
+	public int getUpdateMetadataTTL() {
+		String ttl = getProperty(PROP_UPDATE_METADATA_TTL);
+		if (ttl != null) {
+			try {
+				return Math.max(0, Integer.parseInt(ttl.trim()));
+			}
+			catch (NumberFormatException e) {
+				log.warn("Invalid value {} for {}, using the default of {} minutes.", ttl, PROP_UPDATE_METADATA_TTL, DEFAULT_UPDATE_METADATA_TTL);
+			}
+		}
+		return DEFAULT_UPDATE_METADATA_TTL;
+	}
+
 	/**
 	 * Returns the content of property {@link #PROP_OSGI_SHAREDPACKAGES}.
 	 * 
@@ -235,6 +235,25 @@ public class AtomicPepperOSGiConnector extends PepperOSGiConnector {
 	public boolean update(String groupId, String artifactId, String repositoryUrl, boolean isSnapshot, boolean ignoreFrameworkVersion) {
 		return maven.update(groupId, artifactId, repositoryUrl, isSnapshot, ignoreFrameworkVersion, getBundle(groupId, artifactId, null));
 	}
+
+	/**
+	 * Starts an update run, during which updates may be performed
+	 * concurrently, and share the results of dependency resolution.
+	 *
+	 * @see AtomicMavenAccessor#beginUpdateRun()
+	 */
+	public void beginUpdateRun() {
+		maven.beginUpdateRun();
+	}
+
+	/**
+	 * Ends the current update run.
+	 *
+	 * @see AtomicMavenAccessor#endUpdateRun()
+	 */
+	public void endUpdateRun() {
+		maven.endUpdateRun();
+	}
 	
 	/**
 	 * Installs the given bundle and copies it to the plugin path, but does not
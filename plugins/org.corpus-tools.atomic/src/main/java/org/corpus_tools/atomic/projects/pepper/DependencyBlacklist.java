@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.VersionConstraint;
+import org.eclipse.aether.version.VersionScheme;
+
+/**
+ * The blacklist of dependencies which are installed already, or must not
+ * be installed, when Pepper modules are updated.
+ * <p>
+ * Entries are indexed by groupId:artifactId, so that the entries of a
+ * dependency are looked up without iterating over the whole list, and can
+ * be matched against a version constraint, e.g., a version range. The list
+ * is persisted in a file, one entry per line, in the format
+ * <code>groupId:artifactId:extension[:classifier]:version:STATUS[:bundleSymbolicName]</code>.
+ * The file is append-only: entries added via
+ * {@link #add(Artifact, Status, String)} are appended to it by
+ * {@link #flush()}, instead of rewriting the file.
+ * </p>
+ * <p>
+ * This class is not thread-safe, its clients must synchronize access to it.
+ * </p>
+ *
+ */
+public class DependencyBlacklist {
+
+	private static final Logger log = LogManager.getLogger(DependencyBlacklist.class);
+
+	/** delimiter for artifact strings */
+	private static final String DELIMITER = ":";
+
+	/**
+	 * The status of a blacklisted dependency. A FINAL dependency, i.e., a
+	 * singleton bundle, can not be overridden.
+	 */
+	public static enum Status {
+		OVERRIDABLE, FINAL;
+	}
+
+	private final File file;
+	private final VersionScheme versionScheme = new GenericVersionScheme();
+	/** the entries by groupId:artifactId, in the order in which they have been added */
+	private final Map<String, List<Entry>> entries = new LinkedHashMap<>();
+	private final Map<String, Entry> bundles = new HashMap<>();
+	private final List<Entry> pending = new ArrayList<>();
+	private int size = 0;
+
+	/**
+	 * Creates a blacklist persisted in the given file, and reads its
+	 * entries if the file exists.
+	 *
+	 * @param file the blacklist file
+	 */
+	public DependencyBlacklist(File file) {
+		this.file = file;
+		if (file.exists()) {
+			load();
+		}
+	}
+
+	private void load() {
+		int duplicates = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8))) {
+			String line = reader.readLine();
+			while (line != null) {
+				Entry entry = Entry.parse(line.trim());
+				if (entry == null) {
+					log.debug("Ignoring invalid blacklist entry \"{}\".", line);
+				}
+				else if (!index(entry)) {
+					duplicates++;
+				}
+				line = reader.readLine();
+			}
+		}
+		catch (IOException e) {
+			log.debug("Could not read blacklist file.", e);
+		}
+		if (duplicates > 0) {
+			// Files written by earlier versions may contain several entries per artifact
+			compact();
+		}
+	}
+
+	/**
+	 * Adds a dependency to the blacklist, unless the same version of the
+	 * dependency is on the blacklist already. The entry is persisted with
+	 * the next call to {@link #flush()}.
+	 *
+	 * @param artifact the dependency
+	 * @param status the status of the dependency
+	 * @param bundleSymbolicName the symbolic name of the dependency's bundle,
+	 *            or <code>null</code> if unknown
+	 * @return whether the dependency has been added
+	 */
+	public boolean add(Artifact artifact, Status status, String bundleSymbolicName) {
+		Entry entry = new Entry(artifact, status, bundleSymbolicName);
+		if (index(entry)) {
+			pending.add(entry);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean index(Entry entry) {
+		String key = key(entry.getArtifact().getGroupId(), entry.getArtifact().getArtifactId());
+		List<Entry> versions = entries.get(key);
+		if (versions == null) {
+			versions = new ArrayList<>(1);
+			entries.put(key, versions);
+		}
+		for (Entry existing : versions) {
+			if (existing.getArtifact().getVersion().equals(entry.getArtifact().getVersion())) {
+				return false;
+			}
+		}
+		versions.add(entry);
+		if (entry.getBundleSymbolicName() != null && !bundles.containsKey(entry.getBundleSymbolicName())) {
+			bundles.put(entry.getBundleSymbolicName(), entry);
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * Appends the entries added since the last call to the file.
+	 */
+	public void flush() {
+		if (pending.isEmpty() && file.exists()) {
+			return;
+		}
+		try {
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8))) {
+				for (Entry entry : pending) {
+					writer.write(entry.toString());
+					writer.newLine();
+				}
+			}
+			pending.clear();
+		}
+		catch (IOException e) {
+			log.debug("Could not write blacklist file.", e);
+		}
+	}
+
+	/**
+	 * Rewrites the file with exactly one line per entry.
+	 */
+	public void compact() {
+		try {
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+				for (Entry entry : getEntries()) {
+					writer.write(entry.toString());
+					writer.newLine();
+				}
+			}
+			pending.clear();
+		}
+		catch (IOException e) {
+			log.debug("Could not write blacklist file.", e);
+		}
+	}
+
+	/**
+	 * @param groupId the group id
+	 * @param artifactId the artifact id
+	 * @return the entries for all versions of the dependency, in the order
+	 *         in which they have been added
+	 */
+	public List<Entry> get(String groupId, String artifactId) {
+		List<Entry> versions = entries.get(key(groupId, artifactId));
+		return versions == null ? Collections.<Entry>emptyList() : Collections.unmodifiableList(versions);
+	}
+
+	/**
+	 * @param groupId the group id
+	 * @param artifactId the artifact id
+	 * @param constraint a version constraint, e.g., "[1.0,2.0)" or "1.2.3"
+	 * @return the entries for the versions of the dependency which satisfy
+	 *         the constraint
+	 * @throws InvalidVersionSpecificationException if the constraint is
+	 *             invalid
+	 */
+	public List<Entry> get(String groupId, String artifactId, String constraint) throws InvalidVersionSpecificationException {
+		List<Entry> versions = get(groupId, artifactId);
+		if (versions.isEmpty()) {
+			return versions;
+		}
+		VersionConstraint versionConstraint = versionScheme.parseVersionConstraint(constraint);
+		List<Entry> matches = new ArrayList<>();
+		for (Entry entry : versions) {
+			if (versionConstraint.containsVersion(versionScheme.parseVersion(entry.getArtifact().getVersion()))) {
+				matches.add(entry);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @param artifact a dependency
+	 * @return the first entry for any version of the dependency, or
+	 *         <code>null</code> if it is not on the blacklist
+	 */
+	public Entry get(Artifact artifact) {
+		List<Entry> versions = entries.get(key(artifact.getGroupId(), artifact.getArtifactId()));
+		return versions == null || versions.isEmpty() ? null : versions.get(0);
+	}
+
+	/**
+	 * @param artifact a dependency
+	 * @return {@link Status#FINAL} if any version of the dependency is
+	 *         final, {@link Status#OVERRIDABLE} if it is on the blacklist
+	 *         otherwise, and <code>null</code> if it is not on the blacklist
+	 */
+	public Status getStatus(Artifact artifact) {
+		List<Entry> versions = entries.get(key(artifact.getGroupId(), artifact.getArtifactId()));
+		if (versions == null || versions.isEmpty()) {
+			return null;
+		}
+		for (Entry entry : versions) {
+			if (entry.getStatus() == Status.FINAL) {
+				return Status.FINAL;
+			}
+		}
+		return Status.OVERRIDABLE;
+	}
+
+	/**
+	 * @param bundleSymbolicName the symbolic name of a bundle
+	 * @return the entry of the dependency installed as the bundle, or
+	 *         <code>null</code> if there is none
+	 */
+	public Entry getByBundle(String bundleSymbolicName) {
+		return bundles.get(bundleSymbolicName);
+	}
+
+	/**
+	 * @return all entries
+	 */
+	public List<Entry> getEntries() {
+		List<Entry> all = new ArrayList<>(size);
+		for (List<Entry> versions : entries.values()) {
+			all.addAll(versions);
+		}
+		return all;
+	}
+
+	/**
+	 * @return whether the blacklist is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static String key(String groupId, String artifactId) {
+		return groupId + DELIMITER + artifactId;
+	}
+
+	/**
+	 * A blacklisted version of a dependency.
+	 */
+	public static final class Entry {
+
+		private final Artifact artifact;
+		private final Status status;
+		private final String bundleSymbolicName;
+
+		private Entry(Artifact artifact, Status status, String bundleSymbolicName) {
+			this.artifact = artifact;
+			this.status = status;
+			this.bundleSymbolicName = bundleSymbolicName == null || bundleSymbolicName.isEmpty() ? null : bundleSymbolicName;
+		}
+
+		/**
+		 * Parses a line of the blacklist file.
+		 *
+		 * @param line the line
+		 * @return the entry, or <code>null</code> if the line is invalid
+		 */
+		static Entry parse(String line) {
+			String[] parts = line.split(DELIMITER, -1);
+			// groupId:artifactId:extension[:classifier]:version:STATUS[:bundleSymbolicName]
+			for (int i = 4; i <= 5 && i < parts.length; i++) {
+				Status status = parseStatus(parts[i]);
+				if (status != null) {
+					String classifier = i == 5 ? parts[3] : "";
+					Artifact artifact = new DefaultArtifact(parts[0], parts[1], classifier, parts[2], parts[i - 1]);
+					return new Entry(artifact, status, parts.length > i + 1 ? parts[i + 1] : null);
+				}
+			}
+			return null;
+		}
+
+		private static Status parseStatus(String status) {
+			for (Status value : Status.values()) {
+				if (value.name().equals(status)) {
+					return value;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return the blacklisted dependency
+		 */
+		public Artifact getArtifact() {
+			return artifact;
+		}
+
+		/**
+		 * @return the status of the dependency
+		 */
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return the symbolic name of the dependency's bundle, or
+		 *         <code>null</code> if unknown
+		 */
+		public String getBundleSymbolicName() {
+			return bundleSymbolicName;
+		}
+
+		/**
+		 * @return the entry in the format of the blacklist file
+		 */
+		@Override
+		public String toString() {
+			StringBuilder line = new StringBuilder(artifact.toString()).append(DELIMITER).append(status);
+			if (bundleSymbolicName != null) {
+				line.append(DELIMITER).append(bundleSymbolicName);
+			}
+			return line.toString();
+		}
+	}
+
+}
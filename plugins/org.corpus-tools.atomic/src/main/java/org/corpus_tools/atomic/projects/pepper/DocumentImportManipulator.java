@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import org.corpus_tools.atomic.api.events.DocumentImportNotifier;
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.core.Step;
+import org.corpus_tools.pepper.impl.PepperManipulatorImpl;
+import org.corpus_tools.pepper.impl.PepperMapperImpl;
+import org.corpus_tools.pepper.modules.PepperMapper;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.graph.Identifier;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * A Pepper manipulator which passes each document of an import to the
+ * {@link DocumentImportNotifier}, and leaves it unchanged. It runs between
+ * the importer and the SaltXML exporter, i.e., while the document graph is
+ * still in memory.
+ * <p>
+ * The manipulator is not registered as an OSGi service, but added to a
+ * single job via {@link #createStep(IProject)}.
+ * </p>
+ *
+ */
+public final class DocumentImportManipulator extends PepperManipulatorImpl {
+
+	private static final String NAME = "AtomicDocumentImportManipulator";
+
+	private final IProject project;
+
+	private DocumentImportManipulator(IProject project) {
+		super(NAME);
+		this.project = project;
+		setVersion("1.0.0");
+		setDesc("Passes imported documents to Atomic while they are in memory.");
+	}
+
+	/**
+	 * @param project the project the documents are imported into
+	 * @return a step running a new manipulator for the project
+	 */
+	public static Step createStep(IProject project) {
+		Step step = new Step(NAME + "-" + project.getName());
+		step.setPepperModule(new DocumentImportManipulator(project));
+		return step;
+	}
+
+	/*
+	 * @copydoc @see org.corpus_tools.pepper.impl.PepperModuleImpl#createPepperMapper(org.corpus_tools.salt.graph.Identifier)
+	 */
+	@Override
+	public PepperMapper createPepperMapper(Identifier id) {
+		return new PepperMapperImpl() {
+			@Override
+			public DOCUMENT_STATUS mapSDocument() {
+				SDocument document = getDocument();
+				if (document != null && document.getDocumentGraph() != null) {
+					DocumentImportNotifier.getInstance().fireDocumentImported(project, document.getDocumentGraph());
+				}
+				return DOCUMENT_STATUS.COMPLETED;
+			}
+
+			@Override
+			public DOCUMENT_STATUS mapSCorpus() {
+				return DOCUMENT_STATUS.COMPLETED;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.common.JOB_STATUS;
+import org.corpus_tools.pepper.common.PepperJob;
+import org.corpus_tools.pepper.core.PepperJobImpl;
+import org.corpus_tools.pepper.modules.DocumentController;
+import org.corpus_tools.pepper.modules.ModuleController;
+import org.corpus_tools.pepper.modules.PepperModule;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Reports the progress of a running {@link PepperJob} to a
+ * {@link SubMonitor}.
+ * <p>
+ * Pepper does not notify clients of its progress, so the job is polled
+ * via {@link #update()}. Once the job knows its documents, the monitor's
+ * work is the number of documents, including the partial progress of the
+ * documents in progress, and its sub task shows the number of converted
+ * documents, the throughput and the estimated remaining time. Before,
+ * the sub task shows the job's status.
+ * </p>
+ * <p>
+ * The processing time of each document is logged on level DEBUG when it
+ * has been processed. {@link #done()} logs a summary on level INFO,
+ * including the slowest documents, and the time spent in each module.
+ * The time per module is sampled from the modules which are processing a
+ * document whenever the job is polled.
+ * </p>
+ *
+ */
+class PepperJobProgress {
+
+	private static final Logger log = LogManager.getLogger(PepperJobProgress.class);
+
+	/**
+	 * The number of ticks per document, so that partial progress can be
+	 * reported.
+	 */
+	private static final int TICKS_PER_DOCUMENT = 100;
+
+	/**
+	 * The number of slowest documents listed in the summary.
+	 */
+	private static final int SLOWEST_DOCUMENTS = 5;
+
+	private final PepperJob job;
+	private final String name;
+	private final SubMonitor progress;
+	private final long start = System.currentTimeMillis();
+
+	private final Map<String, Long> finishedDocuments = new HashMap<>();
+	private final Map<String, Long> moduleMillis = new HashMap<>();
+	private int failedDocuments = 0;
+	private int documentCount = 0;
+	private long reportedTicks = 0;
+	private long lastUpdate = start;
+
+	/**
+	 * @param job the job to report the progress of
+	 * @param name the name of the job, used in logs
+	 * @param progress the monitor to report to, which is owned by the bridge
+	 *            from now on
+	 */
+	PepperJobProgress(PepperJob job, String name, SubMonitor progress) {
+		this.job = job;
+		this.name = name;
+		this.progress = progress;
+	}
+
+	/**
+	 * Polls the job's status and reports the progress made since the last
+	 * call.
+	 */
+	void update() {
+		long now = System.currentTimeMillis();
+		List<DocumentController> documents = getDocuments();
+		if (documents.isEmpty()) {
+			JOB_STATUS status = job.getStatus();
+			progress.subTask(status == null ? "Starting..." : status.toString());
+			lastUpdate = now;
+			return;
+		}
+		long ticks = 0;
+		for (DocumentController document : documents) {
+			DOCUMENT_STATUS status = document.getGlobalStatus();
+			if (status == DOCUMENT_STATUS.COMPLETED || status == DOCUMENT_STATUS.DELETED || status == DOCUMENT_STATUS.FAILED) {
+				documentFinished(document, status);
+				ticks += TICKS_PER_DOCUMENT;
+			}
+			else if (status == DOCUMENT_STATUS.IN_PROGRESS) {
+				ticks += Math.round(Math.max(0, Math.min(1, document.getProgress())) * TICKS_PER_DOCUMENT);
+				sampleModule(document.getCurrentModuleController(), now - lastUpdate);
+			}
+		}
+		if (documents.size() != documentCount) {
+			// Documents are known once the corpus structure has been imported
+			documentCount = documents.size();
+			progress.setWorkRemaining((int) ((long) documentCount * TICKS_PER_DOCUMENT - reportedTicks));
+		}
+		if (ticks > reportedTicks) {
+			progress.worked((int) (ticks - reportedTicks));
+			reportedTicks = ticks;
+		}
+		progress.subTask(getProgressMessage(now));
+		lastUpdate = now;
+	}
+
+	/**
+	 * Reports the remaining progress, and logs a summary of the job.
+	 */
+	void done() {
+		update();
+		progress.done();
+		long millis = System.currentTimeMillis() - start;
+		log.info("Pepper job \"{}\" ended with status {}: {} of {} documents converted, {} failed, in {} s ({}).", name, job.getStatus(), finishedDocuments.size() - failedDocuments, documentCount, failedDocuments, millis / 1000, getThroughput(millis));
+		if (!finishedDocuments.isEmpty()) {
+			List<Map.Entry<String, Long>> slowest = new ArrayList<>(finishedDocuments.entrySet());
+			Collections.sort(slowest, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+			log.info("Slowest documents of Pepper job \"{}\": {}.", name, slowest.subList(0, Math.min(SLOWEST_DOCUMENTS, slowest.size())));
+		}
+		if (!moduleMillis.isEmpty()) {
+			log.info("Time spent per module in Pepper job \"{}\" (in ms, sampled): {}.", name, moduleMillis);
+		}
+	}
+
+	private List<DocumentController> getDocuments() {
+		if (!(job instanceof PepperJobImpl)) {
+			return Collections.emptyList();
+		}
+		List<DocumentController> documents = ((PepperJobImpl) job).getDocumentControllers();
+		if (documents == null) {
+			return Collections.emptyList();
+		}
+		try {
+			return new ArrayList<>(documents);
+		}
+		catch (ConcurrentModificationException e) {
+			// Documents are being added, try again with the next update
+			return Collections.emptyList();
+		}
+	}
+
+	private void documentFinished(DocumentController document, DOCUMENT_STATUS status) {
+		String id = document.getGlobalId();
+		if (finishedDocuments.containsKey(id)) {
+			return;
+		}
+		Long millis = document.getProcessingTime();
+		finishedDocuments.put(id, millis == null ? 0L : millis);
+		if (status == DOCUMENT_STATUS.FAILED) {
+			failedDocuments++;
+		}
+		log.debug("Document {} of Pepper job \"{}\" {} after {} ms.", id, name, status, millis);
+	}
+
+	private void sampleModule(ModuleController module, long millis) {
+		PepperModule pepperModule = module == null ? null : module.getPepperModule();
+		if (pepperModule == null) {
+			return;
+		}
+		String moduleName = pepperModule.getName();
+		Long total = moduleMillis.get(moduleName);
+		moduleMillis.put(moduleName, (total == null ? 0 : total) + millis);
+	}
+
+	private String getProgressMessage(long now) {
+		long millis = now - start;
+		int finished = finishedDocuments.size();
+		StringBuilder message = new StringBuilder();
+		message.append(finished).append(" of ").append(documentCount).append(" documents converted");
+		if (finished > 0) {
+			message.append(", ").append(getThroughput(millis));
+			long remainingSeconds = (documentCount - finished) * millis / finished / 1000;
+			message.append(", about ").append(remainingSeconds < 60 ? remainingSeconds + " s" : (remainingSeconds / 60) + " min").append(" remaining");
+		}
+		return message.toString();
+	}
+
+	private String getThroughput(long millis) {
+		double perMinute = millis == 0 ? 0 : finishedDocuments.size() * 60000d / millis;
+		return String.format("%.1f documents/min", perMinute);
+	}
+
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.Activator;
+import org.corpus_tools.pepper.common.PepperJob;
+import org.corpus_tools.pepper.common.StepDesc;
+import org.corpus_tools.pepper.connectors.PepperConnector;
+import org.corpus_tools.pepper.core.PepperJobImpl;
+import org.corpus_tools.pepper.core.Step;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Runs Pepper conversions, i.e., imports and exports, on a shared, bounded
+ * pool of worker threads.
+ * <p>
+ * Each conversion is represented by a user {@link Job}, which reports its
+ * progress in the Progress view via a {@link PepperJobProgress}, and is not
+ * bound to the wizard which has scheduled it. At most {@link #getWorkerCount()} conversions run
+ * concurrently, further conversions wait in the order in which they have
+ * been scheduled. Cancelling a waiting conversion removes it from the
+ * queue. Running conversions are interrupted, but as Pepper cannot be
+ * stopped reliably, they may keep their worker busy until they finish.
+ * </p>
+ *
+ */
+public final class PepperJobScheduler {
+
+	private static final Logger log = LogManager.getLogger(PepperJobScheduler.class);
+
+	private static final PepperJobScheduler INSTANCE = new PepperJobScheduler();
+
+	/**
+	 * The family of all conversion jobs, cf. {@link Job#belongsTo(Object)}.
+	 */
+	public static final Object FAMILY = PepperJobScheduler.class;
+
+	/**
+	 * The interval in which jobs check their conversion and their monitor.
+	 */
+	private static final long POLL_MILLIS = 250;
+
+	private final AtomicInteger threadCounter = new AtomicInteger();
+	private final ThreadPoolExecutor workers;
+
+	private PepperJobScheduler() {
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+			Thread thread = new Thread(runnable, "Pepper conversion #" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		workers.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the scheduler instance
+	 */
+	public static PepperJobScheduler getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the maximum number of conversions running concurrently
+	 */
+	public int getWorkerCount() {
+		return workers.getMaximumPoolSize();
+	}
+
+	/**
+	 * @return the number of conversions waiting for a free worker
+	 */
+	public int getQueuedCount() {
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * Schedules a Pepper conversion. The steps are added to a new
+	 * {@link PepperJob}, which is converted once a worker is free.
+	 *
+	 * @param name the name of the conversion as shown in the Progress view
+	 * @param pepper the Pepper instance to create the job with
+	 * @param steps the steps of the job, i.e., its importer, manipulators and
+	 *            exporter, which may include {@link Step}s with a module
+	 *            instance, e.g., from
+	 *            {@link DocumentImportManipulator#createStep(IProject)}
+	 * @param project the project to refresh after the conversion
+	 * @param cancelable whether running conversions are interrupted when
+	 *            the job is cancelled
+	 * @return the scheduled job
+	 */
+	public Job schedule(String name, PepperConnector pepper, List<StepDesc> steps, IProject project, boolean cancelable) {
+		Job job = new PepperConversionJob(name, pepper, new ArrayList<>(steps), project, cancelable);
+		job.schedule();
+		return job;
+	}
+
+	/**
+	 * A {@link Job} representing a single conversion in the Progress view.
+	 */
+	private final class PepperConversionJob extends Job {
+
+		private final PepperConnector pepper;
+		private final List<StepDesc> steps;
+		private final IProject project;
+		private final boolean cancelable;
+		private volatile boolean started = false;
+		private volatile PepperJob pepperJob = null;
+
+		private PepperConversionJob(String name, PepperConnector pepper, List<StepDesc> steps, IProject project, boolean cancelable) {
+			super(name);
+			this.pepper = pepper;
+			this.steps = steps;
+			this.project = project;
+			this.cancelable = cancelable;
+			setUser(true);
+			setPriority(Job.LONG);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			SubMonitor progress = SubMonitor.convert(monitor, getName(), 100);
+			progress.subTask("Waiting for a free Pepper worker (" + (getQueuedCount() + 1) + " conversions waiting)...");
+			long start = System.currentTimeMillis();
+			Future<?> conversion = workers.submit(() -> {
+				started = true;
+				long convertStart = System.currentTimeMillis();
+				String jobId = pepper.createJob();
+				PepperJob job = pepper.getJob(jobId);
+				try {
+					for (StepDesc step : steps) {
+						if (step instanceof Step) {
+							// A step with a module instance, e.g., a DocumentImportManipulator
+							if (!(job instanceof PepperJobImpl)) {
+								throw new IllegalStateException("Cannot run step " + step.getName() + " of " + getName() + ", as the Pepper job " + job.getClass().getName() + " cannot run module instances.");
+							}
+							((PepperJobImpl) job).addStep((Step) step);
+						}
+						else {
+							job.addStepDesc(step);
+						}
+					}
+					pepperJob = job;
+					job.convert();
+				}
+				finally {
+					pepper.removeJob(jobId);
+				}
+				log.info("Pepper conversion \"{}\" took {} ms.", getName(), System.currentTimeMillis() - convertStart);
+			});
+			PepperJobProgress jobProgress = null;
+			try {
+				while (true) {
+					try {
+						conversion.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+						break;
+					}
+					catch (TimeoutException e) {
+						if (jobProgress == null && pepperJob != null) {
+							jobProgress = new PepperJobProgress(pepperJob, getName(), progress.newChild(95));
+						}
+						if (jobProgress != null) {
+							jobProgress.update();
+						}
+						if (progress.isCanceled() && (!started || cancelable)) {
+							conversion.cancel(true);
+							if (started) {
+								log.warn("Pepper conversion \"{}\" has been cancelled, but may keep running in the background.", getName());
+							}
+							return Status.CANCEL_STATUS;
+						}
+					}
+				}
+				if (jobProgress == null && pepperJob != null) {
+					jobProgress = new PepperJobProgress(pepperJob, getName(), progress.newChild(95));
+				}
+				if (jobProgress != null) {
+					jobProgress.done();
+				}
+				progress.setWorkRemaining(5);
+				progress.subTask("Refreshing " + project.getName() + "...");
+				project.refreshLocal(IResource.DEPTH_INFINITE, progress.newChild(5));
+				log.trace("Pepper job \"{}\" finished after {} ms.", getName(), System.currentTimeMillis() - start);
+				return Status.OK_STATUS;
+			}
+			catch (ExecutionException e) {
+				log.error("Pepper conversion \"{}\" failed.", getName(), e.getCause());
+				return new Status(IStatus.ERROR, Activator.PLUGIN_ID, getName() + " failed.", e.getCause());
+			}
+			catch (CoreException e) {
+				log.error("Could not refresh {} after Pepper conversion.", project.getName(), e);
+				return e.getStatus();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				conversion.cancel(cancelable);
+				return Status.CANCEL_STATUS;
+			}
+			finally {
+				monitor.done();
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+		 */
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == FAMILY;
+		}
+	}
+
+}
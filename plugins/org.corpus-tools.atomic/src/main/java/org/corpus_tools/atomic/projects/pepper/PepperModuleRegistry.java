@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.pepper.common.FormatDesc;
+import org.corpus_tools.pepper.common.MODULE_TYPE;
+import org.corpus_tools.pepper.common.PepperModuleDesc;
+import org.corpus_tools.pepper.connectors.PepperConnector;
+
+/**
+ * A cache of the descriptions of the Pepper modules registered with a
+ * Pepper instance, indexed by module type, by name, and by supported
+ * format.
+ * <p>
+ * Querying the registered modules from Pepper is expensive, so the
+ * descriptions are queried once, when the registry is first used after
+ * it has been created or invalidated. The registry must be invalidated
+ * via {@link #invalidate()} when modules are installed or updated, which
+ * {@link PepperService#reloadModules(org.eclipse.core.runtime.IProgressMonitor)}
+ * does. Lists returned by the registry are unmodifiable, and modules are
+ * sorted by name.
+ * </p>
+ *
+ */
+public class PepperModuleRegistry {
+
+	private static final Logger log = LogManager.getLogger(PepperModuleRegistry.class);
+
+	private final PepperConnector pepper;
+	private volatile Index index = null;
+
+	/**
+	 * @param pepper the Pepper instance whose modules are cached
+	 */
+	PepperModuleRegistry(PepperConnector pepper) {
+		this.pepper = pepper;
+	}
+
+	/**
+	 * @param type the module type
+	 * @return the modules of the type
+	 */
+	public List<PepperModuleDesc> getModules(MODULE_TYPE type) {
+		List<PepperModuleDesc> modules = getIndex().byType.get(type);
+		return modules == null ? Collections.<PepperModuleDesc>emptyList() : modules;
+	}
+
+	/**
+	 * @param type the module type
+	 * @param name the module name, e.g., "TextImporter"
+	 * @return the module of the type with the name, or <code>null</code> if
+	 *         there is no such module
+	 */
+	public PepperModuleDesc getModule(MODULE_TYPE type, String name) {
+		return getIndex().byName.get(key(type, name));
+	}
+
+	/**
+	 * @param type the module type
+	 * @param format the format
+	 * @return the modules of the type which support the format
+	 */
+	public List<PepperModuleDesc> getModules(MODULE_TYPE type, FormatDesc format) {
+		List<PepperModuleDesc> modules = getIndex().byFormat.get(key(type, format.getFormatName(), format.getFormatVersion()));
+		return modules == null ? Collections.<PepperModuleDesc>emptyList() : modules;
+	}
+
+	/**
+	 * Drops the cached descriptions, so that they are queried again when the
+	 * registry is used next.
+	 */
+	public void invalidate() {
+		index = null;
+	}
+
+	private Index getIndex() {
+		Index current = index;
+		if (current == null) {
+			synchronized (this) {
+				current = index;
+				if (current == null) {
+					long start = System.currentTimeMillis();
+					current = new Index(pepper.getRegisteredModules());
+					index = current;
+					log.debug("Indexed {} Pepper modules in {} ms.", current.byName.size(), System.currentTimeMillis() - start);
+				}
+			}
+		}
+		return current;
+	}
+
+	private static String key(Object... parts) {
+		StringBuilder key = new StringBuilder();
+		for (Object part : parts) {
+			key.append(part).append('\u0000');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * An immutable snapshot of the indexed module descriptions.
+	 */
+	private static final class Index {
+
+		private final Map<MODULE_TYPE, List<PepperModuleDesc>> byType = new EnumMap<>(MODULE_TYPE.class);
+		private final Map<String, PepperModuleDesc> byName = new HashMap<>();
+		private final Map<String, List<PepperModuleDesc>> byFormat = new HashMap<>();
+
+		private Index(Collection<PepperModuleDesc> modules) {
+			List<PepperModuleDesc> sorted = modules == null ? new ArrayList<PepperModuleDesc>() : new ArrayList<>(modules);
+			Collections.sort(sorted, new Comparator<PepperModuleDesc>() {
+				@Override
+				public int compare(PepperModuleDesc o1, PepperModuleDesc o2) {
+					return o1.getName().compareTo(o2.getName());
+				}
+			});
+			Map<MODULE_TYPE, List<PepperModuleDesc>> types = new EnumMap<>(MODULE_TYPE.class);
+			Map<String, List<PepperModuleDesc>> formats = new HashMap<>();
+			for (PepperModuleDesc module : sorted) {
+				add(types, module.getModuleType(), module);
+				byName.put(key(module.getModuleType(), module.getName()), module);
+				if (module.getSupportedFormats() != null) {
+					for (FormatDesc format : module.getSupportedFormats()) {
+						add(formats, key(module.getModuleType(), format.getFormatName(), format.getFormatVersion()), module);
+					}
+				}
+			}
+			for (Map.Entry<MODULE_TYPE, List<PepperModuleDesc>> entry : types.entrySet()) {
+				byType.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+			}
+			for (Map.Entry<String, List<PepperModuleDesc>> entry : formats.entrySet()) {
+				byFormat.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+			}
+		}
+
+		private static <K> void add(Map<K, List<PepperModuleDesc>> map, K key, PepperModuleDesc module) {
+			List<PepperModuleDesc> modules = map.get(key);
+			if (modules == null) {
+				modules = new ArrayList<>();
+				map.put(key, modules);
+			}
+			if (!modules.contains(module)) {
+				modules.add(module);
+			}
+		}
+	}
+
+}
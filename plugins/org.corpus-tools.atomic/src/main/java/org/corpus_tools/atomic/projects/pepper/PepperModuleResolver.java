@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
+import org.apache.maven.repository.internal.DefaultVersionRangeResolver;
+import org.apache.maven.repository.internal.DefaultVersionResolver;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.apache.maven.repository.internal.SnapshotMetadataGeneratorFactory;
+import org.apache.maven.repository.internal.VersionsMetadataGeneratorFactory;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.impl.MetadataGeneratorFactory;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.impl.VersionResolver;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.version.Version;
+
+/**
+ * Resolves Pepper modules and their dependencies from Maven repositories,
+ * sharing a single {@link RepositorySystemSession} and the results of all
+ * resolutions between the modules of an update run.
+ * <p>
+ * The session is given a {@link DefaultRepositoryCache}, so that the Maven
+ * models read for artifact descriptors, e.g., parent POMs, are cached, and
+ * its session data remembers which metadata has been checked already.
+ * Version ranges, resolved artifacts and collected dependency trees are
+ * memoized by this class. If several threads request the same resolution
+ * concurrently, it is performed once and the other threads wait for its
+ * result. Failed resolutions are memoized as well, and fail again for the
+ * remainder of the run.
+ * </p>
+ * <p>
+ * This class is thread-safe. It does not touch the OSGi environment or the
+ * dependency blacklist, which is the business of
+ * {@link AtomicMavenAccessor}.
+ * </p>
+ *
+ */
+public class PepperModuleResolver {
+
+	private static final Logger log = LogManager.getLogger(PepperModuleResolver.class);
+
+	private final RepositorySystem system;
+	private final RepositorySystemSession session;
+
+	private final ConcurrentMap<String, FutureTask<VersionRangeResult>> versionRanges = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, FutureTask<ArtifactResult>> artifacts = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, FutureTask<CollectResult>> dependencies = new ConcurrentHashMap<>();
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * Creates a resolver. The session is given a repository cache unless it
+	 * has one already, and is made read-only, as it is shared between
+	 * threads.
+	 *
+	 * @param system the repository system
+	 * @param session the session, configured with a local repository
+	 */
+	public PepperModuleResolver(RepositorySystem system, DefaultRepositorySystemSession session) {
+		this.system = system;
+		if (session.getCache() == null) {
+			session.setCache(new DefaultRepositoryCache());
+		}
+		session.setReadOnly();
+		this.session = session;
+	}
+
+	/**
+	 * @return a new repository system which can access file, HTTP and HTTPS
+	 *         repositories
+	 */
+	public static RepositorySystem newRepositorySystem() {
+		DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+		locator.addService(ArtifactDescriptorReader.class, DefaultArtifactDescriptorReader.class);
+		locator.addService(VersionResolver.class, DefaultVersionResolver.class);
+		locator.addService(VersionRangeResolver.class, DefaultVersionRangeResolver.class);
+		locator.addService(MetadataGeneratorFactory.class, SnapshotMetadataGeneratorFactory.class);
+		locator.addService(MetadataGeneratorFactory.class, VersionsMetadataGeneratorFactory.class);
+		locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+		locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+		locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+		return locator.getService(RepositorySystem.class);
+	}
+
+	/**
+	 * @return the shared session
+	 */
+	public RepositorySystemSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Finds the newest version of an artifact which is newer than the
+	 * installed version and can actually be resolved from the repository.
+	 *
+	 * @param groupId the group id
+	 * @param artifactId the artifact id
+	 * @param extension the extension, e.g., "zip" for Pepper modules
+	 * @param repositories the repositories to resolve from
+	 * @param isSnapshot whether snapshot versions are considered
+	 * @param installedVersion the installed version
+	 * @return the resolved artifact, or <code>null</code> if there is no
+	 *         newer version
+	 * @throws VersionRangeResolutionException if the available versions
+	 *             cannot be determined
+	 */
+	public Artifact resolveNewestVersion(String groupId, String artifactId, String extension, final List<RemoteRepository> repositories, boolean isSnapshot, Version installedVersion) throws VersionRangeResolutionException {
+		final Artifact range = new DefaultArtifact(groupId, artifactId, extension, "[0,)");
+		VersionRangeResult rangeResult = memoize(versionRanges, key(range, repositories), () -> {
+			VersionRangeRequest rangeRequest = new VersionRangeRequest(range, repositories, null);
+			return system.resolveVersionRange(session, rangeRequest);
+		}, VersionRangeResolutionException.class);
+		List<Version> versions = new ArrayList<>(rangeResult.getVersions());
+		Collections.reverse(versions);
+		for (Version version : versions) {
+			if (version.compareTo(installedVersion) <= 0) {
+				break;
+			}
+			Artifact artifact = new DefaultArtifact(groupId, artifactId, extension, version.toString());
+			if (artifact.isSnapshot() && !isSnapshot) {
+				continue;
+			}
+			try {
+				Artifact resolved = resolveArtifact(artifact, repositories).getArtifact();
+				if (resolved.getFile() != null && resolved.getFile().exists()) {
+					return resolved;
+				}
+			}
+			catch (ArtifactResolutionException e) {
+				log.warn("Version {} of {} could not be found in the repositories. Checking the next lower version ...", version, artifactId);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves an artifact, i.e., downloads it to the local repository
+	 * unless it is there already.
+	 *
+	 * @param artifact the artifact
+	 * @param repositories the repositories to resolve from
+	 * @return the result, including the artifact with its file
+	 * @throws ArtifactResolutionException if the artifact cannot be resolved
+	 */
+	public ArtifactResult resolveArtifact(final Artifact artifact, final List<RemoteRepository> repositories) throws ArtifactResolutionException {
+		return memoize(artifacts, key(artifact, repositories), () -> {
+			return system.resolveArtifact(session, new ArtifactRequest(artifact, repositories, null));
+		}, ArtifactResolutionException.class);
+	}
+
+	/**
+	 * Collects the dependency tree of an artifact.
+	 *
+	 * @param artifact the root artifact
+	 * @param repositories the repositories to resolve from
+	 * @return the result, including the root node of the tree
+	 * @throws DependencyCollectionException if the tree cannot be collected
+	 */
+	public CollectResult collectDependencies(final Artifact artifact, final List<RemoteRepository> repositories) throws DependencyCollectionException {
+		return memoize(dependencies, key(artifact, repositories), () -> {
+			CollectRequest collectRequest = new CollectRequest();
+			collectRequest.setRoot(new Dependency(artifact, ""));
+			collectRequest.setRepositories(repositories);
+			return system.collectDependencies(session, collectRequest);
+		}, DependencyCollectionException.class);
+	}
+
+	/**
+	 * @return how many resolutions have been answered from memory
+	 */
+	public int getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many resolutions have been performed
+	 */
+	public int getMissCount() {
+		return misses.get();
+	}
+
+	private <T, E extends Exception> T memoize(ConcurrentMap<String, FutureTask<T>> results, String key, Callable<T> resolution, Class<E> failure) throws E {
+		FutureTask<T> result = new FutureTask<>(resolution);
+		FutureTask<T> existing = results.putIfAbsent(key, result);
+		if (existing == null) {
+			misses.incrementAndGet();
+			result.run();
+		}
+		else {
+			hits.incrementAndGet();
+			result = existing;
+		}
+		try {
+			return result.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the resolution of " + key + ".");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (failure.isInstance(cause)) {
+				throw failure.cast(cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static String key(Artifact artifact, List<RemoteRepository> repositories) {
+		StringBuilder key = new StringBuilder(artifact.toString());
+		for (RemoteRepository repository : repositories) {
+			key.append('|').append(repository == null ? null : repository.getUrl());
+		}
+		return key.toString();
+	}
+
+}
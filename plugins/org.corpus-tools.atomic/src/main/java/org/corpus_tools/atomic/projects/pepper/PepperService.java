@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright 2016 Friedrich-Schiller-Universität Jena
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Stephan Druskat - initial API and implementation
+ *******************************************************************************/
+package org.corpus_tools.atomic.projects.pepper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.corpus_tools.atomic.Activator;
+import org.corpus_tools.atomic.projects.pepper.modules.LoadPepperModuleRunnable;
+import org.corpus_tools.pepper.common.MODULE_TYPE;
+import org.corpus_tools.pepper.connectors.PepperConnector;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Owns the single Pepper instance, i.e., {@link AtomicPepperOSGiConnector},
+ * which is shared by all wizards and jobs, so that the Pepper OSGi
+ * environment is set up and the Pepper modules are loaded only once.
+ * <p>
+ * Pepper is started lazily by the first call to {@link #getPepper()}, or
+ * in the background via {@link #start()}, which is called when the
+ * workbench has been started. {@link #isReady()} tells whether Pepper can
+ * be used without waiting, and {@link #awaitReady(IProgressMonitor)} waits
+ * for a start in progress, e.g., in a progress dialog. If Pepper cannot be
+ * started, the next call to {@link #getPepper()} tries again.
+ * </p>
+ * <p>
+ * The descriptions of the loaded modules are cached in a
+ * {@link PepperModuleRegistry}, which is filled while Pepper is started,
+ * and invalidated when modules are reloaded.
+ * </p>
+ *
+ */
+public final class PepperService {
+
+	private static final Logger log = LogManager.getLogger(PepperService.class);
+
+	private static final PepperService INSTANCE = new PepperService();
+
+	/**
+	 * The family of the job starting Pepper, cf. {@link Job#belongsTo(Object)}.
+	 */
+	public static final Object FAMILY = PepperService.class;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private volatile AtomicPepperStarter starter = null;
+	private volatile PepperModuleRegistry moduleRegistry = null;
+	private boolean mavenAccessorInitialized = false;
+
+	private PepperService() {
+		// Singleton
+	}
+
+	/**
+	 * @return the service instance
+	 */
+	public static PepperService getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts Pepper in the background, unless it has been started already.
+	 */
+	public void start() {
+		if (isReady()) {
+			return;
+		}
+		Job job = new Job("Starting Pepper") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					getPepper(monitor);
+					return Status.OK_STATUS;
+				}
+				catch (RuntimeException e) {
+					log.error("Could not start Pepper in the background.", e);
+					return new Status(IStatus.WARNING, Activator.PLUGIN_ID, "Pepper could not be started: " + e.getMessage(), e);
+				}
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == FAMILY;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.LONG);
+		job.schedule();
+	}
+
+	/**
+	 * @return whether Pepper has been started and its modules have been
+	 *         loaded
+	 */
+	public boolean isReady() {
+		return starter != null;
+	}
+
+	/**
+	 * Waits until Pepper has been started, if it is being started, without
+	 * blocking the caller's thread for longer than is necessary to notice
+	 * cancellation. Returns immediately if Pepper is not being started.
+	 *
+	 * @param monitor the monitor to report to and check for cancellation
+	 * @throws InterruptedException if the monitor has been cancelled
+	 */
+	public void awaitReady(IProgressMonitor monitor) throws InterruptedException {
+		monitor.beginTask("Waiting for Pepper to start ...", IProgressMonitor.UNKNOWN);
+		try {
+			while (!isReady() && !lock.tryLock(100, TimeUnit.MILLISECONDS)) {
+				if (monitor.isCanceled()) {
+					throw new InterruptedException();
+				}
+			}
+			if (lock.isHeldByCurrentThread()) {
+				lock.unlock();
+			}
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Returns the shared Pepper instance, and starts it first if it has not
+	 * been started yet.
+	 *
+	 * @return the Pepper instance
+	 */
+	public PepperConnector getPepper() {
+		return getPepper(new NullProgressMonitor());
+	}
+
+	private PepperConnector getPepper(IProgressMonitor monitor) {
+		AtomicPepperStarter pepperStarter = starter;
+		if (pepperStarter != null) {
+			return pepperStarter.getPepper();
+		}
+		lock.lock();
+		try {
+			if (starter == null) {
+				long start = System.currentTimeMillis();
+				pepperStarter = new AtomicPepperStarter();
+				pepperStarter.startPepper();
+				loadModules(pepperStarter.getPepper(), monitor);
+				PepperModuleRegistry registry = new PepperModuleRegistry(pepperStarter.getPepper());
+				// Index the modules now, so that wizard pages open without delay
+				registry.getModules(MODULE_TYPE.IMPORTER);
+				moduleRegistry = registry;
+				starter = pepperStarter;
+				log.info("Started Pepper in {} ms.", System.currentTimeMillis() - start);
+			}
+			return starter.getPepper();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the cache of the descriptions of the modules of the shared
+	 * Pepper instance, and starts Pepper first if it has not been started
+	 * yet.
+	 *
+	 * @return the module registry
+	 */
+	public PepperModuleRegistry getModuleRegistry() {
+		getPepper();
+		return moduleRegistry;
+	}
+
+	/**
+	 * Initializes the Maven accessor of the shared Pepper instance, which is
+	 * needed to update Pepper modules, unless it has been initialized
+	 * already.
+	 */
+	public void initMavenAccessor() {
+		getPepper();
+		lock.lock();
+		try {
+			if (!mavenAccessorInitialized) {
+				starter.initMavenAccessor();
+				mavenAccessorInitialized = true;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Loads the Pepper modules which have been added since Pepper has been
+	 * started, e.g., by an update, and invalidates the
+	 * {@link #getModuleRegistry() module registry}.
+	 *
+	 * @param monitor the monitor to report to
+	 */
+	public void reloadModules(IProgressMonitor monitor) {
+		PepperConnector pepper = getPepper();
+		lock.lock();
+		try {
+			loadModules(pepper, monitor);
+			moduleRegistry.invalidate();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private static void loadModules(PepperConnector pepper, IProgressMonitor monitor) {
+		try {
+			new LoadPepperModuleRunnable(pepper).run(monitor);
+		}
+		catch (InvocationTargetException e) {
+			log.error("Loading available non-core Pepper modules did not complete successfully!", e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
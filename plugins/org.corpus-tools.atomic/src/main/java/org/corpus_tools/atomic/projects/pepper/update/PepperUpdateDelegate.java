@@ -25,6 +25,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -35,7 +45,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.corpus_tools.atomic.projects.pepper.AtomicPepperConfiguration;
 import org.corpus_tools.atomic.projects.pepper.AtomicPepperOSGiConnector;
-import org.corpus_tools.atomic.projects.pepper.AtomicPepperStarter;
+import org.corpus_tools.atomic.projects.pepper.PepperService;
 import org.corpus_tools.pepper.connectors.PepperConnector;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -61,6 +71,13 @@ public class PepperUpdateDelegate {
 	 */
 	private static final Logger log = LogManager.getLogger(PepperUpdateDelegate.class);
 	private static final String FILE_MODULES_XML = "modules.xml";
+	/**
+	 * The number of modules updated concurrently. Updates mostly wait for
+	 * the network, and share the results of dependency resolution.
+	 */
+	private static final int UPDATE_THREADS = 4;
+	/** The interval in which the progress monitor is checked for cancellation. */
+	private static final long POLL_MILLIS = 250;
 	private PepperConnector pepper;
 	private Map<String, Pair<String, String>> moduleTable;
 	private static String MODULES_XML_PATH = null;
@@ -90,15 +107,18 @@ public class PepperUpdateDelegate {
 	}
 
 	/**
-	 * Handles the actual update process by starting an instance of Pepper (via an instance of {@link AtomicPepperStarter}), and calling {@link #update()}.
+	 * Handles the actual update process with the shared Pepper instance (via {@link PepperService}), and calling {@link #update()}.
+	 * Updated modules are loaded afterwards, so that they are available without a restart.
 	 */
 	protected IStatus run(IProgressMonitor monitor) {
-		AtomicPepperStarter pepperStarter = new AtomicPepperStarter();
-		pepperStarter.startPepper();
-		setPepper(pepperStarter.getPepper());
-		pepperStarter.initMavenAccessor();
+		PepperService pepperService = PepperService.getInstance();
+		setPepper(pepperService.getPepper());
+		pepperService.initMavenAccessor();
 
 		IStatus updateStatus = update(monitor);
+		if (updateStatus.isOK()) {
+			pepperService.reloadModules(monitor);
+		}
 		setResultText("");
 		for (String line : resultLines) {
 			setResultText(getResultText().concat("\n").concat(line));
@@ -108,6 +128,9 @@ public class PepperUpdateDelegate {
 
 	/**
 	 * Performs the actual update process by calling {@link AtomicPepperOSGiConnector#update(String, String, String, boolean, boolean)} on all entries of the module table.
+	 * The modules are updated concurrently on a small pool of threads, within a single update run
+	 * (cf. {@link AtomicPepperOSGiConnector#beginUpdateRun()}). When the update process is cancelled,
+	 * modules which are being updated are finished, and the remaining modules are skipped.
 	 * 
 	 * @param monitor
 	 * @return
@@ -129,39 +152,81 @@ public class PepperUpdateDelegate {
 		}
 		int workUnits = moduleTable.entrySet().size();
 		SubMonitor subMonitor = SubMonitor.convert(monitor, workUnits);
-		for (Map.Entry<String, Pair<String, String>> entry : moduleTable.entrySet()) {
-			subMonitor.setTaskName("Updating " + entry.getKey() + " ...");
-			boolean cancelled = updateModule(entry, subMonitor.newChild(1));
-			if (cancelled) {
-				log.warn("Update process was cancelled, returning {}.", Status.CANCEL_STATUS);
-				return Status.CANCEL_STATUS;
+		final AtomicPepperOSGiConnector pepper = (AtomicPepperOSGiConnector) getPepper();
+		final AtomicBoolean cancelled = new AtomicBoolean(false);
+		int threads = Math.max(1, Math.min(UPDATE_THREADS, workUnits));
+		ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger threadCounter = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Pepper module update #" + threadCounter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		CompletionService<Pair<String, Boolean>> updates = new ExecutorCompletionService<>(workers);
+		long start = System.currentTimeMillis();
+		pepper.beginUpdateRun();
+		try {
+			for (final Map.Entry<String, Pair<String, String>> entry : moduleTable.entrySet()) {
+				updates.submit(() -> Pair.of(entry.getKey(), updateModule(pepper, entry, cancelled)));
+			}
+			int done = 0;
+			while (done < workUnits) {
+				subMonitor.setTaskName("Updating Pepper modules (" + done + " of " + workUnits + " done) ...");
+				Future<Pair<String, Boolean>> update = updates.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (subMonitor.isCanceled() && !cancelled.getAndSet(true)) {
+					log.warn("Update process was cancelled, waiting for the running module updates to finish.");
+				}
+				if (update == null) {
+					continue;
+				}
+				done++;
+				subMonitor.worked(1);
+				try {
+					Pair<String, Boolean> result = update.get();
+					if (result.getRight() != null) {
+						String line = result.getLeft().concat(result.getRight() ? " successfully updated." : " NOT updated.");
+						log.info(line);
+						resultLines.add(line);
+					}
+				}
+				catch (ExecutionException e) {
+					log.error("Updating a Pepper module failed!", e.getCause());
+				}
 			}
 		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelled.set(true);
+		}
+		finally {
+			workers.shutdown();
+			pepper.endUpdateRun();
+			log.info("Updating {} Pepper modules on {} threads took {} ms.", workUnits, threads, System.currentTimeMillis() - start);
+		}
+		if (cancelled.get()) {
+			log.warn("Update process was cancelled, returning {}.", Status.CANCEL_STATUS);
+			return Status.CANCEL_STATUS;
+		}
 		return Status.OK_STATUS;
 	}
 
 	/**
-	 * Updates a single Pepper module.
+	 * Updates a single Pepper module. Called concurrently for different modules.
 	 *
+	 * @param pepper The Pepper instance
 	 * @param entry The entry from the module table referring to the module to be updated.
-	 * @param newChild
+	 * @param cancelled Whether the update process has been cancelled
+	 * @return Whether the module has been updated, or <code>null</code> if the update process has been cancelled before
 	 */
-	private boolean updateModule(Entry<String, Pair<String, String>> entry, SubMonitor newChild) {
-		if (newChild.isCanceled()) {
-			log.warn("Update was cancelled during processing module {}.", entry.getKey());
-			return true;
-		}
-		AtomicPepperOSGiConnector pepper = (AtomicPepperOSGiConnector) getPepper();
-		if (pepper.update(entry.getValue().getLeft(), entry.getKey(), entry.getValue().getRight(), false, false)) {
-			log.info(entry.getKey().concat(" successfully updated."));
-			resultLines.add(entry.getKey().concat(" successfully updated."));
-		}
-		else {
-			log.info(entry.getKey().concat(" NOT updated."));
-			resultLines.add(entry.getKey().concat(" NOT updated."));
+	private Boolean updateModule(AtomicPepperOSGiConnector pepper, Entry<String, Pair<String, String>> entry, AtomicBoolean cancelled) {
+		if (cancelled.get()) {
+			log.warn("Update was cancelled before processing module {}.", entry.getKey());
+			return null;
 		}
-		newChild.done();
-		return false;
+		return pepper.update(entry.getValue().getLeft(), entry.getKey(), entry.getValue().getRight(), false, false);
 	}
 
 	/**
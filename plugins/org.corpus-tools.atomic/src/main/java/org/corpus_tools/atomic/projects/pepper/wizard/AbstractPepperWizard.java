@@ -20,18 +20,13 @@
 package org.corpus_tools.atomic.projects.pepper.wizard;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CancellationException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.corpus_tools.atomic.Activator;
-import org.corpus_tools.atomic.projects.pepper.AtomicPepperStarter;
-import org.corpus_tools.atomic.projects.pepper.modules.LoadPepperModuleRunnable;
+import org.corpus_tools.atomic.projects.pepper.PepperService;
 import org.corpus_tools.pepper.common.FormatDesc;
 import org.corpus_tools.pepper.common.MODULE_TYPE;
 import org.corpus_tools.pepper.common.Pepper;
@@ -49,7 +44,6 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.wizard.IWizardPage;
 import org.eclipse.jface.wizard.Wizard;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.ServiceReference;
@@ -132,16 +126,23 @@ public abstract class AbstractPepperWizard extends Wizard {
 	}
 
 	/**
-	 * Sets up the Pepper instance, complete with configuration customized
-	 * for Atomic, loads the configuration, initializes the module
-	 * properties object and reads {@link DialogSettings}.
+	 * Gets the shared Pepper instance from the {@link PepperService},
+	 * waiting for it in a progress dialog if it is still being started,
+	 * initializes the module properties object and reads {@link DialogSettings}.
 	 * 
 	 * This method is called by implementing classes in {@link Wizard#init()}.
 	 */
 	public void initialize() {
-		AtomicPepperStarter pepperStarter = new AtomicPepperStarter();
-		pepperStarter.startPepper();
-		setPepper(pepperStarter.getPepper());
+		final PepperService pepperService = PepperService.getInstance();
+		if (!pepperService.isReady()) {
+			try {
+				PlatformUI.getWorkbench().getProgressService().busyCursorWhile(monitor -> pepperService.awaitReady(monitor));
+			}
+			catch (InvocationTargetException | InterruptedException e) {
+				log.warn("Stopped waiting for Pepper to start.", e);
+			}
+		}
+		setPepper(pepperService.getPepper());
 		pepperModuleProperties = new PepperModuleProperties();
 		// FIXME TODO Check whether previous selections are remembered.
 		readDialogSettings();
@@ -206,24 +207,15 @@ public abstract class AbstractPepperWizard extends Wizard {
 			if (canPerformFinish()) {
 				IProject project = getProject();
 
-				PepperModuleRunnable moduleRunnable = createModuleRunnable(project, true);
-				PlatformUI.getWorkbench().getProgressService().run(false, true, moduleRunnable);
-
-				boolean outcome = moduleRunnable.get().booleanValue();
-
-				if (outcome) {
-					writeDialogSettings();
-				}
-
-				return outcome;
+				// Runs in the background, and reports its status in the Progress view
+				createModuleRunnable(project, true).schedule();
+				writeDialogSettings();
+				return true;
 			}
 			else {
 				return false;
 			}
 		}
-		catch (CancellationException X) {
-			return false;
-		}
 		catch (Exception X) {
 			X.printStackTrace();
 			return false;
@@ -317,45 +309,15 @@ public abstract class AbstractPepperWizard extends Wizard {
 	 * @return a sorted list containing all modules belonging to the passed type
 	 */
 	protected List<PepperModuleDesc> getPepperModules(MODULE_TYPE moduleType) {
-		if (pepperModuleDescriptions == null) {
-			pepperModuleDescriptions = new ArrayList<>();
-		}
-		if (!pepperModuleDescriptions.isEmpty()) {
+		if (pepperModuleDescriptions != null && !pepperModuleDescriptions.isEmpty()) {
 			return pepperModuleDescriptions;
 		}
-		else {
-			LoadPepperModuleRunnable moduleRunnable = new LoadPepperModuleRunnable(getPepper());
-			try {
-				PlatformUI.getWorkbench().getProgressService().run(false, true, moduleRunnable);
-			}
-			catch (InvocationTargetException | InterruptedException e) {
-				log.error("Loading available non-core Pepper modules did not complete successfully!", e);
-				MessageDialog.openError(Display.getCurrent() != null ? Display.getCurrent().getActiveShell() : Display.getDefault().getActiveShell(), "Pepper modules not loaded!", "The available Pepper modules could not be loaded! Only the core modules will be available!");
-			}
-
-			// Compile list of module description for use in pages
-			if (getPepper() != null) {
-				Collection<PepperModuleDesc> allModuleDescs = getPepper().getRegisteredModules();
-				if (allModuleDescs != null) {
-					for (PepperModuleDesc desc : allModuleDescs) {
-						if (desc.getModuleType() == moduleType) {
-							pepperModuleDescriptions.add(desc);
-						}
-					}
-				}
-			}
-			if (pepperModuleDescriptions.isEmpty()) {
-				new MessageDialog(this.getShell(), "Error", null, "Did not find any Pepper module of type " + wizardMode.name() + "!", MessageDialog.ERROR, new String[] { IDialogConstants.OK_LABEL }, 0).open();
-			}
-			// Sort list of module descriptions
-			Collections.sort(pepperModuleDescriptions, new Comparator<PepperModuleDesc>() {
-				@Override
-				public int compare(PepperModuleDesc o1, PepperModuleDesc o2) {
-					return o1.getName().compareTo(o2.getName());
-				}
-			});
-			return pepperModuleDescriptions;
+		// The module descriptions are indexed once by the PepperService's module registry
+		pepperModuleDescriptions = PepperService.getInstance().getModuleRegistry().getModules(moduleType);
+		if (pepperModuleDescriptions.isEmpty()) {
+			new MessageDialog(this.getShell(), "Error", null, "Did not find any Pepper module of type " + wizardMode.name() + "!", MessageDialog.ERROR, new String[] { IDialogConstants.OK_LABEL }, 0).open();
 		}
+		return pepperModuleDescriptions;
 	}
 
 	/**
@@ -364,14 +326,10 @@ public abstract class AbstractPepperWizard extends Wizard {
 	 * @return the description of the module
 	 */
 	public PepperModuleDesc getPreviouslySelectedPepperModule() {
-		Collection<PepperModuleDesc> moduleList = getPepper().getRegisteredModules();
 		String moduleName = getDialogSettings().get(DIALOG_SETTINGS_MODULE);
-		if (0 < moduleList.size() && moduleName != null) {
-			for (PepperModuleDesc module : moduleList) {
-				if (moduleName.equals(module.getName())) {
-					return module;
-				}
-			}
+		if (moduleName != null) {
+			MODULE_TYPE moduleType = wizardMode == WizardMode.IMPORT ? MODULE_TYPE.IMPORTER : MODULE_TYPE.EXPORTER;
+			return PepperService.getInstance().getModuleRegistry().getModule(moduleType, moduleName);
 		}
 		return null;
 	}
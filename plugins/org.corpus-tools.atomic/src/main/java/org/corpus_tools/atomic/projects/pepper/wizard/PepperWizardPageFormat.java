@@ -20,7 +20,11 @@ package org.corpus_tools.atomic.projects.pepper.wizard;
 
 import java.util.List;
 
+import org.corpus_tools.atomic.projects.pepper.PepperService;
+import org.corpus_tools.atomic.projects.pepper.wizard.AbstractPepperWizard.WizardMode;
 import org.corpus_tools.pepper.common.FormatDesc;
+import org.corpus_tools.pepper.common.MODULE_TYPE;
+import org.corpus_tools.pepper.common.PepperModuleDesc;
 import org.eclipse.jface.layout.TableColumnLayout;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.viewers.ArrayContentProvider;
@@ -94,6 +98,11 @@ public class PepperWizardPageFormat extends WizardPage implements IWizardPage {
 			public String getText(Object element) {
 				return super.getText(((FormatDesc) element).getFormatName());
 			}
+
+			@Override
+			public String getToolTipText(Object element) {
+				return getOtherModulesText((FormatDesc) element);
+			}
 		});
 
 		tableColumn = tableViewerColumn.getColumn();
@@ -142,6 +151,26 @@ public class PepperWizardPageFormat extends WizardPage implements IWizardPage {
 		});
 	}
 
+	/**
+	 * Lists the other modules of the wizard's type which support a format,
+	 * as looked up in the module registry's format index.
+	 * 
+	 * @param format the format
+	 * @return the text listing the other modules, or <code>null</code> if
+	 *         only the selected module supports the format
+	 */
+	protected String getOtherModulesText(FormatDesc format) {
+		MODULE_TYPE moduleType = pepperWizard.getWizardMode() == WizardMode.IMPORT ? MODULE_TYPE.IMPORTER : MODULE_TYPE.EXPORTER;
+		PepperModuleDesc selectedModule = pepperWizard.getPepperModule();
+		StringBuilder text = new StringBuilder();
+		for (PepperModuleDesc module : PepperService.getInstance().getModuleRegistry().getModules(moduleType, format)) {
+			if (selectedModule == null || !module.getName().equals(selectedModule.getName())) {
+				text.append(text.length() == 0 ? "Also supported by " : ", ").append(module.getName());
+			}
+		}
+		return text.length() == 0 ? null : text.toString();
+	}
+
 	/* 
 	 * @copydoc @see org.eclipse.jface.dialogs.DialogPage#setVisible(boolean)
 	 */
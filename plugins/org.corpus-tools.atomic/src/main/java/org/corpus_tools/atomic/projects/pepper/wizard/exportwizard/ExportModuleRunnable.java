@@ -43,6 +43,14 @@ public class ExportModuleRunnable extends PepperModuleRunnable {
 		super(pepperWizard, project, cancelable);
 	}
 
+	/* 
+	 * @copydoc @see org.corpus_tools.atomic.pepper.wizard.PepperModuleRunnable#getJobName()
+	 */
+	@Override
+	protected String getJobName() {
+		return "Exporting " + project.getName() + " to " + new File(pepperWizard.getExchangeTargetPath()).getName();
+	}
+
 	/**
 	 * Creates a dummy import step for the SalXMLImporter.
 	 */
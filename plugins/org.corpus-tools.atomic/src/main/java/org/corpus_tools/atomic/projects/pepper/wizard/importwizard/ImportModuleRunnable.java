@@ -21,7 +21,11 @@
 package org.corpus_tools.atomic.projects.pepper.wizard.importwizard;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
+import org.corpus_tools.atomic.api.events.DocumentImportNotifier;
+import org.corpus_tools.atomic.projects.pepper.DocumentImportManipulator;
 import org.corpus_tools.atomic.projects.pepper.wizard.PepperModuleRunnable;
 import org.corpus_tools.pepper.common.CorpusDesc;
 import org.corpus_tools.pepper.common.MODULE_TYPE;
@@ -41,6 +45,14 @@ public class ImportModuleRunnable extends PepperModuleRunnable {
 		super(pepperWizard, project, cancelable);
 	}
 
+	/* 
+	 * @copydoc @see org.corpus_tools.atomic.pepper.wizard.PepperModuleRunnable#getJobName()
+	 */
+	@Override
+	protected String getJobName() {
+		return "Importing " + new File(pepperWizard.getExchangeTargetPath()).getName() + " into " + project.getName();
+	}
+
 	/* 
 	 * @copydoc @see org.corpus_tools.atomic.pepper.wizard.PepperModuleRunnable#createImporterParams()
 	 */
@@ -69,4 +81,16 @@ public class ImportModuleRunnable extends PepperModuleRunnable {
 		stepDesc.setModuleType(MODULE_TYPE.EXPORTER);
 		return (stepDesc);
 	}
+
+	/* 
+	 * @copydoc @see org.corpus_tools.atomic.pepper.wizard.PepperModuleRunnable#createManipulatorParams()
+	 */
+	@Override
+	protected List<StepDesc> createManipulatorParams() {
+		if (!DocumentImportNotifier.getInstance().hasListeners()) {
+			return Collections.emptyList();
+		}
+		// Pass the documents to listeners, e.g., the search index, before they are written
+		return Collections.<StepDesc>singletonList(DocumentImportManipulator.createStep(project));
+	}
 }
\ No newline at end of file
@@ -20,12 +20,18 @@ package org.corpus_tools.atomic.projects.wizard;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.corpus_tools.atomic.projects.pepper.AtomicPepperStarter;
+import org.corpus_tools.atomic.api.events.DocumentImportNotifier;
+import org.corpus_tools.atomic.projects.pepper.DocumentImportManipulator;
+import org.corpus_tools.atomic.projects.pepper.PepperJobScheduler;
+import org.corpus_tools.atomic.projects.pepper.PepperService;
+import org.corpus_tools.pepper.common.CorpusDesc;
 import org.corpus_tools.pepper.common.MODULE_TYPE;
-import org.corpus_tools.pepper.common.PepperJob;
 import org.corpus_tools.pepper.common.PepperModuleDesc;
 import org.corpus_tools.pepper.common.StepDesc;
 import org.corpus_tools.pepper.connectors.PepperConnector;
@@ -40,6 +46,7 @@ import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.INewWizard;
 import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.PlatformUI;
 
 /**
  * A wizard for creating new Atomic (i.e., Salt) projects.
@@ -75,29 +82,34 @@ public class NewAtomicProjectWizard extends Wizard implements INewWizard {
 	 */
 	@Override
 	public boolean performFinish() { // FIXME: Add logs
-		AtomicPepperStarter pepperStarter = new AtomicPepperStarter();
-		pepperStarter.startPepper();
-		this.pepper = pepperStarter.getPepper();
+		// Pepper may still be starting, so wait for it without blocking the UI thread
+		final PepperService pepperService = PepperService.getInstance();
+		try {
+			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(monitor -> {
+				pepperService.awaitReady(monitor);
+				this.pepper = pepperService.getPepper();
+			});
+		}
+		catch (InvocationTargetException e) {
+			log.error("Could not start Pepper.", e.getCause());
+			MessageDialog.openError(getShell(), "Pepper not available", "Could not start Pepper to import the corpus: " + e.getCause().getMessage());
+			return false;
+		}
+		catch (InterruptedException e) {
+			log.warn("Stopped waiting for Pepper to start.", e);
+			return false;
+		}
 		log.trace("Procured an instance of {}: {}.", this.pepper.getClass().getName(), this.pepper.toString());
-		String pepperJobId = pepper.createJob();
-		PepperJob pepperJob = pepper.getJob(pepperJobId);
-		log.trace("Procured an instance of {}: {}.", pepperJob.getClass().getName(), pepperJob.toString());
 		
 		// Create import step
-		StepDesc importStepDesc = pepperJob.createStepDesc();
+		StepDesc importStepDesc = new StepDesc();
+		importStepDesc.setCorpusDesc(new CorpusDesc());
 		importStepDesc.setModuleType(MODULE_TYPE.IMPORTER);
 		String importPath = page.getCorpus().getPath();
 		importStepDesc.getCorpusDesc().setCorpusPath(URI.createFileURI(importPath));
 		log.trace("Procured an instance of {}: {}.", importStepDesc.getClass().getName(), importStepDesc.toString());
-		PepperModuleDesc importer = null;
-		for (PepperModuleDesc md : pepper.getRegisteredModules()) {
-			if (md.getModuleType().equals(MODULE_TYPE.IMPORTER) && md.getName().equals("TextImporter")) {
-				importer = md;
-				break;
-			}
-		}
+		PepperModuleDesc importer = PepperService.getInstance().getModuleRegistry().getModule(MODULE_TYPE.IMPORTER, "TextImporter");
 		importStepDesc.setName(importer.getName());
-		pepperJob.addStepDesc(importStepDesc);
 		log.info("Successfully set up an importer of type {} for the creation of a new Atomic project from path {}.", importer.getName(), importPath);
 		
 		// Set up Eclipse project
@@ -120,7 +132,8 @@ public class NewAtomicProjectWizard extends Wizard implements INewWizard {
 		File iProjectLocation = new File(iProject.getLocation().toString());
 
 		// Create export step
-		StepDesc exportStepDesc = pepperJob.createStepDesc();
+		StepDesc exportStepDesc = new StepDesc();
+		exportStepDesc.setCorpusDesc(new CorpusDesc());
 		exportStepDesc.setModuleType(MODULE_TYPE.EXPORTER);
 		String outputCanonicalPath;
 		try {
@@ -131,33 +144,21 @@ public class NewAtomicProjectWizard extends Wizard implements INewWizard {
 		}
 		exportStepDesc.getCorpusDesc().setCorpusPath(URI.createFileURI(outputCanonicalPath));
 		log.trace("Procured an instance of {}: {}.", importStepDesc.getClass().getName(), outputCanonicalPath);
-		PepperModuleDesc exporter = null;
-		for (PepperModuleDesc md : pepper.getRegisteredModules()) {
-			if (md.getModuleType().equals(MODULE_TYPE.EXPORTER) && md.getName().equals("SaltXMLExporter")) {
-				exporter = md;
-				break;
-			}
-		}
+		PepperModuleDesc exporter = PepperService.getInstance().getModuleRegistry().getModule(MODULE_TYPE.EXPORTER, "SaltXMLExporter");
 		exportStepDesc.setName(exporter.getName());
-		pepperJob.addStepDesc(exportStepDesc);
 		log.info("Successfully set up an exporter of type {} for the creation of a new Atomic project to path {}.", importer.getName(), outputCanonicalPath);
 
-		// Convert
-		log.trace("Starting conversion with Pepper job {}.", pepperJob.toString());
-		// TODO Add observation and reporting!
-		try {
-			pepperJob.convert();
-		} catch (Exception e) {
-			log.error("An error occurred during the conversion of a text corpus to a Salt project during the creation of a new project!", e);
-		} finally {
-			pepper.removeJob(pepperJobId);
-		}
-		try {
-			iProject.refreshLocal(IProject.DEPTH_INFINITE, null);
-		}
-		catch (CoreException e) {
-			log.error("Could not refresh IProject for SaltProject {}!", projectName, e);
+		// Convert in the background, reporting progress in the Progress view,
+		// and refresh the project when done
+		log.trace("Scheduling conversion of {} into project {}.", importPath, projectName);
+		List<StepDesc> steps = new ArrayList<>();
+		steps.add(importStepDesc);
+		if (DocumentImportNotifier.getInstance().hasListeners()) {
+			// Pass the documents to listeners, e.g., the search index, before they are written
+			steps.add(DocumentImportManipulator.createStep(iProject));
 		}
+		steps.add(exportStepDesc);
+		PepperJobScheduler.getInstance().schedule("Creating project " + projectName + " from " + new File(importPath).getName(), pepper, steps, iProject, true);
 		// Finally, return true (i.e., wizard is done).
 		return true;
 	}
@@ -19,21 +19,18 @@ import java.util.regex.PatternSyntaxException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.corpus_tools.atomic.api.editors.DocumentGraphEditor;
+import org.corpus_tools.atomic.api.editors.CorpusStructureCache;
 import org.corpus_tools.atomic.exceptions.AtomicGeneralException;
 import org.corpus_tools.atomic.tagset.Tagset;
 import org.corpus_tools.atomic.tagset.TagsetValue;
 import org.corpus_tools.atomic.tagset.impl.TagsetFactory;
 import org.corpus_tools.atomic.ui.tagset.editor.configuration.CustomLabelAccumulator;
 import org.corpus_tools.atomic.ui.tagset.editor.configuration.TagsetEditorConfiguration;
-import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpus;
 import org.corpus_tools.salt.common.SaltProject;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -141,20 +138,9 @@ public class TagsetEditor extends EditorPart {
 			IProject iProject = ((FileEditorInput) input).getFile().getProject();
 			
 			// Get corpus for tagset via SaltProject
-			IFile saltProjectResource = null;
-			try {
-				for (IResource member : iProject.members()) {
-					if (member instanceof IFile && member.getName().equalsIgnoreCase(DocumentGraphEditor.SALT_PROJECT_FILE_NAME)) { // FIXME Externalize and treat for case, etc
-						saltProjectResource = (IFile) member;
-					}
-				}
-			}
-			catch (CoreException e) {
-				log.error("An error occurred getting the Salt project file.", e);
-			}
-			String projectFilePath = saltProjectResource.getRawLocation().toOSString();
-			SaltProject saltProject = SaltFactory.createSaltProject();
-			saltProject.loadCorpusStructure(URI.createFileURI(projectFilePath));
+			IFile saltProjectResource = CorpusStructureCache.findSaltProjectFile(iProject);
+			Assert.isNotNull(saltProjectResource, "Project " + iProject.getName() + " does not contain a Salt project file.");
+			SaltProject saltProject = CorpusStructureCache.getInstance().getSaltProject(URI.createFileURI(saltProjectResource.getLocation().toOSString()));
 			Assert.isTrue(saltProject.getCorpusGraphs().size() == 1, "Atomic cannot currently work with Salt projects that contain more than one corpus graph.");
 			Assert.isTrue(saltProject.getCorpusGraphs().get(0).getCorpora().size() == 1, "Atomic cannot currently work with Salt projects containins more than one corpus.");
 			corpus = saltProject.getCorpusGraphs().get(0).getCorpora().get(0);
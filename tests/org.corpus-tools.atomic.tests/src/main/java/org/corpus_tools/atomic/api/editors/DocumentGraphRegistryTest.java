@@ -0,0 +1,82 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.api.editors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.samples.SampleGenerator;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link DocumentGraphRegistry}.
+ *
+ */
+public class DocumentGraphRegistryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private URI location = null;
+
+	/**
+	 * Persists a sample document graph as SaltXML.
+	 */
+	@Before
+	public void setUp() {
+		SDocument document = SaltFactory.createSDocument();
+		SampleGenerator.createTokens(document);
+		location = URI.createFileURI(new File(folder.getRoot(), "doc.salt").getAbsolutePath());
+		SaltUtil.saveDocumentGraph(document.getDocumentGraph(), location);
+	}
+
+	/**
+	 * Test method for {@link DocumentGraphRegistry#releaseWhenSaved(URI)}.
+	 */
+	@Test
+	public void testReleaseWhenSaved() {
+		DocumentGraphRegistry registry = DocumentGraphRegistry.getInstance();
+		SDocumentGraph graph = registry.acquire(location, null);
+		assertTrue(registry.retain(location));
+		assertEquals(2, registry.getReferenceCount(location));
+		SToken token = graph.getTokens().get(0);
+		SAnnotation annotation = token.createAnnotation("test", "pos", "NN");
+		registry.fireChanges(graph, this, Arrays.asList(DocumentGraphChangeEvent.annotationAdded(token, annotation)));
+		long position = registry.getJournalPosition(graph);
+
+		// A failed save hands over its reference, and the editor is closed
+		registry.releaseWhenSaved(location);
+		registry.release(location);
+		assertSame(graph, registry.get(location));
+		assertTrue(registry.hasUnsavedChanges(graph));
+
+		// Opening the document again restores the changes
+		assertSame(graph, registry.acquire(location, null));
+		SaltUtil.saveDocumentGraph(graph, location);
+		File file = new File(location.toFileString());
+		registry.compactJournal(graph, position, file.length(), file.lastModified());
+		assertFalse(registry.hasUnsavedChanges(graph));
+		assertEquals(1, registry.getReferenceCount(location));
+		registry.release(location);
+		assertNull(registry.get(location));
+	}
+
+}
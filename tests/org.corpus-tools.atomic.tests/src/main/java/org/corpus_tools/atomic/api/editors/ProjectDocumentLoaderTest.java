@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.api.editors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.samples.SampleGenerator;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ProjectDocumentLoader}.
+ *
+ */
+public class ProjectDocumentLoaderTest {
+
+	private static final int DOCUMENTS = 12;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<URI> locations = null;
+
+	/**
+	 * Sets up sample document graphs persisted as SaltXML.
+	 */
+	@Before
+	public void setUp() {
+		locations = new ArrayList<>();
+		for (int i = 0; i < DOCUMENTS; i++) {
+			SDocument document = SaltFactory.createSDocument();
+			document.setId("salt:/corpus/doc" + i);
+			SampleGenerator.createSyntaxStructure(document);
+			URI location = URI.createFileURI(new File(folder.getRoot(), "doc" + i + ".salt").getAbsolutePath());
+			SaltUtil.saveDocumentGraph(document.getDocumentGraph(), location);
+			locations.add(location);
+		}
+	}
+
+	/**
+	 * Test method for {@link ProjectDocumentLoader#forEachDocument(java.util.function.BiConsumer)}.
+	 */
+	@Test
+	public void testForEachDocumentInOrder() {
+		// A missing document is skipped
+		locations.add(3, URI.createFileURI(new File(folder.getRoot(), "missing.salt").getAbsolutePath()));
+		List<String> ids = new ArrayList<>();
+		List<URI> consumed = new ArrayList<>();
+		int count = new ProjectDocumentLoader(locations).forEachDocument((location, graph) -> {
+			consumed.add(location);
+			ids.add(graph.getId());
+			assertFalse(graph.getTokens().isEmpty());
+		});
+		assertEquals(DOCUMENTS, count);
+		for (int i = 0; i < DOCUMENTS; i++) {
+			assertEquals("salt:/corpus/doc" + i, ids.get(i));
+			assertNotEquals(locations.get(3), consumed.get(i));
+		}
+	}
+
+	/**
+	 * Test method for {@link ProjectDocumentLoader#forEachDocument(java.util.function.BiConsumer, org.eclipse.core.runtime.IProgressMonitor)}.
+	 */
+	@Test
+	public void testCancel() {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		List<URI> consumed = new ArrayList<>();
+		int count = new ProjectDocumentLoader(locations).forEachDocument((location, graph) -> {
+			consumed.add(location);
+			if (consumed.size() == 2) {
+				monitor.setCanceled(true);
+			}
+		}, monitor);
+		assertEquals(2, count);
+		assertEquals(locations.subList(0, 2), consumed);
+	}
+
+}
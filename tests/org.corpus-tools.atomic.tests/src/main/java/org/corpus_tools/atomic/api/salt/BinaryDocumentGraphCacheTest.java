@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.api.salt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.samples.SampleGenerator;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link BinaryDocumentGraphCache}.
+ *
+ */
+public class BinaryDocumentGraphCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SDocumentGraph graph = null;
+	private URI location = null;
+
+	/**
+	 * Sets up a sample document graph persisted as SaltXML.
+	 */
+	@Before
+	public void setUp() {
+		SDocument document = SaltFactory.createSDocument();
+		document.setId("salt:/corpus/doc");
+		SampleGenerator.createSyntaxStructure(document);
+		SampleGenerator.createSyntaxAnnotations(document);
+		SampleGenerator.createInformationStructureAnnotations(document);
+		SampleGenerator.createMorphologyAnnotations(document);
+		graph = document.getDocumentGraph();
+		graph.getTokens().get(0).createProcessingAnnotation("test", "count", 42);
+		graph.getTokens().get(1).createMetaAnnotation("test", "ratio", 0.5d);
+		location = URI.createFileURI(new File(folder.getRoot(), "doc.salt").getAbsolutePath());
+		SaltUtil.saveDocumentGraph(graph, location);
+	}
+
+	/**
+	 * Test method for {@link BinaryDocumentGraphCache#store(SDocumentGraph, URI)} and {@link BinaryDocumentGraphCache#load(URI)}.
+	 */
+	@Test
+	public void testRoundTrip() {
+		assertTrue(BinaryDocumentGraphCache.store(graph, location));
+		assertTrue(new File(folder.getRoot(), "doc." + BinaryDocumentGraphCache.FILE_EXTENSION).isFile());
+		SDocumentGraph loaded = BinaryDocumentGraphCache.load(location);
+		assertNotNull(loaded);
+		assertEquals(graph.getId(), loaded.getId());
+		assertEquals(graph.getNodes().size(), loaded.getNodes().size());
+		assertEquals(graph.getRelations().size(), loaded.getRelations().size());
+		assertEquals(graph.getLayers().size(), loaded.getLayers().size());
+		assertEquals(graph.getText(graph.getTokens().get(2)), loaded.getText(loaded.getTokens().get(2)));
+		SToken token = loaded.getTokens().get(0);
+		assertEquals(42, token.getProcessingAnnotation("test::count").getValue());
+		assertEquals(0.5d, loaded.getTokens().get(1).getMetaAnnotation("test::ratio").getValue());
+		assertTrue(SaltUtil.compare(graph).with(loaded).andCheckIsomorphie());
+	}
+
+	/**
+	 * Test method for {@link BinaryDocumentGraphCache#load(URI)}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testStaleSnapshotIsIgnored() throws IOException {
+		assertTrue(BinaryDocumentGraphCache.store(graph, location));
+		File saltFile = new File(location.toFileString());
+		assertTrue(saltFile.setLastModified(saltFile.lastModified() + 2000));
+		assertNull(BinaryDocumentGraphCache.load(location));
+	}
+
+	/**
+	 * Test method for {@link BinaryDocumentGraphCache#load(URI)}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testCorruptSnapshotIsIgnored() throws IOException {
+		assertTrue(BinaryDocumentGraphCache.store(graph, location));
+		File cacheFile = BinaryDocumentGraphCache.getCacheFile(new File(location.toFileString()));
+		try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+			file.seek(file.length() - 1);
+			file.write(file.read() ^ 0xFF);
+		}
+		assertNull(BinaryDocumentGraphCache.load(location));
+	}
+
+	/**
+	 * Test method for {@link BinaryDocumentGraphCache#store(SDocumentGraph, URI)}.
+	 */
+	@Test
+	public void testDisabled() {
+		BinaryDocumentGraphCache.setEnabled(false);
+		try {
+			assertFalse(BinaryDocumentGraphCache.store(graph, location));
+			assertNull(BinaryDocumentGraphCache.load(location));
+		}
+		finally {
+			BinaryDocumentGraphCache.setEnabled(true);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.api.salt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.atomic.api.events.DocumentGraphChangeEvent;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.samples.SampleGenerator;
+import org.corpus_tools.salt.util.SaltUtil;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link DocumentGraphJournal}.
+ *
+ */
+public class DocumentGraphJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private URI location = null;
+
+	/**
+	 * Persists a sample document graph as SaltXML.
+	 */
+	@Before
+	public void setUp() {
+		location = URI.createFileURI(new File(folder.getRoot(), "doc.salt").getAbsolutePath());
+		SaltUtil.saveDocumentGraph(createGraph(), location);
+	}
+
+	/**
+	 * Test method for {@link DocumentGraphJournal#undo()} and {@link DocumentGraphJournal#redo()}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testUndoRedo() throws IOException {
+		SDocumentGraph graph = loadGraph();
+		SDocumentGraph original = loadGraph();
+		DocumentGraphJournal journal = DocumentGraphJournal.open(graph, location);
+		assertTrue(journal.recover().isEmpty());
+		journal.record(insertToken(graph));
+		SDocumentGraph edited = loadGraph();
+		insertToken(edited);
+		assertTrue(journal.canUndo());
+		assertFalse(journal.undo().isEmpty());
+		assertTrue(SaltUtil.compare(original).with(graph).andCheckIsomorphie());
+		assertFalse(journal.canUndo());
+		assertFalse(journal.redo().isEmpty());
+		assertEquals("New " + original.getTextualDSs().get(0).getText(), graph.getTextualDSs().get(0).getText());
+		assertTrue(SaltUtil.compare(edited).with(graph).andCheckIsomorphie());
+		journal.discard();
+		assertFalse(DocumentGraphJournal.getJournalFile(new File(location.toFileString())).exists());
+	}
+
+	/**
+	 * Test method for {@link DocumentGraphJournal#recover()}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testRecover() throws IOException {
+		SDocumentGraph graph = loadGraph();
+		DocumentGraphJournal journal = DocumentGraphJournal.open(graph, location);
+		journal.record(insertToken(graph));
+		// Simulate a crash, leaving the journal behind
+		SDocumentGraph recovered = loadGraph();
+		DocumentGraphJournal reopened = DocumentGraphJournal.open(recovered, location);
+		assertTrue(reopened.hasUnsavedTransactions());
+		assertFalse(reopened.recover().isEmpty());
+		assertTrue(SaltUtil.compare(graph).with(recovered).andCheckIsomorphie());
+		assertTrue(reopened.canUndo());
+	}
+
+	/**
+	 * Test method for {@link DocumentGraphJournal#compact(long, long, long)}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testCompact() throws IOException {
+		SDocumentGraph graph = loadGraph();
+		DocumentGraphJournal journal = DocumentGraphJournal.open(graph, location);
+		journal.record(insertToken(graph));
+		long position = journal.getPosition();
+		SaltUtil.saveDocumentGraph(graph, location);
+		File saltFile = new File(location.toFileString());
+		journal.compact(position, saltFile.length(), saltFile.lastModified());
+		SToken token = graph.getTokens().get(1);
+		SAnnotation annotation = token.createAnnotation("test", "pos", "NN");
+		journal.record(Arrays.asList(DocumentGraphChangeEvent.annotationAdded(token, annotation)));
+		SDocumentGraph recovered = loadGraph();
+		DocumentGraphJournal reopened = DocumentGraphJournal.open(recovered, location);
+		assertEquals(1, reopened.recover().size());
+		assertTrue(SaltUtil.compare(graph).with(recovered).andCheckIsomorphie());
+	}
+
+	/**
+	 * Test method for {@link DocumentGraphJournal#open(SDocumentGraph, URI)}.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testStaleJournalIsDiscarded() throws IOException {
+		DocumentGraphJournal journal = DocumentGraphJournal.open(loadGraph(), location);
+		SDocumentGraph graph = loadGraph();
+		journal.record(insertToken(graph));
+		File saltFile = new File(location.toFileString());
+		assertTrue(saltFile.setLastModified(saltFile.lastModified() + 2000));
+		DocumentGraphJournal reopened = DocumentGraphJournal.open(loadGraph(), location);
+		assertFalse(reopened.hasUnsavedTransactions());
+		assertTrue(reopened.recover().isEmpty());
+	}
+
+	/*
+	 * Inserts a token at the start of the text, and annotates and removes
+	 * existing tokens, as an editor would.
+	 */
+	private static List<DocumentGraphChangeEvent> insertToken(SDocumentGraph graph) {
+		List<DocumentGraphChangeEvent> changes = new ArrayList<>();
+		STextualDS text = graph.getTextualDSs().get(0);
+		text.setText("New " + text.getText());
+		for (STextualRelation relation : graph.getTextualRelations()) {
+			relation.setStart(relation.getStart() + 4);
+			relation.setEnd(relation.getEnd() + 4);
+		}
+		SToken token = graph.createToken(text, 0, 3);
+		changes.add(DocumentGraphChangeEvent.textChanged(text));
+		changes.addAll(DocumentGraphChangeEvent.nodeAddedWithRelations(token));
+		SAnnotation annotation = token.createAnnotation("test", "pos", "ADJ");
+		changes.add(DocumentGraphChangeEvent.annotationAdded(token, annotation));
+		SToken last = graph.getTokens().get(graph.getTokens().size() - 2);
+		changes.addAll(DocumentGraphChangeEvent.nodeRemovedWithRelations(last));
+		graph.removeNode(last);
+		assertNull(graph.getNode(last.getId()));
+		return changes;
+	}
+
+	private static SDocumentGraph createGraph() {
+		SDocument document = SaltFactory.createSDocument();
+		document.setId("salt:/corpus/doc");
+		SampleGenerator.createTokens(document);
+		SampleGenerator.createMorphologyAnnotations(document);
+		return document.getDocumentGraph();
+	}
+
+	private SDocumentGraph loadGraph() {
+		SDocument document = SaltFactory.createSDocument();
+		document.loadDocumentGraph(location);
+		return document.getDocumentGraph();
+	}
+
+}
@@ -0,0 +1,85 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.extensions.processingcomponents.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RuleBasedTokenizer}.
+ *
+ */
+public class RuleBasedTokenizerTest {
+
+	private RuleBasedTokenizer fixture = null;
+
+	/**
+	 * Sets up the tokenizer with its default configuration.
+	 */
+	@Before
+	public void setUp() {
+		fixture = new RuleBasedTokenizer();
+	}
+
+	/**
+	 * Test method for {@link RuleBasedTokenizer#tokenize(CharSequence, RuleBasedTokenizer.TokenSpanConsumer)}.
+	 */
+	@Test
+	public void testTokenizeText() {
+		assertEquals(Arrays.asList("Dr.", "Smith", "didn't", "pay", "3.50", "for", "the", "well-known", "U.S.A.", "map", "..."),
+				tokens("Dr. Smith didn't pay 3.50 for the well-known U.S.A. map..."));
+		assertEquals(Arrays.asList("It", "ends", "here", ".", "I", "think", ",", "e.g.", "today", "!", "𝐀𝐁"),
+				tokens("It ends here. I think, e.g. today!\n𝐀𝐁"));
+		fixture.getConfiguration().setKeepHyphenatedWords(false);
+		fixture.getConfiguration().setGroupRepeatedPunctuation(false);
+		assertEquals(Arrays.asList("well", "-", "known", ".", ".", "."), tokens("well-known..."));
+	}
+
+	/**
+	 * Test method for {@link RuleBasedTokenizer#tokenize(SDocumentGraph, STextualDS)}.
+	 */
+	@Test
+	public void testTokenizeDocumentGraph() {
+		SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+		STextualDS text = graph.createTextualDS("Hello, world!");
+		assertEquals(4, fixture.tokenize(graph, text));
+		assertEquals(4, graph.getTokens().size());
+		List<STextualRelation> relations = graph.getTextualRelations();
+		assertEquals(4, relations.size());
+		assertEquals(Integer.valueOf(7), relations.get(2).getStart());
+		assertEquals(Integer.valueOf(12), relations.get(2).getEnd());
+		assertEquals("world", graph.getText(relations.get(2).getSource()));
+	}
+
+	/**
+	 * Tests that a large text is tokenized completely.
+	 */
+	@Test
+	public void testTokenizeLargeText() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			builder.append("Sentence number ").append(i).append(", e.g. one.\n");
+		}
+		int[] count = { 0 };
+		fixture.tokenize(builder, (start, end) -> count[0]++);
+		assertEquals(100000 * 7, count[0]);
+	}
+
+	private List<String> tokens(String text) {
+		List<String> tokens = new ArrayList<>();
+		fixture.tokenize(text, (start, end) -> tokens.add(text.substring(start, end)));
+		return tokens;
+	}
+
+}
@@ -0,0 +1,105 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.projects.pepper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.atomic.projects.pepper.DependencyBlacklist.Entry;
+import org.corpus_tools.atomic.projects.pepper.DependencyBlacklist.Status;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link DependencyBlacklist}.
+ *
+ */
+public class DependencyBlacklistTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file = null;
+
+	/**
+	 * Sets up a blacklist file as written by earlier versions, including a
+	 * duplicate and an invalid line.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		file = new File(folder.getRoot(), "dependencies/blacklist.cfg");
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), Arrays.asList(
+				"org.example:library:jar:1.0:OVERRIDABLE:",
+				"org.example:library:jar:2.0:FINAL:org.example.library",
+				"org.example:library:jar:2.0:FINAL:org.example.library",
+				"org.example:native:jar:linux:3.0:OVERRIDABLE:",
+				"org.example:parent-dependency:jar:1.5:FINAL",
+				"invalid"), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test method for {@link DependencyBlacklist#DependencyBlacklist(File)}.
+	 */
+	@Test
+	public void testLoad() throws IOException {
+		DependencyBlacklist blacklist = new DependencyBlacklist(file);
+		assertEquals(4, blacklist.size());
+		assertEquals(Status.FINAL, blacklist.getStatus(new DefaultArtifact("org.example:library:jar:9.9")));
+		assertEquals(Status.OVERRIDABLE, blacklist.getStatus(new DefaultArtifact("org.example:native:jar:3.0")));
+		assertEquals("linux", blacklist.get("org.example", "native").get(0).getArtifact().getClassifier());
+		assertNull(blacklist.getStatus(new DefaultArtifact("org.example:unknown:jar:1.0")));
+		assertEquals("2.0", blacklist.getByBundle("org.example.library").getArtifact().getVersion());
+		// The duplicate and the invalid line have been removed from the file
+		assertEquals(4, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+	}
+
+	/**
+	 * Test method for {@link DependencyBlacklist#get(String, String, String)}.
+	 */
+	@Test
+	public void testVersionRanges() throws Exception {
+		DependencyBlacklist blacklist = new DependencyBlacklist(file);
+		List<Entry> entries = blacklist.get("org.example", "library", "[1.0,2.0)");
+		assertEquals(1, entries.size());
+		assertEquals("1.0", entries.get(0).getArtifact().getVersion());
+		assertEquals(2, blacklist.get("org.example", "library", "[1.0,)").size());
+		assertEquals(1, blacklist.get("org.example", "library", "2.0").size());
+		assertTrue(blacklist.get("org.example", "library", "[3.0,)").isEmpty());
+	}
+
+	/**
+	 * Test method for {@link DependencyBlacklist#add(org.eclipse.aether.artifact.Artifact, Status, String)} and {@link DependencyBlacklist#flush()}.
+	 */
+	@Test
+	public void testAddAndFlush() throws IOException {
+		DependencyBlacklist blacklist = new DependencyBlacklist(file);
+		List<String> before = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertTrue(blacklist.add(new DefaultArtifact("org.example:added:jar:1.0"), Status.OVERRIDABLE, "org.example.added"));
+		assertFalse(blacklist.add(new DefaultArtifact("org.example:added:jar:1.0"), Status.FINAL, null));
+		assertTrue(blacklist.add(new DefaultArtifact("org.example:library:jar:3.0"), Status.OVERRIDABLE, null));
+		blacklist.flush();
+		List<String> after = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		// Entries are appended
+		assertEquals(before, after.subList(0, before.size()));
+		assertEquals(Arrays.asList("org.example:added:jar:1.0:OVERRIDABLE:org.example.added", "org.example:library:jar:3.0:OVERRIDABLE"), after.subList(before.size(), after.size()));
+		DependencyBlacklist reloaded = new DependencyBlacklist(file);
+		assertEquals(6, reloaded.size());
+		assertEquals(3, reloaded.get("org.example", "library").size());
+		assertEquals("org.example:added:jar:1.0", reloaded.getByBundle("org.example.added").getArtifact().toString());
+	}
+
+}
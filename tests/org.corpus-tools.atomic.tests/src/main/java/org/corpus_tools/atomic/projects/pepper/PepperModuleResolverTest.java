@@ -0,0 +1,155 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.projects.pepper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link PepperModuleResolver}, run offline against a
+ * file-based Maven repository.
+ *
+ */
+public class PepperModuleResolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PepperModuleResolver resolver = null;
+	private RemoteRepository repository = null;
+
+	/**
+	 * Sets up a remote repository containing two versions and a snapshot of
+	 * a module, and a library the newest version depends on.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		File remote = folder.newFolder("remote");
+		write(remote, "org/example/module/maven-metadata.xml", "<metadata><groupId>org.example</groupId><artifactId>module</artifactId><versioning><versions><version>1.0.0</version><version>1.1.0</version><version>2.0.0-SNAPSHOT</version></versions></versioning></metadata>");
+		write(remote, "org/example/module/1.0.0/module-1.0.0.pom", pom("module", "1.0.0", "zip", ""));
+		write(remote, "org/example/module/1.0.0/module-1.0.0.zip", "1.0.0");
+		write(remote, "org/example/module/1.1.0/module-1.1.0.pom", pom("module", "1.1.0", "zip", "<dependencies><dependency><groupId>org.example</groupId><artifactId>library</artifactId><version>3.0</version></dependency></dependencies>"));
+		write(remote, "org/example/module/1.1.0/module-1.1.0.zip", "1.1.0");
+		write(remote, "org/example/library/3.0/library-3.0.pom", pom("library", "3.0", "jar", ""));
+		write(remote, "org/example/library/3.0/library-3.0.jar", "3.0");
+		repository = new RemoteRepository.Builder("test", "default", remote.toURI().toString()).build();
+
+		RepositorySystem system = PepperModuleResolver.newRepositorySystem();
+		DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+		session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, new LocalRepository(folder.newFolder("local"))));
+		resolver = new PepperModuleResolver(system, session);
+	}
+
+	/**
+	 * Test method for {@link PepperModuleResolver#resolveNewestVersion(String, String, String, List, boolean, org.eclipse.aether.version.Version)}.
+	 */
+	@Test
+	public void testResolveNewestVersion() throws Exception {
+		GenericVersionScheme scheme = new GenericVersionScheme();
+		Artifact newest = resolver.resolveNewestVersion("org.example", "module", "zip", Collections.singletonList(repository), false, scheme.parseVersion("1.0.0"));
+		assertNotNull(newest);
+		assertEquals("1.1.0", newest.getVersion());
+		assertTrue(newest.getFile().isFile());
+		assertNull(resolver.resolveNewestVersion("org.example", "module", "zip", Collections.singletonList(repository), false, scheme.parseVersion("1.1.0")));
+		// The unresolvable snapshot is skipped
+		assertEquals("1.1.0", resolver.resolveNewestVersion("org.example", "module", "zip", Collections.singletonList(repository), true, scheme.parseVersion("0.0.0")).getVersion());
+	}
+
+	/**
+	 * Test method for {@link PepperModuleResolver#collectDependencies(Artifact, List)}.
+	 */
+	@Test
+	public void testCollectDependenciesConcurrently() throws Exception {
+		final Artifact module = new DefaultArtifact("org.example", "module", "zip", "1.1.0");
+		final List<RemoteRepository> repositories = Collections.singletonList(repository);
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<CollectResult>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < 8; i++) {
+				results.add(threads.submit(new Callable<CollectResult>() {
+					@Override
+					public CollectResult call() throws Exception {
+						return resolver.collectDependencies(module, repositories);
+					}
+				}));
+			}
+			CollectResult first = results.get(0).get();
+			for (Future<CollectResult> result : results) {
+				assertSame(first, result.get());
+			}
+			assertEquals(1, first.getRoot().getChildren().size());
+			assertEquals("library", first.getRoot().getChildren().get(0).getArtifact().getArtifactId());
+		}
+		finally {
+			threads.shutdown();
+		}
+		assertEquals(1, resolver.getMissCount());
+		assertEquals(7, resolver.getHitCount());
+	}
+
+	/**
+	 * Test method for {@link PepperModuleResolver#resolveArtifact(Artifact, List)}.
+	 */
+	@Test
+	public void testResolveArtifact() throws Exception {
+		List<RemoteRepository> repositories = Collections.singletonList(repository);
+		ArtifactResult library = resolver.resolveArtifact(new DefaultArtifact("org.example", "library", "jar", "3.0"), repositories);
+		assertTrue(library.getArtifact().getFile().isFile());
+		assertSame(library, resolver.resolveArtifact(new DefaultArtifact("org.example", "library", "jar", "3.0"), repositories));
+		for (int i = 0; i < 2; i++) {
+			try {
+				resolver.resolveArtifact(new DefaultArtifact("org.example", "missing", "jar", "1.0"), repositories);
+				fail("Resolving a missing artifact must fail.");
+			}
+			catch (ArtifactResolutionException e) {
+				// Expected, also when memoized
+			}
+		}
+		assertEquals(2, resolver.getMissCount());
+		assertEquals(2, resolver.getHitCount());
+	}
+
+	private static String pom(String artifactId, String version, String packaging, String dependencies) {
+		return "<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version><packaging>" + packaging + "</packaging>" + dependencies + "</project>";
+	}
+
+	private static void write(File root, String path, String content) throws IOException {
+		File file = new File(root, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
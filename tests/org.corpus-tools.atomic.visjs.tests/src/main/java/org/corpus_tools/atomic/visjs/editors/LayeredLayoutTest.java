@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.visjs.editors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.core.SNode;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LayeredLayout}.
+ *
+ */
+public class LayeredLayoutTest {
+
+	private static final int NODE_DIST = 100;
+
+	/**
+	 * Edges spanning more than one layer are split by a dummy vertex per
+	 * layer in between.
+	 */
+	@Test
+	public void testDummyVertices() {
+		LayeredLayout layout = new LayeredLayout(NODE_DIST);
+		SNode root = SaltFactory.createSStructure();
+		SNode phrase = SaltFactory.createSStructure();
+		SNode token1 = SaltFactory.createSToken();
+		SNode token2 = SaltFactory.createSToken();
+		layout.addNode(token1, 2, 0, true);
+		layout.addNode(token2, 2, NODE_DIST, true);
+		layout.addNode(phrase, 1, 0, false);
+		layout.addNode(root, 0, NODE_DIST / 2, false);
+		layout.addEdge(root, phrase);
+		layout.addEdge(root, token2);
+		layout.addEdge(phrase, token1);
+		layout.compute();
+
+		// root -> token2 crosses level 1
+		assertEquals(1, layout.getLayerSize(0));
+		assertEquals(2, layout.getLayerSize(1));
+		assertEquals(2, layout.getLayerSize(2));
+		assertEquals(0, layout.countCrossings());
+	}
+
+	/**
+	 * Vertices are reordered so that edges do not cross.
+	 */
+	@Test
+	public void testCrossingReduction() {
+		LayeredLayout layout = new LayeredLayout(NODE_DIST);
+		SNode left = SaltFactory.createSStructure();
+		SNode right = SaltFactory.createSStructure();
+		SNode token1 = SaltFactory.createSToken();
+		SNode token2 = SaltFactory.createSToken();
+		layout.addNode(token1, 1, 0, true);
+		layout.addNode(token2, 1, NODE_DIST, true);
+		// the initial positions cross the edges
+		layout.addNode(left, 0, 0, false);
+		layout.addNode(right, 0, NODE_DIST, false);
+		layout.addEdge(left, token2);
+		layout.addEdge(right, token1);
+		layout.compute();
+
+		assertEquals(0, layout.countCrossings());
+		assertTrue(layout.getX(right) < layout.getX(left));
+		assertEquals(layout.getX(token1), layout.getX(right));
+		assertEquals(layout.getX(token2), layout.getX(left));
+	}
+
+	/**
+	 * Fixed vertices, i.e., tokens, keep their order and coordinates, even if
+	 * this leaves crossings.
+	 */
+	@Test
+	public void testFixedTokenOrder() {
+		LayeredLayout layout = new LayeredLayout(NODE_DIST);
+		SNode[] tokens = new SNode[4];
+		for (int i = 0; i < tokens.length; i++) {
+			tokens[i] = SaltFactory.createSToken();
+			layout.addNode(tokens[i], 1, i * NODE_DIST, true);
+		}
+		SNode left = SaltFactory.createSStructure();
+		SNode right = SaltFactory.createSStructure();
+		layout.addNode(left, 0, 0, false);
+		layout.addNode(right, 0, NODE_DIST, false);
+		layout.addEdge(left, tokens[3]);
+		layout.addEdge(left, tokens[0]);
+		layout.addEdge(right, tokens[1]);
+		layout.addEdge(right, tokens[2]);
+		layout.compute();
+
+		for (int i = 0; i < tokens.length; i++) {
+			assertEquals(i * NODE_DIST, layout.getX(tokens[i]));
+		}
+		// both structures are centered above the same tokens
+		assertEquals(2, layout.getLayerSize(0));
+		assertTrue(Math.abs(layout.getX(left) - layout.getX(right)) >= NODE_DIST);
+	}
+
+}
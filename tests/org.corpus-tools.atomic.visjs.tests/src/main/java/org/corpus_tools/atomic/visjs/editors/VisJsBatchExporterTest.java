@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package org.corpus_tools.atomic.visjs.editors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.samples.SampleGenerator;
+import org.eclipse.emf.common.util.URI;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link VisJsBatchExporter}.
+ *
+ */
+public class VisJsBatchExporterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Test method for {@link VisJsBatchExporter#export(List)}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testExport() throws Exception {
+		List<SDocument> documents = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			SDocument document = SaltFactory.createSDocument();
+			document.setName("doc" + i);
+			SampleGenerator.createSyntaxStructure(document);
+			documents.add(document);
+		}
+		File outputFolder = folder.newFolder("export");
+		VisJsBatchExporter exporter = new VisJsBatchExporter(URI.createFileURI(outputFolder.getAbsolutePath()));
+		exporter.setThreads(2);
+		exporter.export(documents);
+
+		assertTrue(new File(outputFolder, VisJsBatchExporter.VIEWER_FILE).isFile());
+		assertTrue(new File(outputFolder, CustomVisJsVisualizer.JS_FOLDER_OUT + "/" + CustomVisJsVisualizer.JS_FILE).isFile());
+		assertTrue(new File(outputFolder, CustomVisJsVisualizer.CSS_FOLDER_OUT + "/" + CustomVisJsVisualizer.CSS_FILE).isFile());
+		JSONArray index = new JSONArray(new String(Files.readAllBytes(new File(outputFolder, VisJsBatchExporter.INDEX_FILE).toPath()), StandardCharsets.UTF_8));
+		assertEquals(3, index.length());
+		for (int i = 0; i < index.length(); i++) {
+			assertEquals("doc" + i, index.getJSONObject(i).getString("name"));
+			File jsonFile = new File(outputFolder, index.getJSONObject(i).getString("file"));
+			JSONObject json = new JSONObject(new String(Files.readAllBytes(jsonFile.toPath()), StandardCharsets.UTF_8));
+			int nodes = documents.get(i).getDocumentGraph().getNodes().size();
+			assertTrue(json.getJSONArray("nodes").length() > 0 && json.getJSONArray("nodes").length() <= nodes);
+			assertTrue(json.getJSONArray("edges").length() > 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link VisJsBatchExporter#write(SDocument)} and
+	 * {@link VisJsBatchExporter#finish()}.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWriteAndFinish() throws Exception {
+		File outputFolder = folder.newFolder("stream");
+		VisJsBatchExporter exporter = new VisJsBatchExporter(URI.createFileURI(outputFolder.getAbsolutePath()));
+		for (int i = 0; i < 2; i++) {
+			SDocument document = SaltFactory.createSDocument();
+			document.setName("doc");
+			SampleGenerator.createSyntaxStructure(document);
+			exporter.write(document);
+		}
+		exporter.finish();
+
+		assertTrue(new File(outputFolder, VisJsBatchExporter.VIEWER_FILE).isFile());
+		JSONArray index = new JSONArray(new String(Files.readAllBytes(new File(outputFolder, VisJsBatchExporter.INDEX_FILE).toPath()), StandardCharsets.UTF_8));
+		assertEquals(2, index.length());
+		// documents with the same name are written to different files
+		assertNotEquals(index.getJSONObject(0).getString("file"), index.getJSONObject(1).getString("file"));
+		for (int i = 0; i < index.length(); i++) {
+			assertTrue(new File(outputFolder, index.getJSONObject(i).getString("file")).isFile());
+		}
+	}
+
+}